@@ -0,0 +1,72 @@
+/*
+ *     Copyright (C) 2015  higherfrequencytrading.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package net.openhft.chronicle.engine.benchmarks;
+
+import net.openhft.chronicle.engine.api.map.MapView;
+import net.openhft.chronicle.engine.tree.VanillaAssetTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * get and put on a local VanillaMapView over the default vanilla KeyValueStore.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MapViewBenchmark {
+    private static final int KEYS = 1024;
+
+    private final String[] keys = new String[KEYS];
+    private VanillaAssetTree tree;
+    private MapView<String, String> map;
+    private int counter;
+
+    @Setup
+    public void setUp() {
+        tree = new VanillaAssetTree().forTesting(Throwable::printStackTrace);
+        map = tree.acquireMap("/benchmark/map?putReturnsNull=true", String.class, String.class);
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "key-" + i;
+            map.put(keys[i], "value-" + i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        tree.close();
+    }
+
+    private String nextKey() {
+        return keys[counter++ & (KEYS - 1)];
+    }
+
+    @Benchmark
+    public String get() {
+        return map.get(nextKey());
+    }
+
+    @Benchmark
+    public String put() {
+        String key = nextKey();
+        return map.put(key, key);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ *     Copyright (C) 2015  higherfrequencytrading.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package net.openhft.chronicle.engine.benchmarks;
+
+import net.openhft.chronicle.engine.api.map.MapView;
+import net.openhft.chronicle.engine.map.AuthenticatedKeyValueStore;
+import net.openhft.chronicle.engine.map.ChronicleMapKeyValueStore;
+import net.openhft.chronicle.engine.tree.VanillaAsset;
+import net.openhft.chronicle.engine.tree.VanillaAssetTree;
+import net.openhft.chronicle.wire.Marshallable;
+import net.openhft.chronicle.wire.WireIn;
+import net.openhft.chronicle.wire.WireOut;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of marshalling a value to and from a BytesStore in VanillaStringMarshallableKeyValueStore.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MarshallableKeyValueStoreBenchmark {
+    private static final int KEYS = 1024;
+
+    private final String[] keys = new String[KEYS];
+    private final Price using = new Price();
+    private VanillaAssetTree tree;
+    private MapView<String, Price> map;
+    private int counter;
+
+    @Setup
+    public void setUp() {
+        tree = new VanillaAssetTree().forTesting(Throwable::printStackTrace);
+        VanillaAsset root = (VanillaAsset) tree.root();
+        root.enableTranslatingValuesToBytesStore();
+        root.addLeafRule(AuthenticatedKeyValueStore.class, "in memory Chronicle Map", (context, asset) ->
+                new ChronicleMapKeyValueStore(context.entries(KEYS).averageValueSize(64), asset));
+        map = tree.acquireMap("/benchmark/prices?putReturnsNull=true", String.class, Price.class);
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "key-" + i;
+            map.put(keys[i], new Price(i, i + 1));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        tree.close();
+    }
+
+    private String nextKey() {
+        return keys[counter++ & (KEYS - 1)];
+    }
+
+    @Benchmark
+    public Price getUsing() {
+        return map.getUsing(nextKey(), using);
+    }
+
+    @Benchmark
+    public Price put() {
+        using.bidPrice = counter;
+        return map.put(nextKey(), using);
+    }
+
+    public static class Price implements Marshallable {
+        double bidPrice, askPrice;
+
+        public Price() {
+        }
+
+        Price(double bidPrice, double askPrice) {
+            this.bidPrice = bidPrice;
+            this.askPrice = askPrice;
+        }
+
+        @Override
+        public void readMarshallable(@NotNull WireIn wire) throws IllegalStateException {
+            bidPrice = wire.read(() -> "bidPrice").float64();
+            askPrice = wire.read(() -> "askPrice").float64();
+        }
+
+        @Override
+        public void writeMarshallable(@NotNull WireOut wire) {
+            wire.write(() -> "bidPrice").float64(bidPrice);
+            wire.write(() -> "askPrice").float64(askPrice);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *     Copyright (C) 2015  higherfrequencytrading.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+
+package net.openhft.chronicle.engine.benchmarks;
+
+import net.openhft.chronicle.engine.api.map.MapView;
+import net.openhft.chronicle.engine.server.ServerEndpoint;
+import net.openhft.chronicle.engine.tree.VanillaAssetTree;
+import net.openhft.chronicle.network.TCPRegistry;
+import net.openhft.chronicle.network.connection.TcpChannelHub;
+import net.openhft.chronicle.wire.WireType;
+import net.openhft.chronicle.wire.YamlLogging;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * get and put from a remote client over a loopback TcpChannelHub, for both TEXT and BINARY wire.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RemoteMapBenchmark {
+    private static final String HOST_PORT = "RemoteMapBenchmark.port";
+    private static final int KEYS = 1024;
+
+    @Param({"TEXT", "BINARY"})
+    public WireType wireType;
+
+    private final String[] keys = new String[KEYS];
+    private VanillaAssetTree serverAssetTree, clientAssetTree;
+    private ServerEndpoint serverEndpoint;
+    private MapView<String, String> map;
+    private int counter;
+
+    @Setup
+    public void setUp() throws IOException {
+        YamlLogging.setAll(false);
+        serverAssetTree = new VanillaAssetTree().forTesting(Throwable::printStackTrace);
+        TCPRegistry.createServerSocketChannelFor(HOST_PORT);
+        serverEndpoint = new ServerEndpoint(HOST_PORT, serverAssetTree);
+        clientAssetTree = new VanillaAssetTree().forRemoteAccess(HOST_PORT, wireType, Throwable::printStackTrace);
+
+        map = clientAssetTree.acquireMap("/benchmark/remote?putReturnsNull=true", String.class, String.class);
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "key-" + i;
+            map.put(keys[i], "value-" + i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        clientAssetTree.close();
+        serverEndpoint.close();
+        serverAssetTree.close();
+        TcpChannelHub.closeAllHubs();
+        TCPRegistry.reset();
+    }
+
+    private String nextKey() {
+        return keys[counter++ & (KEYS - 1)];
+    }
+
+    @Benchmark
+    public String get() {
+        return map.get(nextKey());
+    }
+
+    @Benchmark
+    public String put() {
+        String key = nextKey();
+        return map.put(key, key);
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ *     Copyright (C) 2015  higherfrequencytrading.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+
+package net.openhft.chronicle.engine.benchmarks;
+
+import net.openhft.chronicle.engine.api.tree.RequestContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of a uri with a query string by RequestContext.requestContext(uri).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RequestContextBenchmark {
+
+    @Param({"/group/map", "/group/map?bootstrap=false&putReturnsNull=true&keyType=String&valueType=String"})
+    public String uri;
+
+    @Benchmark
+    public RequestContext requestContext() {
+        return RequestContext.requestContext(uri);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ *     Copyright (C) 2015  higherfrequencytrading.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+
+package net.openhft.chronicle.engine.benchmarks;
+
+import net.openhft.chronicle.engine.api.map.MapEvent;
+import net.openhft.chronicle.engine.api.pubsub.Subscriber;
+import net.openhft.chronicle.engine.api.tree.Asset;
+import net.openhft.chronicle.engine.map.InsertedEvent;
+import net.openhft.chronicle.engine.map.MapKVSSubscription;
+import net.openhft.chronicle.engine.query.Filter;
+import net.openhft.chronicle.engine.tree.VanillaAssetTree;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static net.openhft.chronicle.engine.api.tree.RequestContext.requestContext;
+
+/**
+ * The cost of MapKVSSubscription.notifyEvent fanning an event out to 1, 100 and 10k entry subscribers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SubscriptionFanOutBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int subscribers;
+
+    private VanillaAssetTree tree;
+    private MapKVSSubscription<String, String> subscription;
+    private MapEvent<String, String> event;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        tree = new VanillaAssetTree().forTesting(Throwable::printStackTrace);
+        Asset asset = tree.acquireAsset("/benchmark/fanout");
+        subscription = new MapKVSSubscription<>(null, asset);
+        Subscriber<MapEvent<String, String>> subscriber = blackhole::consume;
+        for (int i = 0; i < subscribers; i++)
+            subscription.registerSubscriber(requestContext("/benchmark/fanout?bootstrap=false")
+                            .elementType(MapEvent.class),
+                    // a distinct instance per registration as the subscribers are held in a set.
+                    subscriber::onMessage, Filter.empty());
+        event = InsertedEvent.of("/benchmark/fanout", "key", "value", false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        subscription.close();
+        tree.close();
+    }
+
+    @Benchmark
+    public void notifyEvent() {
+        subscription.notifyEvent(event);
+    }
+}
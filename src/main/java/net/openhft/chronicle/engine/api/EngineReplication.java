@@ -18,6 +18,7 @@ package net.openhft.chronicle.engine.api;
 
 import net.openhft.chronicle.bytes.BytesStore;
 import net.openhft.chronicle.engine.api.pubsub.Replication;
+import net.openhft.chronicle.engine.map.replication.MerkleTree;
 import net.openhft.chronicle.wire.Marshallable;
 import net.openhft.chronicle.wire.WireIn;
 import net.openhft.chronicle.wire.WireOut;
@@ -25,6 +26,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * @author Rob Austin.
@@ -107,6 +109,29 @@ public interface EngineReplication extends Replication {
          */
         boolean nextEntry(Consumer<ReplicationEntry> consumer);
 
+        /**
+         * @return the number of segments which can be drained concurrently by {@link
+         * #forEachEntry(int, Predicate)}
+         */
+        default int segments() {
+            return 1;
+        }
+
+        /**
+         * Passes each changed entry of a segment to {@code action} and marks it as sent. Different
+         * segments can be drained by different threads at the same time, but not while {@link
+         * #nextEntry(Consumer)} is being called.
+         *
+         * @param segment the segment to drain
+         * @param action  returns {@code false} to stop after this entry
+         */
+        default void forEachEntry(int segment, @NotNull Predicate<ReplicationEntry> action) {
+            final boolean[] more = {true};
+            while (more[0] && nextEntry(e -> more[0] = action.test(e))) {
+                // keep going
+            }
+        }
+
         /**
          * Dirties all entries with a modification time equal to {@code fromTimeStamp} or newer. It
          * means all these entries will be considered as "new" by this ModificationIterator and
@@ -117,6 +142,18 @@ public interface EngineReplication extends Replication {
          */
         void dirtyEntries(long fromTimeStamp);
 
+        /**
+         * Dirties only the entries in the leaves of {@code localTree} which differ from {@code
+         * remoteTree}, so a remote node which has missed a few updates is sent just those.
+         *
+         * @param localTree  the hash tree of this node, as sent to the remote node
+         * @param remoteTree the hash tree of the remote node
+         * @return {@code false} if the trees can't be compared, in which case nothing is dirtied
+         */
+        default boolean dirtyEntries(@NotNull MerkleTree localTree, @NotNull MerkleTree remoteTree) {
+            return false;
+        }
+
         /**
          * the {@code modificationNotifier} is called when ever there is a change applied to the
          * modification iterator
@@ -23,6 +23,7 @@ import net.openhft.chronicle.engine.api.tree.Asset;
 import net.openhft.chronicle.engine.api.tree.AssetTree;
 import net.openhft.chronicle.engine.map.ObjectKeyValueStore;
 import net.openhft.chronicle.engine.map.ObjectSubscription;
+import net.openhft.chronicle.engine.map.replication.ReplicationStats;
 import net.openhft.chronicle.engine.tree.HostIdentifier;
 import net.openhft.chronicle.engine.tree.TopologicalEvent;
 import net.openhft.chronicle.network.api.session.SessionDetails;
@@ -48,6 +49,7 @@ import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * Created by peter.lawrey on 16/06/2015.
@@ -212,15 +214,12 @@ public enum ManagementTools {
                 m.put("keyStoreValue", objectSubscription.getClass().getName());
                 m.put("path", e.assetName() + "-" + e.name());
 
-                for (int i = 0; i < view.segments(); i++) {
-                    view.entriesFor(i, entry -> {
-                        if (entry.getValue().toString().length() > 256) {
-                            m.put("~" + entry.getKey().toString(), entry.getValue().toString().substring(0, 256) + "...");
-                        } else {
-                            m.put("~" + entry.getKey().toString(), entry.getValue().toString());
-                        }
-                    });
-                }
+                m.putAll(view.collectEntries(Collectors.toMap(entry -> "~" + entry.getKey().toString(),
+                        entry -> {
+                            String value = entry.getValue().toString();
+                            return value.length() > 256 ? value.substring(0, 256) + "..." : value;
+                        },
+                        (a, b) -> b)));
                 dynamicMBean = new AssetTreeDynamicMBean(m);
                 ObjectName atName = new ObjectName(createObjectNameUri(hostId, e.assetName(), e.name(), treeName));
                 registerTreeWithMBean(dynamicMBean, atName);
@@ -303,6 +302,38 @@ public enum ManagementTools {
         return sb.toString();
     }
 
+    /**
+     * Registers the replication counters of a map for a remote host, if management is enabled.
+     */
+    public static void registerReplicationStats(@NotNull String assetName, @NotNull ReplicationStats stats) {
+        try {
+            final MBeanServer mbs = ManagementTools.mbs;
+            if (mbs == null)
+                return;
+            final ObjectName name = replicationStatsName(assetName, stats);
+            if (!mbs.isRegistered(name))
+                mbs.registerMBean(stats, name);
+        } catch (@NotNull MalformedObjectNameException | InstanceAlreadyExistsException |
+                MBeanRegistrationException | NotCompliantMBeanException e) {
+            LOG.error("Error register ReplicationStats with MBean", e);
+        }
+    }
+
+    public static void unregisterReplicationStats(@NotNull String assetName, @NotNull ReplicationStats stats) {
+        try {
+            unregisterTreeWithMBean(replicationStatsName(assetName, stats));
+        } catch (MalformedObjectNameException e) {
+            LOG.error("Error unregister ReplicationStats with MBean", e);
+        }
+    }
+
+    @NotNull
+    private static ObjectName replicationStatsName(@NotNull String assetName, @NotNull ReplicationStats stats)
+            throws MalformedObjectNameException {
+        return new ObjectName("net.openhft.chronicle.engine:type=Replication,asset=" +
+                ObjectName.quote(assetName) + ",remoteIdentifier=" + stats.getRemoteIdentifier());
+    }
+
     private static void registerTreeWithMBean(AssetTreeDynamicMBean atBean, ObjectName atName) {
         try {
             if (mbs != null && !mbs.isRegistered(atName)) {
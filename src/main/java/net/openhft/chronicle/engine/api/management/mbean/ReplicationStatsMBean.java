@@ -0,0 +1,46 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.api.management.mbean;
+
+/**
+ * Replication counters of one map for one remote host.
+ */
+public interface ReplicationStatsMBean {
+    int getRemoteIdentifier();
+
+    long getEntriesSent();
+
+    long getBytesSent();
+
+    long getEntriesReceived();
+
+    long getBytesReceived();
+
+    long getQueueFullStalls();
+
+    long getQueueFullMillis();
+
+    long getOldestPendingAgeMillis();
+
+    long getLatency50thMillis();
+
+    long getLatency99thMillis();
+
+    long getLatencyMaxMillis();
+}
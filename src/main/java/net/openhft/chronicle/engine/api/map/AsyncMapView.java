@@ -0,0 +1,66 @@
+/*
+ *     Copyright (C) 2015  higherfrequencytrading.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.openhft.chronicle.engine.api.map;
+
+import net.openhft.chronicle.core.util.SerializableBiFunction;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking operations on a Map view. A remote implementation sends each request without
+ * waiting for the reply, so many requests can be in flight on a single connection, each reply is
+ * matched to its request by transaction id.
+ * <p>
+ * Futures of a remote view are completed on the connection's reader thread, so slow work should
+ * be chained with the {@code *Async} methods of {@link CompletableFuture}.
+ */
+public interface AsyncMapView<K, V> {
+
+    /**
+     * @param key to lookup.
+     * @return a future of the value or null if absent.
+     */
+    @NotNull
+    CompletableFuture<V> getAsync(@NotNull K key);
+
+    /**
+     * @param key   to set
+     * @param value to set
+     * @return a future of the old value or null if absent.
+     */
+    @NotNull
+    CompletableFuture<V> putAsync(@NotNull K key, @NotNull V value);
+
+    /**
+     * @param key to remove
+     * @return a future of the old value or null if absent.
+     */
+    @NotNull
+    CompletableFuture<V> removeAsync(@NotNull K key);
+
+    /**
+     * Apply a function to the whole map without blocking on the result.
+     *
+     * @param function to apply
+     * @param argument to pass to the function
+     * @return a future of the result of the function.
+     */
+    @NotNull
+    <A, R> CompletableFuture<R> applyToAsync(@NotNull SerializableBiFunction<MapView<K, V>, A, R> function,
+                                             A argument);
+}
@@ -23,14 +23,14 @@ import net.openhft.chronicle.engine.api.pubsub.InvalidSubscriberException;
 import net.openhft.chronicle.engine.api.pubsub.SubscriptionConsumer;
 import net.openhft.chronicle.engine.api.tree.Assetted;
 import net.openhft.chronicle.engine.api.tree.KeyedView;
+import net.openhft.chronicle.engine.map.SegmentScan;
 import net.openhft.lang.model.constraints.Nullable;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.function.Consumer;
+import java.util.stream.Collector;
+import java.util.stream.StreamSupport;
 
 /**
  * Internal API for creating new data stores.
@@ -97,6 +97,51 @@ public interface KeyValueStore<K, V> extends Assetted<KeyValueStore<K, V>>, Clos
 
     void entriesFor(int segment, SubscriptionConsumer<MapEvent<K, V>> kvConsumer) throws InvalidSubscriberException;
 
+    /**
+     * visit every key, scanning the segments concurrently when there is more than one.
+     *
+     * @param kConsumer to notify, this must be thread safe.
+     */
+    default void keysForAll(@NotNull SubscriptionConsumer<K> kConsumer) throws InvalidSubscriberException {
+        SegmentScan.forEach(segments(), this::keysFor, kConsumer);
+    }
+
+    /**
+     * visit every entry, scanning the segments concurrently when there is more than one.
+     *
+     * @param kvConsumer to notify, this must be thread safe.
+     */
+    default void entriesForAll(@NotNull SubscriptionConsumer<MapEvent<K, V>> kvConsumer) throws InvalidSubscriberException {
+        SegmentScan.forEach(segments(), this::entriesFor, kvConsumer);
+    }
+
+    /**
+     * @return the entries of each segment, split on segment boundaries for a parallel stream.
+     */
+    @NotNull
+    default Spliterator<MapEvent<K, V>> entriesSpliterator() {
+        return SegmentScan.spliterator(segments(), longSize(), this::entriesFor);
+    }
+
+    /**
+     * @return the keys of each segment, split on segment boundaries for a parallel stream.
+     */
+    @NotNull
+    default Spliterator<K> keysSpliterator() {
+        return SegmentScan.spliterator(segments(), longSize(), this::keysFor);
+    }
+
+    /**
+     * reduce the entries with a container per segment, the containers being combined as the
+     * segments complete.
+     *
+     * @param collector to reduce with
+     * @return the result of the reduction
+     */
+    default <R> R collectEntries(@NotNull Collector<? super MapEvent<K, V>, ?, R> collector) {
+        return StreamSupport.stream(entriesSpliterator(), segments() > 1).collect(collector);
+    }
+
     default Iterator<Map.Entry<K, V>> entrySetIterator() {
         // todo optimise
         List<Map.Entry<K, V>> entries = new ArrayList<>();
@@ -123,6 +168,77 @@ public interface KeyValueStore<K, V> extends Assetted<KeyValueStore<K, V>>, Clos
 
     void clear();
 
+    /**
+     * lookup a batch of keys in a single pass.
+     *
+     * @param keys to lookup
+     * @return the keys which are present, with their values, in the order of {@code keys}
+     */
+    @NotNull
+    default Map<K, V> getAll(@NotNull Collection<K> keys) {
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            V value = get(key);
+            if (value != null)
+                result.put(key, value);
+        }
+        return result;
+    }
+
+    /**
+     * put a batch of entries in a single pass.
+     *
+     * @param entries to set
+     */
+    default void putAll(@NotNull Map<? extends K, ? extends V> entries) {
+        for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet())
+            put(entry.getKey(), entry.getValue());
+    }
+
+    /**
+     * put a batch of entries in a single pass, returning the per-entry results.
+     *
+     * @param entries to set
+     * @return the previous value of each key which was replaced
+     */
+    @NotNull
+    default Map<K, V> getAndPutAll(@NotNull Map<? extends K, ? extends V> entries) {
+        Map<K, V> result = new LinkedHashMap<>();
+        for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+            V oldValue = getAndPut(entry.getKey(), entry.getValue());
+            if (oldValue != null)
+                result.put(entry.getKey(), oldValue);
+        }
+        return result;
+    }
+
+    /**
+     * remove a batch of keys in a single pass.
+     *
+     * @param keys to remove
+     */
+    default void removeAll(@NotNull Collection<K> keys) {
+        for (K key : keys)
+            remove(key);
+    }
+
+    /**
+     * remove a batch of keys in a single pass, returning the per-entry results.
+     *
+     * @param keys to remove
+     * @return the value of each key which was removed
+     */
+    @NotNull
+    default Map<K, V> getAndRemoveAll(@NotNull Collection<K> keys) {
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            V oldValue = getAndRemove(key);
+            if (oldValue != null)
+                result.put(key, oldValue);
+        }
+        return result;
+    }
+
     @org.jetbrains.annotations.Nullable
     @Nullable
     default V replace(K key, V value) {
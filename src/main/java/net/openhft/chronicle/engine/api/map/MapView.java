@@ -16,6 +16,7 @@
 
 package net.openhft.chronicle.engine.api.map;
 
+import net.openhft.chronicle.core.util.SerializableBiFunction;
 import net.openhft.chronicle.engine.api.KeyedVisitable;
 import net.openhft.chronicle.engine.api.Updatable;
 import net.openhft.chronicle.engine.api.pubsub.Reference;
@@ -30,7 +31,10 @@ import net.openhft.chronicle.engine.query.Filter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
 
@@ -42,6 +46,7 @@ public interface MapView<K, V> extends ConcurrentMap<K, V>,
         Updatable<MapView<K, V>>,
         KeyedVisitable<K, V>,
         Function<K, V>,
+        AsyncMapView<K, V>,
         KeyedView {
 
     @NotNull
@@ -125,6 +130,31 @@ public interface MapView<K, V> extends ConcurrentMap<K, V>,
         return get(k);
     }
 
+    @NotNull
+    @Override
+    default CompletableFuture<V> getAsync(@NotNull K key) {
+        return CompletableFuture.completedFuture(get(key));
+    }
+
+    @NotNull
+    @Override
+    default CompletableFuture<V> putAsync(@NotNull K key, @NotNull V value) {
+        return CompletableFuture.completedFuture(getAndPut(key, value));
+    }
+
+    @NotNull
+    @Override
+    default CompletableFuture<V> removeAsync(@NotNull K key) {
+        return CompletableFuture.completedFuture(getAndRemove(key));
+    }
+
+    @NotNull
+    @Override
+    default <A, R> CompletableFuture<R> applyToAsync(@NotNull SerializableBiFunction<MapView<K, V>, A, R> function,
+                                                    A argument) {
+        return CompletableFuture.completedFuture(applyTo(function, argument));
+    }
+
     default int size() {
         return (int) Math.min(Integer.MAX_VALUE, longSize());
     }
@@ -143,6 +173,41 @@ public interface MapView<K, V> extends ConcurrentMap<K, V>,
      */
     V getAndPut(K key, V value);
 
+    /**
+     * Explicitly get the old values before putting a batch of new ones. Remote views send the
+     * whole batch as a single request.
+     *
+     * @param entries to set
+     * @return the old value of each key which was already present
+     */
+    @NotNull
+    Map<K, V> getAndPutAll(@NotNull Map<? extends K, ? extends V> entries);
+
+    /**
+     * Lookup a batch of keys. Remote views send the whole batch as a single request.
+     *
+     * @param keys to lookup
+     * @return the keys which are present, with their values
+     */
+    @NotNull
+    Map<K, V> getAll(@NotNull Collection<K> keys);
+
+    /**
+     * Remove a batch of keys. Remote views send the whole batch as a single request.
+     *
+     * @param keys to remove
+     */
+    void removeAll(@NotNull Collection<K> keys);
+
+    /**
+     * Explicitly get the old values before removing a batch of keys.
+     *
+     * @param keys to remove
+     * @return the old value of each key which was present
+     */
+    @NotNull
+    Map<K, V> getAndRemoveAll(@NotNull Collection<K> keys);
+
     /**
      * Explicitly get the old value before removing.
      *
@@ -0,0 +1,42 @@
+/*
+ *     Copyright (C) 2015  higherfrequencytrading.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.openhft.chronicle.engine.api.map;
+
+import net.openhft.chronicle.wire.ValueOut;
+import net.openhft.chronicle.wire.WireOut;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A store which can copy the stored form of a value, e.g. a BytesStore, straight to a wire without
+ * building the value.
+ */
+public interface RawValueWriter<K> {
+
+    /**
+     * @param wire to be written to
+     * @return true if the stored form of the values can be copied to this wire as is.
+     */
+    boolean canWriteRawValue(@NotNull WireOut wire);
+
+    /**
+     * Write the value for a key as {@code ValueOut.object(value)} would have, or null if absent.
+     *
+     * @param key to lookup
+     * @param out to write the value to
+     */
+    void writeRawValue(K key, @NotNull ValueOut out);
+}
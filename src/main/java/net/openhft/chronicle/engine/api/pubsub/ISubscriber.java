@@ -23,4 +23,13 @@ package net.openhft.chronicle.engine.api.pubsub;
 public interface ISubscriber {
     default void onEndOfSubscription() {
     }
+
+    /**
+     * Called when events have been dropped because this subscriber wasn't keeping up, see {@link
+     * net.openhft.chronicle.engine.api.tree.RequestContext#quotaPolicy()}.
+     *
+     * @param missed the number of events dropped since the last one received
+     */
+    default void onGap(long missed) {
+    }
 }
@@ -20,6 +20,8 @@ package net.openhft.chronicle.engine.api.pubsub;
 
 import net.openhft.chronicle.engine.api.EngineReplication.ModificationIterator;
 import net.openhft.chronicle.engine.api.EngineReplication.ReplicationEntry;
+import net.openhft.chronicle.engine.map.replication.MerkleTree;
+import net.openhft.chronicle.engine.map.replication.ReplicationMetrics;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -33,10 +35,34 @@ public interface Replication {
      */
     void applyReplication(@NotNull ReplicationEntry replicatedEntry);
 
+    /**
+     * removes or puts each of a batch of entries received together into the map, one at a time
+     */
+    default void applyReplication(@NotNull Iterable<? extends ReplicationEntry> replicatedEntries) {
+        for (ReplicationEntry replicatedEntry : replicatedEntries)
+            applyReplication(replicatedEntry);
+    }
+
     @Nullable
     ModificationIterator acquireModificationIterator(byte id);
 
     long lastModificationTime(byte id);
 
+    /**
+     * @return the replication counters of this map, or null if they are not kept.
+     */
+    @Nullable
+    default ReplicationMetrics metrics() {
+        return null;
+    }
+
+    /**
+     * @return a hash tree of the keys and timestamps held, or null if not supported.
+     */
+    @Nullable
+    default MerkleTree merkleTree() {
+        return null;
+    }
+
     void setLastModificationTime(final byte identifier, final long timestamp);
 }
@@ -0,0 +1,113 @@
+package net.openhft.chronicle.engine.api.query;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * A memory mapped snapshot of the queue indexes of an index queue, along with the last queue index
+ * it covers. Only the queue indexes are saved, the keys are recovered by reading those excerpts
+ * back from the queue. The snapshot is written to a temporary file which is then renamed, so a
+ * crash while saving leaves the previous snapshot intact.
+ * <p>
+ * The layout is
+ * <pre>
+ * long magic, long lastIndexRead, int events,
+ *     { int nameLength, byte[] name UTF-8, int count, long[count] indexes } * events
+ * </pre>
+ */
+class IndexCheckpoint {
+    private static final Logger LOG = LoggerFactory.getLogger(IndexCheckpoint.class);
+    // "IDXCHKP1"
+    private static final long MAGIC = 0x49445843484B5031L;
+
+    @NotNull
+    private final File file;
+
+    IndexCheckpoint(@NotNull File file) {
+        this.file = file;
+    }
+
+    void save(long lastIndexRead, @NotNull Map<String, long[]> indexesByEvent) throws IOException {
+        long size = 8 + 8 + 4;
+        final byte[][] names = new byte[indexesByEvent.size()][];
+        final long[][] indexes = new long[names.length][];
+        int i = 0;
+        for (Map.Entry<String, long[]> entry : indexesByEvent.entrySet()) {
+            names[i] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            indexes[i] = entry.getValue();
+            size += 4 + names[i].length + 4 + 8L * indexes[i].length;
+            i++;
+        }
+        if (size > Integer.MAX_VALUE)
+            throw new IOException("Index too large to checkpoint, size=" + size);
+
+        final File tmp = new File(file.getPath() + ".tmp");
+        try (FileChannel fc = FileChannel.open(tmp.toPath(), CREATE, TRUNCATE_EXISTING, READ, WRITE)) {
+            final MappedByteBuffer bb = fc.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            bb.putLong(MAGIC);
+            bb.putLong(lastIndexRead);
+            bb.putInt(names.length);
+            for (int j = 0; j < names.length; j++) {
+                bb.putInt(names[j].length);
+                bb.put(names[j]);
+                bb.putInt(indexes[j].length);
+                for (long index : indexes[j])
+                    bb.putLong(index);
+            }
+            bb.force();
+        }
+        Files.move(tmp.toPath(), file.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    /**
+     * @param eventIndexes is passed the queue indexes saved for each event name
+     * @return the last queue index covered by the checkpoint, or 0 if there isn't one.
+     */
+    long load(@NotNull BiConsumer<String, long[]> eventIndexes) throws IOException {
+        if (!file.exists())
+            return 0;
+        try (FileChannel fc = FileChannel.open(file.toPath(), READ)) {
+            final MappedByteBuffer bb = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+            if (bb.remaining() < 20 || bb.getLong() != MAGIC) {
+                LOG.warn("Ignoring invalid index checkpoint " + file);
+                return 0;
+            }
+            final long lastIndexRead = bb.getLong();
+            for (int events = bb.getInt(); events > 0; events--) {
+                final byte[] name = new byte[bb.getInt()];
+                bb.get(name);
+                final long[] indexes = new long[bb.getInt()];
+                for (int i = 0; i < indexes.length; i++)
+                    indexes[i] = bb.getLong();
+                eventIndexes.accept(new String(name, StandardCharsets.UTF_8), indexes);
+            }
+            return lastIndexRead;
+        }
+    }
+
+    void delete() {
+        if (file.exists() && !file.delete())
+            LOG.warn("Unable to delete " + file);
+    }
+
+    @Override
+    public String toString() {
+        return "IndexCheckpoint{" +
+                "file=" + file +
+                '}';
+    }
+}
@@ -0,0 +1,110 @@
+package net.openhft.chronicle.engine.api.query;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Maps a key to the index of the latest excerpt for that key in a ChronicleQueue. The keys and
+ * indexes are held in parallel arrays of an open addressing table, so there is no object per entry
+ * other than the key, and the values are read back from the queue when needed.
+ */
+class KeyIndex<K> {
+    static final long NOT_FOUND = -1;
+    private static final int MIN_CAPACITY = 64;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Object[] keys = new Object[MIN_CAPACITY];
+    private long[] indexes = new long[MIN_CAPACITY];
+    private int size;
+
+    private static int slotFor(@NotNull Object[] keys, @NotNull Object key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        int mask = keys.length - 1;
+        for (int slot = h & mask; ; slot = (slot + 1) & mask) {
+            Object k = keys[slot];
+            if (k == null || k.equals(key))
+                return slot;
+        }
+    }
+
+    void put(@NotNull K key, long index) {
+        lock.writeLock().lock();
+        try {
+            int slot = slotFor(keys, key);
+            if (keys[slot] == null) {
+                keys[slot] = key;
+                if (++size > keys.length / 2) {
+                    resize(keys.length * 2);
+                    slot = slotFor(keys, key);
+                }
+            }
+            indexes[slot] = index;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void resize(int capacity) {
+        Object[] keys0 = keys;
+        long[] indexes0 = indexes;
+        keys = new Object[capacity];
+        indexes = new long[capacity];
+        for (int i = 0; i < keys0.length; i++) {
+            Object k = keys0[i];
+            if (k != null) {
+                int slot = slotFor(keys, k);
+                keys[slot] = k;
+                indexes[slot] = indexes0[i];
+            }
+        }
+    }
+
+    long get(@NotNull K key) {
+        lock.readLock().lock();
+        try {
+            int slot = slotFor(keys, key);
+            return keys[slot] == null ? NOT_FOUND : indexes[slot];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param maxIndex the highest index to include
+     * @return the indexes of the latest excerpt of every key, in ascending order
+     */
+    @NotNull
+    long[] indexes(long maxIndex) {
+        long[] result;
+        int count = 0;
+        lock.readLock().lock();
+        try {
+            result = new long[size];
+            for (int i = 0; i < keys.length; i++)
+                if (keys[i] != null && indexes[i] <= maxIndex)
+                    result[count++] = indexes[i];
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (count < result.length) {
+            long[] result2 = new long[count];
+            System.arraycopy(result, 0, result2, 0, count);
+            result = result2;
+        }
+        Arrays.sort(result);
+        return result;
+    }
+}
@@ -10,6 +10,7 @@ import net.openhft.chronicle.engine.tree.ChronicleQueueView;
 import net.openhft.chronicle.engine.tree.QueueView;
 import net.openhft.chronicle.queue.ChronicleQueue;
 import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.threads.NamedThreadFactory;
 import net.openhft.chronicle.wire.DocumentContext;
 import net.openhft.chronicle.wire.Marshallable;
 import net.openhft.chronicle.wire.ValueIn;
@@ -18,8 +19,13 @@ import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
@@ -32,17 +38,30 @@ public class VanillaIndexQueueView<K extends Marshallable, V extends Marshallabl
         implements IndexQueueView<K, V> {
 
     private static final Logger LOG = LoggerFactory.getLogger(VanillaIndexQueueView.class);
+    private static final String CHECKPOINT_FILE = "index.checkpoint";
+    private static final long CHECKPOINT_MS = Long.getLong("engine.indexCheckpointMs", 60_000L);
+    // the index can be large so it is written off the event loop.
+    private static final ExecutorService CHECKPOINTER = Executors.newSingleThreadExecutor(
+            new NamedThreadFactory("index-checkpoint", true));
     private final Function<V, K> valueToKey;
     private final EventLoop eventLoop;
     private final ChronicleQueue chronicleQueue;
 
-    private final Map<String, Map<K, IndexedEntry<K, V>>> multiMap = new ConcurrentHashMap<>();
+    // only the queue index of the latest value of each key is held, the value is read back from the queue.
+    private final Map<String, KeyIndex<K>> multiMap = new ConcurrentHashMap<>();
     private final Map<Subscriber<IndexedEntry<K, V>>, AtomicBoolean> activeSubscriptions
             = new ConcurrentHashMap<>();
 
     private final AtomicBoolean isClosed = new AtomicBoolean();
 
-    private long lastIndexRead = 0;
+    private volatile long lastIndexRead = 0;
+
+    @NotNull
+    private final IndexCheckpoint checkpoint;
+    private final AtomicBoolean checkpointing = new AtomicBoolean();
+    // only accessed on the event loop thread
+    private long checkpointedIndex;
+    private long nextCheckpoint;
 
     public VanillaIndexQueueView(@NotNull RequestContext context,
                                  @NotNull Asset asset,
@@ -54,36 +73,133 @@ public class VanillaIndexQueueView<K extends Marshallable, V extends Marshallabl
         final ChronicleQueueView chronicleQueueView = (ChronicleQueueView) queueView;
         chronicleQueue = chronicleQueueView.chronicleQueue();
 
-        final ExcerptTailer tailer = chronicleQueue.createTailer();
+        checkpoint = new IndexCheckpoint(new File(chronicleQueue.file(), CHECKPOINT_FILE));
+        final ExcerptTailer tailer = restoreCheckpoint(chronicleQueue.createTailer());
+        checkpointedIndex = lastIndexRead;
+        nextCheckpoint = System.currentTimeMillis() + CHECKPOINT_MS;
 
         eventLoop.addHandler(() -> {
 
             if (isClosed.get())
                 throw new InvalidEventHandlerException();
 
-            try (DocumentContext dc = tailer.readingDocument()) {
+            if (readNext(tailer))
+                return true;
 
-                if (!dc.isPresent())
-                    return false;
+            if (lastIndexRead != checkpointedIndex && System.currentTimeMillis() >= nextCheckpoint
+                    && checkpointing.compareAndSet(false, true)) {
+                checkpointedIndex = lastIndexRead;
+                nextCheckpoint = System.currentTimeMillis() + CHECKPOINT_MS;
+                CHECKPOINTER.submit(this::checkpoint);
+            }
+            return false;
+        });
+    }
 
+    private boolean readNext(@NotNull ExcerptTailer tailer) {
+        try (DocumentContext dc = tailer.readingDocument()) {
 
-                final StringBuilder sb = Wires.acquireStringBuilder();
-                ValueIn read = dc.wire().read(sb);
+            if (!dc.isPresent())
+                return false;
 
-                V v = read.typedMarshallable();
-                K k = valueToKey.apply(v);
 
-                final String event = sb.toString();
+            final StringBuilder sb = Wires.acquireStringBuilder();
+            ValueIn read = dc.wire().read(sb);
 
-                multiMap.computeIfAbsent(event, e -> new ConcurrentHashMap<>())
-                        .put(k, new IndexedEntry<>(k, v, dc.index()));
-                lastIndexRead = dc.index();
-            } catch (Exception e) {
-                LOG.error("", e);
+            V v = read.typedMarshallable();
+            K k = valueToKey.apply(v);
+
+            final String event = sb.toString();
+
+            multiMap.computeIfAbsent(event, e -> new KeyIndex<>())
+                    .put(k, dc.index());
+            lastIndexRead = dc.index();
+        } catch (Exception e) {
+            LOG.error("", e);
+        }
+
+        return true;
+    }
+
+    /**
+     * rebuilds the index from the last checkpoint, reading back the latest excerpt of each key, and
+     * leaves the tailer after the last index the checkpoint covers, so only the tail of the queue is
+     * replayed.
+     *
+     * @return the tailer to continue indexing from
+     */
+    @NotNull
+    private ExcerptTailer restoreCheckpoint(@NotNull ExcerptTailer tailer) {
+        try {
+            final long lastIndex = checkpoint.load((event, indexes) -> {
+                final KeyIndex<K> keyIndex = multiMap.computeIfAbsent(event, e -> new KeyIndex<>());
+                for (long index : indexes) {
+                    try {
+                        if (!tailer.moveToIndex(index))
+                            throw new IllegalStateException("No index " + Long.toHexString(index) + " in the queue");
+                    } catch (TimeoutException e) {
+                        throw new IllegalStateException("Unable to read index " + index, e);
+                    }
+                    try (DocumentContext dc = tailer.readingDocument()) {
+                        if (!dc.isPresent())
+                            throw new IllegalStateException("No excerpt at index " + index);
+                        final V v = dc.wire().read(Wires.acquireStringBuilder()).typedMarshallable();
+                        keyIndex.put(valueToKey.apply(v), index);
+                    }
+                }
+            });
+            if (lastIndex == 0)
+                return tailer;
+            if (lastIndex > chronicleQueue.lastIndex())
+                throw new IllegalStateException("Checkpoint is ahead of the queue");
+
+            if (!tailer.moveToIndex(lastIndex))
+                throw new IllegalStateException("No index " + Long.toHexString(lastIndex) + " in the queue");
+            // skip the last excerpt the checkpoint covers.
+            try (DocumentContext dc = tailer.readingDocument()) {
+                if (!dc.isPresent())
+                    throw new IllegalStateException("No excerpt at index " + lastIndex);
             }
+            lastIndexRead = lastIndex;
+            return tailer;
+
+        } catch (Exception e) {
+            LOG.warn("Unable to restore the index from " + checkpoint + ", replaying the whole queue", e);
+            multiMap.clear();
+            lastIndexRead = 0;
+            checkpoint.delete();
+            tailer.close();
+            return chronicleQueue.createTailer();
+        }
+    }
 
-            return true;
-        });
+    /**
+     * saves the queue index of the latest excerpt of every key, called on the checkpoint thread
+     * while the event loop carries on indexing. lastIndexRead is read before the indexes are copied,
+     * so the snapshot covers every excerpt up to it. An index after it may be in the snapshot too,
+     * but that excerpt is replayed again on restore, and putting its key again doesn't change the
+     * index.
+     */
+    void checkpoint() {
+        try {
+            final long lastIndex = lastIndexRead;
+            final Map<String, long[]> indexes = new HashMap<>();
+            multiMap.forEach((event, keyIndex) -> indexes.put(event, keyIndex.indexes(Long.MAX_VALUE)));
+            checkpoint.save(lastIndex, indexes);
+        } catch (IOException e) {
+            LOG.warn("Unable to checkpoint the index to " + checkpoint, e);
+        } finally {
+            checkpointing.set(false);
+        }
+    }
+
+    long lastIndexRead() {
+        return lastIndexRead;
+    }
+
+    long indexOf(@NotNull String event, @NotNull K key) {
+        final KeyIndex<K> keyIndex = multiMap.get(event);
+        return keyIndex == null ? KeyIndex.NOT_FOUND : keyIndex.get(key);
     }
 
     /**
@@ -98,18 +214,37 @@ public class VanillaIndexQueueView<K extends Marshallable, V extends Marshallabl
 
         final String eventName = vanillaIndexQuery.eventName();
         final Predicate<V> filter = vanillaIndexQuery.filter();
+        final KeyIndex<K> keyIndex = multiMap.get(eventName);
+        if (keyIndex == null)
+            return;
+
+        // sends all the latest values that wont get sent via the queue
+        final long[] indexes = keyIndex.indexes(from == lastIndexRead ? Long.MAX_VALUE : from);
 
-        if (from == lastIndexRead)
-            multiMap.computeIfAbsent(eventName, k -> new ConcurrentHashMap<>())
-                    .values().stream()
-                    .filter((IndexedEntry<K, V> i) -> filter.test(i.value()))
-                    .forEach(sub);
-        else
-            // sends all the latest values that wont get sent via the queue
-            multiMap.computeIfAbsent(eventName, k -> new ConcurrentHashMap<>())
-                    .values().stream()
-                    .filter((IndexedEntry<K, V> i) -> i.index() <= from && filter.test(i.value()))
-                    .forEach(sub);
+        // the indexes are in ascending order so the queue is read forwards.
+        final ExcerptTailer tailer = chronicleQueue.createTailer();
+        try {
+            for (long index : indexes) {
+                if (!tailer.moveToIndex(index)) {
+                    // rolled or truncated away, the next excerpt belongs to another index.
+                    LOG.warn("Unable to move to index " + Long.toHexString(index) + ", skipping it");
+                    continue;
+                }
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    if (!dc.isPresent())
+                        continue;
+                    final V v = dc.wire().read(Wires.acquireStringBuilder()).typedMarshallable();
+                    if (filter.test(v))
+                        sub.onMessage(new IndexedEntry<>(valueToKey.apply(v), v, index));
+                }
+            }
+        } catch (TimeoutException e) {
+            LOG.error("timeout", e);
+        } catch (InvalidSubscriberException e) {
+            unregisterSubscriber(sub);
+        } finally {
+            tailer.close();
+        }
     }
 
     public void registerSubscriber(@NotNull Subscriber<IndexedEntry<K, V>> sub,
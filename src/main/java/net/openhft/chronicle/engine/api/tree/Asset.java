@@ -300,7 +300,7 @@ public interface Asset extends Closeable {
      *
      * @param viewType to associate this implementation with.
      * @param view
-     * @return the view provided.
+     * @return the view provided, or the view already associated with this type if there is one.
      */
     <V> V addView(Class<V> viewType, V view);
 
@@ -94,6 +94,9 @@ public class RequestContext implements Cloneable {
         addAlias("software.chronicle.enterprise.queue.QueueSyncReplicationHandler");
     }
 
+    // the parser and its wire are reused by each thread rather than created for every query string.
+    private static final ThreadLocal<QueryParser> QUERY_PARSER = ThreadLocal.withInitial(QueryParser::new);
+
     private String pathName;
     private String name;
     private Class viewType, type, type2;
@@ -113,6 +116,12 @@ public class RequestContext implements Cloneable {
 
     private int throttlePeriodMs = 0;
     private boolean dontPersist;
+    private boolean conflate;
+    private long outboundQuota;
+    @NotNull
+    private QuotaPolicy quotaPolicy = QuotaPolicy.CONFLATE;
+    private int nearCacheSize;
+    private int segments;
 
     private RequestContext() {
     }
@@ -200,38 +209,44 @@ public class RequestContext implements Cloneable {
     public RequestContext queryString(@NotNull String queryString) {
         if (queryString.isEmpty())
             return this;
-        WireParser<Void> parser = getWireParser();
-        Bytes bytes = Bytes.from(queryString);
-        QueryWire wire = new QueryWire(bytes);
+        QueryParser queryParser = QUERY_PARSER.get();
+        Bytes bytes = queryParser.bytes;
+        bytes.clear();
+        bytes.appendUtf8(queryString);
         while (bytes.readRemaining() > 0)
-            parser.parseOne(wire, null);
+            queryParser.parser.parseOne(queryParser.wire, this);
         return this;
     }
 
     @NotNull
-    public WireParser<Void> getWireParser() {
-        WireParser<Void> parser = new VanillaWireParser<>((s, v, $) -> {
+    private static WireParser<RequestContext> newWireParser() {
+        WireParser<RequestContext> parser = new VanillaWireParser<>((s, v, $) -> {
         });
-        parser.register(() -> "cluster", (s, v, $) -> v.text(this, (o, x) -> o.cluster = x));
-        parser.register(() -> "view", (s, v, $) -> v.text(this, RequestContext::view));
-        parser.register(() -> "bootstrap", (s, v, $) -> v.bool(this, (o, x) -> o.bootstrap = x));
-        parser.register(() -> "putReturnsNull", (s, v, $) -> v.bool(this, (o, x) -> o.putReturnsNull = x));
-        parser.register(() -> "removeReturnsNull", (s, v, $) -> v.bool(this, (o, x) -> o.removeReturnsNull = x));
+        parser.register(() -> "cluster", (s, v, rc) -> v.text(rc, (o, x) -> o.cluster = x));
+        parser.register(() -> "view", (s, v, rc) -> v.text(rc, RequestContext::view));
+        parser.register(() -> "bootstrap", (s, v, rc) -> v.bool(rc, (o, x) -> o.bootstrap = x));
+        parser.register(() -> "putReturnsNull", (s, v, rc) -> v.bool(rc, (o, x) -> o.putReturnsNull = x));
+        parser.register(() -> "removeReturnsNull", (s, v, rc) -> v.bool(rc, (o, x) -> o.removeReturnsNull = x));
         parser.register(() -> "nullOldValueOnUpdateEvent",
-                (s, v, $) -> v.bool(this, (o, x) -> o.nullOldValueOnUpdateEvent = x));
-        parser.register(() -> "basePath", (s, v, $) -> v.text(this, (o, x) -> o.basePath = x));
-        parser.register(() -> "viewType", (s, v, $) -> v.typeLiteral(this, (o, x) -> o.viewType = x));
-        parser.register(() -> "topicType", (s, v, $) -> v.typeLiteral(this, (o, x) -> o.type = x));
-        parser.register(() -> "keyType", (s, v, $) -> v.typeLiteral(this, (o, x) -> o.type = x));
-        parser.register(() -> "valueType", (s, v, $) -> v.typeLiteral(this, (o, x) -> o.type2 = x));
-        parser.register(() -> "messageType", (s, v, $) -> v.typeLiteral(this, (o, x) -> o.type = x));
-        parser.register(() -> "elementType", (s, v, $) -> v.typeLiteral(this, (o, x) -> o.type2 = x));
-        parser.register(() -> "endSubscriptionAfterBootstrap", (s, v, $) -> v.bool(this, (o, x) -> o.endSubscriptionAfterBootstrap = x));
-        parser.register(() -> "throttlePeriodMs", (s, v, $) -> v.int32(this, (o, x) -> o.throttlePeriodMs = x));
-
-        parser.register(() -> "entries", (s, v, $) -> v.int64(this, (o, x) -> o.entries = x));
-        parser.register(() -> "averageValueSize", (s, v, $) -> v.int64(this, (o, x) -> o.averageValueSize = x));
-        parser.register(() -> "dontPersist", (s, v, $) -> v.bool(this, (o, x) -> o.dontPersist = x));
+                (s, v, rc) -> v.bool(rc, (o, x) -> o.nullOldValueOnUpdateEvent = x));
+        parser.register(() -> "basePath", (s, v, rc) -> v.text(rc, (o, x) -> o.basePath = x));
+        parser.register(() -> "viewType", (s, v, rc) -> v.typeLiteral(rc, (o, x) -> o.viewType = x));
+        parser.register(() -> "topicType", (s, v, rc) -> v.typeLiteral(rc, (o, x) -> o.type = x));
+        parser.register(() -> "keyType", (s, v, rc) -> v.typeLiteral(rc, (o, x) -> o.type = x));
+        parser.register(() -> "valueType", (s, v, rc) -> v.typeLiteral(rc, (o, x) -> o.type2 = x));
+        parser.register(() -> "messageType", (s, v, rc) -> v.typeLiteral(rc, (o, x) -> o.type = x));
+        parser.register(() -> "elementType", (s, v, rc) -> v.typeLiteral(rc, (o, x) -> o.type2 = x));
+        parser.register(() -> "endSubscriptionAfterBootstrap", (s, v, rc) -> v.bool(rc, (o, x) -> o.endSubscriptionAfterBootstrap = x));
+        parser.register(() -> "throttlePeriodMs", (s, v, rc) -> v.int32(rc, (o, x) -> o.throttlePeriodMs = x));
+        parser.register(() -> "conflate", (s, v, rc) -> v.bool(rc, (o, x) -> o.conflate = x));
+        parser.register(() -> "outboundQuota", (s, v, rc) -> v.int64(rc, (o, x) -> o.outboundQuota = x));
+        parser.register(() -> "quotaPolicy", (s, v, rc) -> v.text(rc, (o, x) -> o.quotaPolicy = QuotaPolicy.valueOf(x.toUpperCase())));
+        parser.register(() -> "nearCacheSize", (s, v, rc) -> v.int32(rc, (o, x) -> o.nearCacheSize = x));
+        parser.register(() -> "segments", (s, v, rc) -> v.int32(rc, (o, x) -> o.segments = x));
+
+        parser.register(() -> "entries", (s, v, rc) -> v.int64(rc, (o, x) -> o.entries = x));
+        parser.register(() -> "averageValueSize", (s, v, rc) -> v.int64(rc, (o, x) -> o.averageValueSize = x));
+        parser.register(() -> "dontPersist", (s, v, rc) -> v.bool(rc, (o, x) -> o.dontPersist = x));
         return parser;
     }
 
@@ -476,6 +491,11 @@ public class RequestContext implements Cloneable {
                 ", endSubscriptionAfterBootstrap=" + endSubscriptionAfterBootstrap +
                 ", throttlePeriodMs=" + throttlePeriodMs +
                 ", dontPersist=" + dontPersist +
+                ", conflate=" + conflate +
+                ", outboundQuota=" + outboundQuota +
+                ", quotaPolicy=" + quotaPolicy +
+                ", nearCacheSize=" + nearCacheSize +
+                ", segments=" + segments +
                 '}';
     }
 
@@ -542,6 +562,15 @@ public class RequestContext implements Cloneable {
             sb.append(sep).append("dontPersist").append(dontPersist);
             sep = "&";
         }
+        if (conflate()) {
+            sb.append(sep).append("conflate=").append(conflate);
+            sep = "&";
+        }
+        if (outboundQuota() > 0) {
+            sb.append(sep).append("outboundQuota=").append(outboundQuota);
+            sep = "&";
+            sb.append(sep).append("quotaPolicy=").append(quotaPolicy);
+        }
         return sb.toString();
     }
 
@@ -573,8 +602,87 @@ public class RequestContext implements Cloneable {
         return this;
     }
 
+    /**
+     * @return true if a subscriber which can't keep up should only be sent the latest event for
+     * each key.
+     */
+    public boolean conflate() {
+        return conflate;
+    }
+
+    public RequestContext conflate(boolean conflate) {
+        this.conflate = conflate;
+        return this;
+    }
+
+    /**
+     * @return the most bytes of events a subscription may hold while the connection it is sent
+     * over isn't taking more data, or 0 for no limit.
+     */
+    public long outboundQuota() {
+        return outboundQuota;
+    }
+
+    public RequestContext outboundQuota(long outboundQuota) {
+        this.outboundQuota = outboundQuota;
+        return this;
+    }
+
+    /**
+     * @return what is done once a subscription, or its connection, has used its outbound quota.
+     */
+    @NotNull
+    public QuotaPolicy quotaPolicy() {
+        return quotaPolicy;
+    }
+
+    public RequestContext quotaPolicy(@NotNull QuotaPolicy quotaPolicy) {
+        this.quotaPolicy = quotaPolicy;
+        return this;
+    }
+
+    /**
+     * @return the most values a remote map keeps on the client, or 0 for no near cache.
+     */
+    public int nearCacheSize() {
+        return nearCacheSize;
+    }
+
+    public RequestContext nearCacheSize(int nearCacheSize) {
+        this.nearCacheSize = nearCacheSize;
+        return this;
+    }
+
+    /**
+     * @return the number of segments a store which supports them should be split into, or 0 for
+     * its default.
+     */
+    public int segments() {
+        return segments;
+    }
+
+    public RequestContext segments(int segments) {
+        this.segments = segments;
+        return this;
+    }
+
+    public enum QuotaPolicy {
+        /**
+         * only the latest event for each key is held until the connection catches up
+         */
+        CONFLATE,
+        /**
+         * the events held are dropped and the subscriber is sent the number of events it missed
+         */
+        DROP,
+        /**
+         * the connection is closed
+         */
+        DISCONNECT
+    }
+
     public enum Operation {
-        END_SUBSCRIPTION_AFTER_BOOTSTRAP, BOOTSTRAP;
+        END_SUBSCRIPTION_AFTER_BOOTSTRAP, BOOTSTRAP, CONFLATE;
 
         public void apply(RequestContext rc) {
             switch (this) {
@@ -584,7 +692,16 @@ public class RequestContext implements Cloneable {
                 case BOOTSTRAP:
                     rc.bootstrap(true);
                     break;
+                case CONFLATE:
+                    rc.conflate(true);
+                    break;
             }
         }
     }
+
+    private static final class QueryParser {
+        final Bytes bytes = Bytes.elasticByteBuffer();
+        final QueryWire wire = new QueryWire(bytes);
+        final WireParser<RequestContext> parser = newWireParser();
+    }
 }
@@ -20,35 +20,131 @@ import net.openhft.chronicle.core.Maths;
 import net.openhft.chronicle.core.util.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
+ * A thread safe cache of sealed RequestContexts by the uri they were parsed from. The cache is
+ * set associative, a uri hashing to a set of {@link #WAYS} entries, and a full set evicts with the
+ * clock algorithm, so a uri looked up since the hand last passed gets a second chance. Looking up a
+ * cached uri doesn't lock or allocate.
+ * <p>
  * Created by peter on 05/07/15.
  */
 public class RequestContextInterner {
+    static final int WAYS = 4;
+
+    @NotNull
+    private final AtomicReferenceArray<StringToRequestContext> interner;
+    private final int setMask;
+    // the clock hand of each set, guarded by the set's lock.
+    @NotNull
+    private final int[] hands;
     @NotNull
-    private final StringToRequestContext[] interner;
-    private final int mask;
+    private final Object[] locks;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
 
     public RequestContextInterner(int capacity) {
         int n = Maths.nextPower2(capacity, 128);
-        interner = new StringToRequestContext[n];
-        mask = n - 1;
+        interner = new AtomicReferenceArray<>(n);
+        int sets = n / WAYS;
+        setMask = sets - 1;
+        hands = new int[sets];
+        locks = new Object[sets];
+        for (int i = 0; i < sets; i++)
+            locks[i] = new Object();
     }
 
     public RequestContext intern(@NotNull CharSequence cs) {
-        int h = Maths.hash32(cs) & mask;
-        StringToRequestContext s = interner[h];
-        if (s != null && StringUtils.isEqual(s.name, cs))
+        int set = Maths.hash32(cs) & setMask;
+        StringToRequestContext s = lookup(set, cs);
+        if (s != null) {
+            // a lost update only costs the entry its second chance.
+            if (!s.referenced)
+                s.referenced = true;
+            hits.increment();
             return s.requestContext;
-        String s2 = cs.toString();
-        RequestContext rc = RequestContext.requestContext(cs);
-        rc.seal();
-        interner[h] = new StringToRequestContext(s2, rc);
-        return rc;
+        }
+        misses.increment();
+        return add(set, cs);
+    }
+
+    /**
+     * Parse and cache uris before they are looked up, e.g. the csps of the configured assets.
+     */
+    public void internAll(@NotNull Iterable<? extends CharSequence> uris) {
+        for (CharSequence uri : uris)
+            intern(uri);
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private StringToRequestContext lookup(int set, @NotNull CharSequence cs) {
+        for (int i = set * WAYS, end = i + WAYS; i < end; i++) {
+            StringToRequestContext s = interner.get(i);
+            if (s != null && StringUtils.isEqual(s.name, cs))
+                return s;
+        }
+        return null;
+    }
+
+    private RequestContext add(int set, @NotNull CharSequence cs) {
+        synchronized (locks[set]) {
+            // another thread may have added it in the meantime.
+            StringToRequestContext s = lookup(set, cs);
+            if (s != null)
+                return s.requestContext;
+            String s2 = cs.toString();
+            RequestContext rc = RequestContext.requestContext(s2);
+            rc.seal();
+            interner.set(victim(set), new StringToRequestContext(s2, rc));
+            return rc;
+        }
+    }
+
+    private int victim(int set) {
+        // ends within two turns of the hand as each referenced entry passed is cleared.
+        for (; ; ) {
+            int i = set * WAYS + hands[set];
+            hands[set] = (hands[set] + 1) & (WAYS - 1);
+            StringToRequestContext s = interner.get(i);
+            if (s == null)
+                return i;
+            if (!s.referenced) {
+                evictions.increment();
+                return i;
+            }
+            s.referenced = false;
+        }
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return "RequestContextInterner{" +
+                "capacity=" + interner.length() +
+                ", hits=" + hits() +
+                ", misses=" + misses() +
+                ", evictions=" + evictions() +
+                '}';
     }
 
     static class StringToRequestContext {
         final String name;
         final RequestContext requestContext;
+        boolean referenced;
 
         StringToRequestContext(String name, RequestContext requestContext) {
             this.name = name;
@@ -17,16 +17,22 @@
 package net.openhft.chronicle.engine.cfg;
 
 import net.openhft.chronicle.engine.api.map.MapView;
+import net.openhft.chronicle.engine.api.tree.Asset;
 import net.openhft.chronicle.engine.api.tree.AssetTree;
+import net.openhft.chronicle.engine.api.tree.RequestContextInterner;
 import net.openhft.chronicle.wire.ValueIn;
 import net.openhft.chronicle.wire.WireIn;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+import static net.openhft.chronicle.engine.api.tree.RequestContext.requestContext;
+
 /**
  * Created by peter on 26/08/15.
  */
@@ -49,9 +55,32 @@ public class EngineCfg implements Installable {
                 map.put(name, install);
             }
         }
+
+        final RequestContextInterner interner = assetTree.root().getView(RequestContextInterner.class);
+        if (interner != null)
+            interner.internAll(mapCsps(assetTree));
         return null;
     }
 
+    /**
+     * @return the csp a remote client sends for each of the configured maps, so the server parses
+     * them once when it's loaded rather than on the first request of the first client.
+     */
+    @NotNull
+    private List<String> mapCsps(@NotNull AssetTree assetTree) {
+        final List<String> csps = new ArrayList<>();
+        for (String path : installableMap.keySet()) {
+            final Asset asset = assetTree.getAsset(path);
+            final MapView mapView = asset == null ? null : asset.getView(MapView.class);
+            if (mapView != null)
+                csps.add(requestContext(path).viewType(MapView.class)
+                        .keyType(mapView.keyType())
+                        .valueType(mapView.valueType())
+                        .toUri());
+        }
+        return csps;
+    }
+
     @Override
     public void readMarshallable(@NotNull WireIn wire) throws IllegalStateException {
         readMarshallable("", wire);
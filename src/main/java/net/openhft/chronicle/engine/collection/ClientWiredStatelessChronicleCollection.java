@@ -21,8 +21,7 @@ import net.openhft.chronicle.network.connection.TcpChannelHub;
 import net.openhft.chronicle.wire.ValueIn;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Collection;
-import java.util.Iterator;
+import java.util.*;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -33,6 +32,9 @@ import static net.openhft.chronicle.network.connection.CoreFields.reply;
 public class ClientWiredStatelessChronicleCollection<U, E extends Collection<U>> extends
         AbstractStatelessClient<EventId> implements Collection<U> {
 
+    // the number of elements fetched from the server at a time by the iterator
+    static final int PAGE_SIZE = Integer.getInteger("engine.collection.pageSize", 1024);
+
     @NotNull
     private final Function<ValueIn, U> consumer;
     @NotNull
@@ -62,34 +64,14 @@ public class ClientWiredStatelessChronicleCollection<U, E extends Collection<U>>
         return proxyReturnBooleanWithArgs(contains, o);
     }
 
-    @Override
-    @NotNull
-    public Iterator<U> iterator() {
-        // todo improve numberOfSegments
-        final int numberOfSegments = proxyReturnUint16(EventId.numberOfSegments);
-
-        // todo iterate the segments for the moment we just assume one segment
-        return segmentSet(1).iterator();
-    }
-
     /**
-     * gets the iterator for a given segment
-     *
-     * @param segment the maps segment number
-     * @return and iterator for the {@code segment}
+     * @return an iterator which fetches the collection from the server a page at a time, so only
+     * one page is held by the client.
      */
+    @Override
     @NotNull
-    private E segmentSet(int segment) {
-
-        return proxyReturnWireConsumerInOut(iterator, reply, valueOut -> valueOut.uint16(segment),
-                read -> {
-                    final E e = factory.get();
-                    read.sequence(e, (e2, s) -> {
-                        while (read.hasNextSequenceItem())
-                            e2.add(consumer.apply(read));
-                    });
-                    return e;
-                });
+    public Iterator<U> iterator() {
+        return new PagedIterator();
     }
 
     @Override
@@ -155,4 +137,63 @@ public class ClientWiredStatelessChronicleCollection<U, E extends Collection<U>>
     public void clear() {
         proxyReturnVoid(clear);
     }
-}
\ No newline at end of file
+
+    private class PagedIterator implements Iterator<U> {
+        private final List<U> page = new ArrayList<>();
+        private int index;
+        private long cursor;
+        // the position of the next page, or -1 once the last page has been read
+        private long position;
+        private U last;
+        private boolean canRemove;
+
+        @Override
+        public boolean hasNext() {
+            while (index >= page.size()) {
+                if (position < 0)
+                    return false;
+                nextPage();
+            }
+            return true;
+        }
+
+        @Override
+        public U next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            last = page.get(index++);
+            canRemove = true;
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (!canRemove)
+                throw new IllegalStateException();
+            canRemove = false;
+            ClientWiredStatelessChronicleCollection.this.remove(last);
+        }
+
+        private void nextPage() {
+            page.clear();
+            index = 0;
+            proxyReturnWireConsumerInOut(iteratorPage, reply,
+                    valueOut -> valueOut.marshallable(m -> {
+                        m.write(CollectionWireHandler.Params.cursor).int64(cursor);
+                        m.write(CollectionWireHandler.Params.position).int64(position);
+                        m.write(CollectionWireHandler.Params.pageSize).int32(PAGE_SIZE);
+                    }),
+                    read -> {
+                        read.marshallable(m -> {
+                            cursor = m.read(CollectionWireHandler.Params.cursor).int64();
+                            m.read(CollectionWireHandler.Params.entries).sequence(page, (p, v) -> {
+                                while (v.hasNextSequenceItem())
+                                    p.add(consumer.apply(v));
+                            });
+                            position = m.read(CollectionWireHandler.Params.position).int64();
+                        });
+                        return page;
+                    });
+        }
+    }
+}
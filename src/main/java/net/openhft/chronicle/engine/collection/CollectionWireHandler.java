@@ -29,6 +29,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -39,6 +42,9 @@ import java.util.function.Supplier;
 public class CollectionWireHandler<U, C extends Collection<U>> {
 
     private static final int SIZE_OF_SIZE = 4;
+    // the most cursors held open per connection, the least recently used is dropped
+    private static final int MAX_CURSORS = Integer.getInteger("engine.collection.maxCursors", 16);
+    private static final int MAX_PAGE_BYTES = Integer.getInteger("engine.collection.maxPageBytes", 1 << 20);
     private static final Logger LOG = LoggerFactory.getLogger(CollectionWireHandler.class);
     private Function<ValueIn, U> fromWire;
     private BiConsumer<ValueOut, U> toWire;
@@ -50,6 +56,13 @@ public class CollectionWireHandler<U, C extends Collection<U>> {
     private C underlyingCollection;
     private long tid;
     private Supplier<C> factory;
+    private long lastCursorId;
+    private final Map<Long, Cursor> cursors = new LinkedHashMap<Long, Cursor>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Cursor> eldest) {
+            return size() > MAX_CURSORS;
+        }
+    };
 
     private final ReadMarshallable dataConsumer = new ReadMarshallable() {
         @Override
@@ -80,6 +93,11 @@ public class CollectionWireHandler<U, C extends Collection<U>> {
                         return;
                     }
 
+                    if (EventId.iteratorPage.contentEquals(eventName)) {
+                        writePage(valueIn, out);
+                        return;
+                    }
+
                     if (EventId.numberOfSegments.contentEquals(eventName)) {
                         outWire.write(CoreFields.reply).int32(1);
                         return;
@@ -166,6 +184,48 @@ public class CollectionWireHandler<U, C extends Collection<U>> {
         }
     };
 
+    /**
+     * Writes the next page of the collection for a cursor. The iterator of a cursor is kept
+     * between pages, if the cursor has been dropped, or the position doesn't match, a new cursor
+     * is started which skips to the position requested.
+     */
+    @SuppressWarnings("unchecked")
+    private void writePage(@NotNull ValueIn valueIn, @NotNull WireOut out) {
+        final long[] request = new long[3];
+        valueIn.marshallable(m -> {
+            request[0] = m.read(Params.cursor).int64();
+            request[1] = m.read(Params.position).int64();
+            request[2] = m.read(Params.pageSize).int32();
+        });
+
+        Cursor cursor = cursors.get(request[0]);
+        if (cursor == null || cursor.collection != underlyingCollection ||
+                cursor.position != request[1]) {
+            cursor = new Cursor(++lastCursorId, underlyingCollection, request[1]);
+            cursors.put(cursor.id, cursor);
+        }
+
+        final Cursor c = cursor;
+        final int pageSize = (int) request[2];
+        final Bytes<?> bytes = out.bytes();
+        out.writeEventName(CoreFields.reply).marshallable(m -> {
+            m.write(Params.cursor).int64(c.id);
+            final long start = bytes.writePosition();
+            m.write(Params.entries).sequence(v -> {
+                for (int i = 0; i < pageSize && c.iterator.hasNext() &&
+                        bytes.writePosition() - start < MAX_PAGE_BYTES; i++) {
+                    toWire.accept(v, (U) c.iterator.next());
+                    c.position++;
+                }
+            });
+
+            final boolean hasMore = c.iterator.hasNext();
+            m.write(Params.position).int64(hasMore ? c.position : -1);
+            if (!hasMore)
+                cursors.remove(c.id);
+        });
+    }
+
     private C collectionFromWire() {
         C c = factory.get();
         @SuppressWarnings("ConstantConditions")
@@ -206,6 +266,10 @@ public class CollectionWireHandler<U, C extends Collection<U>> {
     enum Params implements WireKey {
         key,
         segment,
+        cursor,
+        position,
+        pageSize,
+        entries
     }
 
     enum EventId implements ParameterizeWireKey {
@@ -221,7 +285,10 @@ public class CollectionWireHandler<U, C extends Collection<U>> {
         numberOfSegments,
         contains(CollectionWireHandler.Params.key),
         identifier,
-        iterator(CollectionWireHandler.Params.segment);
+        iterator(CollectionWireHandler.Params.segment),
+        iteratorPage(CollectionWireHandler.Params.cursor,
+                CollectionWireHandler.Params.position,
+                CollectionWireHandler.Params.pageSize);
 
         private final WireKey[] params;
 
@@ -234,5 +301,24 @@ public class CollectionWireHandler<U, C extends Collection<U>> {
             return (P[]) this.params;
         }
     }
-}
 
+    /**
+     * An iterator over a collection held open between the pages of a client side iterator.
+     */
+    private static final class Cursor {
+        final long id;
+        final Collection<?> collection;
+        final Iterator<?> iterator;
+        long position;
+
+        Cursor(long id, @NotNull Collection<?> collection, long position) {
+            this.id = id;
+            this.collection = collection;
+            this.iterator = collection.iterator();
+            while (this.position < position && iterator.hasNext()) {
+                iterator.next();
+                this.position++;
+            }
+        }
+    }
+}
@@ -26,6 +26,7 @@ import net.openhft.chronicle.engine.api.EngineReplication;
 import net.openhft.chronicle.engine.api.tree.Asset;
 import net.openhft.chronicle.engine.api.tree.RequestContext;
 import net.openhft.chronicle.engine.map.replication.Bootstrap;
+import net.openhft.chronicle.engine.map.replication.MerkleTree;
 import net.openhft.chronicle.hash.replication.EngineReplicationLangBytesConsumer;
 import net.openhft.chronicle.map.EngineReplicationLangBytes;
 import net.openhft.chronicle.map.EngineReplicationLangBytes.EngineModificationIterator;
@@ -54,6 +55,7 @@ public class CMap2EngineReplicator implements EngineReplication,
     static {
         ClassAliasPool.CLASS_ALIASES.addAlias(VanillaReplicatedEntry.class);
         ClassAliasPool.CLASS_ALIASES.addAlias(Bootstrap.class);
+        ClassAliasPool.CLASS_ALIASES.addAlias(MerkleTree.class);
     }
 
     final ThreadLocal<KvBytes> kvBytesThreadLocal = ThreadLocal.withInitial(KvBytes::new);
@@ -32,6 +32,7 @@ import net.openhft.chronicle.engine.api.tree.RequestContext;
 import net.openhft.chronicle.engine.fs.Clusters;
 import net.openhft.chronicle.engine.fs.EngineCluster;
 import net.openhft.chronicle.engine.fs.EngineHostDetails;
+import net.openhft.chronicle.engine.map.replication.ReplicationMetrics;
 import net.openhft.chronicle.engine.server.internal.MapReplicationHandler;
 import net.openhft.chronicle.engine.tree.HostIdentifier;
 import net.openhft.chronicle.hash.replication.EngineReplicationLangBytesConsumer;
@@ -233,7 +234,8 @@ public class ChronicleMapKeyValueStore<K, V> implements ObjectKeyValueStore<K, V
 
                 final TcpChannelHub tcpChannelHub = hostDetails.acquireTcpChannelHub(asset, eventLoop, context.wireType());
                 final ReplicationHub replicationHub = new ReplicationHub(context, tcpChannelHub,
-                        eventLoop, isClosed, context.wireType());
+                        eventLoop, isClosed, context.wireType(),
+                        asset.acquireView(ReplicationMetrics.class));
 
                 replicationHub.bootstrap(engineReplicator1, localIdentifier, remoteIdentifier);
 
@@ -38,18 +38,27 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.nio.file.WatchEvent.Kind;
 import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 
 import static net.openhft.chronicle.core.Jvm.pause;
@@ -64,10 +73,32 @@ import static net.openhft.chronicle.engine.api.EngineReplication.ReplicationEntr
  * changed.  To avoid temporary files (e.g. if edited in vi) being included in the map, any file
  * starting with a '.' will be ignored. <p> Note the {@link WatchService} is extremely OS dependant.
  * Mas OSX registers very few events if they are done quickly and there is a significant delay
- * between the event and the event being triggered.
+ * between the event and the event being triggered. <p> With {@code segments=N} in the request
+ * context the keys are hashed into N sub-directories, each of which is a segment which can be
+ * scanned in parallel. In this mode the keys of each segment are indexed, as the files are
+ * changed through this store or seen by the {@link WatchService}, so size(), containsKey() and the
+ * iterators don't list the directories. The number of segments is kept in a {@code .segments}
+ * file, and a store can't be opened with a different number, or flat once segmented, as its files
+ * wouldn't be found. <p> With {@code -Dengine.filePerKey.writeBehind=true} puts and removes
+ * are queued and written in batches by a writer thread of their own, only the latest value of a
+ * key being written. Lookups of a key, size() and the keys and entries listed see the puts and
+ * removes still queued. A write which fails stays queued and is retried, until the store is
+ * closed. How often the writes are forced to disk is set with {@code -Dengine.filePerKey.fsync},
+ * see {@link FsyncPolicy}.
  */
 public class FilePerKeyValueStore implements StringBytesStoreKeyValueStore, Closeable {
+    public static final boolean WRITE_BEHIND = Boolean.getBoolean("engine.filePerKey.writeBehind");
+    public static final FsyncPolicy FSYNC = FsyncPolicy.valueOf(
+            System.getProperty("engine.filePerKey.fsync", "none").toUpperCase());
+
     private static final Logger LOG = LoggerFactory.getLogger(FilePerKeyValueStore.class);
+    private static final int MAX_BATCH = 1024;
+    // how long the writer waits before writing again the files it failed to write.
+    private static final int RETRY_MS = 100;
+    // how many times a failed write is tried once the store is closing, before it is lost.
+    private static final int CLOSE_ATTEMPTS = 5;
+    // holds the number of segments the store was created with, 0 if it is flat.
+    static final String SEGMENTS_FILE = ".segments";
 
     private final Path dirPath;
     //Use BytesStore so that it can be shared safely between threads
@@ -81,30 +112,61 @@ public class FilePerKeyValueStore implements StringBytesStoreKeyValueStore, Clos
     private final Asset asset;
 
     private final WatchService watcher;
+    // 0 for a flat directory, otherwise the number of sub-directories the keys are hashed into
+    private final int segments;
+    @Nullable
+    private final Set<String>[] index;
+    private final AtomicLong size = new AtomicLong();
+    // the puts and removes the writer has still to write, only the latest for each file.
+    private final Map<Path, Pending> pending = new ConcurrentHashMap<>();
+    private final BlockingQueue<Path> dirty = new LinkedBlockingQueue<>();
+    @Nullable
+    private final Thread fileWriter;
     private volatile boolean closed = false;
 
     public FilePerKeyValueStore(@NotNull RequestContext context, @NotNull Asset asset) throws IORuntimeException, AssetNotFoundException {
-        this(context, asset, context.type(), context.basePath(), context.name());
+        this(context, asset, WRITE_BEHIND);
+    }
+
+    /**
+     * @param writeBehind whether puts and removes are queued for a writer thread, overriding
+     *                    {@code -Dengine.filePerKey.writeBehind}
+     */
+    public FilePerKeyValueStore(@NotNull RequestContext context, @NotNull Asset asset, boolean writeBehind) throws IORuntimeException, AssetNotFoundException {
+        this(context, asset, context.type(), context.basePath(), context.name(), writeBehind);
         asset.registerView(StringBytesStoreKeyValueStore.class, this);
     }
 
-    private FilePerKeyValueStore(RequestContext context, @NotNull Asset asset, Class type, String basePath, String name) throws AssetNotFoundException {
+    private FilePerKeyValueStore(RequestContext context, @NotNull Asset asset, Class type, String basePath, String name, boolean writeBehind) throws AssetNotFoundException {
         this.asset = asset;
         assert type == String.class;
 
         String first = basePath;
         String dirName = first == null ? name : first + "/" + name;
         this.dirPath = Paths.get(dirName);
+        this.segments = Math.max(0, context.segments());
+        this.index = segments == 0 ? null : new Set[segments];
 
         try {
             Files.createDirectories(dirPath);
+            checkSegments();
             watcher = FileSystems.getDefault().newWatchService();
-            dirPath.register(watcher, new Kind[]{
-                            StandardWatchEventKinds.ENTRY_CREATE,
-                            StandardWatchEventKinds.ENTRY_DELETE,
-                            StandardWatchEventKinds.ENTRY_MODIFY},
-                    SensitivityWatchEventModifier.HIGH
-            );
+            if (segments == 0) {
+                register(dirPath);
+            } else {
+                for (int i = 0; i < segments; i++) {
+                    final Path segmentDir = segmentDir(i);
+                    Files.createDirectories(segmentDir);
+                    // registered before it is listed, so no file is missed.
+                    register(segmentDir);
+                    index[i] = ConcurrentHashMap.newKeySet();
+                    try (DirectoryStream<Path> files = Files.newDirectoryStream(segmentDir)) {
+                        for (Path file : files)
+                            if (isVisible(file) && !Files.isDirectory(file))
+                                indexAdd(file.getFileName().toString());
+                    }
+                }
+            }
         } catch (IOException e) {
             throw new IORuntimeException(e);
         }
@@ -112,10 +174,95 @@ public class FilePerKeyValueStore implements StringBytesStoreKeyValueStore, Clos
         fileFpmWatcher = new Thread(new FPMWatcher(watcher), Threads.threadGroupPrefix() + " watcher for " + dirName);
         fileFpmWatcher.setDaemon(true);
         fileFpmWatcher.start();
+        if (writeBehind) {
+            fileWriter = new Thread(new WriteBehind(), Threads.threadGroupPrefix() + " writer for " + dirName);
+            fileWriter.setDaemon(true);
+            fileWriter.start();
+        } else {
+            fileWriter = null;
+        }
         subscriptions = asset.acquireView(RawKVSSubscription.class, context);
         subscriptions.setKvStore(this);
     }
 
+    /**
+     * Records the number of segments of a new store, or checks it matches the number an existing
+     * store was created with.
+     */
+    private void checkSegments() throws IOException {
+        final Path file = dirPath.resolve(SEGMENTS_FILE);
+        if (Files.exists(file)) {
+            final String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+            final int existing;
+            try {
+                existing = Integer.parseInt(text);
+            } catch (NumberFormatException e) {
+                throw new IORuntimeException("Unable to read the number of segments in " + file +
+                        ", found '" + text + "'");
+            }
+            checkSegments(existing);
+            return;
+        }
+
+        checkSegments(existingSegments());
+        Files.write(file, Integer.toString(segments).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void checkSegments(int existing) {
+        if (existing >= 0 && existing != segments)
+            throw new IORuntimeException("The store in " + dirPath + " has segments=" + existing +
+                    " and can't be opened with segments=" + segments);
+    }
+
+    /**
+     * @return the layout of a store created before the number of segments was recorded, 0 if it
+     * has files at the top, the number of segment directories if it only has those, or -1 if it is
+     * empty.
+     */
+    private int existingSegments() throws IOException {
+        int dirs = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dirPath)) {
+            for (Path file : files) {
+                if (!isVisible(file))
+                    continue;
+                if (!Files.isDirectory(file))
+                    return 0;
+                if (file.getFileName().toString().matches("\\d+"))
+                    dirs++;
+            }
+        }
+        return dirs == 0 ? -1 : dirs;
+    }
+
+    private void register(@NotNull Path dir) throws IOException {
+        dir.register(watcher, new Kind[]{
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE,
+                        StandardWatchEventKinds.ENTRY_MODIFY},
+                SensitivityWatchEventModifier.HIGH
+        );
+    }
+
+    @NotNull
+    private Path segmentDir(int segment) {
+        return dirPath.resolve(Integer.toString(segment));
+    }
+
+    @NotNull
+    private Path path(@NotNull String key) {
+        return segments == 0 ? dirPath.resolve(key) : segmentDir(segmentFor(key)).resolve(key);
+    }
+
+    private void indexAdd(@NotNull String key) {
+        if (index != null && index[segmentFor(key)].add(key))
+            size.incrementAndGet();
+    }
+
+    private void indexRemove(@NotNull String key) {
+        if (index != null && index[segmentFor(key)].remove(key))
+            size.decrementAndGet();
+    }
+
     @NotNull
     @Override
     public RawKVSSubscription<String, BytesStore> subscription(boolean createIfAbsent) {
@@ -124,32 +271,60 @@ public class FilePerKeyValueStore implements StringBytesStoreKeyValueStore, Clos
 
     @Override
     public long longSize() {
-        return getFiles().count();
+        if (index != null)
+            return size.get();
+        return paths().count();
+    }
+
+    @Override
+    public int segments() {
+        return segments == 0 ? 1 : segments;
+    }
+
+    @Override
+    public int segmentFor(String key) {
+        return segments == 0 ? 0 : (key.hashCode() & Integer.MAX_VALUE) % segments;
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        if (index != null)
+            return index[segmentFor(key)].contains(key);
+        Path path = dirPath.resolve(key);
+        Pending p = pending.get(path);
+        if (p != null)
+            return p.value != null;
+        return Files.isRegularFile(path);
     }
 
     @Nullable
     @Override
     public BytesStore getUsing(String key, Object value) {
-        Path path = dirPath.resolve(key);
+        Path path = path(key);
         return getFileContents(path, (Bytes) value);
     }
 
     @Override
-    public void keysFor(int segment, @NotNull SubscriptionConsumer<String> stringConsumer) {
+    public void keysFor(int segment, @NotNull SubscriptionConsumer<String> stringConsumer) throws InvalidSubscriberException {
+        if (index != null) {
+            for (String key : index[segment])
+                stringConsumer.accept(key);
+            return;
+        }
         keysFor0(stringConsumer);
     }
 
     private void keysFor0(@NotNull SubscriptionConsumer<String> stringConsumer) {
-        getFiles().forEach(ThrowingConsumer.asConsumer(p -> stringConsumer.accept(p.getFileName().toString())));
+        paths().forEach(ThrowingConsumer.asConsumer(p -> stringConsumer.accept(p.getFileName().toString())));
     }
 
     @Override
     public void entriesFor(int segment, @NotNull SubscriptionConsumer<MapEvent<String, BytesStore>> kvConsumer) throws InvalidSubscriberException {
-        entriesFor0(kvConsumer);
+        entriesFor0(index == null ? paths() : index[segment].stream().map(this::path), kvConsumer);
     }
 
-    private void entriesFor0(@NotNull SubscriptionConsumer<MapEvent<String, BytesStore>> kvConsumer) throws InvalidSubscriberException {
-        getFiles().forEach(p -> {
+    private void entriesFor0(@NotNull Stream<Path> files, @NotNull SubscriptionConsumer<MapEvent<String, BytesStore>> kvConsumer) throws InvalidSubscriberException {
+        files.forEach(p -> {
             BytesStore fileContents = null;
             try {
                 // in case the file has been deleted in the meantime.
@@ -169,7 +344,9 @@ public class FilePerKeyValueStore implements StringBytesStoreKeyValueStore, Clos
 
     @Override
     public Iterator<String> keySetIterator() {
-        return getFiles().map(p -> p.getFileName().toString()).iterator();
+        if (index != null)
+            return keys().iterator();
+        return paths().map(p -> p.getFileName().toString()).iterator();
     }
 
     @Override
@@ -177,8 +354,34 @@ public class FilePerKeyValueStore implements StringBytesStoreKeyValueStore, Clos
         return getEntryStream().iterator();
     }
 
+    // the keys of all the segments, from the index.
+    @NotNull
+    private Stream<String> keys() {
+        assert index != null;
+        return Stream.of(index).flatMap(Set::stream);
+    }
+
+    /**
+     * @return the file of each key, from the index if segmented. A flat store lists its directory,
+     * with the puts and removes still queued for the writer applied.
+     */
+    @NotNull
+    private Stream<Path> paths() {
+        if (index != null)
+            return keys().map(this::path);
+        if (pending.isEmpty())
+            return getFiles();
+        // a copy, so a file written, and no longer pending, while the directory is listed isn't missed.
+        final Map<Path, Pending> queued = new HashMap<>(pending);
+        return Stream.concat(
+                getFiles().filter(p -> !queued.containsKey(p)),
+                queued.entrySet().stream()
+                        .filter(e -> e.getValue().value != null)
+                        .map(Map.Entry::getKey));
+    }
+
     private Stream<Map.Entry<String, BytesStore>> getEntryStream() {
-        return getFiles()
+        return paths()
                 .map(p -> {
                     BytesStore fileContents = null;
                     try {
@@ -194,9 +397,10 @@ public class FilePerKeyValueStore implements StringBytesStoreKeyValueStore, Clos
     @Override
     public boolean put(String key, @NotNull BytesStore value) {
         if (closed) throw new IllegalStateException("closed");
-        Path path = dirPath.resolve(key);
+        Path path = path(key);
         FileRecord fr = lastFileRecordMap.get(path.toFile());
-        writeToFile(path, value);
+        write(path, value);
+        indexAdd(key);
         if (fr != null) fr.valid = false;
         return fr != null;
     }
@@ -206,10 +410,11 @@ public class FilePerKeyValueStore implements StringBytesStoreKeyValueStore, Clos
     @Override
     public BytesStore getAndPut(String key, @NotNull BytesStore value) {
         if (closed) throw new IllegalStateException("closed");
-        Path path = dirPath.resolve(key);
+        Path path = path(key);
         FileRecord fr = lastFileRecordMap.get(path.toFile());
         BytesStore existingValue = getFileContents(path, null);
-        writeToFile(path, value);
+        write(path, value);
+        indexAdd(key);
         if (fr != null) fr.valid = false;
         return existingValue == null ? null : existingValue;
     }
@@ -221,7 +426,7 @@ public class FilePerKeyValueStore implements StringBytesStoreKeyValueStore, Clos
         if (closed) throw new IllegalStateException("closed");
         BytesStore existing = get(key);
         if (existing != null) {
-            deleteFile(dirPath.resolve(key));
+            delete(path(key));
         }
         return existing;
     }
@@ -229,9 +434,10 @@ public class FilePerKeyValueStore implements StringBytesStoreKeyValueStore, Clos
     @Override
     public boolean remove(String key) {
         if (closed) throw new IllegalStateException("closed");
-        Path path = dirPath.resolve(key);
-        if (path.toFile().isFile())
-            deleteFile(path);
+        Path path = path(key);
+        if (fileWriter != null || path.toFile().isFile())
+            delete(path);
+        indexRemove(key);
         // todo check this is removed in watcher
         FileRecord fr = lastFileRecordMap.get(path.toFile());
         return fr != null;
@@ -239,6 +445,11 @@ public class FilePerKeyValueStore implements StringBytesStoreKeyValueStore, Clos
 
     @Override
     public void clear() {
+        // queued puts would otherwise be written after the files are deleted.
+        pending.replaceAll((path, p) -> {
+            indexRemove(path.getFileName().toString());
+            return Pending.REMOVED;
+        });
         AtomicInteger count = new AtomicInteger();
         Stream<Path> files = getFiles();
         files.forEach((path) -> {
@@ -272,11 +483,19 @@ public class FilePerKeyValueStore implements StringBytesStoreKeyValueStore, Clos
     }
 
     private boolean isVisible(@NotNull Path p) {
-        return !p.getFileName().startsWith(".");
+        // not Path.startsWith(), which compares whole names.
+        return !p.getFileName().toString().startsWith(".");
     }
 
     @Nullable
     private BytesStore getFileContents(@NotNull Path path, Bytes using) {
+        Pending p = pending.get(path);
+        if (p != null) {
+            if (p.value == null)
+                return null;
+            p.value.reserve();
+            return p.value;
+        }
         File file = path.toFile();
         FileRecord<BytesStore> lastFileRecord = lastFileRecordMap.get(file);
         if (lastFileRecord != null && lastFileRecord.valid
@@ -301,12 +520,11 @@ public class FilePerKeyValueStore implements StringBytesStoreKeyValueStore, Clos
     }
 
     private Bytes getFileContentsFromDisk0(@NotNull Path path, Bytes using) throws IOException {
-        if (!Files.exists(path)) return null;
-        File file = path.toFile();
-
         Buffers b = Buffers.BUFFERS.get();
         Bytes<ByteBuffer> readingBytes = b.valueBuffer;
-        try (FileChannel fc = new FileInputStream(file).getChannel()) {
+        // FileChannel.open rather than a FileInputStream, which needs finalizing, and no
+        // separate check the file exists.
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
             readingBytes.ensureCapacity(fc.size());
 
             ByteBuffer dst = readingBytes.underlyingObject();
@@ -316,12 +534,40 @@ public class FilePerKeyValueStore implements StringBytesStoreKeyValueStore, Clos
 
             readingBytes.readPositionRemaining(0, dst.position());
             dst.flip();
+        } catch (NoSuchFileException e) {
+            return null;
         }
         readingBytes.reserve();
         return readingBytes;
     }
 
-    private void writeToFile(@NotNull Path path, @NotNull BytesStore value) {
+    private void write(@NotNull Path path, @NotNull BytesStore value) {
+        if (fileWriter == null) {
+            writeToFile(path, value, false);
+            return;
+        }
+        // copied on heap as the caller may reuse the value.
+        Bytes<ByteBuffer> copy = BytesStore.wrap(ByteBuffer.allocate((int) value.readRemaining())).bytesForWrite();
+        copy.write(value);
+        enqueue(path, new Pending(copy));
+    }
+
+    private void delete(@NotNull Path path) {
+        if (fileWriter == null) {
+            deleteFile(path);
+            return;
+        }
+        enqueue(path, Pending.REMOVED);
+        indexRemove(path.getFileName().toString());
+    }
+
+    private void enqueue(@NotNull Path path, @NotNull Pending p) {
+        // a path already pending is still queued, and the writer will pick up the latest value.
+        if (pending.put(path, p) == null)
+            dirty.add(path);
+    }
+
+    private void writeToFile(@NotNull Path path, @NotNull BytesStore value, boolean force) {
         BytesStore<?, ByteBuffer> writingBytes;
         if (value.underlyingObject() instanceof ByteBuffer) {
             writingBytes = value;
@@ -340,10 +586,12 @@ public class FilePerKeyValueStore implements StringBytesStoreKeyValueStore, Clos
             byteBuffer.position(0);
             byteBuffer.limit((int) writingBytes.readLimit());
             fc.write(byteBuffer);
+            if (force)
+                fc.force(true);
         } catch (IOException e) {
             throw new AssertionError(e);
         }
-        for (int i = 1; i < 5; i++) {
+        for (int i = 1; ; i++) {
             try {
                 Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
                 break;
@@ -351,13 +599,22 @@ public class FilePerKeyValueStore implements StringBytesStoreKeyValueStore, Clos
             } catch (FileSystemException fse) {
                 if (LOG.isDebugEnabled())
                     LOG.debug("Unable to rename file " + fse);
-                try {
-                    Thread.sleep(i * i * 2);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
+                boolean interrupted = false;
+                if (i < 5) {
+                    try {
+                        Thread.sleep(i * i * 2);
+                        continue;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
                 }
+                tmpFile.delete();
+                if (interrupted)
+                    Thread.currentThread().interrupt();
+                throw new IllegalStateException("Unable to rename " + tmpFile + " to " + file, fse);
+
             } catch (IOException e) {
+                tmpFile.delete();
                 throw new IllegalStateException(e);
             }
         }
@@ -367,13 +624,37 @@ public class FilePerKeyValueStore implements StringBytesStoreKeyValueStore, Clos
     private void deleteFile(@NotNull Path path) {
         try {
             Files.deleteIfExists(path);
+            indexRemove(path.getFileName().toString());
         } catch (IOException e) {
             throw new IllegalStateException(e);
         }
     }
 
+    private static void syncDirectory(@NotNull Path dir) {
+        try (FileChannel fc = FileChannel.open(dir, StandardOpenOption.READ)) {
+            fc.force(true);
+        } catch (IOException e) {
+            // not all platforms can open a directory.
+            if (LOG.isDebugEnabled())
+                LOG.debug("Unable to sync directory " + dir + " " + e);
+        }
+    }
+
+    // the number of files with a put or remove still to be written.
+    int pendingWrites() {
+        return pending.size();
+    }
+
     public void close() {
         closed = true;
+        if (fileWriter != null) {
+            // the writer stops once the queued writes are written.
+            try {
+                fileWriter.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
         fileFpmWatcher.interrupt();
         Closeable.closeQuietly(watcher);
     }
@@ -395,6 +676,107 @@ public class FilePerKeyValueStore implements StringBytesStoreKeyValueStore, Clos
         throw new UnsupportedOperationException("todo");
     }
 
+    /**
+     * When the writes of the write behind thread are forced to disk.
+     */
+    public enum FsyncPolicy {
+        /**
+         * never, left to the operating system.
+         */
+        NONE,
+        /**
+         * each file is forced as it is written and the directories once per batch, after the
+         * renames.
+         */
+        BATCH,
+        /**
+         * each file is forced as it is written and its directory after each rename.
+         */
+        WRITE
+    }
+
+    private static final class Pending {
+        static final Pending REMOVED = new Pending(null);
+
+        // null if the file is to be deleted.
+        @Nullable
+        final BytesStore value;
+        // the failed attempts to write it, only used by the writer.
+        int failures = 0;
+
+        Pending(@Nullable BytesStore value) {
+            this.value = value;
+        }
+    }
+
+    private class WriteBehind implements Runnable {
+        private final List<Path> batch = new ArrayList<>();
+        private final List<Path> retry = new ArrayList<>();
+        private final Set<Path> dirs = new HashSet<>();
+
+        @Override
+        public void run() {
+            while (!closed || !dirty.isEmpty()) {
+                Path first;
+                try {
+                    first = dirty.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (first == null)
+                    continue;
+                batch.add(first);
+                dirty.drainTo(batch, MAX_BATCH - 1);
+                for (Path path : batch)
+                    write(path);
+                batch.clear();
+                if (FSYNC == FsyncPolicy.BATCH)
+                    dirs.forEach(FilePerKeyValueStore::syncDirectory);
+                dirs.clear();
+                if (!retry.isEmpty()) {
+                    pause(RETRY_MS);
+                    dirty.addAll(retry);
+                    retry.clear();
+                }
+            }
+        }
+
+        private void write(@NotNull Path path) {
+            Pending p = pending.get(path);
+            if (p == null)
+                return;
+            try {
+                if (p.value == null) {
+                    // not deleteFile() as the key may have been put again since.
+                    Files.deleteIfExists(path);
+                } else {
+                    writeToFile(path, p.value, FSYNC != FsyncPolicy.NONE);
+                }
+                if (FSYNC == FsyncPolicy.WRITE)
+                    syncDirectory(path.getParent());
+                else
+                    dirs.add(path.getParent());
+            } catch (Throwable t) {
+                // left pending, so lookups still see it, and written again after a pause.
+                if (p.failures++ == 0)
+                    LOG.error("Unable to write " + path + ", retrying", t);
+                if (!closed || p.failures < CLOSE_ATTEMPTS) {
+                    if (pending.get(path) == p) {
+                        retry.add(path);
+                        return;
+                    }
+                } else {
+                    LOG.error("Unable to write " + path + " after " + p.failures +
+                            " attempts, the store is closed so it is lost", t);
+                }
+            }
+            // replaced while it was written, so write it again.
+            if (!pending.remove(path, p))
+                dirty.add(path);
+        }
+    }
+
     private class FPMWatcher implements Runnable {
         private final WatchService watcher;
 
@@ -425,6 +807,8 @@ public class FilePerKeyValueStore implements StringBytesStoreKeyValueStore, Clos
         @NotNull
         private WatchKey processKey() throws InterruptedException {
             WatchKey key = watcher.take();
+            // the directory of the segment, or the map's directory if it isn't segmented
+            final Path dir = (Path) key.watchable();
             for (WatchEvent<?> event : key.pollEvents()) {
                 Kind<?> kind = event.kind();
 
@@ -444,7 +828,7 @@ public class FilePerKeyValueStore implements StringBytesStoreKeyValueStore, Clos
 //                System.out.println("file: "+mapKey+" kind: "+kind);
 
                 if (kind == StandardWatchEventKinds.ENTRY_CREATE || kind == StandardWatchEventKinds.ENTRY_MODIFY) {
-                    Path p = dirPath.resolve(fileName);
+                    Path p = dir.resolve(fileName);
                     BytesStore mapVal = getFileContentsFromDisk(p, null);
 
                     FileRecord<BytesStore> prev = lastFileRecordMap.get(p.toFile());
@@ -465,6 +849,7 @@ public class FilePerKeyValueStore implements StringBytesStoreKeyValueStore, Clos
                         } else {
 //                            System.out.println("adding "+mapKey);
                             lastFileRecordMap.put(p.toFile(), new FileRecord<>(p.toFile().lastModified(), mapVal.copy()));
+                            indexAdd(mapKey);
                         }
                         if (prev == null) {
                             subscriptions.notifyEvent(InsertedEvent.of(asset.fullName(), p.toFile().getName(), mapVal, false));
@@ -479,7 +864,8 @@ public class FilePerKeyValueStore implements StringBytesStoreKeyValueStore, Clos
                     }
 
                 } else if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
-                    Path p = dirPath.resolve(fileName);
+                    Path p = dir.resolve(fileName);
+                    indexRemove(mapKey);
 
                     FileRecord<BytesStore> prev = lastFileRecordMap.remove(p.toFile());
                     BytesStore lastVal = prev == null ? null : prev.contents();
@@ -0,0 +1,93 @@
+/*
+ *     Copyright (C) 2015  higherfrequencytrading.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.openhft.chronicle.engine.map;
+
+import net.openhft.chronicle.engine.api.pubsub.ISubscriber;
+import net.openhft.chronicle.engine.api.pubsub.InvalidSubscriberException;
+import net.openhft.chronicle.engine.api.pubsub.SubscriptionConsumer;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Subscribers which are only interested in a set of keys, indexed by key so an event only visits
+ * the subscribers for its key.
+ */
+class KeyedSubscriberIndex<S extends ISubscriber> {
+    private static final Logger LOG = LoggerFactory.getLogger(KeyedSubscriberIndex.class);
+
+    private final Map<Object, SubscriberSet<S>> byKey = new ConcurrentHashMap<>();
+    private final Map<S, Collection<?>> keysFor = new ConcurrentHashMap<>();
+
+    synchronized void add(@NotNull Collection<?> keys, @NotNull S subscriber) {
+        keysFor.put(subscriber, keys);
+        for (Object key : keys)
+            byKey.computeIfAbsent(key, k -> new SubscriberSet<>()).add(subscriber);
+    }
+
+    synchronized boolean remove(@NotNull Object subscriber) {
+        Collection<?> keys = keysFor.remove(subscriber);
+        if (keys == null)
+            return false;
+        for (Object key : keys) {
+            SubscriberSet<S> subs = byKey.get(key);
+            if (subs != null && subs.remove(subscriber) && subs.isEmpty())
+                byKey.remove(key);
+        }
+        return true;
+    }
+
+    boolean isEmpty() {
+        return keysFor.isEmpty();
+    }
+
+    int size() {
+        return keysFor.size();
+    }
+
+    void forEach(@NotNull Consumer<S> action) {
+        keysFor.keySet().forEach(action);
+    }
+
+    synchronized void clear() {
+        keysFor.clear();
+        byKey.clear();
+    }
+
+    void notifyEachSubscriber(Object key, @NotNull SubscriptionConsumer<S> doNotify) {
+        SubscriberSet<S> subs = byKey.get(key);
+        if (subs == null)
+            return;
+        subs.forEach(s -> {
+            try {
+                doNotify.accept(s);
+            } catch (InvalidSubscriberException ise) {
+                remove(s);
+                try {
+                    s.onEndOfSubscription();
+                } catch (Exception e) {
+                    LOG.error("", e);
+                }
+            }
+        });
+    }
+}
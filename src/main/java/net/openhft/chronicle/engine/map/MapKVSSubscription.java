@@ -35,10 +35,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.LocalTime;
+import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
 
 import static java.lang.Boolean.TRUE;
 import static net.openhft.chronicle.engine.api.pubsub.SubscriptionConsumer.notifyEachSubscriber;
@@ -50,15 +50,17 @@ public class MapKVSSubscription<K, V> implements ObjectSubscription<K, V>,
         RawKVSSubscription<K, V> {
 
     private static final Logger LOG = LoggerFactory.getLogger(MapKVSSubscription.class);
-    private final Set<TopicSubscriber<K, V>> topicSubscribers = new CopyOnWriteArraySet<>();
-    private final Set<Subscriber<MapEvent<K, V>>> subscribers = new CopyOnWriteArraySet<>();
-    private final Set<Subscriber<K>> keySubscribers = new CopyOnWriteArraySet<>();
-    private final Set<EventConsumer<K, V>> downstream = new CopyOnWriteArraySet<>();
+    private final Set<TopicSubscriber<K, V>> topicSubscribers = new SubscriberSet<>();
+    private final Set<Subscriber<MapEvent<K, V>>> subscribers = new SubscriberSet<>();
+    private final Set<Subscriber<K>> keySubscribers = new SubscriberSet<>();
+    private final Set<EventConsumer<K, V>> downstream = new SubscriberSet<>();
+    private final KeyedSubscriberIndex<Subscriber<MapEvent<K, V>>> keyedSubscribers = new KeyedSubscriberIndex<>();
+    private final KeyedSubscriberIndex<Subscriber<K>> keyedKeySubscribers = new KeyedSubscriberIndex<>();
     private final SessionProvider sessionProvider;
 
     @Nullable
     private final Asset asset;
-    private final Map<Subscriber, Subscriber> subscriptionDelegate = new IdentityHashMap<>();
+    private final Map<Subscriber, Subscriber> subscriptionDelegate = Collections.synchronizedMap(new IdentityHashMap<>());
     private KeyValueStore<K, V> kvStore;
     private Map<String, SubscriptionStat> subscriptionMonitoringMap = null;
 
@@ -80,6 +82,8 @@ public class MapKVSSubscription<K, V> implements ObjectSubscription<K, V>,
         notifyEndOfSubscription(subscribers);
         notifyEndOfSubscription(keySubscribers);
         notifyEndOfSubscription(downstream);
+        notifyEndOfSubscription(keyedSubscribers);
+        notifyEndOfSubscription(keyedKeySubscribers);
     }
 
     @Override
@@ -92,6 +96,11 @@ public class MapKVSSubscription<K, V> implements ObjectSubscription<K, V>,
         subscribers.clear();
     }
 
+    private void notifyEndOfSubscription(@NotNull KeyedSubscriberIndex<? extends ISubscriber> subscribers) {
+        subscribers.forEach(this::notifyEndOfSubscription);
+        subscribers.clear();
+    }
+
     private void notifyEndOfSubscription(@NotNull ISubscriber subscriber) {
         try {
             subscriber.onEndOfSubscription();
@@ -118,12 +127,12 @@ public class MapKVSSubscription<K, V> implements ObjectSubscription<K, V>,
 
     @Override
     public int keySubscriberCount() {
-        return keySubscribers.size();
+        return keySubscribers.size() + keyedKeySubscribers.size();
     }
 
     @Override
     public int entrySubscriberCount() {
-        return subscribers.size();
+        return subscribers.size() + keyedSubscribers.size();
     }
 
     @Override
@@ -133,12 +142,12 @@ public class MapKVSSubscription<K, V> implements ObjectSubscription<K, V>,
 
     @Override
     public boolean hasSubscribers() {
-        return !keySubscribers.isEmpty() || hasValueSubscribers();
+        return !keySubscribers.isEmpty() || !keyedKeySubscribers.isEmpty() || hasValueSubscribers();
     }
 
     @Override
     public boolean hasValueSubscribers() {
-        return !topicSubscribers.isEmpty() || !subscribers.isEmpty()
+        return !topicSubscribers.isEmpty() || !subscribers.isEmpty() || !keyedSubscribers.isEmpty()
                 || !downstream.isEmpty() || asset.hasChildren();
     }
 
@@ -160,6 +169,12 @@ public class MapKVSSubscription<K, V> implements ObjectSubscription<K, V>,
         if (!keySubscribers.isEmpty()) {
             notifyEachSubscriber(keySubscribers, s -> s.onMessage(key));
         }
+        if (!keyedSubscribers.isEmpty()) {
+            keyedSubscribers.notifyEachSubscriber(key, s -> s.onMessage(changeEvent));
+        }
+        if (!keyedKeySubscribers.isEmpty()) {
+            keyedKeySubscribers.notifyEachSubscriber(key, s -> s.onMessage(key));
+        }
         if (!downstream.isEmpty()) {
             notifyEachSubscriber(downstream, d -> d.notifyEvent(changeEvent));
         }
@@ -186,7 +201,7 @@ public class MapKVSSubscription<K, V> implements ObjectSubscription<K, V>,
     @Override
     public boolean needsPrevious() {
         // todo optimise this to reduce false positives.
-        return !subscribers.isEmpty() || !downstream.isEmpty();
+        return !subscribers.isEmpty() || !keyedSubscribers.isEmpty() || !downstream.isEmpty();
     }
 
     @Override
@@ -214,13 +229,45 @@ public class MapKVSSubscription<K, V> implements ObjectSubscription<K, V>,
         return sub;
     }
 
+    /**
+     * A subscription which ends after the bootstrap is a query, such as a RemoteQuery. It only
+     * needs the current entries which pass its filter, so it is never added to the live
+     * subscribers.
+     */
+    private boolean isQuery(@NotNull RequestContext rc) {
+        return kvStore != null && rc.bootstrap() != Boolean.FALSE &&
+                TRUE.equals(rc.endSubscriptionAfterBootstrap());
+    }
+
+    @NotNull
+    private static <T> Subscriber<T> queryResults(@NotNull Subscriber<T> subscriber,
+                                                  @NotNull Filter<T> filter) {
+        return filter.isEmpty() ? subscriber : new Filter.FilteredSubscriber<>(filter, subscriber);
+    }
+
     private void registerSubscriber0(@NotNull RequestContext rc,
                                      @NotNull Subscriber<MapEvent<K, V>> subscriber,
                                      @NotNull Filter<MapEvent<K, V>> filter) {
         addToStats("subscription");
+        Set<?> keys = filter.keys();
+        if (keys != null) {
+            registerKeyedSubscriber0(rc, subscriber, filter.withoutKeys(), keys);
+            return;
+        }
+        Boolean bootstrap = rc.bootstrap();
+        if (isQuery(rc)) {
+            final Subscriber<MapEvent<K, V>> sub = queryResults(subscriber, filter);
+            try {
+                for (int i = 0; i < kvStore.segments(); i++)
+                    kvStore.entriesFor(i, sub::onMessage);
+                sub.onEndOfSubscription();
+            } catch (InvalidSubscriberException e) {
+                // the subscriber no longer wants the results.
+            }
+            return;
+        }
         final Subscriber<MapEvent<K, V>> sub = subscriber(subscriber, filter);
         this.subscribers.add(sub);
-        Boolean bootstrap = rc.bootstrap();
         if (bootstrap != Boolean.FALSE && kvStore != null) {
             try {
                 for (int i = 0; i < kvStore.segments(); i++)
@@ -239,12 +286,74 @@ public class MapKVSSubscription<K, V> implements ObjectSubscription<K, V>,
         }
     }
 
+    private void registerKeyedSubscriber0(@NotNull RequestContext rc,
+                                          @NotNull Subscriber<MapEvent<K, V>> subscriber,
+                                          @NotNull Filter<MapEvent<K, V>> filter,
+                                          @NotNull Set<?> keys) {
+        final Subscriber<MapEvent<K, V>> sub = subscriber(subscriber, filter);
+        keyedSubscribers.add(keys, sub);
+        if (rc.bootstrap() != Boolean.FALSE && kvStore != null) {
+            try {
+                String assetName = asset == null ? null : asset.fullName();
+                for (Object key : keys) {
+                    V value = kvStore.get((K) key);
+                    if (value != null)
+                        sub.onMessage(InsertedEvent.of(assetName, (K) key, value, false));
+                }
+                if (TRUE.equals(rc.endSubscriptionAfterBootstrap())) {
+                    sub.onEndOfSubscription();
+                    keyedSubscribers.remove(sub);
+                }
+            } catch (InvalidSubscriberException e) {
+                keyedSubscribers.remove(sub);
+            }
+        }
+    }
+
+    private void registerKeyedKeySubscriber0(@NotNull RequestContext rc,
+                                             @NotNull Subscriber<K> subscriber,
+                                             @NotNull Filter<K> filter,
+                                             @NotNull Set<?> keys) {
+        final Subscriber<K> sub = subscriber(subscriber, filter);
+        keyedKeySubscribers.add(keys, sub);
+        if (rc.bootstrap() != Boolean.FALSE && kvStore != null) {
+            try {
+                for (Object key : keys) {
+                    if (kvStore.containsKey((K) key))
+                        sub.onMessage((K) key);
+                }
+                if (TRUE.equals(rc.endSubscriptionAfterBootstrap())) {
+                    sub.onEndOfSubscription();
+                    keyedKeySubscribers.remove(sub);
+                }
+            } catch (InvalidSubscriberException e) {
+                keyedKeySubscribers.remove(sub);
+            }
+        }
+    }
+
     @Override
     public void registerKeySubscriber(@NotNull RequestContext rc,
                                       @NotNull Subscriber<K> subscriber,
                                       @NotNull Filter<K> filter) {
         addToStats("keySubscription");
+        Set<?> keys = filter.keys();
+        if (keys != null) {
+            registerKeyedKeySubscriber0(rc, subscriber, filter.withoutKeys(), keys);
+            return;
+        }
         final Boolean bootstrap = rc.bootstrap();
+        if (isQuery(rc)) {
+            final Subscriber<K> sub = queryResults(subscriber, filter);
+            try {
+                for (int i = 0; i < kvStore.segments(); i++)
+                    kvStore.keysFor(i, sub::onMessage);
+                sub.onEndOfSubscription();
+            } catch (InvalidSubscriberException e) {
+                // the subscriber no longer wants the results.
+            }
+            return;
+        }
         final Subscriber<K> sub = subscriber(subscriber, filter);
         keySubscribers.add(sub);
         if (bootstrap != Boolean.FALSE && kvStore != null) {
@@ -290,8 +399,8 @@ public class MapKVSSubscription<K, V> implements ObjectSubscription<K, V>,
     public void unregisterSubscriber(@NotNull Subscriber subscriber) {
         final Subscriber delegate = subscriptionDelegate.remove(subscriber);
         final Subscriber s = delegate != null ? delegate : subscriber;
-        boolean subscription = subscribers.remove(s);
-        boolean keySubscription = keySubscribers.remove(s);
+        boolean subscription = subscribers.remove(s) | keyedSubscribers.remove(s);
+        boolean keySubscription = keySubscribers.remove(s) | keyedKeySubscribers.remove(s);
         if (subscription) removeFromStats("subscription");
         if (keySubscription) removeFromStats("keySubscription");
         s.onEndOfSubscription();
@@ -0,0 +1,595 @@
+/*
+ *     Copyright (C) 2015  higherfrequencytrading.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package net.openhft.chronicle.engine.map;
+
+import net.openhft.chronicle.bytes.NativeBytesStore;
+import net.openhft.chronicle.engine.api.EngineReplication.ReplicationEntry;
+import net.openhft.chronicle.engine.api.map.KeyValueStore;
+import net.openhft.chronicle.engine.api.map.MapEvent;
+import net.openhft.chronicle.engine.api.pubsub.InvalidSubscriberException;
+import net.openhft.chronicle.engine.api.pubsub.SubscriptionConsumer;
+import net.openhft.chronicle.engine.api.tree.Asset;
+import net.openhft.chronicle.engine.api.tree.RequestContext;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A KeyValueStore for maps whose key and value types are {@code Long}, {@code Integer} or
+ * {@code Double}. Entries are held off heap in an open addressing table of 16 byte slots, so
+ * there is no per-entry object, and lookups and updates do not allocate. The boxed {@link
+ * KeyValueStore} methods only box the value returned, the {@code *Long} methods don't allocate at
+ * all.
+ * <p>
+ * Keys and values are stored as 64-bit words, an {@code int} is widened and a {@code double} is
+ * stored as its raw long bits.
+ */
+public class PrimitiveKeyValueStore<K, V> implements AuthenticatedKeyValueStore<K, V> {
+    static final long FREE_KEY = 0L;
+    private static final int SLOT_SIZE = 16;
+    private static final int MIN_CAPACITY = 64;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Asset asset;
+    @NotNull
+    private final Kind keyKind;
+    @NotNull
+    private final Kind valueKind;
+
+    private NativeBytesStore<Void> store;
+    private long mask;
+    private long size;
+    // the key FREE_KEY can't be stored in the table, as it marks an empty slot.
+    private boolean hasFreeKey;
+    private long freeKeyValue;
+
+    public PrimitiveKeyValueStore(@NotNull RequestContext context, Asset asset) {
+        this.asset = asset;
+        this.keyKind = Kind.of(context.keyType());
+        this.valueKind = Kind.of(context.valueType());
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * @return true if the key and value types of this context can be held in a
+     * PrimitiveKeyValueStore
+     */
+    public static boolean isPrimitive(@NotNull RequestContext context) {
+        return Kind.isSupported(context.keyType()) && Kind.isSupported(context.valueType());
+    }
+
+    private static long hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    private void allocate(long capacity) {
+        store = NativeBytesStore.nativeStoreWithFixedCapacity(capacity * SLOT_SIZE);
+        store.zeroOut(0, capacity * SLOT_SIZE);
+        mask = capacity - 1;
+    }
+
+    private long capacity() {
+        return mask + 1;
+    }
+
+    private long keyAt(long slot) {
+        return store.readLong(slot * SLOT_SIZE);
+    }
+
+    private long valueAt(long slot) {
+        return store.readLong(slot * SLOT_SIZE + 8);
+    }
+
+    private void writeSlot(long slot, long key, long value) {
+        store.writeLong(slot * SLOT_SIZE, key);
+        store.writeLong(slot * SLOT_SIZE + 8, value);
+    }
+
+    /**
+     * @return the slot holding this key, or the free slot it would be inserted at, as {@code
+     * -slot - 1}
+     */
+    private long slotFor(long key) {
+        for (long slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            long k = keyAt(slot);
+            if (k == key)
+                return slot;
+            if (k == FREE_KEY)
+                return -slot - 1;
+        }
+    }
+
+    private void resizeIfNeeded() {
+        // keep the load factor at or below one half.
+        if (size * 2 <= capacity())
+            return;
+        NativeBytesStore<Void> oldStore = store;
+        long oldCapacity = capacity();
+        allocate(oldCapacity * 2);
+        for (long slot = 0; slot < oldCapacity; slot++) {
+            long k = oldStore.readLong(slot * SLOT_SIZE);
+            if (k != FREE_KEY)
+                writeSlot(-slotFor(k) - 1, k, oldStore.readLong(slot * SLOT_SIZE + 8));
+        }
+        oldStore.release();
+    }
+
+    /**
+     * Remove the key at this slot, shifting back any entries which probed past it so no
+     * tombstone is needed.
+     */
+    private void removeSlot(long slot) {
+        long free = slot;
+        for (long next = (slot + 1) & mask; ; next = (next + 1) & mask) {
+            long k = keyAt(next);
+            if (k == FREE_KEY)
+                break;
+            long ideal = hash(k) & mask;
+            boolean canMove = free <= next
+                    ? ideal <= free || ideal > next
+                    : ideal <= free && ideal > next;
+            if (canMove) {
+                writeSlot(free, k, valueAt(next));
+                free = next;
+            }
+        }
+        writeSlot(free, FREE_KEY, 0L);
+        size--;
+    }
+
+    private void checkOpen() {
+        if (store == null)
+            throw new IllegalStateException("closed");
+    }
+
+    private boolean containsBits(long key) {
+        checkOpen();
+        if (key == FREE_KEY)
+            return hasFreeKey;
+        return slotFor(key) >= 0;
+    }
+
+    private long getBits(long key, long noValue) {
+        checkOpen();
+        if (key == FREE_KEY)
+            return hasFreeKey ? freeKeyValue : noValue;
+        long slot = slotFor(key);
+        return slot < 0 ? noValue : valueAt(slot);
+    }
+
+    /**
+     * @return true if there was a previous value
+     */
+    private boolean putBits(long key, long value) {
+        checkOpen();
+        if (key == FREE_KEY) {
+            boolean had = hasFreeKey;
+            hasFreeKey = true;
+            freeKeyValue = value;
+            return had;
+        }
+        long slot = slotFor(key);
+        if (slot >= 0) {
+            store.writeLong(slot * SLOT_SIZE + 8, value);
+            return true;
+        }
+        writeSlot(-slot - 1, key, value);
+        size++;
+        resizeIfNeeded();
+        return false;
+    }
+
+    private boolean removeBits(long key) {
+        checkOpen();
+        if (key == FREE_KEY) {
+            boolean had = hasFreeKey;
+            hasFreeKey = false;
+            return had;
+        }
+        long slot = slotFor(key);
+        if (slot < 0)
+            return false;
+        removeSlot(slot);
+        return true;
+    }
+
+    /**
+     * @param key     as a 64-bit word
+     * @param noValue returned if the key is not present
+     * @return the value as a 64-bit word or noValue
+     */
+    public long getLong(long key, long noValue) {
+        lock.readLock().lock();
+        try {
+            return getBits(key, noValue);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return true if there was a previous value.
+     */
+    public boolean putLong(long key, long value) {
+        lock.writeLock().lock();
+        try {
+            return putBits(key, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return true if the key was present.
+     */
+    public boolean removeLong(long key) {
+        lock.writeLock().lock();
+        try {
+            return removeBits(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean containsLongKey(long key) {
+        lock.readLock().lock();
+        try {
+            return containsBits(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean put(K key, V value) {
+        return putLong(keyKind.toBits(key), valueKind.toBits(value));
+    }
+
+    @Nullable
+    @Override
+    public V getAndPut(K key, V value) {
+        long k = keyKind.toBits(key);
+        lock.writeLock().lock();
+        try {
+            V oldValue = valueOrNull(k);
+            putBits(k, valueKind.toBits(value));
+            return oldValue;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(K key) {
+        return isKeyType(key) && removeLong(keyKind.toBits(key));
+    }
+
+    @Nullable
+    @Override
+    public V getAndRemove(K key) {
+        if (!isKeyType(key))
+            return null;
+        long k = keyKind.toBits(key);
+        lock.writeLock().lock();
+        try {
+            V oldValue = valueOrNull(k);
+            if (oldValue != null)
+                removeBits(k);
+            return oldValue;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Nullable
+    @Override
+    public V getUsing(K key, Object value) {
+        if (!isKeyType(key))
+            return null;
+        long k = keyKind.toBits(key);
+        lock.readLock().lock();
+        try {
+            return valueOrNull(k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return isKeyType(key) && containsLongKey(keyKind.toBits(key));
+    }
+
+    @Nullable
+    @Override
+    public V putIfAbsent(K key, V value) {
+        long k = keyKind.toBits(key);
+        lock.writeLock().lock();
+        try {
+            V oldValue = valueOrNull(k);
+            if (oldValue == null)
+                putBits(k, valueKind.toBits(value));
+            return oldValue;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Nullable
+    @Override
+    public V replace(K key, V value) {
+        long k = keyKind.toBits(key);
+        lock.writeLock().lock();
+        try {
+            V oldValue = valueOrNull(k);
+            if (oldValue != null)
+                putBits(k, valueKind.toBits(value));
+            return oldValue;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean replaceIfEqual(K key, V oldValue, V newValue) {
+        long k = keyKind.toBits(key);
+        long expected = valueKind.toBits(oldValue);
+        lock.writeLock().lock();
+        try {
+            if (!containsBits(k) || getBits(k, 0L) != expected)
+                return false;
+            putBits(k, valueKind.toBits(newValue));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean removeIfEqual(K key, V value) {
+        if (!isKeyType(key))
+            return false;
+        long k = keyKind.toBits(key);
+        long expected = valueKind.toBits(value);
+        lock.writeLock().lock();
+        try {
+            if (!containsBits(k) || getBits(k, 0L) != expected)
+                return false;
+            removeBits(k);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isKeyType(Object key) {
+        return keyKind.type.isInstance(key);
+    }
+
+    @Nullable
+    private V valueOrNull(long key) {
+        return containsBits(key) ? (V) valueKind.fromBits(getBits(key, 0L)) : null;
+    }
+
+    @Override
+    public long longSize() {
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            return hasFreeKey ? size + 1 : size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies the keys and values out under the read lock, so the consumer is free to modify this
+     * store.
+     */
+    private long[] snapshot() {
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            long[] entries = new long[(int) ((hasFreeKey ? size + 1 : size) * 2)];
+            int pos = 0;
+            if (hasFreeKey) {
+                entries[pos++] = FREE_KEY;
+                entries[pos++] = freeKeyValue;
+            }
+            for (long slot = 0, capacity = capacity(); slot < capacity; slot++) {
+                long k = keyAt(slot);
+                if (k == FREE_KEY)
+                    continue;
+                entries[pos++] = k;
+                entries[pos++] = valueAt(slot);
+            }
+            return entries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void keysFor(int segment, @NotNull SubscriptionConsumer<K> kConsumer) throws InvalidSubscriberException {
+        long[] entries = snapshot();
+        for (int i = 0; i < entries.length; i += 2)
+            kConsumer.accept((K) keyKind.fromBits(entries[i]));
+    }
+
+    @Override
+    public void entriesFor(int segment, @NotNull SubscriptionConsumer<MapEvent<K, V>> kvConsumer) throws InvalidSubscriberException {
+        long[] entries = snapshot();
+        for (int i = 0; i < entries.length; i += 2)
+            kvConsumer.accept(InsertedEvent.of(asset.fullName(),
+                    (K) keyKind.fromBits(entries[i]), (V) valueKind.fromBits(entries[i + 1]), false));
+    }
+
+    @NotNull
+    @Override
+    public Iterator<Map.Entry<K, V>> entrySetIterator() {
+        long[] entries = snapshot();
+        List<Map.Entry<K, V>> list = new ArrayList<>(entries.length / 2);
+        for (int i = 0; i < entries.length; i += 2)
+            list.add(new AbstractMap.SimpleImmutableEntry<>(
+                    (K) keyKind.fromBits(entries[i]), (V) valueKind.fromBits(entries[i + 1])));
+        return list.iterator();
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            store.zeroOut(0, capacity() * SLOT_SIZE);
+            size = 0;
+            hasFreeKey = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean containsValue(final V value) {
+        long v = valueKind.toBits(value);
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            if (hasFreeKey && freeKeyValue == v)
+                return true;
+            for (long slot = 0, capacity = capacity(); slot < capacity; slot++)
+                if (keyAt(slot) != FREE_KEY && valueAt(slot) == v)
+                    return true;
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Asset asset() {
+        return asset;
+    }
+
+    @Nullable
+    @Override
+    public KeyValueStore underlying() {
+        return null;
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (store != null) {
+                store.release();
+                store = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * This store notifies no one, the subscription of the map is held by the {@link
+     * net.openhft.chronicle.engine.api.map.SubscriptionKeyValueStore} which wraps it.
+     */
+    @NotNull
+    @Override
+    public KVSSubscription<K, V> subscription(boolean createIfAbsent) {
+        throw new UnsupportedOperationException("PrimitiveKeyValueStore has no subscription, " +
+                "use the SubscriptionKeyValueStore which wraps it");
+    }
+
+    @Override
+    public void accept(final ReplicationEntry replicationEntry) {
+        throw new UnsupportedOperationException("PrimitiveKeyValueStore can't be replicated, " +
+                "use a replicated store such as a ChronicleMap for " + keyKind.type.getSimpleName() +
+                " to " + valueKind.type.getSimpleName() + " maps");
+    }
+
+    enum Kind {
+        LONG(Long.class) {
+            @Override
+            long toBits(Object o) {
+                return (Long) o;
+            }
+
+            @Override
+            Object fromBits(long bits) {
+                return bits;
+            }
+        },
+        INT(Integer.class) {
+            @Override
+            long toBits(Object o) {
+                return (Integer) o;
+            }
+
+            @Override
+            Object fromBits(long bits) {
+                return (int) bits;
+            }
+        },
+        DOUBLE(Double.class) {
+            @Override
+            long toBits(Object o) {
+                // canonical NaN, so keys match as Double.equals() does
+                return Double.doubleToLongBits((Double) o);
+            }
+
+            @Override
+            Object fromBits(long bits) {
+                return Double.longBitsToDouble(bits);
+            }
+        };
+
+        final Class type;
+
+        Kind(Class type) {
+            this.type = type;
+        }
+
+        static boolean isSupported(Class type) {
+            for (Kind kind : values())
+                if (kind.type == type)
+                    return true;
+            return false;
+        }
+
+        @NotNull
+        static Kind of(Class type) {
+            for (Kind kind : values())
+                if (kind.type == type)
+                    return kind;
+            throw new IllegalArgumentException("Unsupported type " + type);
+        }
+
+        abstract long toBits(Object o);
+
+        abstract Object fromBits(long bits);
+    }
+}
@@ -30,6 +30,7 @@ import net.openhft.chronicle.engine.api.tree.RequestContext;
 import net.openhft.chronicle.engine.cfg.SubscriptionStat;
 import net.openhft.chronicle.engine.query.Filter;
 import net.openhft.chronicle.engine.tree.ChronicleQueueView;
+import net.openhft.chronicle.engine.tree.QueueFanOut;
 import net.openhft.chronicle.engine.tree.QueueView;
 import net.openhft.chronicle.network.api.session.SessionDetails;
 import net.openhft.chronicle.network.api.session.SessionProvider;
@@ -41,10 +42,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.LocalTime;
+import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -54,14 +55,14 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class QueueObjectSubscription<T, M> implements ObjectSubscription<T, M> {
 
     private static final Logger LOG = LoggerFactory.getLogger(QueueObjectSubscription.class);
-    private final Set<TopicSubscriber<T, M>> topicSubscribers = new CopyOnWriteArraySet<>();
-    private final Set<Subscriber<Excerpt>> subscribers = new CopyOnWriteArraySet<>();
-    private final Set<EventConsumer<T, M>> downstream = new CopyOnWriteArraySet<>();
+    private final Set<TopicSubscriber<T, M>> topicSubscribers = new SubscriberSet<>();
+    private final Set<Subscriber<Excerpt>> subscribers = new SubscriberSet<>();
+    private final Set<EventConsumer<T, M>> downstream = new SubscriberSet<>();
     private final SessionProvider sessionProvider;
 
     @Nullable
     private final Asset asset;
-    private final Map<Subscriber, Subscriber> subscriptionDelegate = new IdentityHashMap<>();
+    private final Map<Subscriber, Subscriber> subscriptionDelegate = Collections.synchronizedMap(new IdentityHashMap<>());
     private final Class<T> topicType;
 
     private Map<String, SubscriptionStat> subscriptionMonitoringMap = null;
@@ -171,6 +172,11 @@ public class QueueObjectSubscription<T, M> implements ObjectSubscription<T, M> {
         final ChronicleQueueView<T, M> chronicleQueue = (ChronicleQueueView) asset.acquireView
                 (QueueView.class, rc);
 
+        if (QueueFanOut.ENABLED) {
+            chronicleQueue.fanOut(eventLoop).add(e -> subscriber.onMessage(e.topic(), e.message()), terminate);
+            return;
+        }
+
         QueueView.Tailer<T, M> iterator = chronicleQueue.tailer();
         eventLoop.addHandler(() -> {
 
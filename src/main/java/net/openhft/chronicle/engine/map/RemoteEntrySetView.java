@@ -43,6 +43,6 @@ public class RemoteEntrySetView<K, MV, V> extends VanillaEntrySetView<K, MV, V>
     public Query<Map.Entry<K, V>> query() {
         return new RemoteQuery<>((subscriber, filter, contextOperations) -> {
             mapView.registerSubscriber((Subscriber) subscriber, (Filter) filter, contextOperations);
-        });
+        }, subscriber -> mapView.asset().subscription(false).unregisterSubscriber(subscriber));
     }
 }
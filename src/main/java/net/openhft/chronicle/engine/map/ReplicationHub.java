@@ -27,11 +27,19 @@ import net.openhft.chronicle.engine.api.EngineReplication.ModificationIterator;
 import net.openhft.chronicle.engine.api.tree.RequestContext;
 import net.openhft.chronicle.engine.map.CMap2EngineReplicator.VanillaReplicatedEntry;
 import net.openhft.chronicle.engine.map.replication.Bootstrap;
+import net.openhft.chronicle.engine.map.replication.Codec;
+import net.openhft.chronicle.engine.map.replication.Codecs;
+import net.openhft.chronicle.engine.map.replication.MerkleTree;
+import net.openhft.chronicle.engine.map.replication.ParallelBootstrap;
+import net.openhft.chronicle.engine.map.replication.ReplicationBatch;
+import net.openhft.chronicle.engine.map.replication.ReplicationMetrics;
+import net.openhft.chronicle.engine.map.replication.ReplicationStats;
 import net.openhft.chronicle.engine.server.internal.MapWireHandler;
 import net.openhft.chronicle.engine.server.internal.ReplicationHandler2.EventId;
 import net.openhft.chronicle.network.connection.*;
 import net.openhft.chronicle.wire.*;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,20 +55,25 @@ import static net.openhft.chronicle.engine.server.internal.ReplicationHandler2.E
 class ReplicationHub extends AbstractStatelessClient {
     private static final Logger LOG = LoggerFactory.getLogger(ChronicleMapKeyValueStore.class);
     final ThreadLocal<VanillaReplicatedEntry> vre = ThreadLocal.withInitial(VanillaReplicatedEntry::new);
+    final ThreadLocal<ReplicationBatch> batch = ThreadLocal.withInitial(ReplicationBatch::new);
     private final EventLoop eventLoop;
     private final AtomicBoolean isClosed;
     private final Function<Bytes, Wire> wireType;
+    @NotNull
+    private final ReplicationMetrics metrics;
 
     public ReplicationHub(@NotNull RequestContext context,
                           @NotNull final TcpChannelHub hub,
                           @NotNull EventLoop eventLoop,
                           @NotNull AtomicBoolean isClosed,
-                          @NotNull Function<Bytes, Wire> wireType) {
+                          @NotNull Function<Bytes, Wire> wireType,
+                          @NotNull ReplicationMetrics metrics) {
         super(hub, (long) 0, toUri(context));
 
         this.eventLoop = eventLoop;
         this.isClosed = isClosed;
         this.wireType = wireType;
+        this.metrics = metrics;
     }
 
     private static String toUri(@NotNull final RequestContext context) {
@@ -130,6 +143,10 @@ class ReplicationHub extends AbstractStatelessClient {
         final Bootstrap bootstrap = new Bootstrap();
         bootstrap.lastUpdatedTime(lastModificationTime);
         bootstrap.identifier(localIdentifier);
+        if (MerkleTree.ENABLED)
+            bootstrap.merkleTree(replication.merkleTree());
+        bootstrap.compression(Codecs.OFFERED);
+        bootstrap.batching(ReplicationBatch.isEnabled());
 
         // subscribes to updates - receives the replication events
         //  subscribe(replication, localIdentifier, remoteIdentifier);
@@ -139,6 +156,9 @@ class ReplicationHub extends AbstractStatelessClient {
                               "onConnected") {
 
                           int count = 0;
+                          // the codec the remote host chose from those offered, if any.
+                          @Nullable
+                          Codec codec;
 
                           @Override
                           public void onSubscribe(@NotNull WireOut wireOut) {
@@ -158,10 +178,12 @@ class ReplicationHub extends AbstractStatelessClient {
 
                                   if (EventId.bootstrap.contentEquals(eventName)) {
                                       Bootstrap b = valueIn.typedMarshallable();
+                                      codec = Codecs.find(b.compression());
 
                                       // publishes changes - pushes the replication events
                                       try {
-                                          publish(mi, b, remoteIdentifier);
+                                          publish(mi, b, remoteIdentifier, bootstrap.merkleTree(), codec,
+                                                  b.batching() && ReplicationBatch.isEnabled());
                                       } catch (Exception e) {
                                           LOG.error("", e);
                                       }
@@ -183,6 +205,14 @@ class ReplicationHub extends AbstractStatelessClient {
                                       }
 
                                       replication.applyReplication(replicatedEntry);
+                                      metrics.onReceived(replicatedEntry);
+                                  } else if (replicationBatch.contentEquals(eventName)) {
+                                      batch.get().readAndApply(valueIn, replication);
+                                  } else if (replicationCompressedBatch.contentEquals(eventName)) {
+                                      if (codec == null)
+                                          throw new IllegalStateException("compressed batch " +
+                                                  "received on a connection without a codec");
+                                      batch.get().readAndApplyCompressed(valueIn, replication, codec);
                                   }
 
                                   // receives replication events
@@ -210,16 +240,20 @@ class ReplicationHub extends AbstractStatelessClient {
      * @param mi               the modification iterator that notifies us of changes
      * @param remote           details about the remote connection
      * @param remoteIdentifier
+     * @param localTree        the hash tree sent to the remote host, if any
+     * @param codec            the codec agreed with the remote host, or null to send uncompressed
+     * @param batching         true if the remote host accepts batches
      */
     void publish(@NotNull final ModificationIterator mi,
-                 @NotNull final Bootstrap remote, byte remoteIdentifier) {
+                 @NotNull final Bootstrap remote, byte remoteIdentifier, @Nullable MerkleTree localTree,
+                 @Nullable Codec codec, boolean batching) {
 
         final TcpChannelHub hub = this.hub;
         mi.setModificationNotifier(eventLoop::unpause);
 
-        eventLoop.addHandler(true, new RepEventHandler(hub, mi, remoteIdentifier));
+        remote.dirtyEntries(mi, localTree);
 
-        mi.dirtyEntries(remote.lastUpdatedTime());
+        eventLoop.addHandler(true, new RepEventHandler(hub, mi, remoteIdentifier, codec, batching));
     }
 
     private class RepEventHandler implements EventHandler, Consumer<EngineReplication.ReplicationEntry> {
@@ -229,18 +263,32 @@ class ReplicationHub extends AbstractStatelessClient {
         private final TcpChannelHub hub;
         private final ModificationIterator mi;
         private final byte remoteIdentifier;
+        @Nullable
+        private final Codec codec;
+        private final boolean batching;
+        private final ReplicationBatch batch = new ReplicationBatch();
         boolean hasSentLastUpdateTime;
         long lastUpdateTime;
         boolean hasLogged;
+        @Nullable
+        ParallelBootstrap bootstrap;
+        @NotNull
+        final ReplicationStats stats;
 
-        public RepEventHandler(TcpChannelHub hub, ModificationIterator mi, byte remoteIdentifier) {
+        public RepEventHandler(TcpChannelHub hub, ModificationIterator mi, byte remoteIdentifier,
+                               @Nullable Codec codec, boolean batching) {
             this.hub = hub;
             this.mi = mi;
             this.remoteIdentifier = remoteIdentifier;
+            this.codec = codec;
+            this.batching = batching;
             bytes = Bytes.elasticByteBuffer();
             wire = wireType.apply(bytes);
             hasSentLastUpdateTime = false;
             lastUpdateTime = 0;
+            // the chunks are sent as batches.
+            bootstrap = batching ? ParallelBootstrap.start(mi, eventLoop::unpause) : null;
+            stats = metrics.acquire(remoteIdentifier);
         }
 
         @Override
@@ -252,12 +300,40 @@ class ReplicationHub extends AbstractStatelessClient {
             if (!hub.isOutBytesEmpty())
                 return false;
 
-            if (ReplicationHub.this.isClosed.get())
+            if (ReplicationHub.this.isClosed.get()) {
+                if (bootstrap != null)
+                    bootstrap.close();
                 throw new InvalidEventHandlerException();
+            }
 
             bytes.clear();
 
-            if (!mi.hasNext()) {
+            // the segments are being drained by the bootstrap threads, the last update time is
+            // only sent once they have all finished.
+            if (bootstrap != null) {
+                if (!bootstrap.isDone()) {
+                    stats.pending(true);
+                    if (!bootstrap.hasChunk())
+                        return false;
+                    final long start = bytes.writePosition();
+                    if (codec == null)
+                        wire.writeNotCompleteDocument(false, wireOut -> batch.writeChunk(
+                                wireOut.writeEventName(replicationBatch), bootstrap, this::onEntry));
+                    else
+                        wire.writeNotCompleteDocument(false, wireOut -> batch.compress(
+                                wireOut.writeEventName(replicationCompressedBatch), codec,
+                                v -> bootstrap.writeChunk(v, this::onEntry)));
+                    batch.discardIfEmpty(bytes, start);
+                    if (bytes.readRemaining() > 0)
+                        ReplicationHub.this.sendBytes(bytes, false);
+                    return true;
+                }
+                bootstrap = null;
+            }
+
+            final boolean hasNext = mi.hasNext();
+            stats.pending(hasNext);
+            if (!hasNext) {
 
                 // because events arrive in a bitset ( aka random ) order ( not necessary in
                 // time order ) we can only be assured that the latest time of
@@ -296,7 +372,20 @@ class ReplicationHub extends AbstractStatelessClient {
             // also we have to write the data into a buffer, to free the map lock
             // asap, the old code use to pass the entry to the hub, this was leaving the
             // segment locked and cause deadlocks with the read thread
-            mi.nextEntry(this);
+            if (!batching) {
+                mi.nextEntry(this);
+            } else if (mi.hasNext()) {
+                final long start = bytes.writePosition();
+                wire.writeNotCompleteDocument(false, wireOut -> {
+                    if (codec == null)
+                        batch.writeBatch(wireOut.writeEventName(replicationBatch), bytes, mi,
+                                this::onEntry);
+                    else
+                        batch.writeCompressed(wireOut.writeEventName(replicationCompressedBatch), mi,
+                                this::onEntry, codec);
+                });
+                batch.discardIfEmpty(bytes, start);
+            }
 
             if (bytes.readRemaining() > 0) {
                 ReplicationHub.this.sendBytes(bytes, false);
@@ -307,6 +396,12 @@ class ReplicationHub extends AbstractStatelessClient {
 
         @Override
         public void accept(EngineReplication.ReplicationEntry e) {
+            onEntry(e);
+            wire.writeNotCompleteDocument(false, wireOut ->
+                    wireOut.writeEventName(replicationEvent).typedMarshallable(e));
+        }
+
+        private boolean onEntry(EngineReplication.ReplicationEntry e) {
             long updateTime = Math.max(lastUpdateTime, e.timestamp());
             if (updateTime > lastUpdateTime) {
                 hasSentLastUpdateTime = false;
@@ -318,9 +413,8 @@ class ReplicationHub extends AbstractStatelessClient {
                 LOG.debug("*****\t\t\t\tSENT : CLIENT :replicatedEntry latency=" +
                         delay + "ms");
             }
-
-            wire.writeNotCompleteDocument(false, wireOut ->
-                    wireOut.writeEventName(replicationEvent).typedMarshallable(e));
+            stats.onSent(e);
+            return true;
         }
 
         public HandlerPriority priority() {
@@ -0,0 +1,185 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package net.openhft.chronicle.engine.map;
+
+import net.openhft.chronicle.engine.api.pubsub.InvalidSubscriberException;
+import net.openhft.chronicle.engine.api.pubsub.SubscriptionConsumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Scans the segments of a {@link net.openhft.chronicle.engine.api.map.KeyValueStore} concurrently
+ * on the common {@link ForkJoinPool}, each segment being visited by one worker. A store with one
+ * segment, or a pool without parallelism, is scanned on the calling thread as before.
+ */
+public enum SegmentScan {
+    ;
+
+    /**
+     * visits every element with a task per segment, the consumer must be thread safe. Once the
+     * consumer throws an InvalidSubscriberException the remaining segments are skipped and it is
+     * rethrown to the caller.
+     */
+    public static <E> void forEach(int segments,
+                                   @NotNull Scanner<E> scanner,
+                                   @NotNull SubscriptionConsumer<E> consumer) throws InvalidSubscriberException {
+        if (segments <= 1 || ForkJoinPool.getCommonPoolParallelism() <= 1) {
+            for (int i = 0; i < segments; i++)
+                scanner.scan(i, consumer);
+            return;
+        }
+        final ScanTask<E> task = new ScanTask<>(scanner, consumer, 0, segments, new Stop());
+        ForkJoinPool.commonPool().invoke(task);
+        if (task.stop.invalid != null)
+            throw task.stop.invalid;
+    }
+
+    /**
+     * @return a spliterator which splits on segment boundaries, so a parallel stream gives each
+     * segment to its own worker.
+     */
+    @NotNull
+    public static <E> Spliterator<E> spliterator(int segments, long estimatedSize, @NotNull Scanner<E> scanner) {
+        return new SegmentSpliterator<>(scanner, 0, segments, estimatedSize);
+    }
+
+    /**
+     * The scan of one segment, typically {@code store::entriesFor} or {@code store::keysFor}
+     */
+    @FunctionalInterface
+    public interface Scanner<E> {
+        void scan(int segment, SubscriptionConsumer<E> consumer) throws InvalidSubscriberException;
+    }
+
+    static final class Stop {
+        volatile InvalidSubscriberException invalid;
+    }
+
+    static final class ScanTask<E> extends RecursiveAction {
+        private final Scanner<E> scanner;
+        private final SubscriptionConsumer<E> consumer;
+        private final int from, to;
+        private final Stop stop;
+
+        ScanTask(Scanner<E> scanner, SubscriptionConsumer<E> consumer, int from, int to, Stop stop) {
+            this.scanner = scanner;
+            this.consumer = consumer;
+            this.from = from;
+            this.to = to;
+            this.stop = stop;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                final int mid = (from + to) >>> 1;
+                invokeAll(new ScanTask<>(scanner, consumer, from, mid, stop),
+                        new ScanTask<>(scanner, consumer, mid, to, stop));
+                return;
+            }
+            if (stop.invalid != null)
+                return;
+            try {
+                scanner.scan(from, e -> {
+                    final InvalidSubscriberException invalid = stop.invalid;
+                    if (invalid != null)
+                        throw invalid;
+                    consumer.accept(e);
+                });
+            } catch (InvalidSubscriberException e) {
+                if (stop.invalid == null)
+                    stop.invalid = e;
+            }
+        }
+    }
+
+    static final class SegmentSpliterator<E> implements Spliterator<E> {
+        private final Scanner<E> scanner;
+        private final int to;
+        private int from;
+        private long estimatedSize;
+        @Nullable
+        private Iterator<E> buffered;
+
+        SegmentSpliterator(Scanner<E> scanner, int from, int to, long estimatedSize) {
+            this.scanner = scanner;
+            this.from = from;
+            this.to = to;
+            this.estimatedSize = estimatedSize;
+        }
+
+        @Override
+        public boolean tryAdvance(@NotNull Consumer<? super E> action) {
+            while (buffered == null || !buffered.hasNext()) {
+                if (from >= to)
+                    return false;
+                final List<E> segment = new ArrayList<>();
+                scan(from++, segment::add);
+                buffered = segment.iterator();
+            }
+            action.accept(buffered.next());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(@NotNull Consumer<? super E> action) {
+            if (buffered != null)
+                buffered.forEachRemaining(action);
+            while (from < to)
+                scan(from++, action::accept);
+        }
+
+        private void scan(int segment, @NotNull SubscriptionConsumer<E> consumer) {
+            try {
+                scanner.scan(segment, consumer);
+            } catch (InvalidSubscriberException e) {
+                throw new AssertionError(e);
+            }
+        }
+
+        @Nullable
+        @Override
+        public Spliterator<E> trySplit() {
+            if (buffered != null || to - from < 2)
+                return null;
+            final int mid = (from + to) >>> 1;
+            estimatedSize >>>= 1;
+            final Spliterator<E> prefix = new SegmentSpliterator<>(scanner, from, mid, estimatedSize);
+            from = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimatedSize;
+        }
+
+        @Override
+        public int characteristics() {
+            return NONNULL | DISTINCT;
+        }
+    }
+}
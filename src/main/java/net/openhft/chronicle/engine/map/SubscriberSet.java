@@ -0,0 +1,178 @@
+/*
+ *     Copyright (C) 2015  higherfrequencytrading.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.openhft.chronicle.engine.map;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A set of subscribers where add and remove are O(1) and forEach does not allocate.
+ * <p>
+ * Each element is held in a slot of an array, removing an element leaves a tombstone (null) which
+ * is reused by a later add, so unlike a CopyOnWriteArraySet the array is only copied when it has
+ * to grow. Writers are serialised, readers never lock and see either the old or the new value of a
+ * slot. The order of notification is not the order of registration.
+ */
+class SubscriberSet<E> extends AbstractSet<E> {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final ConcurrentHashMap<E, Integer> slotFor = new ConcurrentHashMap<>();
+    private volatile AtomicReferenceArray<E> slots = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+    // one past the highest slot in use.
+    private volatile int high = 0;
+    private int[] free = new int[INITIAL_CAPACITY];
+    private int freeCount = 0;
+
+    @Override
+    public synchronized boolean add(@NotNull E e) {
+        if (slotFor.containsKey(e))
+            return false;
+        int slot;
+        if (freeCount > 0) {
+            slot = free[--freeCount];
+        } else {
+            slot = high;
+            AtomicReferenceArray<E> slots = this.slots;
+            if (slot == slots.length()) {
+                AtomicReferenceArray<E> slots2 = new AtomicReferenceArray<>(slot * 2);
+                for (int i = 0; i < slot; i++)
+                    slots2.lazySet(i, slots.get(i));
+                this.slots = slots2;
+            }
+        }
+        slots.set(slot, e);
+        slotFor.put(e, slot);
+        if (slot >= high)
+            high = slot + 1;
+        return true;
+    }
+
+    @Override
+    public synchronized boolean remove(Object o) {
+        Integer slot = slotFor.remove(o);
+        if (slot == null)
+            return false;
+        slots.set(slot, null);
+        if (slot == high - 1) {
+            // trim trailing tombstones so forEach doesn't scan them.
+            int h = slot;
+            while (h > 0 && slots.get(h - 1) == null)
+                h--;
+            dropFreeSlotsFrom(h);
+            high = h;
+        } else {
+            if (freeCount == free.length) {
+                int[] free2 = new int[free.length * 2];
+                System.arraycopy(free, 0, free2, 0, freeCount);
+                free = free2;
+            }
+            free[freeCount++] = slot;
+        }
+        return true;
+    }
+
+    private void dropFreeSlotsFrom(int h) {
+        int j = 0;
+        for (int i = 0; i < freeCount; i++)
+            if (free[i] < h)
+                free[j++] = free[i];
+        freeCount = j;
+    }
+
+    @Override
+    public synchronized void clear() {
+        slotFor.clear();
+        slots = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+        high = 0;
+        freeCount = 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return slotFor.containsKey(o);
+    }
+
+    @Override
+    public int size() {
+        return slotFor.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return high == 0;
+    }
+
+    @Override
+    public void forEach(@NotNull Consumer<? super E> action) {
+        int high = this.high;
+        AtomicReferenceArray<E> slots = this.slots;
+        for (int i = 0, len = Math.min(high, slots.length()); i < len; i++) {
+            E e = slots.get(i);
+            if (e != null)
+                action.accept(e);
+        }
+    }
+
+    @NotNull
+    @Override
+    public Iterator<E> iterator() {
+        final int high = this.high;
+        final AtomicReferenceArray<E> slots = this.slots;
+        return new Iterator<E>() {
+            int index = -1;
+            E next = advance();
+            E last;
+
+            private E advance() {
+                for (index++; index < high && index < slots.length(); index++) {
+                    E e = slots.get(index);
+                    if (e != null)
+                        return e;
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public E next() {
+                if (next == null)
+                    throw new NoSuchElementException();
+                last = next;
+                next = advance();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null)
+                    throw new IllegalStateException();
+                SubscriberSet.this.remove(last);
+                last = null;
+            }
+        };
+    }
+}
@@ -24,6 +24,7 @@ import net.openhft.chronicle.engine.api.EngineReplication;
 import net.openhft.chronicle.engine.api.map.KeyValueStore;
 import net.openhft.chronicle.engine.api.map.MapEventListener;
 import net.openhft.chronicle.engine.api.map.SubscriptionKeyValueStore;
+import net.openhft.chronicle.engine.map.replication.MerkleTree;
 import net.openhft.chronicle.wire.Marshallable;
 import net.openhft.chronicle.wire.WireIn;
 import net.openhft.chronicle.wire.WireOut;
@@ -37,11 +38,13 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.IntFunction;
+import java.util.function.Predicate;
 
 import static net.openhft.chronicle.engine.map.VanillaEngineReplication.ReplicationData.*;
 
@@ -272,6 +275,25 @@ public class VanillaEngineReplication<K, V, MV, Store extends SubscriptionKeyVal
         }
     }
 
+    @NotNull
+    @Override
+    public MerkleTree merkleTree() {
+        final MerkleTree tree = new MerkleTree(keyReplicationData.length);
+        Instances i = threadLocalInstances.get();
+        for (int s = 0; s < keyReplicationData.length; s++) {
+            final int segment = s;
+            final KeyValueStore<BytesStore, ReplicationData> keyReplicationData =
+                    this.keyReplicationData[segment];
+            keyReplicationData.keySetIterator().forEachRemaining(key -> {
+                i.usingData = keyReplicationData.getUsing(key, i.usingData);
+                tree.add(segment, MerkleTree.hashKey(key), i.usingData.getTimestamp(),
+                        i.usingData.getIdentifier(), i.usingData.getDeleted());
+            });
+        }
+        tree.complete();
+        return tree;
+    }
+
     @Override
     public ModificationIterator acquireModificationIterator(byte id) {
         int remoteIdentifier = idToInt(id);
@@ -569,6 +591,41 @@ public class VanillaEngineReplication<K, V, MV, Store extends SubscriptionKeyVal
             }
         }
 
+        @Override
+        public int segments() {
+            return keyReplicationData.length;
+        }
+
+        @Override
+        public void forEachEntry(int segment, @NotNull Predicate<ReplicationEntry> action) {
+            Instances i = threadLocalInstances.get();
+            final KeyValueStore<BytesStore, ReplicationData> keyReplicationData =
+                    VanillaEngineReplication.this.keyReplicationData[segment];
+            final SegmentEntry entry = new SegmentEntry(identifier);
+            for (Iterator<BytesStore> keyIt = keyReplicationData.keySetIterator();
+                 keyIt.hasNext(); ) {
+                BytesStore key = keyIt.next();
+                i.usingData = keyReplicationData.getUsing(key, i.usingData);
+                if (!isChanged(i.usingData, identifier))
+                    continue;
+                entry.key = key;
+                entry.replicationData = i.usingData;
+                final boolean more;
+                try {
+                    more = action.test(entry);
+                    i.newData.copyFrom(i.usingData);
+                    clearChange(i.newData, identifier);
+                    // if the entry changed in the meantime it stays dirty and is sent again
+                    keyReplicationData.replaceIfEqual(key, i.usingData, i.newData);
+                } finally {
+                    entry.key = null;
+                    entry.replicationData = null;
+                }
+                if (!more)
+                    return;
+            }
+        }
+
         @Override
         public boolean hasNext() {
             Instances i = threadLocalInstances.get();
@@ -602,6 +659,31 @@ public class VanillaEngineReplication<K, V, MV, Store extends SubscriptionKeyVal
             }
         }
 
+        @Override
+        public boolean dirtyEntries(@NotNull MerkleTree localTree, @NotNull MerkleTree remoteTree) {
+            final BitSet[] diff = localTree.diff(remoteTree);
+            if (diff == null)
+                return false;
+            Instances i = threadLocalInstances.get();
+            for (int s = 0; s < diff.length; s++) {
+                final BitSet leaves = diff[s];
+                if (leaves == null)
+                    continue;
+                final KeyValueStore<BytesStore, ReplicationData> keyReplicationData =
+                        VanillaEngineReplication.this.keyReplicationData[s];
+                keyReplicationData.keySetIterator().forEachRemaining(key -> {
+                    if (!leaves.get(remoteTree.leafFor(MerkleTree.hashKey(key))))
+                        return;
+                    i.usingData = keyReplicationData.getUsing(key, i.usingData);
+                    i.newData.copyFrom(i.usingData);
+                    setChange(i.newData, identifier);
+                    if (!keyReplicationData.replaceIfEqual(key, i.usingData, i.newData))
+                        throw new AssertionError();
+                });
+            }
+            return true;
+        }
+
         @Override
         public void setModificationNotifier(@NotNull ModificationNotifier modificationNotifier) {
             this.modificationNotifier = modificationNotifier;
@@ -654,5 +736,56 @@ public class VanillaEngineReplication<K, V, MV, Store extends SubscriptionKeyVal
             return bootstrapTimestamp(identifier);
         }
     }
-}
 
+    /**
+     * A changed entry of one segment, used when segments are drained by different threads.
+     */
+    class SegmentEntry implements ReplicationEntry {
+        private final int remoteIdentifier;
+        @Nullable
+        BytesStore key;
+        @Nullable
+        ReplicationData replicationData;
+
+        SegmentEntry(int remoteIdentifier) {
+            this.remoteIdentifier = remoteIdentifier;
+        }
+
+        @Nullable
+        @Override
+        public BytesStore key() {
+            return key;
+        }
+
+        @NotNull
+        @Override
+        public BytesStore value() {
+            return getValue.getValue(store, key);
+        }
+
+        @Override
+        public long timestamp() {
+            return replicationData.getTimestamp();
+        }
+
+        @Override
+        public byte identifier() {
+            return replicationData.getIdentifier();
+        }
+
+        @Override
+        public byte remoteIdentifier() {
+            return (byte) remoteIdentifier;
+        }
+
+        @Override
+        public boolean isDeleted() {
+            return replicationData.getDeleted();
+        }
+
+        @Override
+        public long bootStrapTimeStamp() {
+            return bootstrapTimestamp(remoteIdentifier);
+        }
+    }
+}
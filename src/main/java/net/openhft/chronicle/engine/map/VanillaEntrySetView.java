@@ -17,6 +17,7 @@
 package net.openhft.chronicle.engine.map;
 
 import net.openhft.chronicle.bytes.BytesUtil;
+import net.openhft.chronicle.engine.api.map.KeyValueStore;
 import net.openhft.chronicle.engine.api.map.MapView;
 import net.openhft.chronicle.engine.api.set.EntrySetView;
 import net.openhft.chronicle.engine.api.tree.Asset;
@@ -28,6 +29,7 @@ import java.util.AbstractCollection;
 import java.util.Iterator;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.Spliterator;
 
 /**
  * Created by peter on 22/05/15.
@@ -47,6 +49,20 @@ public class VanillaEntrySetView<K, MV, V> extends AbstractCollection<Entry<K, V
         return mapView.underlying().entrySetIterator();
     }
 
+    /**
+     * splits on the segments of the store, so {@code parallelStream()} scans each segment on its
+     * own fork/join worker.
+     */
+    @NotNull
+    @Override
+    @SuppressWarnings("unchecked")
+    public Spliterator<Entry<K, V>> spliterator() {
+        final KeyValueStore<K, V> kvStore = mapView.underlying();
+        return kvStore.segments() > 1
+                ? (Spliterator) kvStore.entriesSpliterator()
+                : EntrySetView.super.spliterator();
+    }
+
     @Override
     public int size() {
         return mapView.size();
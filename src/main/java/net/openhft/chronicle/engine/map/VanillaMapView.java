@@ -147,13 +147,10 @@ public class VanillaMapView<K, V> implements MapView<K, V> {
     public boolean containsValue(Object value) {
         checkValue(value);
         try {
-            for (int i = 0; i < kvStore.segments(); i++) {
-                kvStore.entriesFor(i, e -> {
-                    if (BytesUtil.equals(e.getValue(), value))
-                        throw new InvalidSubscriberException();
-                });
-
-            }
+            kvStore.entriesForAll(e -> {
+                if (BytesUtil.equals(e.getValue(), value))
+                    throw new InvalidSubscriberException();
+            });
             return false;
         } catch (InvalidSubscriberException e) {
             return true;
@@ -227,8 +224,41 @@ public class VanillaMapView<K, V> implements MapView<K, V> {
 
     @Override
     public void putAll(@net.openhft.chronicle.core.annotation.NotNull Map<? extends K, ? extends V> m) {
-        for (Entry<? extends K, ? extends V> entry : m.entrySet()) {
-            put(entry.getKey(), entry.getValue());
+        checkEntries(m);
+        kvStore.putAll(m);
+    }
+
+    @NotNull
+    @Override
+    public Map<K, V> getAndPutAll(@NotNull Map<? extends K, ? extends V> entries) {
+        checkEntries(entries);
+        return kvStore.getAndPutAll(entries);
+    }
+
+    @NotNull
+    @Override
+    public Map<K, V> getAll(@NotNull Collection<K> keys) {
+        keys.forEach(this::checkKey);
+        return kvStore.getAll(keys);
+    }
+
+    @Override
+    public void removeAll(@NotNull Collection<K> keys) {
+        keys.forEach(this::checkKey);
+        kvStore.removeAll(keys);
+    }
+
+    @NotNull
+    @Override
+    public Map<K, V> getAndRemoveAll(@NotNull Collection<K> keys) {
+        keys.forEach(this::checkKey);
+        return kvStore.getAndRemoveAll(keys);
+    }
+
+    private void checkEntries(@NotNull Map<? extends K, ? extends V> entries) {
+        for (Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+            checkKey(entry.getKey());
+            checkValue(entry.getValue());
         }
     }
 
@@ -357,12 +387,12 @@ public class VanillaMapView<K, V> implements MapView<K, V> {
             if (size() != map.size())
                 return false;
             try {
+                // serial, as the other map may not be safe to read from several threads.
                 for (int i = 0; i < kvStore.segments(); i++) {
                     kvStore.entriesFor(i, e -> {
                         if (!BytesUtil.equals(e.getValue(), map.get(e.getKey())))
                             throw new InvalidSubscriberException();
                     });
-
                 }
                 return true;
             } catch (InvalidSubscriberException e) {
@@ -26,12 +26,17 @@ import net.openhft.chronicle.engine.api.pubsub.SubscriptionConsumer;
 import net.openhft.chronicle.engine.api.tree.Asset;
 import net.openhft.chronicle.engine.api.tree.AssetNotFoundException;
 import net.openhft.chronicle.engine.api.tree.RequestContext;
+import net.openhft.chronicle.wire.BinaryWire;
 import net.openhft.chronicle.wire.Marshallable;
+import net.openhft.chronicle.wire.ValueOut;
 import net.openhft.chronicle.wire.Wire;
+import net.openhft.chronicle.wire.WireOut;
+import net.openhft.chronicle.wire.WireType;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -40,12 +45,14 @@ import java.util.Map;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
+import static net.openhft.chronicle.core.pool.ClassAliasPool.CLASS_ALIASES;
 import static net.openhft.chronicle.engine.map.Buffers.BUFFERS;
 
 /**
  * Created by peter on 25/05/15.
  */
-public class VanillaStringMarshallableKeyValueStore<V extends Marshallable> implements StringMarshallableKeyValueStore<V> {
+public class VanillaStringMarshallableKeyValueStore<V extends Marshallable> implements StringMarshallableKeyValueStore<V>,
+        RawValueWriter<String> {
     private static final ClassLocal<Constructor> CONSTRUCTORS = ClassLocal.withInitial(c -> {
         try {
             Constructor con = c.getDeclaredConstructor();
@@ -64,6 +71,9 @@ public class VanillaStringMarshallableKeyValueStore<V extends Marshallable> impl
     private final SubscriptionKeyValueStore<String, BytesStore> kvStore;
     private final Asset asset;
     private final Class<V> valueType;
+    // only binary values of a class which can be named in the reply can be copied into a binary
+    // wire as is.
+    private final boolean rawValues;
 
     public VanillaStringMarshallableKeyValueStore(@NotNull RequestContext context, @NotNull Asset asset,
                                                   @NotNull SubscriptionKeyValueStore<String, BytesStore> kvStore) throws AssetNotFoundException {
@@ -77,6 +87,8 @@ public class VanillaStringMarshallableKeyValueStore<V extends Marshallable> impl
                                            @NotNull Function<Bytes, Wire> wireType) {
         this.asset = asset;
         this.valueType = valueType;
+        this.rawValues = wireType == WireType.BINARY &&
+                !valueType.isInterface() && !Modifier.isAbstract(valueType.getModifiers());
         valueToBytes = toBytes(valueType, wireType);
         bytesToValue = fromBytes(valueType, wireType);
         this.kvStore = kvStore;
@@ -166,11 +178,43 @@ public class VanillaStringMarshallableKeyValueStore<V extends Marshallable> impl
         return retBytes == null ? null : bytesToValue.apply(retBytes, (V) value);
     }
 
+    @Override
+    public boolean canWriteRawValue(@NotNull WireOut wire) {
+        return rawValues && wire instanceof BinaryWire;
+    }
+
+    @Override
+    public void writeRawValue(String key, @NotNull ValueOut out) {
+        Buffers b = BUFFERS.get();
+        BytesStore retBytes = kvStore.getUsing(key, b.valueBuffer);
+        if (retBytes == null)
+            out.object(null);
+        else
+            // typed as ValueOut.object() would, so it can be read as an interface the value implements.
+            out.typePrefix(CLASS_ALIASES.nameFor(valueType))
+                    .marshallable(w -> w.bytes().write(retBytes));
+    }
+
     @Override
     public long longSize() {
         return kvStore.longSize();
     }
 
+    @Override
+    public boolean containsKey(String key) {
+        return kvStore.containsKey(key);
+    }
+
+    @Override
+    public int segments() {
+        return kvStore.segments();
+    }
+
+    @Override
+    public int segmentFor(String key) {
+        return kvStore.segmentFor(key);
+    }
+
     @Override
     public void keysFor(int segment, SubscriptionConsumer<String> kConsumer) throws InvalidSubscriberException {
         kvStore.keysFor(segment, kConsumer);
@@ -25,6 +25,8 @@ import net.openhft.chronicle.engine.api.pubsub.SubscriptionConsumer;
 import net.openhft.chronicle.engine.api.tree.Asset;
 import net.openhft.chronicle.engine.api.tree.AssetNotFoundException;
 import net.openhft.chronicle.engine.api.tree.RequestContext;
+import net.openhft.chronicle.wire.ValueOut;
+import net.openhft.chronicle.wire.WireOut;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -40,7 +42,7 @@ import static net.openhft.chronicle.engine.map.Buffers.BUFFERS;
 /**
  * Created by peter on 25/05/15.
  */
-public class VanillaStringStringKeyValueStore implements StringStringKeyValueStore {
+public class VanillaStringStringKeyValueStore implements StringStringKeyValueStore, RawValueWriter<String> {
     @NotNull
     private final ObjectSubscription<String, String> subscriptions;
 
@@ -121,6 +123,21 @@ public class VanillaStringStringKeyValueStore implements StringStringKeyValueSto
         return retBytes == null ? null : retBytes.toString();
     }
 
+    @Override
+    public boolean canWriteRawValue(@NotNull WireOut wire) {
+        return true;
+    }
+
+    @Override
+    public void writeRawValue(String key, @NotNull ValueOut out) {
+        Buffers b = BUFFERS.get();
+        BytesStore retBytes = kvStore.getUsing(key, b.valueBuffer);
+        if (retBytes == null)
+            out.object(null);
+        else
+            out.text(retBytes);
+    }
+
     @Nullable
     @Override
     public String getUsing(String key, Object value) {
@@ -134,6 +151,21 @@ public class VanillaStringStringKeyValueStore implements StringStringKeyValueSto
         return kvStore.longSize();
     }
 
+    @Override
+    public boolean containsKey(String key) {
+        return kvStore.containsKey(key);
+    }
+
+    @Override
+    public int segments() {
+        return kvStore.segments();
+    }
+
+    @Override
+    public int segmentFor(String key) {
+        return kvStore.segmentFor(key);
+    }
+
     @Override
     public void keysFor(int segment, SubscriptionConsumer<String> kConsumer) throws InvalidSubscriberException {
         kvStore.keysFor(segment, kConsumer);
@@ -25,6 +25,7 @@ import net.openhft.chronicle.engine.api.pubsub.SubscriptionCollection;
 import net.openhft.chronicle.engine.api.tree.RequestContext;
 import net.openhft.chronicle.engine.query.Filter;
 import net.openhft.chronicle.engine.server.internal.MapWireHandler;
+import net.openhft.chronicle.engine.server.internal.ObjectKVSubscriptionHandler;
 import net.openhft.chronicle.engine.server.internal.PublisherHandler;
 import net.openhft.chronicle.engine.tree.TopologicalEvent;
 import net.openhft.chronicle.network.connection.AbstractAsyncSubscription;
@@ -92,6 +93,10 @@ abstract class AbstractRemoteSubscription<E> extends AbstractStatelessClient imp
             csp = csp + "&throttlePeriodMs=" + rc.throttlePeriodMs();
         if (rc.dontPersist())
             csp = csp + "&dontPersist=" + rc.dontPersist();
+        if (rc.conflate())
+            csp = csp + "&conflate=" + rc.conflate();
+        if (rc.outboundQuota() > 0)
+            csp = csp + "&outboundQuota=" + rc.outboundQuota() + "&quotaPolicy=" + rc.quotaPolicy();
 
         hub.subscribe(new AbstractAsyncSubscription(hub, csp, this.getClass().getSimpleName()) {
             {
@@ -117,6 +122,10 @@ abstract class AbstractRemoteSubscription<E> extends AbstractStatelessClient imp
                         subscribersToTid.remove(this);
                         hub.unsubscribe(tid());
 
+                    } else if (ObjectKVSubscriptionHandler.EventId.onGap.contentEquals(eventName)) {
+                        // the server dropped events as this client wasn't keeping up
+                        subscriber.onGap(valueIn.int64());
+
                     } else if (CoreFields.reply.contentEquals(eventName)) {
                         final Class aClass = rc.elementType();
 
@@ -0,0 +1,182 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.map.remote;
+
+import net.openhft.chronicle.engine.api.map.MapEvent;
+import net.openhft.chronicle.engine.api.pubsub.Subscriber;
+import net.openhft.chronicle.network.connection.ClientConnectionMonitor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.SocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least recently used, client side copy of the values a {@link RemoteKeyValueStore}
+ * has read. It is kept coherent by subscribing to the map's events, an event for a cached key
+ * updates or removes it, and it is emptied when that subscription ends. As events are missed
+ * while the connection is down, it is also emptied when the connection is lost or made again,
+ * and caches nothing while disconnected. The values are shared between readers, so must be
+ * treated as immutable.
+ * <p>
+ * Enabled with {@code nearCacheSize} in the request context, e.g. {@code
+ * /map/name?nearCacheSize=10000}
+ */
+public class NearCache<K, V> implements Subscriber<MapEvent<K, V>>, ClientConnectionMonitor {
+
+    private final int capacity;
+    private final Map<K, V> entries;
+    private long hits, misses, evictions, invalidations;
+    // incremented by every event, so a value read from the server is only cached if no event
+    // for the map arrived while it was being read.
+    private long modCount;
+    private boolean subscribed = true;
+    private boolean connected = true;
+
+    public NearCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() <= NearCache.this.capacity)
+                    return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @return the cached value, or null if the server has to be asked.
+     */
+    @Nullable
+    public synchronized V get(@NotNull K key) {
+        final V value = entries.get(key);
+        if (value == null)
+            misses++;
+        else
+            hits++;
+        return value;
+    }
+
+    /**
+     * @return the version to pass to {@link #put} with the value read from the server.
+     */
+    public synchronized long modCount() {
+        return modCount;
+    }
+
+    /**
+     * cache a value read from the server, unless an event has arrived since {@code modCount}
+     */
+    public synchronized void put(@NotNull K key, @NotNull V value, long modCount) {
+        if (subscribed && connected && this.modCount == modCount)
+            entries.put(key, value);
+    }
+
+    /**
+     * drop a key this client has changed, its event will arrive from the server.
+     */
+    public synchronized void invalidate(@NotNull K key) {
+        modCount++;
+        if (entries.remove(key) != null)
+            invalidations++;
+    }
+
+    public synchronized void clear() {
+        modCount++;
+        invalidations += entries.size();
+        entries.clear();
+    }
+
+    @Override
+    public synchronized void onMessage(@NotNull MapEvent<K, V> event) {
+        modCount++;
+        final K key = event.getKey();
+        if (!entries.containsKey(key))
+            return;
+        final V value = event.getValue();
+        if (value == null) {
+            entries.remove(key);
+            invalidations++;
+        } else {
+            entries.put(key, value);
+        }
+    }
+
+    /**
+     * without the subscription events would be missed, so nothing more is cached.
+     */
+    @Override
+    public synchronized void onEndOfSubscription() {
+        subscribed = false;
+        clear();
+    }
+
+    @Override
+    public synchronized void onConnected(@Nullable String name, @NotNull SocketAddress socketAddress) {
+        // anything cached since the disconnection may have missed its events.
+        connected = true;
+        clear();
+    }
+
+    @Override
+    public synchronized void onDisconnected(@Nullable String name, @NotNull SocketAddress socketAddress) {
+        connected = false;
+        clear();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    public synchronized long invalidations() {
+        return invalidations;
+    }
+
+    @NotNull
+    @Override
+    public synchronized String toString() {
+        return "NearCache{" +
+                "size=" + entries.size() +
+                ", capacity=" + capacity +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", invalidations=" + invalidations +
+                '}';
+    }
+}
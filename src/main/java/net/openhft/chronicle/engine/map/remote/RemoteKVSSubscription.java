@@ -69,6 +69,10 @@ public class RemoteKVSSubscription<K, V> extends AbstractRemoteSubscription<MapE
         if (context.elementType() != String.class)
             sb.append("&elementType=").append(CLASS_ALIASES.nameFor(context.elementType()));
 
+        if (context.outboundQuota() > 0)
+            sb.append("&outboundQuota=").append(context.outboundQuota())
+                    .append("&quotaPolicy=").append(context.quotaPolicy());
+
         return sb.toString();
 
     }
@@ -109,6 +113,8 @@ public class RemoteKVSSubscription<K, V> extends AbstractRemoteSubscription<MapE
                     } else if (onEndOfSubscription.contentEquals(sb)) {
                         RemoteKVSSubscription.this.onEndOfSubscription();
                         hub.unsubscribe(tid());
+                    } else if (onGap.contentEquals(sb)) {
+                        subscriber.onGap(valueIn.int64());
                     }
                 });
             }
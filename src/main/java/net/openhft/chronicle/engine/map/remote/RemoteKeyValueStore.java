@@ -34,27 +34,38 @@ import net.openhft.chronicle.engine.collection.ClientWiredStatelessChronicleSet;
 import net.openhft.chronicle.engine.map.InsertedEvent;
 import net.openhft.chronicle.engine.map.ObjectKeyValueStore;
 import net.openhft.chronicle.engine.map.ObjectSubscription;
+import net.openhft.chronicle.engine.query.Filter;
+import net.openhft.chronicle.engine.tree.ClientConnectionListeners;
+import net.openhft.chronicle.network.connection.AbstractAsyncTemporarySubscription;
 import net.openhft.chronicle.network.connection.AbstractStatelessClient;
 import net.openhft.chronicle.network.connection.CoreFields;
 import net.openhft.chronicle.network.connection.TcpChannelHub;
 import net.openhft.chronicle.wire.ValueIn;
+import net.openhft.chronicle.wire.ValueOut;
+import net.openhft.chronicle.wire.WireIn;
+import net.openhft.chronicle.wire.WireOut;
 import net.openhft.chronicle.wire.Wires;
 import net.openhft.chronicle.wire.WriteMarshallable;
 import net.openhft.chronicle.wire.WriteValue;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 import static net.openhft.chronicle.engine.server.internal.MapWireHandler.EventId;
 import static net.openhft.chronicle.engine.server.internal.MapWireHandler.EventId.*;
+import static net.openhft.chronicle.network.connection.CoreFields.reply;
 import static net.openhft.chronicle.network.connection.CoreFields.stringEvent;
 
 public class RemoteKeyValueStore<K, V> extends AbstractStatelessClient<EventId>
         implements Cloneable, ObjectKeyValueStore<K, V> {
 
+    private static final Logger LOG = LoggerFactory.getLogger(RemoteKeyValueStore.class);
     private static final WriteValue VOID_PARAMETERS = WriteMarshallable.EMPTY;
 
     private final Class<K> kClass;
@@ -67,6 +78,10 @@ public class RemoteKeyValueStore<K, V> extends AbstractStatelessClient<EventId>
     // todo
     @NotNull
     private final ObjectSubscription<K, V> subscriptions;
+    @Nullable
+    private final NearCache<K, V> nearCache;
+    @Nullable
+    private final ClientConnectionListeners connectionListeners;
 
     public RemoteKeyValueStore(@NotNull final RequestContext context,
                                @NotNull Asset asset,
@@ -79,6 +94,21 @@ public class RemoteKeyValueStore<K, V> extends AbstractStatelessClient<EventId>
 
         subscriptions = asset.acquireView(ObjectSubscription.class, context);
         subscriptions.setKvStore(this);
+
+        connectionListeners = context.nearCacheSize() > 0
+                ? asset.findView(ClientConnectionListeners.class)
+                : null;
+        if (connectionListeners != null) {
+            nearCache = new NearCache<>(context.nearCacheSize());
+            connectionListeners.add(nearCache);
+            final RequestContext rc = context.clone().bootstrap(false).elementType(MapEvent.class);
+            subscriptions.registerSubscriber(rc, nearCache, Filter.<MapEvent<K, V>>empty());
+            asset.addView(NearCache.class, nearCache);
+        } else {
+            if (context.nearCacheSize() > 0)
+                LOG.warn("No near cache for " + context.fullName() + " as its connection can't be monitored");
+            nearCache = null;
+        }
     }
 
     public RemoteKeyValueStore(@NotNull RequestContext requestContext, @NotNull Asset asset) {
@@ -104,6 +134,7 @@ public class RemoteKeyValueStore<K, V> extends AbstractStatelessClient<EventId>
     public V putIfAbsent(K key, V value) {
         checkKey(key);
         checkValue(value);
+        invalidate(key);
         return proxyReturnTypedObject(putIfAbsent, null, vClass, key, value);
     }
 
@@ -122,7 +153,7 @@ public class RemoteKeyValueStore<K, V> extends AbstractStatelessClient<EventId>
         if (key == null)
             return false;
         checkValue(value);
-
+        invalidate(key);
         return proxyReturnBooleanWithArgs(removeWithValue, key, value);
     }
 
@@ -131,6 +162,7 @@ public class RemoteKeyValueStore<K, V> extends AbstractStatelessClient<EventId>
         checkKey(key);
         checkValue(oldValue);
         checkValue(newValue);
+        invalidate(key);
         return proxyReturnBooleanWithArgs(replaceForOld, key, oldValue, newValue);
     }
 
@@ -139,20 +171,112 @@ public class RemoteKeyValueStore<K, V> extends AbstractStatelessClient<EventId>
     public V replace(K key, V value) {
         checkKey(key);
         checkValue(value);
+        invalidate(key);
         return proxyReturnTypedObject(replace, null, vClass, key, value);
     }
 
     @Nullable
     public <A, R> R applyTo(@NotNull SerializableBiFunction<MapView<K, V>, A, R> function, A arg) {
+        if (!isReadOnly(function))
+            invalidateAll();
         return (R) proxyReturnTypedObject(applyTo2, null, Object.class, function, arg);
     }
 
     @Nullable
     public <R, UA, RA> R syncUpdate(SerializableBiFunction updateFunction, UA ua, SerializableBiFunction returnFunction, RA ra) {
+        invalidateAll();
         return (R) proxyReturnTypedObject(update4, null, Object.class, updateFunction, ua, returnFunction, ra);
     }
 
+    /**
+     * sends a get without waiting for the reply, see {@link #proxyReturnAsync}
+     */
+    @NotNull
+    public CompletableFuture<V> getAsync(K key) {
+        checkKey(key);
+        return proxyReturnAsync(get, toParameters(get, key), valueIn -> valueIn.object(vClass));
+    }
+
+    @NotNull
+    public CompletableFuture<V> getAndPutAsync(K key, V value) {
+        checkKey(key);
+        checkValue(value);
+        invalidate(key);
+        return proxyReturnAsync(getAndPut, toParameters(getAndPut, key, value),
+                valueIn -> valueIn.object(vClass));
+    }
+
+    @NotNull
+    public CompletableFuture<V> getAndRemoveAsync(K key) {
+        checkKey(key);
+        invalidate(key);
+        return proxyReturnAsync(getAndRemove, toParameters(getAndRemove, key),
+                valueIn -> valueIn.object(vClass));
+    }
+
+    @NotNull
+    public <A, R> CompletableFuture<R> applyToAsync(@NotNull SerializableBiFunction<MapView<K, V>, A, R> function, A arg) {
+        if (isReadOnly(function))
+            return proxyReturnAsync(applyTo2, toParameters(applyTo2, function, arg),
+                    valueIn -> (R) valueIn.object(Object.class));
+
+        invalidateAll();
+        // a get while the function is in flight can cache the value it is about to change.
+        return proxyReturnAsync(applyTo2, toParameters(applyTo2, function, arg),
+                valueIn -> (R) valueIn.object(Object.class))
+                .whenComplete((r, t) -> invalidateAll());
+    }
+
+    /**
+     * sends a request without blocking for its reply. Each request is registered with the hub
+     * under its own tid, so any number of requests can be in flight on the one connection, the
+     * reply for a tid completes the matching future.
+     *
+     * @param eventId    the event to send
+     * @param parameters writes the parameters of the event
+     * @param reader     reads the reply
+     * @return a future which is completed on the hub's reader thread
+     */
+    @NotNull
+    private <R> CompletableFuture<R> proxyReturnAsync(@NotNull final EventId eventId,
+                                                      @NotNull final WriteValue parameters,
+                                                      @NotNull final Function<ValueIn, R> reader) {
+        final CompletableFuture<R> future = new CompletableFuture<>();
+
+        hub.subscribe(new AbstractAsyncTemporarySubscription(hub, csp, "RemoteKeyValueStore async") {
+
+            @Override
+            public void onSubscribe(@NotNull WireOut wireOut) {
+                parameters.writeValue(wireOut.writeEventName(eventId));
+            }
+
+            @Override
+            public void onConsumer(@NotNull WireIn inWire) {
+                hub.unsubscribe(tid());
+                try {
+                    inWire.readDocument(null, d -> {
+                        final StringBuilder eventName = Wires.acquireStringBuilder();
+                        final ValueIn valueIn = d.readEventName(eventName);
+
+                        if (CoreFields.reply.contentEquals(eventName))
+                            future.complete(reader.apply(valueIn));
+                        else if ("exception".contentEquals(eventName))
+                            future.completeExceptionally(valueIn.throwable(false));
+                        else
+                            future.completeExceptionally(new IllegalStateException(
+                                    "unexpected reply=" + eventName + " for " + eventId));
+                    });
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+
+        return future;
+    }
+
     public <A> void asyncUpdate(SerializableUpdaterWithArg updateFunction, A arg) {
+        invalidateAll();
         sendEventAsync(update2, toParameters(update2, updateFunction, arg), true);
     }
 
@@ -230,27 +354,62 @@ public class RemoteKeyValueStore<K, V> extends AbstractStatelessClient<EventId>
 
     public boolean containsKey(Object key) {
         checkKey(key);
+        if (nearCache != null && nearCache.get((K) key) != null)
+            return true;
         return proxyReturnBoolean(containsKey, out -> out.object(key));
     }
 
     @Nullable
     public V get(Object key) {
         checkKey(key);
+        if (nearCache != null)
+            return getCached((K) key, nearCache);
         return this.proxyReturnTypedObject(get, null, vClass, key);
     }
 
     @Nullable
     public V getUsing(K key, Object usingValue) {
         checkKey(key);
+        if (nearCache != null && usingValue == null)
+            return getCached(key, nearCache);
         return this.proxyReturnTypedObject(get, (V) usingValue, vClass, key);
     }
 
+    @Nullable
+    private V getCached(@NotNull K key, @NotNull NearCache<K, V> nearCache) {
+        V value = nearCache.get(key);
+        if (value != null)
+            return value;
+        final long modCount = nearCache.modCount();
+        value = this.proxyReturnTypedObject(get, null, vClass, key);
+        if (value != null)
+            nearCache.put(key, value, modCount);
+        return value;
+    }
+
+    private void invalidate(Object key) {
+        if (nearCache != null)
+            nearCache.invalidate((K) key);
+    }
+
+    private void invalidateAll() {
+        if (nearCache != null)
+            nearCache.clear();
+    }
+
+    private static boolean isReadOnly(Object function) {
+        return function == MapFunction.CONTAINS_VALUE ||
+                function == MapFunction.HASH_CODE ||
+                function == MapFunction.EQUALS;
+    }
+
     public long longSize() {
         return proxyReturnLong(size);
     }
 
     public boolean remove(Object key) {
         checkKey(key);
+        invalidate(key);
         sendEventAsync(remove, toParameters(remove, key), true);
         return false;
     }
@@ -259,6 +418,7 @@ public class RemoteKeyValueStore<K, V> extends AbstractStatelessClient<EventId>
     @Override
     public V getAndRemove(final Object key) {
         checkKey(key);
+        invalidate(key);
         return proxyReturnTypedObject(getAndRemove, null, vClass, key);
     }
 
@@ -270,6 +430,7 @@ public class RemoteKeyValueStore<K, V> extends AbstractStatelessClient<EventId>
     public boolean put(K key, V value) {
         checkKey(key);
         checkValue(value);
+        invalidate(key);
         sendEventAsync(put, toParameters(put, key, value), true);
         return false;
     }
@@ -279,10 +440,95 @@ public class RemoteKeyValueStore<K, V> extends AbstractStatelessClient<EventId>
     public V getAndPut(final Object key, final Object value) {
         checkKey(key);
         checkValue(value);
+        invalidate(key);
         return proxyReturnTypedObject(getAndPut, null, vClass, key, value);
     }
 
+    @NotNull
+    @Override
+    public Map<K, V> getAll(@NotNull Collection<K> keys) {
+        keys.forEach(this::checkKey);
+        if (keys.isEmpty())
+            return new LinkedHashMap<>();
+        return proxyReturnWireConsumerInOut(getAll, reply,
+                valueOut -> writeKeys(valueOut, keys), this::readEntries);
+    }
+
+    @Override
+    public void putAll(@NotNull Map<? extends K, ? extends V> entries) {
+        checkEntries(entries);
+        if (entries.isEmpty())
+            return;
+        entries.keySet().forEach(this::invalidate);
+        sendEventAsync(putAll, valueOut -> writeEntries(valueOut, entries), true);
+    }
+
+    @NotNull
+    @Override
+    public Map<K, V> getAndPutAll(@NotNull Map<? extends K, ? extends V> entries) {
+        checkEntries(entries);
+        if (entries.isEmpty())
+            return new LinkedHashMap<>();
+        entries.keySet().forEach(this::invalidate);
+        return proxyReturnWireConsumerInOut(getAndPutAll, reply,
+                valueOut -> writeEntries(valueOut, entries), this::readEntries);
+    }
+
+    @Override
+    public void removeAll(@NotNull Collection<K> keys) {
+        keys.forEach(this::checkKey);
+        if (keys.isEmpty())
+            return;
+        keys.forEach(this::invalidate);
+        sendEventAsync(removeAll, valueOut -> writeKeys(valueOut, keys), true);
+    }
+
+    @NotNull
+    @Override
+    public Map<K, V> getAndRemoveAll(@NotNull Collection<K> keys) {
+        keys.forEach(this::checkKey);
+        if (keys.isEmpty())
+            return new LinkedHashMap<>();
+        keys.forEach(this::invalidate);
+        return proxyReturnWireConsumerInOut(getAndRemoveAll, reply,
+                valueOut -> writeKeys(valueOut, keys), this::readEntries);
+    }
+
+    private void checkEntries(@NotNull Map<? extends K, ? extends V> entries) {
+        for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+            checkKey(entry.getKey());
+            checkValue(entry.getValue());
+        }
+    }
+
+    private void writeKeys(@NotNull ValueOut valueOut, @NotNull Collection<K> keys) {
+        valueOut.sequence(v -> keys.forEach(v::object));
+    }
+
+    private void writeEntries(@NotNull ValueOut valueOut,
+                              @NotNull Map<? extends K, ? extends V> entries) {
+        valueOut.sequence(v -> entries.forEach((key, value) -> v.marshallable(w -> w
+                .write(() -> "key").object(key)
+                .write(() -> "value").object(value))));
+    }
+
+    @NotNull
+    private Map<K, V> readEntries(@NotNull ValueIn valueIn) {
+        final Map<K, V> result = new LinkedHashMap<>();
+        valueIn.sequence(result, (m, v) -> {
+            while (v.hasNextSequenceItem()) {
+                v.marshallable(w -> {
+                    final K k = w.read(() -> "key").object(kClass);
+                    final V value = w.read(() -> "value").object(vClass);
+                    m.put(k, value);
+                });
+            }
+        });
+        return result;
+    }
+
     public void clear() {
+        invalidateAll();
         proxyReturnVoid(clear);
     }
 
@@ -408,6 +654,16 @@ public class RemoteKeyValueStore<K, V> extends AbstractStatelessClient<EventId>
         return subscriptions;
     }
 
+    @Override
+    public void close() {
+        if (nearCache != null) {
+            connectionListeners.remove(nearCache);
+            subscriptions.unregisterSubscriber(nearCache);
+            nearCache.clear();
+        }
+        super.close();
+    }
+
     @Override
     public Class<K> keyType() {
         return kClass;
@@ -34,6 +34,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
@@ -184,6 +185,34 @@ public class RemoteMapView<K, MV, V> extends VanillaMapView<K, V> {
         return store.syncUpdate((SerializableBiFunction) updateFunction, ua, (SerializableBiFunction) returnFunction, ra);
     }
 
+    @org.jetbrains.annotations.NotNull
+    @Override
+    public CompletableFuture<V> getAsync(@NotNull K key) {
+        RemoteKeyValueStore<K, V> store = (RemoteKeyValueStore<K, V>) underlying();
+        return store.getAsync(key);
+    }
+
+    @org.jetbrains.annotations.NotNull
+    @Override
+    public CompletableFuture<V> putAsync(@NotNull K key, @NotNull V value) {
+        RemoteKeyValueStore<K, V> store = (RemoteKeyValueStore<K, V>) underlying();
+        return store.getAndPutAsync(key, value);
+    }
+
+    @org.jetbrains.annotations.NotNull
+    @Override
+    public CompletableFuture<V> removeAsync(@NotNull K key) {
+        RemoteKeyValueStore<K, V> store = (RemoteKeyValueStore<K, V>) underlying();
+        return store.getAndRemoveAsync(key);
+    }
+
+    @org.jetbrains.annotations.NotNull
+    @Override
+    public <A, R> CompletableFuture<R> applyToAsync(@NotNull SerializableBiFunction<MapView<K, V>, A, R> function, A arg) {
+        RemoteKeyValueStore<K, V> store = (RemoteKeyValueStore<K, V>) underlying();
+        return store.applyToAsync(function, arg);
+    }
+
     // helper functions.
     @Override
     public <R> R applyTo(@NotNull SerializableFunction<MapView<K, V>, R> function) {
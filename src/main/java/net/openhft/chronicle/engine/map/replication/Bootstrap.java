@@ -16,11 +16,13 @@
 
 package net.openhft.chronicle.engine.map.replication;
 
+import net.openhft.chronicle.engine.api.EngineReplication.ModificationIterator;
 import net.openhft.chronicle.wire.AbstractMarshallable;
 import net.openhft.chronicle.wire.Marshallable;
 import net.openhft.chronicle.wire.WireIn;
 import net.openhft.chronicle.wire.WireOut;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Created by Rob Austin
@@ -31,6 +33,16 @@ public class Bootstrap extends AbstractMarshallable implements Marshallable {
 
     private long lastUpdatedTime;
 
+    @Nullable
+    private MerkleTree merkleTree;
+
+    // the codecs offered by the initiator, or the codec chosen by the acceptor, see Codecs
+    @Nullable
+    private String compression;
+
+    // true if the initiator offers batches, or the acceptor accepts them, see ReplicationBatch
+    private boolean batching;
+
     public long lastUpdatedTime() {
         return lastUpdatedTime;
     }
@@ -47,16 +59,69 @@ public class Bootstrap extends AbstractMarshallable implements Marshallable {
         return identifier;
     }
 
+    @Nullable
+    public MerkleTree merkleTree() {
+        return merkleTree;
+    }
+
+    public void merkleTree(@Nullable final MerkleTree merkleTree) {
+        this.merkleTree = merkleTree;
+    }
+
+    @Nullable
+    public String compression() {
+        return compression;
+    }
+
+    public void compression(@Nullable final String compression) {
+        this.compression = compression;
+    }
+
+    public boolean batching() {
+        return batching;
+    }
+
+    public void batching(final boolean batching) {
+        this.batching = batching;
+    }
+
+    /**
+     * Dirties the entries to send to the host this bootstrap came from, only those which differ
+     * from its hash tree if both hosts have one, otherwise those changed since its last update.
+     *
+     * @param localTree the hash tree of this host, or null if it doesn't have one
+     */
+    public void dirtyEntries(@NotNull final ModificationIterator mi, @Nullable final MerkleTree localTree) {
+        if (merkleTree == null || localTree == null || !mi.dirtyEntries(localTree, merkleTree))
+            mi.dirtyEntries(lastUpdatedTime);
+    }
+
     @Override
     public void writeMarshallable(@NotNull final WireOut wire) {
         wire.write(() -> "id").int8(identifier);
         wire.write(() -> "lastUpdatedTime").int64(lastUpdatedTime);
+        wire.write(() -> "hasMerkleTree").bool(merkleTree != null);
+        if (merkleTree != null)
+            wire.write(() -> "merkleTree").marshallable(merkleTree);
+        if (compression != null)
+            wire.write(() -> "compression").text(compression);
+        if (batching)
+            wire.write(() -> "batching").bool(true);
     }
 
     @Override
     public void readMarshallable(@NotNull final WireIn wire) throws IllegalStateException {
         identifier = wire.read(() -> "id").int8();
         lastUpdatedTime = wire.read(() -> "lastUpdatedTime").int64();
+        if (wire.read(() -> "hasMerkleTree").bool()) {
+            merkleTree = new MerkleTree();
+            wire.read(() -> "merkleTree").marshallable(merkleTree);
+        } else {
+            merkleTree = null;
+        }
+        compression = wire.read(() -> "compression").text();
+        // a host which doesn't send the field can only receive single replicationEvents
+        batching = wire.read(() -> "batching").bool();
     }
 }
 
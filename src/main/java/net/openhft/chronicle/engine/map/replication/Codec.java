@@ -0,0 +1,44 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package net.openhft.chronicle.engine.map.replication;
+
+import net.openhft.chronicle.bytes.Bytes;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Compresses a batch of documents sent over a connection, see {@link Codecs} for how a codec is
+ * registered and agreed between two hosts.
+ */
+public interface Codec {
+
+    /**
+     * @return the name the codec is registered and negotiated by, e.g. {@code deflate}
+     */
+    @NotNull
+    String name();
+
+    /**
+     * Compresses the readable bytes of {@code from}, appending the result to {@code to}.
+     */
+    void compress(@NotNull Bytes from, @NotNull Bytes to);
+
+    /**
+     * Uncompresses the readable bytes of {@code from}, appending the result to {@code to}.
+     */
+    void uncompress(@NotNull Bytes from, @NotNull Bytes to);
+}
@@ -0,0 +1,122 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package net.openhft.chronicle.engine.map.replication;
+
+import net.openhft.chronicle.bytes.Bytes;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The codecs a host can compress a connection with. The initiating host offers the codecs named in
+ * {@code engine.compression}, in order of preference e.g. {@code lz4,deflate}, the accepting host
+ * picks the first it has registered and both use it for that connection. If the property isn't
+ * set, or no codec is common to both hosts, the connection isn't compressed. Cluster connections
+ * offer and agree the codec in the {@code UberHandler} header, replication hubs in the {@link
+ * Bootstrap} they exchange when they connect.
+ * <p>
+ * Only {@code deflate} is built in, other codecs such as LZ4 or Snappy can be added with
+ * {@link #register(Codec)} on both hosts before the cluster is started.
+ */
+public enum Codecs {
+    ;
+
+    @Nullable
+    public static final String OFFERED = System.getProperty("engine.compression");
+    private static final Map<String, Codec> CODECS = new ConcurrentHashMap<>();
+
+    static {
+        register(new DeflateCodec());
+    }
+
+    public static void register(@NotNull Codec codec) {
+        CODECS.put(codec.name(), codec);
+    }
+
+    @Nullable
+    public static Codec find(@Nullable String name) {
+        return name == null ? null : CODECS.get(name.trim());
+    }
+
+    /**
+     * @param offered a comma separated list of codec names, in order of preference, or null
+     * @return the first of the offered codecs which is registered, or null if there is none
+     */
+    @Nullable
+    public static Codec negotiate(@Nullable String offered) {
+        if (offered == null)
+            return null;
+        for (String name : offered.split(",")) {
+            final Codec codec = find(name);
+            if (codec != null)
+                return codec;
+        }
+        return null;
+    }
+
+    static class DeflateCodec implements Codec {
+        private final ThreadLocal<Deflater> deflater = ThreadLocal.withInitial(
+                () -> new Deflater(Deflater.BEST_SPEED));
+        private final ThreadLocal<Inflater> inflater = ThreadLocal.withInitial(Inflater::new);
+        private final ThreadLocal<byte[]> buffer = ThreadLocal.withInitial(() -> new byte[16 << 10]);
+
+        @NotNull
+        @Override
+        public String name() {
+            return "deflate";
+        }
+
+        @Override
+        public void compress(@NotNull Bytes from, @NotNull Bytes to) {
+            final Deflater d = deflater.get();
+            final byte[] buf = buffer.get();
+            d.reset();
+            d.setInput(from.toByteArray());
+            d.finish();
+            while (!d.finished()) {
+                final int len = d.deflate(buf);
+                to.write(buf, 0, len);
+            }
+            from.readPosition(from.readLimit());
+        }
+
+        @Override
+        public void uncompress(@NotNull Bytes from, @NotNull Bytes to) {
+            final Inflater i = inflater.get();
+            final byte[] buf = buffer.get();
+            i.reset();
+            i.setInput(from.toByteArray());
+            try {
+                while (!i.finished()) {
+                    final int len = i.inflate(buf);
+                    if (len == 0 && (i.needsInput() || i.needsDictionary()))
+                        throw new IllegalStateException("truncated deflate batch");
+                    to.write(buf, 0, len);
+                }
+            } catch (DataFormatException e) {
+                throw new IllegalStateException(e);
+            }
+            from.readPosition(from.readLimit());
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.map.replication;
+
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.wire.AbstractMarshallable;
+import net.openhft.chronicle.wire.WireIn;
+import net.openhft.chronicle.wire.WireOut;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.BitSet;
+
+/**
+ * A hash tree per segment of the keys, timestamps and identifiers held for replication. Two nodes
+ * exchange their trees on bootstrap and only re-send the entries in the leaves which differ,
+ * rather than every entry changed since the last update time.
+ * <p>
+ * Each leaf is the sum of the hashes of its entries, so the order in which the entries are added
+ * doesn't matter. Only the leaves are sent, the rest of the tree is rebuilt by the reader.
+ * <p>
+ * Only {@link net.openhft.chronicle.engine.map.VanillaEngineReplication} builds a tree. Chronicle
+ * Map 2 exposes neither the timestamp of an entry nor a way to mark a single entry as changed, so
+ * maps replicated by {@link net.openhft.chronicle.engine.map.CMap2EngineReplicator} always
+ * bootstrap from the last update time.
+ */
+public class MerkleTree extends AbstractMarshallable {
+    public static final boolean ENABLED = Boolean.getBoolean("engine.replication.merkleBootstrap");
+    // the number of leaves across all the segments
+    static final int TOTAL_LEAVES = Integer.getInteger("engine.replication.merkleLeaves", 8192);
+
+    private int segments;
+    private int leaves;
+    // for each segment, node 1 is the root, and the children of node n are 2n and 2n + 1
+    private long[][] nodes;
+
+    // for deserialization only.
+    public MerkleTree() {
+    }
+
+    public MerkleTree(int segments) {
+        this(segments, Math.max(1, Integer.highestOneBit(TOTAL_LEAVES / segments)));
+    }
+
+    public MerkleTree(int segments, int leaves) {
+        if (Integer.bitCount(leaves) != 1)
+            throw new IllegalArgumentException("leaves must be a power of 2, was " + leaves);
+        init(segments, leaves);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    public static long hashKey(@NotNull BytesStore key) {
+        long h = 0;
+        for (long i = key.readPosition(); i < key.readLimit(); i++)
+            h = h * 0x9E3779B97F4A7C15L + key.readByte(i);
+        return mix(h);
+    }
+
+    private void init(int segments, int leaves) {
+        this.segments = segments;
+        this.leaves = leaves;
+        this.nodes = new long[segments][2 * leaves];
+    }
+
+    public int leafFor(long keyHash) {
+        return (int) (keyHash >>> 32) & (leaves - 1);
+    }
+
+    public void add(int segment, long keyHash, long timestamp, byte identifier, boolean deleted) {
+        final long entryHash = mix(keyHash ^ mix(timestamp * 31 + identifier * 2 + (deleted ? 1 : 0)));
+        nodes[segment][leaves + leafFor(keyHash)] += entryHash;
+    }
+
+    /**
+     * Computes the rest of the tree from the leaves, once all the entries have been added.
+     */
+    public void complete() {
+        for (long[] n : nodes)
+            for (int i = leaves - 1; i >= 1; i--)
+                n[i] = mix(n[2 * i] ^ Long.rotateLeft(n[2 * i + 1], 32));
+    }
+
+    /**
+     * @param other the tree of the remote node
+     * @return for each segment the leaves which differ, or null for a segment which is the same.
+     * Returns null if the trees don't have the same shape so can't be compared.
+     */
+    @Nullable
+    public BitSet[] diff(@NotNull MerkleTree other) {
+        if (other.segments != segments || other.leaves != leaves)
+            return null;
+        final BitSet[] diff = new BitSet[segments];
+        for (int s = 0; s < segments; s++) {
+            if (nodes[s][1] == other.nodes[s][1])
+                continue;
+            diff[s] = new BitSet(leaves);
+            diff(nodes[s], other.nodes[s], 1, diff[s]);
+        }
+        return diff;
+    }
+
+    private void diff(long[] a, long[] b, int node, @NotNull BitSet out) {
+        if (a[node] == b[node])
+            return;
+        if (node >= leaves) {
+            out.set(node - leaves);
+            return;
+        }
+        diff(a, b, 2 * node, out);
+        diff(a, b, 2 * node + 1, out);
+    }
+
+    @Override
+    public void writeMarshallable(@NotNull WireOut wire) {
+        wire.write(() -> "segments").int32(segments);
+        wire.write(() -> "leaves").int32(leaves);
+        wire.write(() -> "hashes").sequence(v -> {
+            for (long[] n : nodes)
+                for (int i = leaves; i < 2 * leaves; i++)
+                    v.int64(n[i]);
+        });
+    }
+
+    @Override
+    public void readMarshallable(@NotNull WireIn wire) throws IllegalStateException {
+        init(wire.read(() -> "segments").int32(), wire.read(() -> "leaves").int32());
+        wire.read(() -> "hashes").sequence(this, (t, v) -> {
+            for (long[] n : t.nodes)
+                for (int i = t.leaves; i < 2 * t.leaves; i++)
+                    n[i] = v.int64();
+        });
+        complete();
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.map.replication;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.PointerBytesStore;
+import net.openhft.chronicle.engine.api.EngineReplication.ModificationIterator;
+import net.openhft.chronicle.engine.api.EngineReplication.ReplicationEntry;
+import net.openhft.chronicle.threads.NamedThreadFactory;
+import net.openhft.chronicle.wire.ValueOut;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Drains the dirty entries of a {@link ModificationIterator} after a bootstrap with a thread per
+ * segment, rather than one entry per event loop action on the replication thread. The entries are
+ * copied into chunks of at most {@link ReplicationBatch#MAX_ENTRIES} which the event handler sends
+ * as a {@code replicationBatch}. Each bootstrap holds a bounded number of chunks so the whole map
+ * isn't buffered. When they are all waiting for the connection, the segment is put back on the
+ * shared pool and picked up again later, so a slow connection never holds up a worker.
+ * <p>
+ * Only used when {@code engine.replication.bootstrapThreads} is more than 1, the iterator has more
+ * than one segment and the remote host accepts batches.
+ */
+public class ParallelBootstrap implements Closeable {
+    public static final int THREADS = Integer.getInteger("engine.replication.bootstrapThreads", 1);
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelBootstrap.class);
+    // how long a segment waits before trying again when its bootstrap has no room for a chunk.
+    private static final long RETRY_MS = 1;
+    private static volatile ScheduledExecutorService pool;
+
+    private final BlockingQueue<Bytes> ready = new ArrayBlockingQueue<>(Math.max(2, THREADS * 2));
+    private final BlockingQueue<Bytes> free = new LinkedBlockingQueue<>();
+    private final ChunkEntry entry = new ChunkEntry();
+    private final AtomicInteger remaining;
+    private final ModificationIterator mi;
+    private final Runnable onChunk;
+    private volatile boolean closed;
+
+    ParallelBootstrap(@NotNull ModificationIterator mi, @NotNull Runnable onChunk) {
+        this.mi = mi;
+        this.onChunk = onChunk;
+        final int segments = mi.segments();
+        remaining = new AtomicInteger(segments);
+        for (int s = 0; s < segments; s++)
+            pool().submit(new SegmentDrain(s));
+    }
+
+    /**
+     * @param mi      the dirtied entries to send
+     * @param onChunk called when a chunk is ready, typically to unpause the event loop
+     * @return the bootstrap, or null if the entries are to be sent by the event handler as before
+     */
+    @Nullable
+    public static ParallelBootstrap start(@NotNull ModificationIterator mi, @NotNull Runnable onChunk) {
+        if (THREADS <= 1 || mi.segments() <= 1)
+            return null;
+        return new ParallelBootstrap(mi, onChunk);
+    }
+
+    private static ScheduledExecutorService pool() {
+        if (pool == null) {
+            synchronized (ParallelBootstrap.class) {
+                if (pool == null)
+                    pool = Executors.newScheduledThreadPool(THREADS,
+                            new NamedThreadFactory("replication-bootstrap", true));
+            }
+        }
+        return pool;
+    }
+
+    private static void write(@NotNull Bytes chunk, @NotNull ReplicationEntry e) {
+        final BytesStore key = e.key();
+        chunk.writeStopBit(key.readRemaining());
+        chunk.write(key);
+        final BytesStore value = e.value();
+        if (value == null) {
+            chunk.writeStopBit(-1);
+        } else {
+            chunk.writeStopBit(value.readRemaining());
+            chunk.write(value);
+        }
+        chunk.writeLong(e.timestamp());
+        chunk.writeByte(e.identifier());
+        chunk.writeBoolean(e.isDeleted());
+        chunk.writeLong(e.bootStrapTimeStamp());
+        chunk.writeByte(e.remoteIdentifier());
+    }
+
+    private Bytes acquire() {
+        final Bytes chunk = free.poll();
+        return chunk == null ? Bytes.elasticByteBuffer() : chunk;
+    }
+
+    /**
+     * @return false if there is no room for the chunk yet.
+     */
+    private boolean publish(@NotNull Bytes chunk) {
+        if (!ready.offer(chunk))
+            return false;
+        onChunk.run();
+        return true;
+    }
+
+    /**
+     * @return true if a chunk is ready to be written.
+     */
+    public boolean hasChunk() {
+        return !ready.isEmpty();
+    }
+
+    /**
+     * @return true once every segment has been drained and every chunk written.
+     */
+    public boolean isDone() {
+        return remaining.get() == 0 && ready.isEmpty();
+    }
+
+    /**
+     * Writes the next chunk as a sequence of entries, as {@link ReplicationBatch#write} does.
+     *
+     * @param out     the value to write the sequence to
+     * @param onEntry called for each entry, returns false if the entry is not to be sent
+     * @return the number of entries written
+     */
+    public int writeChunk(@NotNull ValueOut out, @NotNull Predicate<ReplicationEntry> onEntry) {
+        final Bytes chunk = ready.poll();
+        if (chunk == null)
+            return 0;
+        final int[] count = {0};
+        try {
+            out.sequence(s -> {
+                while (chunk.readRemaining() > 0) {
+                    entry.readFrom(chunk);
+                    if (onEntry.test(entry)) {
+                        s.marshallable(entry);
+                        count[0]++;
+                    }
+                }
+            });
+            return count[0];
+        } finally {
+            chunk.clear();
+            free.offer(chunk);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        ready.clear();
+        free.clear();
+    }
+
+    /**
+     * Drains one segment until its chunk can't be published, then schedules itself to carry on
+     * with that chunk. Entries are marked as sent as they are copied, so draining the segment
+     * again picks up where it stopped.
+     */
+    private class SegmentDrain implements Runnable {
+        private final int segment;
+        // a full chunk still to be published.
+        @Nullable
+        private Bytes pending;
+        private Bytes chunk;
+        private int count;
+
+        SegmentDrain(int segment) {
+            this.segment = segment;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (closed) {
+                    finish();
+                    return;
+                }
+                if (pending != null) {
+                    if (!publish(pending)) {
+                        retry();
+                        return;
+                    }
+                    pending = null;
+                }
+
+                chunk = acquire();
+                count = 0;
+                mi.forEachEntry(segment, this::onEntry);
+                if (pending != null) {
+                    retry();
+                    return;
+                }
+                if (count == 0) {
+                    free.offer(chunk);
+                } else if (!publish(chunk)) {
+                    pending = chunk;
+                    retry();
+                    return;
+                }
+                finish();
+
+            } catch (Throwable t) {
+                LOG.error("bootstrap of segment " + segment + " failed", t);
+                finish();
+            }
+        }
+
+        private boolean onEntry(@NotNull ReplicationEntry e) {
+            write(chunk, e);
+            if (++count < ReplicationBatch.MAX_ENTRIES &&
+                    chunk.writePosition() < ReplicationBatch.MAX_BYTES)
+                return true;
+            if (!publish(chunk)) {
+                pending = chunk;
+                return false;
+            }
+            chunk = acquire();
+            count = 0;
+            return !closed;
+        }
+
+        private void retry() {
+            pool().schedule(this, RETRY_MS, TimeUnit.MILLISECONDS);
+        }
+
+        private void finish() {
+            remaining.decrementAndGet();
+            onChunk.run();
+        }
+    }
+
+    /**
+     * An entry whose key and value point into the chunk being written.
+     */
+    static class ChunkEntry implements ReplicationEntry {
+        private final PointerBytesStore key = BytesStore.nativePointer();
+        private final PointerBytesStore value = BytesStore.nativePointer();
+        private boolean hasValue;
+        private long timestamp;
+        private byte identifier;
+        private boolean isDeleted;
+        private long bootStrapTimeStamp;
+        private byte remoteIdentifier;
+
+        void readFrom(@NotNull Bytes chunk) {
+            final long keyLength = chunk.readStopBit();
+            key.set(chunk.address(chunk.readPosition()), keyLength);
+            chunk.readSkip(keyLength);
+            final long valueLength = chunk.readStopBit();
+            hasValue = valueLength >= 0;
+            if (hasValue) {
+                value.set(chunk.address(chunk.readPosition()), valueLength);
+                chunk.readSkip(valueLength);
+            }
+            timestamp = chunk.readLong();
+            identifier = chunk.readByte();
+            isDeleted = chunk.readBoolean();
+            bootStrapTimeStamp = chunk.readLong();
+            remoteIdentifier = chunk.readByte();
+        }
+
+        @Override
+        public BytesStore key() {
+            return key;
+        }
+
+        @Nullable
+        @Override
+        public BytesStore value() {
+            return hasValue ? value : null;
+        }
+
+        @Override
+        public long timestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public byte identifier() {
+            return identifier;
+        }
+
+        @Override
+        public byte remoteIdentifier() {
+            return remoteIdentifier;
+        }
+
+        @Override
+        public boolean isDeleted() {
+            return isDeleted;
+        }
+
+        @Override
+        public long bootStrapTimeStamp() {
+            return bootStrapTimeStamp;
+        }
+    }
+}
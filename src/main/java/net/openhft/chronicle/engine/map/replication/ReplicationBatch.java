@@ -0,0 +1,203 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.map.replication;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.engine.api.EngineReplication.ModificationIterator;
+import net.openhft.chronicle.engine.api.EngineReplication.ReplicationEntry;
+import net.openhft.chronicle.engine.api.pubsub.Replication;
+import net.openhft.chronicle.engine.map.CMap2EngineReplicator.VanillaReplicatedEntry;
+import net.openhft.chronicle.wire.BinaryWire;
+import net.openhft.chronicle.wire.ValueIn;
+import net.openhft.chronicle.wire.ValueOut;
+import net.openhft.chronicle.wire.Wire;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Writes and reads a batch of replication entries as a single sequence, so a busy map sends one
+ * frame for many changes rather than one frame per change.
+ * <p>
+ * The sender drains at most {@link #MAX_ENTRIES} entries, or about {@link #MAX_BYTES} bytes, per
+ * call, taking each entry with its own {@link ModificationIterator#nextEntry} so the segment lock is
+ * only held while that entry is copied.
+ * <p>
+ * Batches are only sent to a host which offered them in the {@link Bootstrap} it exchanged, so a
+ * host on a release without batches still receives one {@code replicationEvent} per entry. Setting
+ * {@code engine.replication.batchEntries} to 1 stops a host offering or accepting batches.
+ * <p>
+ * When a connection has agreed a {@link Codec} the batch is written to a binary wire, compressed
+ * as a whole and sent as bytes, as values compress far better together than one at a time. Cluster
+ * connections agree it in the {@code UberHandler} header, and replication hubs in the {@link
+ * Bootstrap} they exchange.
+ */
+public class ReplicationBatch {
+    public static final int MAX_ENTRIES = Integer.getInteger("engine.replication.batchEntries", 64);
+    public static final int MAX_BYTES = Integer.getInteger("engine.replication.batchBytes", 64 << 10);
+
+    // entries are reused between batches, their key and value point into the wire being read.
+    private final List<VanillaReplicatedEntry> pool = new ArrayList<>();
+    private final List<ReplicationEntry> entries = new ArrayList<>();
+    // used to write or read a compressed batch.
+    private final Bytes plain = Bytes.elasticByteBuffer();
+    private final Wire plainWire = new BinaryWire(plain);
+    private final Bytes packed = Bytes.elasticByteBuffer();
+    // the entries written by the last batch.
+    private int written;
+
+    /**
+     * @return true if this host offers and accepts batches.
+     */
+    public static boolean isEnabled() {
+        return MAX_ENTRIES > 1;
+    }
+
+    /**
+     * Drains the entries of a batch from the iterator into a sequence.
+     *
+     * @param out     the value to write the sequence to
+     * @param bytes   the bytes being written, used to limit the size of the batch
+     * @param mi      the entries to send
+     * @param onEntry called for each entry, returns false if the entry is not to be sent
+     * @return the number of entries written
+     */
+    public static int write(@NotNull ValueOut out,
+                            @NotNull Bytes bytes,
+                            @NotNull ModificationIterator mi,
+                            @NotNull Predicate<ReplicationEntry> onEntry) {
+        final long start = bytes.writePosition();
+        final int[] count = {0};
+        out.sequence(s -> {
+            for (int i = 0; i < MAX_ENTRIES && bytes.writePosition() - start < MAX_BYTES; i++) {
+                boolean found = mi.nextEntry(e -> {
+                    if (onEntry.test(e)) {
+                        s.marshallable(e);
+                        count[0]++;
+                    }
+                });
+                if (!found)
+                    break;
+            }
+        });
+        return count[0];
+    }
+
+    /**
+     * As {@link #write}, recording the number of entries written for {@link #discardIfEmpty}.
+     */
+    public void writeBatch(@NotNull ValueOut out,
+                           @NotNull Bytes bytes,
+                           @NotNull ModificationIterator mi,
+                           @NotNull Predicate<ReplicationEntry> onEntry) {
+        written = write(out, bytes, mi, onEntry);
+    }
+
+    /**
+     * Writes the next chunk of a bootstrap, recording the number of entries written for {@link
+     * #discardIfEmpty}.
+     */
+    public void writeChunk(@NotNull ValueOut out,
+                           @NotNull ParallelBootstrap bootstrap,
+                           @NotNull Predicate<ReplicationEntry> onEntry) {
+        written = bootstrap.writeChunk(out, onEntry);
+    }
+
+    /**
+     * Removes the frame just written if its batch had no entries, e.g. as every entry drained came
+     * from the host it would be sent to.
+     *
+     * @param bytes the bytes the frame was written to
+     * @param start the write position before the frame
+     */
+    public void discardIfEmpty(@NotNull Bytes bytes, long start) {
+        if (written == 0)
+            bytes.writePosition(start);
+    }
+
+    /**
+     * Reads a batch written by {@link #write}, then applies its entries one at a time, in order.
+     */
+    public void readAndApply(@NotNull ValueIn in, @NotNull Replication replication) {
+        entries.clear();
+        final ReplicationMetrics metrics = replication.metrics();
+        in.sequence(this, (b, v) -> {
+            while (v.hasNextSequenceItem()) {
+                final int i = b.entries.size();
+                if (i == b.pool.size())
+                    b.pool.add(new VanillaReplicatedEntry());
+                final VanillaReplicatedEntry entry = b.pool.get(i);
+                v.marshallable(entry);
+                b.entries.add(entry);
+            }
+        });
+        try {
+            replication.applyReplication(entries);
+            if (metrics != null)
+                for (ReplicationEntry entry : entries)
+                    metrics.onReceived(entry);
+        } finally {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Drains the entries of a batch as {@link #write} does, then writes them compressed as bytes,
+     * recording the number of entries written for {@link #discardIfEmpty}.
+     */
+    public void writeCompressed(@NotNull ValueOut out,
+                                @NotNull ModificationIterator mi,
+                                @NotNull Predicate<ReplicationEntry> onEntry,
+                                @NotNull Codec codec) {
+        compress(out, codec, v -> write(v, plain, mi, onEntry));
+    }
+
+    /**
+     * Writes a batch with {@code batch} to a binary wire, then writes it compressed as bytes, so
+     * it can be read by {@link #readAndApplyCompressed}. Nothing is written if the batch is empty.
+     *
+     * @param batch writes the batch, returning the number of entries written
+     */
+    public void compress(@NotNull ValueOut out, @NotNull Codec codec, @NotNull ToIntFunction<ValueOut> batch) {
+        plain.clear();
+        packed.clear();
+        written = batch.applyAsInt(plainWire.getValueOut());
+        if (written == 0)
+            return;
+        codec.compress(plain, packed);
+        out.bytes(packed);
+    }
+
+    /**
+     * Reads a batch written by {@link #writeCompressed}, then applies its entries as {@link
+     * #readAndApply} does.
+     */
+    public void readAndApplyCompressed(@NotNull ValueIn in,
+                                       @NotNull Replication replication,
+                                       @NotNull Codec codec) {
+        packed.clear();
+        plain.clear();
+        in.bytes(packed);
+        codec.uncompress(packed, plain);
+        readAndApply(plainWire.getValueIn(), replication);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.map.replication;
+
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.engine.api.EngineReplication.ReplicationEntry;
+import net.openhft.chronicle.engine.api.management.ManagementTools;
+import net.openhft.chronicle.engine.api.tree.Asset;
+import net.openhft.chronicle.engine.api.tree.RequestContext;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * A view of the replication counters of a map, by remote host identifier. When management is
+ * enabled each {@link ReplicationStats} is also registered as an MBean.
+ */
+public class ReplicationMetrics implements Closeable {
+    private final String assetName;
+    private final Map<Byte, ReplicationStats> statsById = new ConcurrentSkipListMap<>();
+
+    public ReplicationMetrics(RequestContext context, @NotNull Asset asset) {
+        this.assetName = asset.fullName();
+    }
+
+    @NotNull
+    public ReplicationStats acquire(byte remoteIdentifier) {
+        ReplicationStats stats = statsById.get(remoteIdentifier);
+        if (stats != null)
+            return stats;
+        synchronized (statsById) {
+            stats = statsById.get(remoteIdentifier);
+            if (stats == null) {
+                stats = new ReplicationStats(remoteIdentifier);
+                statsById.put(remoteIdentifier, stats);
+                ManagementTools.registerReplicationStats(assetName, stats);
+            }
+            return stats;
+        }
+    }
+
+    /**
+     * Counts an entry received, against the host which made the change.
+     */
+    public void onReceived(@NotNull ReplicationEntry entry) {
+        acquire(entry.identifier()).onReceived(entry);
+    }
+
+    @Nullable
+    public ReplicationStats get(byte remoteIdentifier) {
+        return statsById.get(remoteIdentifier);
+    }
+
+    public void forEach(@NotNull Consumer<ReplicationStats> action) {
+        statsById.values().forEach(action);
+    }
+
+    @Override
+    public void close() {
+        for (ReplicationStats stats : statsById.values())
+            ManagementTools.unregisterReplicationStats(assetName, stats);
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return "ReplicationMetrics{" +
+                "assetName='" + assetName + '\'' +
+                ", stats=" + statsById.values() +
+                '}';
+    }
+}
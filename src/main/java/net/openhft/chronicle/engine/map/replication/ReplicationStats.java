@@ -0,0 +1,196 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.map.replication;
+
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.engine.api.EngineReplication.ReplicationEntry;
+import net.openhft.chronicle.engine.api.management.mbean.ReplicationStatsMBean;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The replication counters of one map for one remote host. Entries sent are counted against the
+ * host they are sent to, entries received against the host which made the change. The bytes are
+ * those of the keys and values.
+ * <p>
+ * The latency is the time from {@link net.openhft.chronicle.engine.api.EngineReplication.ReplicationEntry#timestamp()}
+ * to when the entry is received, held in power of 2 millisecond buckets. The oldest pending age is
+ * how long the modification iterator for the host has had entries waiting to be sent.
+ */
+public class ReplicationStats implements ReplicationStatsMBean {
+    private static final int BUCKETS = 32;
+
+    private final byte remoteIdentifier;
+    private final LongAdder entriesSent = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder entriesReceived = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder queueFullStalls = new LongAdder();
+    private final LongAdder queueFullMillis = new LongAdder();
+    private final AtomicLong pendingSince = new AtomicLong();
+    private final AtomicLong queueFullSince = new AtomicLong();
+    private final AtomicLong latencyMax = new AtomicLong();
+    // bucket n counts latencies below 2^n ms
+    private final AtomicLongArray latencies = new AtomicLongArray(BUCKETS);
+
+    public ReplicationStats(byte remoteIdentifier) {
+        this.remoteIdentifier = remoteIdentifier;
+    }
+
+    private static long sizeOf(@NotNull ReplicationEntry entry) {
+        final BytesStore key = entry.key();
+        final BytesStore value = entry.value();
+        return (key == null ? 0 : key.readRemaining()) + (value == null ? 0 : value.readRemaining());
+    }
+
+    public void onSent(@NotNull ReplicationEntry entry) {
+        entriesSent.increment();
+        bytesSent.add(sizeOf(entry));
+    }
+
+    public void onReceived(@NotNull ReplicationEntry entry) {
+        entriesReceived.increment();
+        bytesReceived.add(sizeOf(entry));
+        final long latency = Math.max(0, System.currentTimeMillis() - entry.timestamp());
+        latencies.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(latency)));
+        long max;
+        while (latency > (max = latencyMax.get()) && !latencyMax.compareAndSet(max, latency)) {
+            // retry
+        }
+    }
+
+    /**
+     * @param full whether the outbound buffer can't take any more data.
+     */
+    public void queueFull(boolean full) {
+        final long since = queueFullSince.get();
+        if (full) {
+            if (since == 0 && queueFullSince.compareAndSet(0, System.currentTimeMillis()))
+                queueFullStalls.increment();
+        } else if (since != 0 && queueFullSince.compareAndSet(since, 0)) {
+            queueFullMillis.add(System.currentTimeMillis() - since);
+        }
+    }
+
+    /**
+     * @param hasPending whether the modification iterator has entries waiting to be sent.
+     */
+    public void pending(boolean hasPending) {
+        if (!hasPending)
+            pendingSince.set(0);
+        else if (pendingSince.get() == 0)
+            pendingSince.compareAndSet(0, System.currentTimeMillis());
+    }
+
+    @Override
+    public int getRemoteIdentifier() {
+        return remoteIdentifier;
+    }
+
+    @Override
+    public long getEntriesSent() {
+        return entriesSent.sum();
+    }
+
+    @Override
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    @Override
+    public long getEntriesReceived() {
+        return entriesReceived.sum();
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    @Override
+    public long getQueueFullStalls() {
+        return queueFullStalls.sum();
+    }
+
+    @Override
+    public long getQueueFullMillis() {
+        return queueFullMillis.sum();
+    }
+
+    @Override
+    public long getOldestPendingAgeMillis() {
+        final long since = pendingSince.get();
+        return since == 0 ? 0 : System.currentTimeMillis() - since;
+    }
+
+    @Override
+    public long getLatency50thMillis() {
+        return latencyPercentile(0.5);
+    }
+
+    @Override
+    public long getLatency99thMillis() {
+        return latencyPercentile(0.99);
+    }
+
+    @Override
+    public long getLatencyMaxMillis() {
+        return latencyMax.get();
+    }
+
+    /**
+     * @return the upper bound of the bucket the percentile falls in.
+     */
+    long latencyPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++)
+            total += latencies.get(i);
+        if (total == 0)
+            return 0;
+        final long rank = (long) Math.ceil(total * percentile);
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += latencies.get(i);
+            if (count >= rank)
+                return i == 0 ? 0 : 1L << i;
+        }
+        return latencyMax.get();
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return "ReplicationStats{" +
+                "remoteIdentifier=" + remoteIdentifier +
+                ", entriesSent=" + getEntriesSent() +
+                ", bytesSent=" + getBytesSent() +
+                ", entriesReceived=" + getEntriesReceived() +
+                ", bytesReceived=" + getBytesReceived() +
+                ", queueFullStalls=" + getQueueFullStalls() +
+                ", queueFullMillis=" + getQueueFullMillis() +
+                ", oldestPendingAgeMillis=" + getOldestPendingAgeMillis() +
+                ", latency50thMillis=" + getLatency50thMillis() +
+                ", latency99thMillis=" + getLatency99thMillis() +
+                ", latencyMaxMillis=" + getLatencyMaxMillis() +
+                '}';
+    }
+}
@@ -26,6 +26,7 @@ import net.openhft.chronicle.engine.api.tree.Asset;
 import net.openhft.chronicle.engine.api.tree.AssetNotFoundException;
 import net.openhft.chronicle.engine.api.tree.RequestContext;
 import net.openhft.chronicle.engine.tree.ChronicleQueueView;
+import net.openhft.chronicle.engine.tree.QueueFanOut;
 import net.openhft.chronicle.engine.tree.QueueView;
 import org.jetbrains.annotations.Nullable;
 
@@ -86,6 +87,11 @@ public class QueueReference<T, M> implements Reference<M> {
 
         final ChronicleQueueView<T, M> chronicleQueue = (ChronicleQueueView<T, M>) asset.acquireView(QueueView.class);
 
+        if (QueueFanOut.ENABLED) {
+            chronicleQueue.fanOut(eventLoop).add(e -> subscriber.onMessage(e.message()), terminate);
+            return;
+        }
+
         final QueueView.Tailer<T, M> iterator = chronicleQueue.tailer();
 
         eventLoop.addHandler(() -> {
@@ -37,6 +37,7 @@ import org.jetbrains.annotations.Nullable;
 
 import static net.openhft.chronicle.engine.server.internal.PublisherHandler.EventId.registerSubscriber;
 import static net.openhft.chronicle.engine.server.internal.TopicPublisherHandler.EventId.onEndOfSubscription;
+import static net.openhft.chronicle.engine.server.internal.TopicPublisherHandler.EventId.onGap;
 import static net.openhft.chronicle.engine.server.internal.TopicPublisherHandler.EventId.publish;
 
 /**
@@ -77,6 +78,10 @@ public class RemoteTopicPublisher<T, M> extends AbstractStatelessClient<EventId>
         if (context.dontPersist())
             uri.append("&dontPersist=").append(context.dontPersist());
 
+        if (context.outboundQuota() > 0)
+            uri.append("&outboundQuota=").append(context.outboundQuota())
+                    .append("&quotaPolicy=").append(context.quotaPolicy());
+
         return uri.toString();
     }
 
@@ -124,6 +129,8 @@ public class RemoteTopicPublisher<T, M> extends AbstractStatelessClient<EventId>
                     if (onEndOfSubscription.contentEquals(eventname)) {
                         topicSubscriber.onEndOfSubscription();
                         hub.unsubscribe(tid());
+                    } else if (onGap.contentEquals(eventname)) {
+                        topicSubscriber.onGap(valueIn.int64());
                     } else if (CoreFields.reply.contentEquals(eventname)) {
                         valueIn.marshallable(m -> {
                             final T topic = m.read(() -> "topic").object(topicClass);
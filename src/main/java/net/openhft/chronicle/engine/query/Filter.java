@@ -20,6 +20,7 @@ package net.openhft.chronicle.engine.query;
 
 import net.openhft.chronicle.core.util.SerializableFunction;
 import net.openhft.chronicle.core.util.SerializablePredicate;
+import net.openhft.chronicle.engine.api.map.MapEvent;
 import net.openhft.chronicle.engine.api.pubsub.InvalidSubscriberException;
 import net.openhft.chronicle.engine.api.pubsub.Subscriber;
 import net.openhft.chronicle.engine.api.query.Query;
@@ -29,11 +30,13 @@ import net.openhft.chronicle.wire.WireOut;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.stream.Stream;
 
 /**
  * @author Rob Austin.
@@ -54,6 +57,17 @@ public class Filter<E> implements Marshallable, Iterable<Operation> {
         return EMPTY;
     }
 
+    /**
+     * A filter which only passes events for the given keys. Subscriptions with such a filter are
+     * indexed by key so the cost of an event is proportional to the subscribers for that key.
+     */
+    @NotNull
+    public static <N> Filter<N> forKeys(@NotNull Collection<?> keys) {
+        Filter<N> filter = new Filter<>();
+        filter.addKeyFilter(keys);
+        return filter;
+    }
+
     public boolean isEmpty() {
         return pipeline == null || pipeline.isEmpty();
     }
@@ -112,6 +126,36 @@ public class Filter<E> implements Marshallable, Iterable<Operation> {
         add(new Operation(Operation.OperationType.FILTER, predicate));
     }
 
+    public void addKeyFilter(@NotNull Collection<?> keys) {
+        add(new Operation(Operation.OperationType.FILTER, new KeyPredicate<>(keys)));
+    }
+
+    /**
+     * @return the keys of the filter if it starts with a key filter, otherwise null.
+     */
+    public Set<?> keys() {
+        if (pipelineSize() == 0)
+            return null;
+        Operation first = pipeline.get(0);
+        return first.op() == Operation.OperationType.FILTER && first.wrapped() instanceof KeyPredicate
+                ? ((KeyPredicate<?>) first.wrapped()).keys
+                : null;
+    }
+
+    /**
+     * @return this filter without the leading key filter.
+     */
+    @NotNull
+    public Filter<E> withoutKeys() {
+        if (keys() == null)
+            return this;
+        if (pipelineSize() == 1)
+            return empty();
+        Filter<E> filter = new Filter<>();
+        filter.pipeline.addAll(pipeline.subList(1, pipeline.size()));
+        return filter;
+    }
+
     public <R> void addMap(SerializableFunction<? super E, ? extends R> mapper) {
         add(new Operation(Operation.OperationType.MAP, mapper));
     }
@@ -148,6 +192,42 @@ public class Filter<E> implements Marshallable, Iterable<Operation> {
         return pipeline.get(index);
     }
 
+    /**
+     * passes a key, or a MapEvent, for one of a set of keys.
+     */
+    public static class KeyPredicate<E> implements SerializablePredicate<E> {
+        private static final long serialVersionUID = 0L;
+
+        private final HashSet<Object> keys;
+
+        public KeyPredicate(@NotNull Collection<?> keys) {
+            this.keys = new HashSet<>(keys);
+        }
+
+        @Override
+        public boolean test(E e) {
+            Object key = e instanceof MapEvent ? ((MapEvent) e).getKey() : e;
+            return keys.contains(key);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof KeyPredicate && keys.equals(((KeyPredicate) o).keys);
+        }
+
+        @Override
+        public int hashCode() {
+            return keys.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "KeyPredicate{" +
+                    "keys=" + keys +
+                    '}';
+        }
+    }
+
     /**
      * filters subscription on based on {@code net.openhft.chronicle.engine.query.Filter}
      */
@@ -164,37 +244,42 @@ public class Filter<E> implements Marshallable, Iterable<Operation> {
 
         @Override
         public void onMessage(@NotNull E message) throws InvalidSubscriberException {
+            onMessage(message, 0);
+        }
 
-            for (Operation o : filter) {
+        /**
+         * runs the pipeline from the operation at {@code from}, so the elements of a flat map only
+         * go through the operations which follow it.
+         */
+        @SuppressWarnings("unchecked")
+        private void onMessage(Object message, int from) throws InvalidSubscriberException {
+            for (int i = from; i < filter.pipelineSize(); i++) {
+                final Operation o = filter.getPipeline(i);
                 switch (o.op()) {
                     case FILTER:
-                        final Predicate<E> serializable = o.wrapped();
+                        final Predicate<Object> serializable = o.wrapped();
                         if (!serializable.test(message))
                             return;
                         break;
 
                     case MAP:
-                        final Function<Object, E> function = o.wrapped();
+                        final Function<Object, Object> function = o.wrapped();
                         message = function.apply(message);
                         break;
 
                     case FLAT_MAP:
-                        final Function<Object, Stream<E>> func = o.wrapped();
-                        func.apply(message).forEach(e -> {
-                            try {
-                                FilteredSubscriber.this.onMessage(e);
-                            } catch (InvalidSubscriberException e1) {
-                                e1.printStackTrace();
-                            }
-                        });
-                        break;
+                        final Function<Object, Query<Object>> func = o.wrapped();
+                        final Iterator<Object> iterator = func.apply(message).stream().iterator();
+                        while (iterator.hasNext())
+                            onMessage(iterator.next(), i + 1);
+                        return;
 
                     case PROJECT:
                         throw new UnsupportedOperationException("todo");
                 }
             }
 
-            subscriber.onMessage(message);
+            subscriber.onMessage((E) message);
         }
 
         @Override
@@ -18,7 +18,6 @@
 
 package net.openhft.chronicle.engine.query;
 
-import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.util.SerializableFunction;
 import net.openhft.chronicle.core.util.SerializablePredicate;
 import net.openhft.chronicle.engine.api.pubsub.Subscriber;
@@ -27,20 +26,19 @@ import net.openhft.chronicle.engine.api.query.Subscription;
 import net.openhft.chronicle.engine.api.query.SubscriptionNotSupported;
 import net.openhft.chronicle.engine.api.tree.RequestContext;
 import org.jetbrains.annotations.NotNull;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.function.Consumer;
 import java.util.stream.Collector;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static java.util.EnumSet.of;
-import static java.util.concurrent.TimeUnit.SECONDS;
 import static net.openhft.chronicle.engine.api.tree.RequestContext.Operation.BOOTSTRAP;
 import static net.openhft.chronicle.engine.api.tree.RequestContext.Operation.END_SUBSCRIPTION_AFTER_BOOTSTRAP;
 
@@ -48,12 +46,19 @@ import static net.openhft.chronicle.engine.api.tree.RequestContext.Operation.END
  * @author Rob Austin.
  */
 public class RemoteQuery<E> implements Query<E> {
-    private static final Logger LOG = LoggerFactory.getLogger(RemoteQuery.class);
     private final Filter<E> filter = new Filter<>();
     private final Subscribable<E> subscribable;
-
-    public RemoteQuery(final Subscribable<E> eSubscribable) {
+    private final Consumer<Subscriber<E>> unsubscribe;
+
+    /**
+     * @param eSubscribable subscribes to the results
+     * @param unsubscribe   unsubscribes a subscriber, when its stream is closed before the end of
+     *                      the results
+     */
+    public RemoteQuery(final Subscribable<E> eSubscribable,
+                       final Consumer<Subscriber<E>> unsubscribe) {
         this.subscribable = eSubscribable;
+        this.unsubscribe = unsubscribe;
     }
 
     @Override
@@ -83,9 +88,38 @@ public class RemoteQuery<E> implements Query<E> {
         return (Query<R>) this;
     }
 
+    /**
+     * @return the results of the query as they arrive from the server, the filters and maps are
+     * run on the server so only the matching entries are sent. Closing the stream before the end
+     * of the results unsubscribes, and drops the results still to be read.
+     * <p>
+     * The results are not paged, the server sends all of them and the client holds any not yet
+     * read, so a query which matches a large part of a map can use as much memory as the results
+     * themselves. To read a large map a page at a time, iterate its entrySet(), keySet() or
+     * values() instead.
+     */
     @Override
     public Stream<E> stream() {
-        throw new UnsupportedOperationException("todo");
+        final Results results = new Results();
+        subscribable.subscribe(
+                results,
+                filter,
+                of(BOOTSTRAP, END_SUBSCRIPTION_AFTER_BOOTSTRAP));
+
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<E>(Long.MAX_VALUE,
+                Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super E> action) {
+                final E message = results.take();
+                if (message == null)
+                    return false;
+                action.accept(message);
+                return true;
+            }
+        }, false).onClose(() -> {
+            if (results.close())
+                unsubscribe.accept(results);
+        });
     }
 
     @Override
@@ -99,88 +133,74 @@ public class RemoteQuery<E> implements Query<E> {
 
     @Override
     public void forEach(Consumer<? super E> action) {
-        forEach2(action);
+        try (Stream<E> stream = stream()) {
+            stream.forEach(action);
+        }
     }
 
-    private void forEach2(Consumer<? super E> action) {
-        final BlockingQueue<E> queue = new ArrayBlockingQueue<E>(128);
-        final AtomicBoolean finished = new AtomicBoolean();
-
-        final Subscriber<E> accept = new Subscriber<E>() {
-
-            @Override
-            public void onMessage(E o) {
-                try {
-                    final boolean offer = queue.offer(o, 20, SECONDS);
-
-                    synchronized (queue) {
-                        queue.notifyAll();
-                    }
-
-                    if (!offer) {
-                        LOG.error("Queue Full");
-                        dumpThreads();
-                    }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-            }
+    @Override
+    public <R, A> R collect(Collector<? super E, A, R> collector) {
+        final A container = collector.supplier().get();
+        forEach(o -> collector.accumulator().accept(container, o));
+        return collector.finisher().apply(container);
+    }
 
-            @Override
-            public void onEndOfSubscription() {
-                finished.set(true);
-                synchronized (queue) {
-                    queue.notifyAll();
-                }
-            }
-        };
+    /**
+     * Holds the results of a query until they are read. They are added by the connection's reader
+     * thread, which mustn't wait for the reader of the stream, so the queue is unbounded and holds
+     * as many as arrive.
+     */
+    private class Results implements Subscriber<E> {
+        private final Object end = new Object();
+        private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+        private volatile boolean ended = false;
+        private volatile boolean closed = false;
+
+        @Override
+        public void onMessage(E o) {
+            // unsubscribed when closed, the results already on their way are dropped.
+            if (!closed)
+                queue.add(o);
+        }
 
-        subscribable.subscribe(
-                accept,
-                filter,
-                of(BOOTSTRAP, END_SUBSCRIPTION_AFTER_BOOTSTRAP));
+        @Override
+        public void onEndOfSubscription() {
+            ended = true;
+            queue.add(end);
+        }
 
-        while (!finished.get()) {
+        /**
+         * @return the next result, or null once there are no more.
+         */
+        @Nullable
+        @SuppressWarnings("unchecked")
+        E take() {
+            if (closed)
+                return null;
             try {
+                final Object message = queue.take();
+                if (message != end)
+                    return (E) message;
+                // for any later call.
+                queue.add(end);
+                return null;
 
-                final E message = queue.poll();
-                if (message == null) {
-                    //noinspection SynchronizationOnLocalVariableOrMethodParameter
-                    synchronized (queue) {
-                        queue.wait(1000); // 1 SECONDS
-                    }
-                    continue;
-                }
-
-                action.accept(message);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
+                return null;
             }
         }
 
-        queue.forEach(action::accept);
-    }
-
-    private void dumpThreads() {
-        for (Map.Entry<Thread, StackTraceElement[]> entry : Thread.getAllStackTraces().entrySet()) {
-            Thread thread = entry.getKey();
-            if (thread.getThreadGroup().getName().equals("system"))
-                continue;
-            StringBuilder sb = new StringBuilder();
-            sb.append(thread).append(" ").append(thread.getState());
-            Jvm.trimStackTrace(sb, entry.getValue());
-            sb.append("\n");
-            LOG.error("\n========= THREAD DUMP =========\n", sb);
+        /**
+         * @return true if the results hadn't all arrived, so the subscription is still open.
+         */
+        boolean close() {
+            closed = true;
+            queue.clear();
+            return !ended;
         }
     }
 
-    @Override
-    public <R, A> R collect(Collector<? super E, A, R> collector) {
-        final A container = collector.supplier().get();
-        forEach(o -> collector.accumulator().accept(container, o));
-        return collector.finisher().apply(container);
-    }
-
     public interface Subscribable<E> {
         void subscribe(@NotNull Subscriber<E> subscriber,
                        @NotNull Filter<E> filter,
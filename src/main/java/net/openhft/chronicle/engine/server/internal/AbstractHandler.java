@@ -44,6 +44,9 @@ abstract class AbstractHandler {
     WireOut outWire = null;
     volatile boolean connectionClosed = false;
     RequestContext requestContext;
+    // the outbound quota of the connection, set by the EngineWireHandler
+    @Nullable
+    OutboundQuota outboundQuota;
 
     static void nullCheck(@Nullable Object o) {
         if (o == null)
@@ -97,7 +97,7 @@ public class EngineWireHandler extends WireTcpHandler<EngineWireNetworkContext>
     private final StringBuilder eventName = new StringBuilder();
     @NotNull
     private final SystemHandler systemHandler;
-    private final RequestContextInterner requestContextInterner = new RequestContextInterner(128);
+    private RequestContextInterner requestContextInterner;
     private final StringBuilder currentLogMessage = new StringBuilder();
     private final StringBuilder prevLogMessage = new StringBuilder();
     @NotNull
@@ -154,6 +154,9 @@ public class EngineWireHandler extends WireTcpHandler<EngineWireNetworkContext>
             localIdentifier = hostIdentifier.hostId();
 
         this.sessionProvider = rootAsset.getView(SessionProvider.class);
+        // only a tree without a shared interner, e.g. a client's, needs one per connection.
+        final RequestContextInterner interner = rootAsset.getView(RequestContextInterner.class);
+        this.requestContextInterner = interner == null ? new RequestContextInterner(128) : interner;
         this.eventLoop = rootAsset.findOrCreateView(EventLoop.class);
         assert eventLoop != null;
 
@@ -163,6 +166,12 @@ public class EngineWireHandler extends WireTcpHandler<EngineWireNetworkContext>
             LOG.debug("", e);
         }
 
+        final OutboundQuota outboundQuota = new OutboundQuota(eventLoop, this::close);
+        for (final AbstractHandler handler : new AbstractHandler[]{subscriptionHandler,
+                topologySubscriptionHandler, topicPublisherHandler}) {
+            handler.outboundQuota = outboundQuota;
+        }
+
         this.isServerSocket = nc.isAcceptor();
         this.sessionDetails = nc.sessionDetails();
         this.rootAsset = nc.rootAsset();
@@ -399,7 +408,7 @@ public class EngineWireHandler extends WireTcpHandler<EngineWireNetworkContext>
                     }
 
                     if (viewType == TopicPublisher.class || viewType == QueueView.class) {
-                        topicPublisherHandler.process(in, publisher(), tid, outWire,
+                        topicPublisherHandler.process(in, requestContext, publisher(), tid, outWire,
                                 (TopicPublisher) view, wireAdapter);
                         return;
                     }
@@ -21,6 +21,7 @@ package net.openhft.chronicle.engine.server.internal;
 import net.openhft.chronicle.core.annotation.UsedViaReflection;
 import net.openhft.chronicle.engine.api.tree.Asset;
 import net.openhft.chronicle.engine.cfg.EngineClusterContext;
+import net.openhft.chronicle.engine.map.replication.Codec;
 import net.openhft.chronicle.engine.tree.HostIdentifier;
 import net.openhft.chronicle.network.MarshallableFunction;
 import net.openhft.chronicle.network.NetworkContext;
@@ -30,6 +31,7 @@ import net.openhft.chronicle.wire.Demarshallable;
 import net.openhft.chronicle.wire.WireIn;
 import net.openhft.chronicle.wire.WireOut;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * @author Rob Austin.
@@ -37,6 +39,8 @@ import org.jetbrains.annotations.NotNull;
 public class EngineWireNetworkContext<T extends EngineWireNetworkContext> extends VanillaNetworkContext<T> {
 
     private Asset rootAsset;
+    @Nullable
+    private volatile Codec codec;
 
     public EngineWireNetworkContext(Asset asset) {
         this.rootAsset = asset.root();
@@ -47,6 +51,19 @@ public class EngineWireNetworkContext<T extends EngineWireNetworkContext> extend
         return rootAsset;
     }
 
+    /**
+     * @return the codec agreed for this connection by the {@link UberHandler}, or null if the
+     * connection isn't compressed.
+     */
+    @Nullable
+    public Codec codec() {
+        return codec;
+    }
+
+    public void codec(@Nullable Codec codec) {
+        this.codec = codec;
+    }
+
     @Override
     public String toString() {
 
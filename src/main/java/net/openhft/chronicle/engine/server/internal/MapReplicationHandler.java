@@ -25,10 +25,13 @@ import net.openhft.chronicle.core.threads.EventLoop;
 import net.openhft.chronicle.core.threads.HandlerPriority;
 import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
 import net.openhft.chronicle.engine.api.EngineReplication.ModificationIterator;
+import net.openhft.chronicle.engine.api.EngineReplication.ReplicationEntry;
 import net.openhft.chronicle.engine.api.pubsub.Replication;
 import net.openhft.chronicle.engine.api.tree.Asset;
 import net.openhft.chronicle.engine.api.tree.RequestContext;
 import net.openhft.chronicle.engine.map.CMap2EngineReplicator.VanillaReplicatedEntry;
+import net.openhft.chronicle.engine.map.replication.Codec;
+import net.openhft.chronicle.engine.map.replication.ReplicationBatch;
 import net.openhft.chronicle.engine.tree.HostIdentifier;
 import net.openhft.chronicle.network.cluster.AbstractSubHandler;
 import net.openhft.chronicle.network.connection.CoreFields;
@@ -39,6 +42,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static java.lang.ThreadLocal.withInitial;
+import static net.openhft.chronicle.engine.server.internal.MapReplicationHandler.EventId.replicationCompressedBatch;
 import static net.openhft.chronicle.engine.server.internal.MapReplicationHandler.EventId.replicationEvent;
 import static net.openhft.chronicle.network.connection.CoreFields.lastUpdateTime;
 
@@ -50,6 +54,7 @@ public class MapReplicationHandler extends AbstractSubHandler<EngineWireNetworkC
 
     private static final Logger LOG = LoggerFactory.getLogger(MapReplicationHandler.class);
     private final ThreadLocal<VanillaReplicatedEntry> vre = withInitial(VanillaReplicatedEntry::new);
+    private final ThreadLocal<ReplicationBatch> batch = withInitial(ReplicationBatch::new);
     private Replication replication;
     private long timestamp;
 
@@ -111,6 +116,16 @@ public class MapReplicationHandler extends AbstractSubHandler<EngineWireNetworkC
             entry.clear();
             valueIn.marshallable(entry);
             replication.applyReplication(entry);
+            return;
+        }
+
+        // receives a batch of replication events compressed with the codec of the connection
+        if (replicationCompressedBatch.contentEquals(eventName)) {
+            final Codec codec = nc().codec();
+            if (codec == null)
+                throw new IllegalStateException("compressed batch received on a connection " +
+                        "without a codec");
+            batch.get().readAndApplyCompressed(valueIn, replication, codec);
         }
     }
 
@@ -167,6 +182,7 @@ public class MapReplicationHandler extends AbstractSubHandler<EngineWireNetworkC
     public enum EventId implements ParameterizeWireKey {
 
         replicationEvent,
+        replicationCompressedBatch,
         bootstrap;
 
         private final WireKey[] params;
@@ -187,6 +203,7 @@ public class MapReplicationHandler extends AbstractSubHandler<EngineWireNetworkC
 
         private final ModificationIterator mi;
         private final byte id;
+        private final ReplicationBatch batch = new ReplicationBatch();
         boolean hasSentLastUpdateTime;
         long lastUpdateTime;
         boolean hasLogged;
@@ -258,15 +275,20 @@ public class MapReplicationHandler extends AbstractSubHandler<EngineWireNetworkC
                 return false;
             }
 
-            mi.nextEntry(e -> publisher.put(null, w -> {
-                assert e.remoteIdentifier() != localIdentifier;
-                long newlastUpdateTime = Math.max(lastUpdateTime, e.timestamp());
-
-                if (newlastUpdateTime > lastUpdateTime) {
-                    hasSentLastUpdateTime = false;
-                    lastUpdateTime = newlastUpdateTime;
-                }
+            final Codec codec = nc().codec();
+            if (codec != null) {
+                publisher.put(null, w -> {
+                    final long start = w.bytes().writePosition();
+                    w.writeDocument(true, d -> d.write(CoreFields.cid).int64(cid()));
+                    w.writeDocument(false, d -> batch.writeCompressed(
+                            d.writeEventName(replicationCompressedBatch), mi, this::onEntry, codec));
+                    batch.discardIfEmpty(w.bytes(), start);
+                });
+                return true;
+            }
 
+            mi.nextEntry(e -> publisher.put(null, w -> {
+                onEntry(e);
                 w.writeDocument(true, d -> d.write(CoreFields.cid).int64(cid()));
                 w.writeDocument(false,
                         d -> {
@@ -277,6 +299,17 @@ public class MapReplicationHandler extends AbstractSubHandler<EngineWireNetworkC
             return true;
         }
 
+        private boolean onEntry(@NotNull ReplicationEntry e) {
+            assert e.remoteIdentifier() != localIdentifier;
+            long newlastUpdateTime = Math.max(lastUpdateTime, e.timestamp());
+
+            if (newlastUpdateTime > lastUpdateTime) {
+                hasSentLastUpdateTime = false;
+                lastUpdateTime = newlastUpdateTime;
+            }
+            return true;
+        }
+
         @Override
         public String toString() {
             return "ReplicationEventHandler{" +
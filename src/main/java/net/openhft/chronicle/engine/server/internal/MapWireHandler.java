@@ -24,6 +24,7 @@ import net.openhft.chronicle.core.pool.StringBuilderPool;
 import net.openhft.chronicle.core.util.SerializableBiFunction;
 import net.openhft.chronicle.core.util.SerializableUpdaterWithArg;
 import net.openhft.chronicle.engine.api.map.MapView;
+import net.openhft.chronicle.engine.api.map.RawValueWriter;
 import net.openhft.chronicle.engine.api.tree.RequestContext;
 import net.openhft.chronicle.engine.map.remote.RemoteKeyValueStore;
 import net.openhft.chronicle.map.ChronicleMap;
@@ -72,6 +73,8 @@ public class MapWireHandler<K, V> extends AbstractHandler {
     @Nullable
     private MapView<K, V> map;
     private boolean charSequenceValue;
+    @Nullable
+    private RawValueWriter<K> rawValueWriter;
     private long tid;
     private final BiConsumer<WireIn, Long> dataConsumer = new BiConsumer<WireIn, Long>() {
 
@@ -106,6 +109,32 @@ public class MapWireHandler<K, V> extends AbstractHandler {
                     return;
                 }
 
+                if (putAll.contentEquals(eventName)) {
+                    valueIn.sequence(map, (m, v) -> {
+                        while (v.hasNextSequenceItem()) {
+                            v.marshallable(wire -> {
+                                final K key = wireToK.apply(wire.read(Params.key));
+                                final V value = wireToV.apply(wire.read(Params.value));
+                                nullCheck(key);
+                                nullCheck(value);
+                                m.put(key, value);
+                            });
+                        }
+                    });
+                    return;
+                }
+
+                if (removeAll.contentEquals(eventName)) {
+                    valueIn.sequence(map, (m, v) -> {
+                        while (v.hasNextSequenceItem()) {
+                            final K key = wireToK.apply(v);
+                            nullCheck(key);
+                            m.remove(key);
+                        }
+                    });
+                    return;
+                }
+
                 if (update2.contentEquals(eventName)) {
                     valueIn.marshallable(wire -> {
                         final Params[] params = update2.params();
@@ -125,14 +154,43 @@ public class MapWireHandler<K, V> extends AbstractHandler {
                         return;
                     }
 
-                    if (putAll.contentEquals(eventName)) {
-                        valueIn.sequence(map, (m, v) -> {
-                            while (v.hasNextSequenceItem()) {
-                                valueIn.marshallable(wire -> m.put(
-                                        wireToK.apply(wire.read(put.params()[0])),
-                                        wireToV.apply(wire.read(put.params()[1]))));
-                            }
-                        });
+                    if (getAll.contentEquals(eventName)) {
+                        outWire.writeEventName(reply).sequence(seq ->
+                                valueIn.sequence(map, (m, v) -> {
+                                    while (v.hasNextSequenceItem()) {
+                                        final K key = wireToK.apply(v);
+                                        nullCheck(key);
+                                        writeEntry(seq, key, m.get(key));
+                                    }
+                                }));
+                        return;
+                    }
+
+                    if (getAndPutAll.contentEquals(eventName)) {
+                        outWire.writeEventName(reply).sequence(seq ->
+                                valueIn.sequence(map, (m, v) -> {
+                                    while (v.hasNextSequenceItem()) {
+                                        v.marshallable(wire -> {
+                                            final K key = wireToK.apply(wire.read(Params.key));
+                                            final V value = wireToV.apply(wire.read(Params.value));
+                                            nullCheck(key);
+                                            nullCheck(value);
+                                            writeEntry(seq, key, m.getAndPut(key, value));
+                                        });
+                                    }
+                                }));
+                        return;
+                    }
+
+                    if (getAndRemoveAll.contentEquals(eventName)) {
+                        outWire.writeEventName(reply).sequence(seq ->
+                                valueIn.sequence(map, (m, v) -> {
+                                    while (v.hasNextSequenceItem()) {
+                                        final K key = wireToK.apply(v);
+                                        nullCheck(key);
+                                        writeEntry(seq, key, m.getAndRemove(key));
+                                    }
+                                }));
                         return;
                     }
 
@@ -188,6 +246,9 @@ public class MapWireHandler<K, V> extends AbstractHandler {
                             StringBuilder sb = SBP.acquireStringBuilder();
                             vToWire.accept(outWire.writeEventName(reply), (V) ((ChronicleMap) map).getUsing(key, sb));
 
+                        } else if (rawValueWriter != null) {
+                            rawValueWriter.writeRawValue(key, outWire.writeEventName(reply));
+
                         } else {
                             vToWire.accept(outWire.writeEventName(reply), map.get(key));
                         }
@@ -335,6 +396,7 @@ public class MapWireHandler<K, V> extends AbstractHandler {
             this.map = map;
             charSequenceValue = map instanceof ChronicleMap &&
                     CharSequence.class == ((ChronicleMap) map).valueClass();
+            rawValueWriter = rawValueWriter(map, out);
             assert !(map instanceof RemoteKeyValueStore) : "the server should not be a " +
                     "remove " +
                     "map";
@@ -345,6 +407,31 @@ public class MapWireHandler<K, V> extends AbstractHandler {
         }
     }
 
+    /**
+     * @return the store under the map if it can copy its stored values straight to this wire,
+     * otherwise null
+     */
+    @Nullable
+    private static <K> RawValueWriter<K> rawValueWriter(@NotNull MapView map, @NotNull WireOut out) {
+        final Object underlying = map.underlying();
+        return underlying instanceof RawValueWriter && ((RawValueWriter) underlying).canWriteRawValue(out)
+                ? (RawValueWriter<K>) underlying
+                : null;
+    }
+
+    /**
+     * writes a key and its value as an element of a batch reply, entries without a value are
+     * skipped
+     */
+    private void writeEntry(@NotNull ValueOut out, @NotNull K key, @Nullable V value) {
+        if (value == null)
+            return;
+        out.marshallable(w -> {
+            w.write(Params.key).object(key);
+            vToWire.accept(w.write(Params.value), value);
+        });
+    }
+
     /**
      * create a new cid if one does not already exist for this csp
      *
@@ -438,7 +525,11 @@ public class MapWireHandler<K, V> extends AbstractHandler {
         applyTo2(function, arg),
         update2(updateFunction, updateArg),
         update4(updateFunction, updateArg, function, arg),
-        bootstrap;
+        bootstrap,
+        getAll,
+        getAndPutAll,
+        removeAll,
+        getAndRemoveAll;
 
         private final WireKey[] params;
 
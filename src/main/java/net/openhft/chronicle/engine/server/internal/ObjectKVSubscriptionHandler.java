@@ -53,26 +53,33 @@ public final class ObjectKVSubscriptionHandler extends SubscriptionHandler<Subsc
                 return;
             }
 
+            final SubscriptionBacklog backlog = outboundQuota == null ? null :
+                    outboundQuota.newBacklog(requestContext, publisher,
+                            (topic, message) -> topicEvent(inputTid, topic, message),
+                            dropped -> gap(inputTid, dropped),
+                            (earlier, later) -> later);
+
             final TopicSubscriber listener = new TopicSubscriber() {
                 volatile boolean subscriptionEnded;
 
                 @Override
                 public void onMessage(final Object topic, final Object message) {
                     synchronized (publisher) {
-                        publisher.put(topic, publish -> {
-                            publish.writeDocument(true, wire -> wire.writeEventName(tid).int64(inputTid));
-                            publish.writeNotCompleteDocument(false, wire -> wire.writeEventName(reply)
-                                    .marshallable(m -> {
-                                        m.write(() -> "topic").object(topic);
-                                        m.write(() -> "message").object(message);
-                                    }));
-                        });
+                        if (backlog == null)
+                            publisher.put(topic, topicEvent(inputTid, topic, message));
+                        else
+                            backlog.offer(topic, message);
                     }
                 }
 
                 public void onEndOfSubscription() {
                     subscriptionEnded = true;
                     synchronized (publisher) {
+                        if (backlog != null) {
+                            if (!publisher.isClosed())
+                                backlog.drain(true);
+                            backlog.close();
+                        }
                         if (!publisher.isClosed()) {
                             publisher.put(null, publish -> {
                                 publish.writeDocument(true, wire ->
@@ -132,6 +139,18 @@ public final class ObjectKVSubscriptionHandler extends SubscriptionHandler<Subsc
 
     };
 
+    @NotNull
+    private static WriteMarshallable topicEvent(long inputTid, Object topic, Object message) {
+        return publish -> {
+            publish.writeDocument(true, wire -> wire.writeEventName(tid).int64(inputTid));
+            publish.writeNotCompleteDocument(false, wire -> wire.writeEventName(reply)
+                    .marshallable(m -> {
+                        m.write(() -> "topic").object(topic);
+                        m.write(() -> "message").object(message);
+                    }));
+        };
+    }
+
     @Override
     protected void unregisterAll() {
 
@@ -165,6 +184,7 @@ public final class ObjectKVSubscriptionHandler extends SubscriptionHandler<Subsc
         registerTopicSubscriber,
         unregisterTopicSubscriber,
         onEndOfSubscription,
+        onGap,
         notifyEvent;
 
         private final WireKey[] params;
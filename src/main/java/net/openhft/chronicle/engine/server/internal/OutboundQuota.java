@@ -0,0 +1,113 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.server.internal;
+
+import net.openhft.chronicle.core.threads.EventLoop;
+import net.openhft.chronicle.engine.api.tree.RequestContext;
+import net.openhft.chronicle.network.connection.WireOutPublisher;
+import net.openhft.chronicle.wire.WriteMarshallable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.LongFunction;
+
+/**
+ * The outbound quota of one connection, shared by the {@link SubscriptionBacklog} of each of its
+ * subscriptions. Once the connection isn't taking more data, the events held by all its
+ * subscriptions are limited to {@code engine.connection.outboundQuota} bytes, as well as to the
+ * {@link RequestContext#outboundQuota()} of each subscription.
+ */
+class OutboundQuota {
+    static final long CONNECTION_QUOTA = Long.getLong("engine.connection.outboundQuota", 0);
+
+    private final AtomicLong used = new AtomicLong();
+    private final long limit;
+    @NotNull
+    private final EventLoop eventLoop;
+    @NotNull
+    private final Runnable disconnect;
+
+    OutboundQuota(@NotNull EventLoop eventLoop, @NotNull Runnable disconnect) {
+        this(CONNECTION_QUOTA, eventLoop, disconnect);
+    }
+
+    OutboundQuota(long limit, @NotNull EventLoop eventLoop, @NotNull Runnable disconnect) {
+        this.limit = limit;
+        this.eventLoop = eventLoop;
+        this.disconnect = disconnect;
+    }
+
+    /**
+     * @return a backlog for a subscription, or null if neither the subscription nor the connection
+     * has a quota and the subscription doesn't conflate, in which case events are put straight on
+     * the publisher as before.
+     */
+    @Nullable
+    SubscriptionBacklog newBacklog(@NotNull RequestContext requestContext,
+                                   @NotNull WireOutPublisher publisher,
+                                   @NotNull BiFunction<Object, Object, WriteMarshallable> toEvent,
+                                   @NotNull LongFunction<WriteMarshallable> toGap,
+                                   @NotNull BinaryOperator<Object> conflate) {
+        if (limit <= 0 && requestContext.outboundQuota() <= 0 && !requestContext.conflate())
+            return null;
+        final SubscriptionBacklog backlog = new SubscriptionBacklog(this, publisher,
+                requestContext.outboundQuota(), requestContext.quotaPolicy(),
+                requestContext.conflate(), toEvent, toGap, conflate);
+        eventLoop.addHandler(backlog);
+        return backlog;
+    }
+
+    boolean tryAcquire(long bytes) {
+        if (limit <= 0) {
+            used.addAndGet(bytes);
+            return true;
+        }
+        for (; ; ) {
+            final long current = used.get();
+            if (current + bytes > limit)
+                return false;
+            if (used.compareAndSet(current, current + bytes))
+                return true;
+        }
+    }
+
+    void release(long bytes) {
+        used.addAndGet(-bytes);
+    }
+
+    long used() {
+        return used.get();
+    }
+
+    void disconnect() {
+        disconnect.run();
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return "OutboundQuota{" +
+                "used=" + used +
+                ", limit=" + limit +
+                '}';
+    }
+}
@@ -24,14 +24,23 @@ import net.openhft.chronicle.core.threads.EventLoop;
 import net.openhft.chronicle.core.threads.HandlerPriority;
 import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
 import net.openhft.chronicle.engine.api.EngineReplication.ModificationIterator;
+import net.openhft.chronicle.engine.api.EngineReplication.ReplicationEntry;
 import net.openhft.chronicle.engine.api.pubsub.Replication;
 import net.openhft.chronicle.engine.map.CMap2EngineReplicator.VanillaReplicatedEntry;
 import net.openhft.chronicle.engine.map.replication.Bootstrap;
+import net.openhft.chronicle.engine.map.replication.Codec;
+import net.openhft.chronicle.engine.map.replication.Codecs;
+import net.openhft.chronicle.engine.map.replication.MerkleTree;
+import net.openhft.chronicle.engine.map.replication.ParallelBootstrap;
+import net.openhft.chronicle.engine.map.replication.ReplicationBatch;
+import net.openhft.chronicle.engine.map.replication.ReplicationMetrics;
+import net.openhft.chronicle.engine.map.replication.ReplicationStats;
 import net.openhft.chronicle.engine.tree.HostIdentifier;
 import net.openhft.chronicle.network.connection.CoreFields;
 import net.openhft.chronicle.network.connection.WireOutPublisher;
 import net.openhft.chronicle.wire.*;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,6 +57,9 @@ public class ReplicationHandler<E> extends AbstractHandler {
     private Replication replication;
     private WireOutPublisher publisher;
     private HostIdentifier hostId;
+    // the codec chosen from those offered in the remote bootstrap, if any.
+    @Nullable
+    private volatile Codec codec;
     private long tid;
 
     private EventLoop eventLoop;
@@ -56,6 +68,8 @@ public class ReplicationHandler<E> extends AbstractHandler {
     private final BiConsumer<WireIn, Long> dataConsumer = new BiConsumer<WireIn, Long>() {
 
         final ThreadLocal<VanillaReplicatedEntry> vre = ThreadLocal.withInitial(VanillaReplicatedEntry::new);
+        final ThreadLocal<ReplicationBatch> batch = ThreadLocal.withInitial(ReplicationBatch::new);
+
         @Override
         public void accept(@NotNull final WireIn inWire, Long inputTid) {
 
@@ -84,6 +98,26 @@ public class ReplicationHandler<E> extends AbstractHandler {
                             .currentTimeMillis() - replicatedEntry.timestamp()) + "ms  ");
 
                 replication.applyReplication(replicatedEntry);
+
+                final ReplicationMetrics metrics = replication.metrics();
+                if (metrics != null)
+                    metrics.onReceived(replicatedEntry);
+                return;
+            }
+
+            if (replicationBatch.contentEquals(eventName)) {
+                if (Jvm.isDebug() && LOG.isDebugEnabled())
+                    LOG.debug("server : received replicationBatch");
+                batch.get().readAndApply(valueIn, replication);
+                return;
+            }
+
+            if (replicationCompressedBatch.contentEquals(eventName)) {
+                final Codec codec = ReplicationHandler.this.codec;
+                if (codec == null)
+                    throw new IllegalStateException("compressed batch received on a connection " +
+                            "without a codec");
+                batch.get().readAndApplyCompressed(valueIn, replication, codec);
                 return;
             }
 
@@ -103,15 +137,25 @@ public class ReplicationHandler<E> extends AbstractHandler {
                     if (inBootstrap == null)
                         return;
                     final byte id = inBootstrap.identifier();
-
+                    final Codec codec = Codecs.negotiate(inBootstrap.compression());
+                    ReplicationHandler.this.codec = codec;
+                    // batches are only sent if the remote host offered them.
+                    final boolean batching = inBootstrap.batching() && ReplicationBatch.isEnabled();
+
+                    // built once, both to compare with the remote tree and to send back.
+                    final MerkleTree localTree = MerkleTree.ENABLED && inBootstrap.merkleTree() != null
+                            ? replication.merkleTree() : null;
                     final ModificationIterator mi = replication.acquireModificationIterator(id);
                     if (mi != null)
-                        mi.dirtyEntries(inBootstrap.lastUpdatedTime());
+                        inBootstrap.dirtyEntries(mi, localTree);
 
                     // send bootstrap
                     final Bootstrap outBootstrap = new Bootstrap();
                     outBootstrap.identifier(hostId.hostId());
                     outBootstrap.lastUpdatedTime(replication.lastModificationTime(id));
+                    outBootstrap.merkleTree(localTree);
+                    outBootstrap.compression(codec == null ? null : codec.name());
+                    outBootstrap.batching(batching);
                     outWire.writeEventName(bootstrap).typedMarshallable(outBootstrap);
 
                     if (Jvm.isDebug())
@@ -123,7 +167,8 @@ public class ReplicationHandler<E> extends AbstractHandler {
                     // sends replication events back to the remote client
                     mi.setModificationNotifier(eventLoop::unpause);
 
-                    eventLoop.addHandler(true, new ReplicationEventHandler(mi, id, inputTid));
+                    eventLoop.addHandler(true, new ReplicationEventHandler(mi, id, inputTid, codec,
+                            batching));
                 });
             }
         }
@@ -154,6 +199,8 @@ public class ReplicationHandler<E> extends AbstractHandler {
         onEndOfSubscription,
         apply,
         replicationEvent,
+        replicationBatch,
+        replicationCompressedBatch,
         bootstrap,
         identifierReply,
         identifier;
@@ -182,15 +229,30 @@ public class ReplicationHandler<E> extends AbstractHandler {
         boolean hasLogged;
         int count;
         long startBufferFullTimeStamp;
+        @Nullable
+        ParallelBootstrap bootstrap;
+        @Nullable
+        private final Codec codec;
+        private final boolean batching;
+        private final ReplicationBatch batch = new ReplicationBatch();
+        @NotNull
+        final ReplicationStats stats;
 
-        public ReplicationEventHandler(ModificationIterator mi, byte id, Long inputTid) {
+        public ReplicationEventHandler(ModificationIterator mi, byte id, Long inputTid,
+                                       @Nullable Codec codec, boolean batching) {
             this.mi = mi;
             this.id = id;
+            this.codec = codec;
+            this.batching = batching;
             this.inputTid = inputTid;
             lastUpdateTime = 0;
             hasLogged = false;
             count = 0;
             startBufferFullTimeStamp = 0;
+            // the chunks are sent as batches.
+            bootstrap = batching ? ParallelBootstrap.start(mi, eventLoop::unpause) : null;
+            final ReplicationMetrics metrics = replication.metrics();
+            stats = metrics == null ? new ReplicationStats(id) : metrics.acquire(id);
         }
 
         @NotNull
@@ -201,8 +263,11 @@ public class ReplicationHandler<E> extends AbstractHandler {
 
         @Override
         public boolean action() throws InvalidEventHandlerException {
-            if (connectionClosed)
+            if (connectionClosed) {
+                if (bootstrap != null)
+                    bootstrap.close();
                 throw new InvalidEventHandlerException();
+            }
 
             final WireOutPublisher publisher = ReplicationHandler.this.publisher;
             //noinspection SynchronizationOnLocalVariableOrMethodParameter
@@ -210,14 +275,43 @@ public class ReplicationHandler<E> extends AbstractHandler {
                 // given the sending an event to the publish hold the chronicle map lock
                 // we will send only one at a time
 
-                if (!publisher.canTakeMoreData()) {
+                final boolean queueFull = !publisher.canTakeMoreData();
+                stats.queueFull(queueFull);
+                if (queueFull) {
                     if (startBufferFullTimeStamp == 0) {
                         startBufferFullTimeStamp = System.currentTimeMillis();
                     }
                     return false;
                 }
 
-                if (!mi.hasNext()) {
+                // the segments are being drained by the bootstrap threads, the last update time
+                // is only sent once they have all finished.
+                if (bootstrap != null) {
+                    if (!bootstrap.isDone()) {
+                        stats.pending(true);
+                        if (!bootstrap.hasChunk())
+                            return false;
+                        publisher.put(null, publish1 -> {
+                            final long start = publish1.bytes().writePosition();
+                            publish1.writeNotCompleteDocument(true,
+                                wire -> wire.writeEventName(CoreFields.tid).int64(inputTid));
+                            if (codec == null)
+                                publish1.writeNotCompleteDocument(false, wire -> batch.writeChunk(
+                                        wire.writeEventName(replicationBatch), bootstrap, this::onEntry));
+                            else
+                                publish1.writeNotCompleteDocument(false, wire -> batch.compress(
+                                        wire.writeEventName(replicationCompressedBatch), codec,
+                                        v -> bootstrap.writeChunk(v, this::onEntry)));
+                            batch.discardIfEmpty(publish1.bytes(), start);
+                        });
+                        return true;
+                    }
+                    bootstrap = null;
+                }
+
+                final boolean hasNext = mi.hasNext();
+                stats.pending(hasNext);
+                if (!hasNext) {
 
                     if (startBufferFullTimeStamp != 0) {
                         long timetaken = System.currentTimeMillis() - startBufferFullTimeStamp;
@@ -252,35 +346,30 @@ public class ReplicationHandler<E> extends AbstractHandler {
                     return false;
                 }
 
+                if (batching) {
+                    publisher.put(null, publish1 -> {
+                        final long start = publish1.bytes().writePosition();
+                        publish1.writeNotCompleteDocument(true,
+                                wire -> wire.writeEventName(CoreFields.tid).int64(inputTid));
+                        if (codec == null)
+                            publish1.writeNotCompleteDocument(false, wire -> batch.writeBatch(
+                                    wire.writeEventName(replicationBatch), wire.bytes(), mi, this::onEntry));
+                        else
+                            publish1.writeNotCompleteDocument(false, wire -> batch.writeCompressed(
+                                    wire.writeEventName(replicationCompressedBatch), mi, this::onEntry, codec));
+                        batch.discardIfEmpty(publish1.bytes(), start);
+                    });
+                    return true;
+                }
+
                 mi.nextEntry(e -> publisher.put(null, publish1 -> {
 
-                    if (e.remoteIdentifier() == hostId.hostId())
+                    if (!onEntry(e))
                         return;
 
-                    long newlastUpdateTime = Math.max(lastUpdateTime, e.timestamp());
-
-                    if (newlastUpdateTime > lastUpdateTime) {
-                        hasSentLastUpdateTime = false;
-                        lastUpdateTime = newlastUpdateTime;
-                    }
-
-                    if (LOG.isDebugEnabled())
-                        LOG.debug("publish from server response from iterator " +
-                                "localIdentifier=" + hostId + " ,remoteIdentifier=" +
-                                id + " event=" + e);
-
                     publish1.writeNotCompleteDocument(true,
                             wire -> wire.writeEventName(CoreFields.tid).int64(inputTid));
 
-                    if (LOG.isInfoEnabled()) {
-                        long delay = System.currentTimeMillis() - e.timestamp();
-                        if (delay > 60) {
-                            LOG.info("Snt Srv latency=" + delay + "ms\t");
-                            if (count++ % 10 == 1)
-                                LOG.info("");
-                        }
-                    }
-
                     if (publish1.bytes().writePosition() > 100000 && LOG.isDebugEnabled())
                         LOG.debug(publish1.bytes().toDebugString(128));
                     publish1.writeNotCompleteDocument(false,
@@ -290,5 +379,37 @@ public class ReplicationHandler<E> extends AbstractHandler {
             }
             return true;
         }
+
+        /**
+         * @return false if the entry came from the remote host, so is not sent back to it.
+         */
+        private boolean onEntry(@NotNull ReplicationEntry e) {
+            if (e.remoteIdentifier() == hostId.hostId())
+                return false;
+
+            long newlastUpdateTime = Math.max(lastUpdateTime, e.timestamp());
+
+            if (newlastUpdateTime > lastUpdateTime) {
+                hasSentLastUpdateTime = false;
+                lastUpdateTime = newlastUpdateTime;
+            }
+
+            if (LOG.isDebugEnabled())
+                LOG.debug("publish from server response from iterator " +
+                        "localIdentifier=" + hostId + " ,remoteIdentifier=" +
+                        id + " event=" + e);
+
+            stats.onSent(e);
+
+            if (LOG.isInfoEnabled()) {
+                long delay = System.currentTimeMillis() - e.timestamp();
+                if (delay > 60) {
+                    LOG.info("Snt Srv latency=" + delay + "ms\t");
+                    if (count++ % 10 == 1)
+                        LOG.info("");
+                }
+            }
+            return true;
+        }
     }
 }
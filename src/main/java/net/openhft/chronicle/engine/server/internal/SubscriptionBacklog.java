@@ -0,0 +1,343 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.server.internal;
+
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.core.threads.EventHandler;
+import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
+import net.openhft.chronicle.engine.api.map.MapEvent;
+import net.openhft.chronicle.engine.api.tree.RequestContext.QuotaPolicy;
+import net.openhft.chronicle.network.connection.WireOutPublisher;
+import net.openhft.chronicle.wire.WriteMarshallable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.LongFunction;
+
+/**
+ * Holds the events of one subscription while its connection isn't taking more data, and sends
+ * them from the event loop as the connection drains. When the events held go over the quota of the
+ * subscription, or of its connection, the {@link QuotaPolicy} decides whether they are conflated,
+ * dropped with a gap notification, or the connection is closed, so one slow consumer can't grow
+ * the heap of the server without limit. A subscription with {@code conflate=true} conflates the
+ * events it holds from the start, and only applies its policy if they go over the quota.
+ * <p>
+ * The size of an event is estimated from its key and values, rather than by writing it, see {@link
+ * #sizeOf(Object)}, so the quotas are approximate.
+ * <p>
+ * Except for {@link #action()}, all methods must be called while holding the lock on the
+ * publisher.
+ */
+class SubscriptionBacklog implements EventHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(SubscriptionBacklog.class);
+    // roughly the tid, event name and framing of an event.
+    static final int EVENT_OVERHEAD = 32;
+    // assumed for a value whose size isn't known without writing it.
+    static final int OBJECT_SIZE = 64;
+
+    @NotNull
+    private final OutboundQuota connectionQuota;
+    @NotNull
+    private final WireOutPublisher publisher;
+    private final long quota;
+    @NotNull
+    private final QuotaPolicy policy;
+    @NotNull
+    private final BiFunction<Object, Object, WriteMarshallable> toEvent;
+    @NotNull
+    private final LongFunction<WriteMarshallable> toGap;
+    @NotNull
+    private final BinaryOperator<Object> conflate;
+
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+    // the latest event for each key, once the events are conflated.
+    private final Map<Object, Pending> conflated = new LinkedHashMap<>();
+    private final boolean alwaysConflate;
+    private boolean conflating;
+    private long bytes;
+    private long dropped;
+    private boolean disconnecting;
+    private volatile boolean closed;
+
+    SubscriptionBacklog(@NotNull OutboundQuota connectionQuota,
+                        @NotNull WireOutPublisher publisher,
+                        long quota,
+                        @NotNull QuotaPolicy policy,
+                        boolean alwaysConflate,
+                        @NotNull BiFunction<Object, Object, WriteMarshallable> toEvent,
+                        @NotNull LongFunction<WriteMarshallable> toGap,
+                        @NotNull BinaryOperator<Object> conflate) {
+        this.connectionQuota = connectionQuota;
+        this.publisher = publisher;
+        this.quota = quota;
+        this.policy = policy;
+        this.toEvent = toEvent;
+        this.toGap = toGap;
+        this.conflate = conflate;
+        this.alwaysConflate = alwaysConflate;
+        this.conflating = alwaysConflate;
+    }
+
+    private boolean isEmpty() {
+        return queue.isEmpty() && conflated.isEmpty() && dropped == 0;
+    }
+
+    /**
+     * sends the event if nothing is held and the connection can take more data, otherwise holds it.
+     */
+    void offer(Object key, Object event) {
+        if (closed || disconnecting)
+            return;
+
+        if (isEmpty() && publisher.canTakeMoreData()) {
+            publisher.put(key, toEvent.apply(key, event));
+            return;
+        }
+
+        if (conflating) {
+            hold(key, event);
+            return;
+        }
+
+        final long size = sizeOf(event);
+        if (tryAcquire(size)) {
+            queue.add(new Pending(key, event, size));
+            bytes += size;
+            return;
+        }
+
+        switch (policy) {
+            case CONFLATE:
+                conflating = true;
+                final Pending[] held = queue.toArray(new Pending[queue.size()]);
+                clearQueue();
+                for (Pending p : held)
+                    hold(p.key, p.event);
+                hold(key, event);
+                return;
+
+            case DROP:
+                dropped += queue.size() + 1;
+                break;
+
+            case DISCONNECT:
+                LOG.warn("Outbound quota exceeded, closing the connection, quota=" + quota +
+                        ", " + connectionQuota);
+                disconnecting = true;
+                break;
+        }
+        clearQueue();
+    }
+
+    private boolean tryAcquire(long size) {
+        return (quota <= 0 || bytes + size <= quota) && connectionQuota.tryAcquire(size);
+    }
+
+    /**
+     * merges the event with the one held for its key, keeping the position of the key.
+     */
+    private void hold(Object key, Object event) {
+        final Pending earlier = conflated.get(key);
+        final Object merged = earlier == null ? event : conflate.apply(earlier.event, event);
+        if (earlier != null) {
+            release(earlier.size);
+            earlier.size = 0;
+        }
+        if (merged == null) {
+            conflated.remove(key);
+            return;
+        }
+
+        final long size = sizeOf(merged);
+        if (tryAcquire(size)) {
+            bytes += size;
+            hold(key, earlier, merged, size);
+            return;
+        }
+
+        switch (policy) {
+            case CONFLATE:
+                // already one event per key, so it is held without counting against the quota.
+                hold(key, earlier, merged, 0);
+                return;
+
+            case DROP:
+                dropped += conflated.size() + (earlier == null ? 1 : 0);
+                break;
+
+            case DISCONNECT:
+                LOG.warn("Outbound quota exceeded, closing the connection, quota=" + quota +
+                        ", " + connectionQuota);
+                disconnecting = true;
+                break;
+        }
+        clearConflated();
+    }
+
+    private void hold(Object key, @Nullable Pending earlier, Object event, long size) {
+        if (earlier == null) {
+            conflated.put(key, new Pending(key, event, size));
+        } else {
+            earlier.event = event;
+            earlier.size = size;
+        }
+    }
+
+    /**
+     * @return an estimate of the bytes the event takes when written, from the sizes of its key and
+     * values, as this is called for every event held while the connection is backed up.
+     */
+    static long sizeOf(Object event) {
+        if (event instanceof MapEvent) {
+            final MapEvent e = (MapEvent) event;
+            return EVENT_OVERHEAD + sizeOfValue(e.getKey()) + sizeOfValue(e.getValue()) +
+                    sizeOfValue(e.oldValue());
+        }
+        return EVENT_OVERHEAD + sizeOfValue(event);
+    }
+
+    private static long sizeOfValue(@Nullable Object o) {
+        if (o == null)
+            return 1;
+        if (o instanceof CharSequence)
+            return ((CharSequence) o).length() + 4;
+        if (o instanceof BytesStore)
+            return ((BytesStore) o).readRemaining() + 4;
+        if (o instanceof byte[])
+            return ((byte[]) o).length + 4;
+        if (o instanceof Number || o instanceof Boolean || o instanceof Character || o instanceof Enum)
+            return 9;
+        return OBJECT_SIZE;
+    }
+
+    private void release(long size) {
+        bytes -= size;
+        connectionQuota.release(size);
+    }
+
+    private void clearQueue() {
+        for (Pending p : queue)
+            release(p.size);
+        queue.clear();
+    }
+
+    private void clearConflated() {
+        for (Pending p : conflated.values())
+            release(p.size);
+        conflated.clear();
+        conflating = alwaysConflate;
+    }
+
+    /**
+     * @param all send all the events held even if the publisher is full.
+     * @return true if any events were sent
+     */
+    boolean drain(boolean all) {
+        boolean busy = false;
+        if (dropped > 0 && (all || publisher.canTakeMoreData())) {
+            publisher.put(null, toGap.apply(dropped));
+            dropped = 0;
+            busy = true;
+        }
+
+        if (dropped > 0)
+            return busy;
+
+        while (!queue.isEmpty() && (all || publisher.canTakeMoreData())) {
+            final Pending p = queue.poll();
+            release(p.size);
+            publisher.put(p.key, toEvent.apply(p.key, p.event));
+            busy = true;
+        }
+
+        final Iterator<Pending> iterator = conflated.values().iterator();
+        while (iterator.hasNext() && (all || publisher.canTakeMoreData())) {
+            final Pending p = iterator.next();
+            iterator.remove();
+            release(p.size);
+            publisher.put(p.key, toEvent.apply(p.key, p.event));
+            busy = true;
+        }
+        // a subscription which only conflates over its quota queues events again once caught up.
+        if (conflated.isEmpty())
+            conflating = alwaysConflate;
+        return busy;
+    }
+
+    @Override
+    public boolean action() throws InvalidEventHandlerException {
+        if (closed || publisher.isClosed()) {
+            synchronized (publisher) {
+                close();
+            }
+            throw new InvalidEventHandlerException();
+        }
+
+        final boolean disconnect;
+        synchronized (publisher) {
+            disconnect = disconnecting;
+            if (!disconnect)
+                return drain(false);
+            close();
+        }
+        // outside the lock, as closing the connection unregisters its subscribers.
+        connectionQuota.disconnect();
+        throw new InvalidEventHandlerException();
+    }
+
+    void close() {
+        closed = true;
+        clearQueue();
+        clearConflated();
+        dropped = 0;
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return "SubscriptionBacklog{" +
+                "bytes=" + bytes +
+                ", quota=" + quota +
+                ", policy=" + policy +
+                ", conflating=" + conflating +
+                ", dropped=" + dropped +
+                '}';
+    }
+
+    static final class Pending {
+        final Object key;
+        // replaced as later events for the key are conflated.
+        Object event;
+        long size;
+
+        Pending(Object key, Object event, long size) {
+            this.key = key;
+            this.event = event;
+            this.size = size;
+        }
+    }
+}
@@ -25,11 +25,15 @@ import net.openhft.chronicle.engine.api.pubsub.SubscriptionCollection;
 import net.openhft.chronicle.engine.api.tree.Asset;
 import net.openhft.chronicle.engine.api.tree.AssetNotFoundException;
 import net.openhft.chronicle.engine.api.tree.RequestContext;
+import net.openhft.chronicle.engine.map.InsertedEvent;
+import net.openhft.chronicle.engine.map.RemovedEvent;
+import net.openhft.chronicle.engine.map.UpdatedEvent;
 import net.openhft.chronicle.engine.query.Filter;
 import net.openhft.chronicle.network.connection.CoreFields;
 import net.openhft.chronicle.network.connection.WireOutPublisher;
 import net.openhft.chronicle.wire.*;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -108,7 +112,7 @@ public class SubscriptionHandler<T extends SubscriptionCollection> extends Abstr
                             publisher :
                             newThrottledWireOutPublisher(requestContext.throttlePeriodMs(), publisher);
 
-            Subscriber<Object> listener = new LocalSubscriber(tid, pub);
+            Subscriber<Object> listener = newSubscriber(tid, pub);
             tidToListener.put(tid, listener);
             RequestContext rc = requestContext.clone().elementType(subscriptionType);
             final SubscriptionCollection subscription = asset.acquireSubscription(rc);
@@ -128,6 +132,36 @@ public class SubscriptionHandler<T extends SubscriptionCollection> extends Abstr
         return false;
     }
 
+    @NotNull
+    private LocalSubscriber newSubscriber(Long tid, @NotNull WireOutPublisher pub) {
+        // conflate=true is handled by the backlog too, within the quota of the subscription.
+        final SubscriptionBacklog backlog = outboundQuota == null ? null :
+                outboundQuota.newBacklog(requestContext, pub,
+                        (key, e) -> event(tid, e),
+                        dropped -> gap(tid, dropped),
+                        SubscriptionHandler::conflate);
+        return backlog == null ?
+                new LocalSubscriber(tid, pub) :
+                new QuotaSubscriber(tid, pub, backlog);
+    }
+
+    @NotNull
+    static WriteMarshallable event(Long tid, Object e) {
+        return p -> {
+            p.writeDocument(true, wire -> wire.writeEventName(CoreFields.tid).int64(tid));
+            p.writeNotCompleteDocument(false, wire -> wire.write(reply).object(e));
+        };
+    }
+
+    @NotNull
+    static WriteMarshallable gap(Long tid, long dropped) {
+        return p -> {
+            p.writeDocument(true, wire -> wire.writeEventName(CoreFields.tid).int64(tid));
+            p.writeDocument(false, wire ->
+                    wire.writeEventName(ObjectKVSubscriptionHandler.EventId.onGap).int64(dropped));
+        };
+    }
+
     @Override
     protected void unregisterAll() {
 
@@ -156,9 +190,40 @@ public class SubscriptionHandler<T extends SubscriptionCollection> extends Abstr
         }
     }
 
+    /**
+     * merges two events for the same key, so the result has the same effect on the subscriber as
+     * receiving both in order.
+     *
+     * @param earlier the pending event
+     * @param later   the new event
+     * @return the merged event, or null if the two events cancel out
+     */
+    @Nullable
+    static Object conflate(@NotNull Object earlier, @NotNull Object later) {
+        if (!(earlier instanceof MapEvent) || !(later instanceof MapEvent))
+            return later;
+
+        final MapEvent first = (MapEvent) earlier;
+        final MapEvent last = (MapEvent) later;
+        // the key was present before the first event unless the first event inserted it
+        final boolean existedBefore = !(first instanceof InsertedEvent);
+
+        if (last instanceof RemovedEvent)
+            return existedBefore ?
+                    RemovedEvent.of(last.assetName(), last.getKey(), first.oldValue(),
+                            last.isReplicationEvent()) :
+                    null;
+
+        return existedBefore ?
+                UpdatedEvent.of(last.assetName(), last.getKey(), first.oldValue(), last.getValue(),
+                        last.isReplicationEvent(), true) :
+                InsertedEvent.of(last.assetName(), last.getKey(), last.getValue(),
+                        last.isReplicationEvent());
+    }
+
     class LocalSubscriber implements Subscriber<Object> {
-        private final Long tid;
-        private final WireOutPublisher publisher;
+        final Long tid;
+        final WireOutPublisher publisher;
         volatile boolean subscriptionEnded;
 
         LocalSubscriber(Long tid, WireOutPublisher publisher) {
@@ -171,17 +236,22 @@ public class SubscriptionHandler<T extends SubscriptionCollection> extends Abstr
             if (subscriptionEnded)
                 return;
 
-            final WriteMarshallable event = p -> {
-                p.writeDocument(true, wire -> wire.writeEventName(CoreFields.tid).int64(tid));
-                p.writeNotCompleteDocument(false, wire -> wire.write(reply).object(e));
-            };
-
-            final Object key = (e instanceof MapEvent) ? ((MapEvent) e).getKey() : e;
             synchronized (publisher) {
-                publisher.put(key, event);
+                publish(keyFor(e), e);
             }
         }
 
+        Object keyFor(Object e) {
+            return (e instanceof MapEvent) ? ((MapEvent) e).getKey() : e;
+        }
+
+        /**
+         * must be called while holding the lock on the publisher
+         */
+        void publish(Object key, Object e) {
+            publisher.put(key, event(tid, e));
+        }
+
         @Override
         public void onEndOfSubscription() {
             subscriptionEnded = true;
@@ -206,4 +276,46 @@ public class SubscriptionHandler<T extends SubscriptionCollection> extends Abstr
                     "tid=" + tid + '}';
         }
     }
+
+    /**
+     * Holds the events for a subscriber while the connection isn't taking more data, up to the
+     * outbound quota of the subscription and the connection, see {@link SubscriptionBacklog}.
+     */
+    class QuotaSubscriber extends LocalSubscriber {
+        @NotNull
+        private final SubscriptionBacklog backlog;
+
+        QuotaSubscriber(Long tid, WireOutPublisher publisher, @NotNull SubscriptionBacklog backlog) {
+            super(tid, publisher);
+            this.backlog = backlog;
+        }
+
+        @Override
+        public void onMessage(Object e) throws InvalidSubscriberException {
+            if (subscriptionEnded)
+                return;
+
+            synchronized (publisher) {
+                backlog.offer(keyFor(e), e);
+            }
+        }
+
+        @Override
+        public void onEndOfSubscription() {
+            synchronized (publisher) {
+                if (!publisher.isClosed())
+                    backlog.drain(true);
+                backlog.close();
+            }
+            super.onEndOfSubscription();
+        }
+
+        @NotNull
+        @Override
+        public String toString() {
+            return "QuotaSubscriber{" +
+                    "tid=" + tid +
+                    ", backlog=" + backlog + '}';
+        }
+    }
 }
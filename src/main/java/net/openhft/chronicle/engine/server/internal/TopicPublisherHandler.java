@@ -20,6 +20,7 @@ package net.openhft.chronicle.engine.server.internal;
 
 import net.openhft.chronicle.engine.api.pubsub.TopicPublisher;
 import net.openhft.chronicle.engine.api.pubsub.TopicSubscriber;
+import net.openhft.chronicle.engine.api.tree.RequestContext;
 import net.openhft.chronicle.engine.tree.QueueView;
 import net.openhft.chronicle.network.connection.WireOutPublisher;
 import net.openhft.chronicle.wire.*;
@@ -59,26 +60,32 @@ public class TopicPublisherHandler<T, M> extends AbstractHandler {
 
             if (registerTopicSubscriber.contentEquals(eventName)) {
 
+                final SubscriptionBacklog backlog = outboundQuota == null ? null :
+                        outboundQuota.newBacklog(requestContext, publisher,
+                                (topic, message) -> topicEvent(inputTid, topic, message),
+                                dropped -> gap(inputTid, dropped),
+                                (earlier, later) -> later);
+
                 final TopicSubscriber listener = new TopicSubscriber() {
 
                     @Override
                     public void onMessage(final Object topic, final Object message) {
 
                         synchronized (publisher) {
-                            publisher.put(topic, publish -> {
-                                publish.writeDocument(true, wire -> wire.writeEventName(tid).int64
-                                        (inputTid));
-                                publish.writeNotCompleteDocument(false, wire -> wire.writeEventName(reply)
-                                        .marshallable(m -> {
-                                            m.write(() -> "topic").object(topic);
-                                            m.write(() -> "message").object(message);
-                                        }));
-                            });
+                            if (backlog == null)
+                                publisher.put(topic, topicEvent(inputTid, topic, message));
+                            else
+                                backlog.offer(topic, message);
                         }
                     }
 
                     public void onEndOfSubscription() {
                         synchronized (publisher) {
+                            if (backlog != null) {
+                                if (!publisher.isClosed())
+                                    backlog.drain(true);
+                                backlog.close();
+                            }
                             publisher.put(null, publish -> {
                                 publish.writeDocument(true, wire -> wire.writeEventName(tid).int64
                                         (inputTid));
@@ -141,8 +148,29 @@ public class TopicPublisherHandler<T, M> extends AbstractHandler {
         }
     };
 
+    @NotNull
+    private static WriteMarshallable topicEvent(long inputTid, Object topic, Object message) {
+        return publish -> {
+            publish.writeDocument(true, wire -> wire.writeEventName(tid).int64(inputTid));
+            publish.writeNotCompleteDocument(false, wire -> wire.writeEventName(reply)
+                    .marshallable(m -> {
+                        m.write(() -> "topic").object(topic);
+                        m.write(() -> "message").object(message);
+                    }));
+        };
+    }
+
+    @NotNull
+    private static WriteMarshallable gap(long inputTid, long dropped) {
+        return publish -> {
+            publish.writeDocument(true, wire -> wire.writeEventName(tid).int64(inputTid));
+            publish.writeDocument(false, wire -> wire.writeEventName(onGap).int64(dropped));
+        };
+    }
+
     @SuppressWarnings("unchecked")
     void process(@NotNull final WireIn inWire,
+                 @NotNull final RequestContext requestContext,
                  final WireOutPublisher publisher,
                  final long tid,
                  final Wire outWire,
@@ -151,6 +179,7 @@ public class TopicPublisherHandler<T, M> extends AbstractHandler {
 
         setOutWire(outWire);
 
+        this.requestContext = requestContext;
         this.view = view;
         this.publisher = publisher;
         this.wireToT = wireAdapter.wireToKey();
@@ -167,6 +196,7 @@ public class TopicPublisherHandler<T, M> extends AbstractHandler {
     public enum EventId implements ParameterizeWireKey {
         publish(topic, message),
         onEndOfSubscription,
+        onGap,
         registerTopicSubscriber(topic, message),
         replay,
         getNextAtIndex(index),      // used only by the queue view
@@ -23,11 +23,14 @@ import net.openhft.chronicle.core.threads.EventLoop;
 import net.openhft.chronicle.engine.api.tree.Asset;
 import net.openhft.chronicle.engine.fs.Clusters;
 import net.openhft.chronicle.engine.fs.EngineCluster;
+import net.openhft.chronicle.engine.map.replication.Codec;
+import net.openhft.chronicle.engine.map.replication.Codecs;
 import net.openhft.chronicle.engine.tree.HostIdentifier;
 import net.openhft.chronicle.network.cluster.*;
 import net.openhft.chronicle.network.connection.WireOutPublisher;
 import net.openhft.chronicle.wire.*;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,6 +58,9 @@ public class UberHandler extends CspTcpHander<EngineWireNetworkContext>
     @NotNull
     private String clusterName;
     private int writerIndex;
+    // the codecs offered by the initiator, or the codec chosen by the acceptor, see Codecs
+    @Nullable
+    private String compression;
 
     @UsedViaReflection
     private UberHandler(WireIn wire) {
@@ -62,13 +68,15 @@ public class UberHandler extends CspTcpHander<EngineWireNetworkContext>
         localIdentifier = wire.read(() -> "localIdentifier").int32();
         final WireType wireType = wire.read(() -> "wireType").object(WireType.class);
         clusterName = wire.read(() -> "clusterName").text();
+        compression = wire.read(() -> "compression").text();
         wireType(wireType);
     }
 
     private UberHandler(int localIdentifier,
                         int remoteIdentifier,
                         @NotNull WireType wireType,
-                        @NotNull String clusterName) {
+                        @NotNull String clusterName,
+                        @Nullable String compression) {
 
         this.localIdentifier = localIdentifier;
         this.remoteIdentifier = remoteIdentifier;
@@ -77,6 +85,7 @@ public class UberHandler extends CspTcpHander<EngineWireNetworkContext>
                 "remoteIdentifier=" + remoteIdentifier + ", " +
                         "localIdentifier=" + localIdentifier;
         this.clusterName = clusterName;
+        this.compression = compression;
         wireType(wireType);
     }
 
@@ -99,6 +108,8 @@ public class UberHandler extends CspTcpHander<EngineWireNetworkContext>
         final WireType value = wireType();
         wire.write(() -> "wireType").object(value);
         wire.write(() -> "clusterName").text(clusterName);
+        if (compression != null)
+            wire.write(() -> "compression").text(compression);
     }
 
     @Override
@@ -113,6 +124,11 @@ public class UberHandler extends CspTcpHander<EngineWireNetworkContext>
                 "remoteIdentifier=" + remoteIdentifier + ", " +
                         "localIdentifier=" + localIdentifier;
 
+        // the acceptor picks one of the codecs offered and reflects it back to the initiator
+        final Codec codec = Codecs.negotiate(compression);
+        compression = codec == null ? null : codec.name();
+        nc.codec(codec);
+
         final WireOutPublisher publisher = nc.wireOutPublisher();
         publisher(publisher);
 
@@ -170,7 +186,8 @@ public class UberHandler extends CspTcpHander<EngineWireNetworkContext>
                 localIdentifier,
                 remoteIdentifier,
                 wireType(),
-                clusterName);
+                clusterName,
+                compression);
         return uberHandler(handler);
     }
 
@@ -275,7 +292,8 @@ public class UberHandler extends CspTcpHander<EngineWireNetworkContext>
             final int remoteIdentifier = hostdetails.hostId();
             final WireType wireType = clusterContext.wireType();
             final String name = clusterContext.clusterName();
-            return uberHandler(new UberHandler(localIdentifier, remoteIdentifier, wireType, name));
+            return uberHandler(new UberHandler(localIdentifier, remoteIdentifier, wireType, name,
+                    Codecs.OFFERED));
         }
     }
 }
@@ -48,6 +48,7 @@ public class RemoteKeySetView<K, V> extends VanillaKeySetView<K, V> {
     public Query<K> query() {
         return new RemoteQuery<K>((subscriber, filter, contextOperations) ->
                 mapView.registerKeySubscriber(subscriber, filter, of(
-                        BOOTSTRAP, END_SUBSCRIPTION_AFTER_BOOTSTRAP)));
+                        BOOTSTRAP, END_SUBSCRIPTION_AFTER_BOOTSTRAP)),
+                subscriber -> mapView.asset().subscription(false).unregisterSubscriber(subscriber));
     }
 }
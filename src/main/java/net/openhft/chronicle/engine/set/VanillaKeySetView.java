@@ -16,6 +16,7 @@
 
 package net.openhft.chronicle.engine.set;
 
+import net.openhft.chronicle.engine.api.map.KeyValueStore;
 import net.openhft.chronicle.engine.api.map.MapView;
 import net.openhft.chronicle.engine.api.set.KeySetView;
 import net.openhft.chronicle.engine.api.tree.Asset;
@@ -27,6 +28,7 @@ import java.util.AbstractCollection;
 import java.util.Iterator;
 import java.util.Objects;
 import java.util.Set;
+import java.util.Spliterator;
 
 /**
  * Created by peter.lawrey on 11/06/2015.
@@ -56,6 +58,19 @@ public class VanillaKeySetView<K, V> extends AbstractCollection<K> implements Ke
         return kvMapView.underlying().keySetIterator();
     }
 
+    /**
+     * splits on the segments of the store, so {@code parallelStream()} scans each segment on its
+     * own fork/join worker.
+     */
+    @NotNull
+    @Override
+    public Spliterator<K> spliterator() {
+        final KeyValueStore<K, V> kvStore = kvMapView.underlying();
+        return kvStore.segments() > 1
+                ? kvStore.keysSpliterator()
+                : KeySetView.super.spliterator();
+    }
+
     @Override
     public int hashCode() {
         int h = 0;
@@ -21,6 +21,7 @@ package net.openhft.chronicle.engine.tree;
 import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.io.Closeable;
 import net.openhft.chronicle.core.io.IORuntimeException;
+import net.openhft.chronicle.core.threads.EventLoop;
 import net.openhft.chronicle.engine.api.pubsub.Publisher;
 import net.openhft.chronicle.engine.api.pubsub.Subscriber;
 import net.openhft.chronicle.engine.api.pubsub.TopicPublisher;
@@ -70,6 +71,8 @@ public class ChronicleQueueView<T, M> implements QueueView<T, M>, SubAssetFactor
     private boolean isSource;
     private boolean isReplicating;
     private boolean dontPersist;
+    @Nullable
+    private volatile QueueFanOut<T, M> fanOut;
 
     public ChronicleQueueView(@NotNull RequestContext context, @NotNull Asset asset) {
         this(null, context, asset);
@@ -272,6 +275,25 @@ public class ChronicleQueueView<T, M> implements QueueView<T, M>, SubAssetFactor
         return () -> ChronicleQueueView.this.next(tailer, localExcept);
     }
 
+    /**
+     * @param eventLoop to add the shared tailer to, when it is first used
+     * @return the tailer shared by the subscribers of this queue
+     */
+    @NotNull
+    public QueueFanOut<T, M> fanOut(@NotNull EventLoop eventLoop) {
+        QueueFanOut<T, M> fanOut = this.fanOut;
+        if (fanOut == null) {
+            synchronized (this) {
+                fanOut = this.fanOut;
+                if (fanOut == null) {
+                    this.fanOut = fanOut = new QueueFanOut<>(this::tailer);
+                    eventLoop.addHandler(fanOut);
+                }
+            }
+        }
+        return fanOut;
+    }
+
     private Excerpt<T, M> next(ExcerptTailer excerptTailer, final LocalExcept excerpt) {
         excerpt.clear();
         try (DocumentContext dc = excerptTailer.readingDocument()) {
@@ -0,0 +1,71 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.tree;
+
+import net.openhft.chronicle.network.connection.ClientConnectionMonitor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The {@link ClientConnectionMonitor} of a remote asset tree's {@link
+ * net.openhft.chronicle.network.connection.TcpChannelHub}, which passes the connections and
+ * disconnections on to each of the listeners added, e.g. so client side state can be dropped
+ * when events may have been missed.
+ */
+public class ClientConnectionListeners implements ClientConnectionMonitor {
+    private static final Logger LOG = LoggerFactory.getLogger(ClientConnectionListeners.class);
+
+    private final List<ClientConnectionMonitor> listeners = new CopyOnWriteArrayList<>();
+
+    public void add(@NotNull ClientConnectionMonitor listener) {
+        listeners.add(listener);
+    }
+
+    public void remove(@NotNull ClientConnectionMonitor listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void onConnected(@Nullable String name, @NotNull SocketAddress socketAddress) {
+        for (ClientConnectionMonitor listener : listeners) {
+            try {
+                listener.onConnected(name, socketAddress);
+            } catch (Exception e) {
+                LOG.error("", e);
+            }
+        }
+    }
+
+    @Override
+    public void onDisconnected(@Nullable String name, @NotNull SocketAddress socketAddress) {
+        for (ClientConnectionMonitor listener : listeners) {
+            try {
+                listener.onDisconnected(name, socketAddress);
+            } catch (Exception e) {
+                LOG.error("", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.tree;
+
+import net.openhft.chronicle.core.threads.EventHandler;
+import net.openhft.chronicle.engine.api.pubsub.InvalidSubscriberException;
+import net.openhft.chronicle.engine.tree.QueueView.Excerpt;
+import net.openhft.chronicle.engine.tree.QueueView.Tailer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Fans out a queue to its subscribers with one event loop handler and one tailer, so each excerpt
+ * is read and deserialised once however many subscribers there are. The subscribers are given the
+ * same message, which they must not modify.
+ * <p>
+ * A subscriber reads the queue from the start, as it would with a tailer of its own. One which
+ * joins once the shared tailer has moved on reads on a tailer of its own until it has seen the
+ * same excerpt as the shared tailer, it is then dropped for the shared one. It reads up to {@code
+ * -Dengine.queue.catchUpBatch} excerpts, default 256, each time the shared tailer reads one, so it
+ * catches up however often the queue is written to.
+ * <p>
+ * Enabled with {@code -Dengine.queue.sharedTailer=true}
+ */
+public class QueueFanOut<T, M> implements EventHandler {
+
+    public static final boolean ENABLED = Boolean.getBoolean("engine.queue.sharedTailer");
+    static final int CATCH_UP_BATCH = Integer.getInteger("engine.queue.catchUpBatch", 256);
+    private static final Logger LOG = LoggerFactory.getLogger(QueueFanOut.class);
+
+    private final Supplier<Tailer<T, M>> tailers;
+    private final Queue<Member<T, M>> joining = new ConcurrentLinkedQueue<>();
+    // only used on the event loop thread
+    private final List<Member<T, M>> catchingUp = new ArrayList<>();
+    private final List<Member<T, M>> merged = new ArrayList<>();
+    @Nullable
+    private Tailer<T, M> shared;
+    private long lastIndex = -1;
+
+    public QueueFanOut(@NotNull Supplier<Tailer<T, M>> tailers) {
+        this.tailers = tailers;
+    }
+
+    /**
+     * @param listener  called on the event loop with each excerpt from the start of the queue
+     * @param terminate set to stop calling the listener, this is also set if it throws
+     */
+    public void add(@NotNull Listener<T, M> listener, @NotNull AtomicBoolean terminate) {
+        joining.add(new Member<>(listener, terminate));
+    }
+
+    @Override
+    public boolean action() {
+        for (Member<T, M> member; (member = joining.poll()) != null; )
+            catchingUp.add(member);
+        boolean busy = catchUp();
+        busy |= readShared();
+        return busy;
+    }
+
+    private boolean catchUp() {
+        boolean busy = false;
+        for (Iterator<Member<T, M>> it = catchingUp.iterator(); it.hasNext(); ) {
+            final Member<T, M> member = it.next();
+            for (int i = 0; i < CATCH_UP_BATCH && member.lastIndex != lastIndex; i++) {
+                if (member.terminate.get())
+                    break;
+                if (member.tailer == null)
+                    member.tailer = tailers.get();
+                final Excerpt<T, M> excerpt = member.tailer.read();
+                if (excerpt == null || excerpt.index() == -1)
+                    break;
+                member.lastIndex = excerpt.index();
+                member.dispatch(excerpt);
+                busy = true;
+            }
+            if (member.terminate.get()) {
+                it.remove();
+
+            } else if (member.lastIndex == lastIndex) {
+                // the next excerpt of the shared tailer is the next one for this member
+                member.tailer = null;
+                merged.add(member);
+                it.remove();
+                busy = true;
+            }
+        }
+        return busy;
+    }
+
+    private boolean readShared() {
+        if (merged.isEmpty())
+            return false;
+        if (shared == null)
+            shared = tailers.get();
+        final Excerpt<T, M> excerpt = shared.read();
+        if (excerpt == null || excerpt.index() == -1)
+            return false;
+        lastIndex = excerpt.index();
+        for (Iterator<Member<T, M>> it = merged.iterator(); it.hasNext(); ) {
+            final Member<T, M> member = it.next();
+            if (member.terminate.get())
+                it.remove();
+            else
+                member.dispatch(excerpt);
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of subscribers reading on the shared tailer
+     */
+    public int sharedCount() {
+        return merged.size();
+    }
+
+    @FunctionalInterface
+    public interface Listener<T, M> {
+        void onExcerpt(@NotNull Excerpt<T, M> excerpt) throws InvalidSubscriberException;
+    }
+
+    static final class Member<T, M> {
+        final Listener<T, M> listener;
+        final AtomicBoolean terminate;
+        @Nullable
+        Tailer<T, M> tailer;
+        long lastIndex = -1;
+
+        Member(Listener<T, M> listener, AtomicBoolean terminate) {
+            this.listener = listener;
+            this.terminate = terminate;
+        }
+
+        void dispatch(@NotNull Excerpt<T, M> excerpt) {
+            try {
+                listener.onExcerpt(excerpt);
+            } catch (InvalidSubscriberException e) {
+                terminate.set(true);
+            } catch (RuntimeException e) {
+                LOG.error("", e);
+                terminate.set(true);
+            }
+        }
+    }
+}
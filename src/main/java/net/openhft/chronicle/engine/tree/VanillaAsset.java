@@ -16,6 +16,7 @@
 
 package net.openhft.chronicle.engine.tree;
 
+import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.annotation.ForceInline;
 import net.openhft.chronicle.core.io.Closeable;
 import net.openhft.chronicle.core.threads.EventLoop;
@@ -34,6 +35,7 @@ import net.openhft.chronicle.engine.api.tree.*;
 import net.openhft.chronicle.engine.collection.VanillaValuesCollection;
 import net.openhft.chronicle.engine.map.*;
 import net.openhft.chronicle.engine.map.remote.*;
+import net.openhft.chronicle.engine.map.replication.ReplicationMetrics;
 import net.openhft.chronicle.engine.pubsub.*;
 import net.openhft.chronicle.engine.query.QueueSource;
 import net.openhft.chronicle.engine.session.VanillaSessionProvider;
@@ -57,6 +59,7 @@ import org.slf4j.LoggerFactory;
 import java.util.Comparator;
 import java.util.Map;
 import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.function.BiPredicate;
@@ -74,6 +77,8 @@ public class VanillaAsset implements Asset, Closeable {
     private static final BiPredicate<RequestContext, Asset> ALWAYS = (rc, asset) -> true;
     final Map<Class, Object> viewMap = new ConcurrentSkipListMap<>(CLASS_COMPARATOR);
     final ConcurrentMap<String, Asset> children = new ConcurrentSkipListMap<>();
+    // the views being created, so each type is created once while other types are created concurrently.
+    private final ConcurrentMap<Class, ViewFuture> creating = new ConcurrentHashMap<>();
     private final Asset parent;
     @NotNull
     private final String name;
@@ -108,6 +113,7 @@ public class VanillaAsset implements Asset, Closeable {
 
         addWrappingRule(Reference.class, LAST + "reference", MapReference::new, MapView.class);
         addWrappingRule(Replication.class, LAST + "replication", VanillaReplication::new, MapView.class);
+        addLeafRule(ReplicationMetrics.class, LAST + " replication metrics", ReplicationMetrics::new);
 
         addWrappingRule(ValuesCollection.class, LAST + " values", VanillaValuesCollection::new, MapView.class);
 
@@ -153,6 +159,9 @@ public class VanillaAsset implements Asset, Closeable {
                 QueueObjectSubscription::new);
 
         addView(QueueSource.class, new QueueSource(uriToHostId, true));
+        // shared by the connections, so each csp is parsed once however many clients use it.
+        addView(RequestContextInterner.class,
+                new RequestContextInterner(Integer.getInteger("engine.requestContextInterner.capacity", 4096)));
 
         queue.addLeafRule(QueueView.class, LAST + "chronicle queue", ChronicleQueueView::new);
 
@@ -165,9 +174,9 @@ public class VanillaAsset implements Asset, Closeable {
                 VanillaSubscriptionKeyValueStore::new, AuthenticatedKeyValueStore.class);
         addWrappingRule(KeySetView.class, LAST + " keySet", VanillaKeySetView::new, MapView.class);
 
-        addLeafRule(AuthenticatedKeyValueStore.class, LAST + " vanilla", VanillaKeyValueStore::new);
-        addLeafRule(SubscriptionKeyValueStore.class, LAST + " vanilla", VanillaKeyValueStore::new);
-        addLeafRule(KeyValueStore.class, LAST + " vanilla", VanillaKeyValueStore::new);
+        addLeafRule(AuthenticatedKeyValueStore.class, LAST + " vanilla", VanillaAsset::newKeyValueStore);
+        addLeafRule(SubscriptionKeyValueStore.class, LAST + " vanilla", VanillaAsset::newKeyValueStore);
+        addLeafRule(KeyValueStore.class, LAST + " vanilla", VanillaAsset::newKeyValueStore);
 
         addLeafRule(ObjectSubscription.class, LAST + " vanilla",
                 MapKVSSubscription::new);
@@ -182,6 +191,16 @@ public class VanillaAsset implements Asset, Closeable {
 
     }
 
+    /**
+     * maps of Long, Integer or Double keys and values are held off heap without boxing.
+     */
+    @NotNull
+    private static <K, V> AuthenticatedKeyValueStore<K, V> newKeyValueStore(@NotNull RequestContext rc, Asset asset) {
+        return PrimitiveKeyValueStore.isPrimitive(rc)
+                ? new PrimitiveKeyValueStore<>(rc, asset)
+                : new VanillaKeyValueStore<>(rc, asset);
+    }
+
     public void forRemoteAccess(@NotNull String[] hostPortDescriptions,
                                 @NotNull WireType wire,
                                 @NotNull VanillaSessionDetails sessionDetails,
@@ -225,9 +244,14 @@ public class VanillaAsset implements Asset, Closeable {
             // used for client fail-over
             final SocketAddressSupplier socketAddressSupplier = new SocketAddressSupplier(hostPortDescriptions, name);
 
+            final ClientConnectionListeners listeners = new ClientConnectionListeners();
+            if (clientConnectionMonitor != null)
+                listeners.add(clientConnectionMonitor);
+            addView(ClientConnectionListeners.class, listeners);
+
             TcpChannelHub view = Threads.withThreadGroup(findView(ThreadGroup.class),
                     () -> new TcpChannelHub(sessionProvider, eventLoop, wire, name.isEmpty() ? "/" : name,
-                            socketAddressSupplier, true, clientConnectionMonitor, HandlerPriority.TIMER));
+                            socketAddressSupplier, true, listeners, HandlerPriority.TIMER));
             addView(TcpChannelHub.class, view);
         }
     }
@@ -336,33 +360,60 @@ public class VanillaAsset implements Asset, Closeable {
         assert fullName().equals(rc.fullName()) :
                 "fullName=" + fullName() + " ,rc.fullName()=" + rc.fullName();
 
-        synchronized (viewMap) {
-            V view = getView(viewType);
-            if (view != null) {
-                return view;
-            }
-            return Threads.withThreadGroup(findView(ThreadGroup.class), () -> {
-                V leafView = createLeafView(viewType, rc, this);
-                if (leafView != null)
-                    return addView(viewType, leafView);
-                V wrappingView = createWrappingView(viewType, rc, this, null);
-                if (wrappingView == null)
-                    throw new AssetNotFoundException("Unable to classify " + viewType.getName() + " context: " + rc);
-                return addView(viewType, wrappingView);
-            });
+        V view = getView(viewType);
+        if (view != null)
+            return view;
+
+        ViewFuture future = new ViewFuture();
+        ViewFuture existing = creating.putIfAbsent(viewType, future);
+        if (existing != null) {
+            if (existing.await())
+                return getView(viewType);
+            throw new IllegalStateException("Cycle detected acquiring " + viewType.getName() +
+                    " for " + fullName() + ", the thread creating it is waiting on this thread");
+        }
+        try {
+            // it may have been added since the first check.
+            view = getView(viewType);
+            if (view == null)
+                view = createView(viewType, rc);
+            future.complete(null);
+            return view;
+
+        } catch (Throwable t) {
+            future.complete(t);
+            throw t;
+
+        } finally {
+            creating.remove(viewType, future);
         }
     }
 
+    private <V> V createView(@NotNull Class<V> viewType, @NotNull RequestContext rc) throws AssetNotFoundException {
+        return Threads.withThreadGroup(findView(ThreadGroup.class), () -> {
+            V view = createLeafView(viewType, rc, this);
+            if (view == null)
+                view = createWrappingView(viewType, rc, this, null);
+            if (view == null)
+                throw new AssetNotFoundException("Unable to classify " + viewType.getName() + " context: " + rc);
+            V added = addView(viewType, view);
+            // another view was registered while this one was created.
+            if (added != view)
+                Closeable.closeQuietly(view);
+            return added;
+        });
+    }
+
     @Override
     public <V> V addView(Class<V> viewType, V view) {
 
+        @SuppressWarnings("unchecked")
+        V o = (V) viewMap.putIfAbsent(viewType, view);
+        if (o != null)
+            return o;
+
         if (view instanceof KeyedView)
             keyedAsset = ((KeyedView) view).keyedView();
-
-        Object o = viewMap.putIfAbsent(viewType, view);
-        // TODO FIX tests so this works.
-//        if (o != null && !o.equals(view))
-//            throw new IllegalStateException("Attempt to replace " + viewType + " with " + view + " was " + viewMap.get(viewType));
         return view;
     }
 
@@ -504,6 +555,67 @@ public class VanillaAsset implements Asset, Closeable {
         }
     }
 
+    /**
+     * A view being created by one thread, which other threads acquiring the same type wait for.
+     */
+    static final class ViewFuture {
+        // the view each waiting thread waits for, to detect waits which would deadlock.
+        private static final Map<Thread, ViewFuture> WAITING = new ConcurrentHashMap<>();
+
+        private final Thread owner = Thread.currentThread();
+        private boolean done = false;
+        @Nullable
+        private Throwable thrown;
+
+        synchronized void complete(@Nullable Throwable thrown) {
+            this.thrown = thrown;
+            this.done = true;
+            notifyAll();
+        }
+
+        /**
+         * @return true once the view has been created, or false without waiting if the owner is
+         * waiting, directly or not, on this thread, as waiting would deadlock.
+         */
+        boolean await() {
+            Thread current = Thread.currentThread();
+            // registered before checking, so of two threads waiting on each other one sees the cycle.
+            WAITING.put(current, this);
+            boolean interrupted = false;
+            try {
+                if (waitsOn(current))
+                    return false;
+                synchronized (this) {
+                    while (!done) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+                }
+            } finally {
+                WAITING.remove(current);
+                if (interrupted)
+                    current.interrupt();
+            }
+            if (thrown != null)
+                throw Jvm.rethrow(thrown);
+            return true;
+        }
+
+        private boolean waitsOn(Thread thread) {
+            // bounded in case the waits change as they are followed.
+            ViewFuture f = this;
+            for (int i = 0; f != null && i <= WAITING.size(); i++) {
+                if (f.owner == thread)
+                    return true;
+                f = WAITING.get(f.owner);
+            }
+            return false;
+        }
+    }
+
     static class WrappingViewRecord<W, U> {
         final BiPredicate<RequestContext, Asset> predicate;
         final WrappingViewFactory<W, U> factory;
@@ -26,6 +26,8 @@ import net.openhft.chronicle.engine.api.map.MapView;
 import net.openhft.chronicle.engine.api.pubsub.Replication;
 import net.openhft.chronicle.engine.api.tree.Asset;
 import net.openhft.chronicle.engine.api.tree.RequestContext;
+import net.openhft.chronicle.engine.map.replication.MerkleTree;
+import net.openhft.chronicle.engine.map.replication.ReplicationMetrics;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -37,9 +39,13 @@ import java.util.function.Supplier;
 public class VanillaReplication implements Replication {
 
     private final MapView mapView;
+    private final Asset asset;
+    @Nullable
+    private ReplicationMetrics metrics;
 
     public VanillaReplication(final RequestContext requestContext, final Asset asset, final MapView mapView) {
         this.mapView = mapView;
+        this.asset = asset;
     }
 
     @Override
@@ -47,6 +53,13 @@ public class VanillaReplication implements Replication {
         ((KeyValueStore) mapView.underlying()).accept(replicatedEntry);
     }
 
+    @Override
+    public void applyReplication(@NotNull final Iterable<? extends ReplicationEntry> replicatedEntries) {
+        final KeyValueStore kvStore = (KeyValueStore) mapView.underlying();
+        for (ReplicationEntry replicatedEntry : replicatedEntries)
+            kvStore.accept(replicatedEntry);
+    }
+
     @Nullable
     @Override
     public ModificationIterator acquireModificationIterator(final byte id) {
@@ -54,6 +67,22 @@ public class VanillaReplication implements Replication {
         return engineReplication.acquireModificationIterator(id);
     }
 
+    @Nullable
+    @Override
+    public MerkleTree merkleTree() {
+        EngineReplication engineReplication = ((Supplier<EngineReplication>) mapView.underlying()).get();
+        return engineReplication.merkleTree();
+    }
+
+    @NotNull
+    @Override
+    public ReplicationMetrics metrics() {
+        // the view is only ever added once to the asset, so a stale null just looks it up again
+        if (metrics == null)
+            metrics = asset.acquireView(ReplicationMetrics.class);
+        return metrics;
+    }
+
     @Override
     public long lastModificationTime(final byte id) {
         EngineReplication engineReplication = ((Supplier<EngineReplication>) mapView.underlying()).get();
@@ -0,0 +1,154 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.engine.api.map.MapView;
+import net.openhft.chronicle.engine.api.map.RawValueWriter;
+import net.openhft.chronicle.engine.api.tree.AssetTree;
+import net.openhft.chronicle.engine.api.tree.LeafViewFactory;
+import net.openhft.chronicle.engine.map.AuthenticatedKeyValueStore;
+import net.openhft.chronicle.engine.map.FilePerKeyValueStore;
+import net.openhft.chronicle.engine.map.VanillaMapView;
+import net.openhft.chronicle.engine.server.ServerEndpoint;
+import net.openhft.chronicle.engine.tree.VanillaAssetTree;
+import net.openhft.chronicle.network.TCPRegistry;
+import net.openhft.chronicle.network.connection.TcpChannelHub;
+import net.openhft.chronicle.wire.BinaryWire;
+import net.openhft.chronicle.wire.Marshallable;
+import net.openhft.chronicle.wire.Wire;
+import net.openhft.chronicle.wire.WireType;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * A remote get over a BINARY connection, of values stored as bytes, copies the stored bytes to the
+ * reply. The reply must read as {@code ValueOut.object(value)} would have.
+ */
+public class RemoteRawValueGetTest extends ThreadMonitoringTest {
+
+    private static final String CONNECTION = "host.port.RemoteRawValueGetTest";
+    private final String basePath = OS.TARGET + "/rawValueGet" + System.nanoTime();
+
+    private AssetTree clientTree;
+    private VanillaAssetTree serverAssetTree;
+    private ServerEndpoint serverEndpoint;
+
+    @Before
+    public void before() throws IOException {
+        serverAssetTree = new VanillaAssetTree().forTesting(x -> t.compareAndSet(null, x));
+        serverAssetTree.root().enableTranslatingValuesToBytesStore();
+        final LeafViewFactory<AuthenticatedKeyValueStore> factory = (context, asset) ->
+                new FilePerKeyValueStore(context.basePath(basePath).wireType(WireType.BINARY), asset);
+        serverAssetTree.root().addLeafRule(AuthenticatedKeyValueStore.class, "FilePer Key", factory);
+
+        TCPRegistry.createServerSocketChannelFor(CONNECTION);
+        serverEndpoint = new ServerEndpoint(CONNECTION, serverAssetTree);
+        clientTree = new VanillaAssetTree().forRemoteAccess(CONNECTION, WireType.BINARY, x -> t.set(x));
+    }
+
+    @Override
+    public void preAfter() {
+        clientTree.close();
+        serverAssetTree.close();
+        serverEndpoint.close();
+
+        TcpChannelHub.closeAllHubs();
+        TCPRegistry.reset();
+    }
+
+    @NotNull
+    private static TestMarshallable marshallable(String name, int count) {
+        final TestMarshallable value = new TestMarshallable();
+        value.setName(new StringBuilder(name));
+        value.setCount(count);
+        return value;
+    }
+
+    private static void assertMarshallable(String name, int count, Object value) {
+        assertTrue(String.valueOf(value), value instanceof TestMarshallable);
+        assertEquals(name, ((TestMarshallable) value).getName().toString());
+        assertEquals(count, ((TestMarshallable) value).getCount());
+    }
+
+    @NotNull
+    private <V> RawValueWriter<String> rawValueWriter(MapView<String, V> serverMap) {
+        final Object underlying = ((VanillaMapView) serverMap).underlying();
+        assertTrue(underlying.getClass().getName(), underlying instanceof RawValueWriter);
+        return (RawValueWriter<String>) underlying;
+    }
+
+    @Test(timeout = 10000)
+    public void marshallableValue() {
+        final MapView<String, TestMarshallable> serverMap = serverAssetTree.acquireMap(
+                "/rawGet/marshallable", String.class, TestMarshallable.class);
+        final MapView<String, TestMarshallable> clientMap = clientTree.acquireMap(
+                "/rawGet/marshallable", String.class, TestMarshallable.class);
+
+        serverMap.put("one", marshallable("one", 1));
+        clientMap.put("two", marshallable("two", 2));
+
+        assertMarshallable("one", 1, clientMap.get("one"));
+        assertMarshallable("two", 2, clientMap.get("two"));
+        assertNull(clientMap.get("three"));
+    }
+
+    @Test
+    public void marshallableValueReadAsAnInterface() {
+        final MapView<String, TestMarshallable> serverMap = serverAssetTree.acquireMap(
+                "/rawGet/interface", String.class, TestMarshallable.class);
+        serverMap.put("one", marshallable("one", 1));
+
+        final RawValueWriter<String> writer = rawValueWriter(serverMap);
+        final Wire wire = new BinaryWire(Bytes.elasticByteBuffer());
+        assertTrue(writer.canWriteRawValue(wire));
+        writer.writeRawValue("one", wire.write(() -> "reply"));
+        writer.writeRawValue("one", wire.write(() -> "reply"));
+        writer.writeRawValue("missing", wire.write(() -> "reply"));
+
+        assertMarshallable("one", 1, wire.read(() -> "reply").object(TestMarshallable.class));
+        assertMarshallable("one", 1, wire.read(() -> "reply").object(Marshallable.class));
+        assertNull(wire.read(() -> "reply").object(TestMarshallable.class));
+    }
+
+    @Test(timeout = 10000)
+    public void stringValue() {
+        final MapView<String, String> serverMap = serverAssetTree.acquireMap(
+                "/rawGet/string", String.class, String.class);
+        final MapView<String, String> clientMap = clientTree.acquireMap(
+                "/rawGet/string", String.class, String.class);
+
+        serverMap.put("one", "value one");
+        assertEquals("value one", clientMap.get("one"));
+        assertNull(clientMap.get("two"));
+
+        final RawValueWriter<String> writer = rawValueWriter(serverMap);
+        final Wire wire = new BinaryWire(Bytes.elasticByteBuffer());
+        writer.writeRawValue("one", wire.write(() -> "reply"));
+        writer.writeRawValue("two", wire.write(() -> "reply"));
+        assertEquals("value one", wire.read(() -> "reply").object(String.class));
+        assertNull(wire.read(() -> "reply").object(String.class));
+    }
+}
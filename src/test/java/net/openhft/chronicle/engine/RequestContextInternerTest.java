@@ -0,0 +1,60 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine;
+
+import net.openhft.chronicle.engine.api.tree.RequestContext;
+import net.openhft.chronicle.engine.api.tree.RequestContextInterner;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class RequestContextInternerTest {
+
+    @Test
+    public void internReturnsTheSameSealedContext() {
+        RequestContextInterner interner = new RequestContextInterner(128);
+        RequestContext rc = interner.intern(new StringBuilder("/map?view=map&keyType=String&valueType=String"));
+        assertEquals("map", rc.name());
+        assertEquals(String.class, rc.keyType());
+        assertSame(rc, interner.intern("/map?view=map&keyType=String&valueType=String"));
+        assertEquals(1, interner.misses());
+        assertEquals(1, interner.hits());
+    }
+
+    @Test
+    public void internAllPreparsesTheUris() {
+        RequestContextInterner interner = new RequestContextInterner(128);
+        interner.internAll(Arrays.asList("/a", "/b?segments=4"));
+        assertEquals(4, interner.intern("/b?segments=4").segments());
+        interner.intern("/a");
+        assertEquals(2, interner.misses());
+        assertEquals(2, interner.hits());
+    }
+
+    @Test
+    public void evictsWhenFull() {
+        RequestContextInterner interner = new RequestContextInterner(128);
+        for (int i = 0; i < 1000; i++)
+            assertEquals("m" + i, interner.intern("/m" + i).name());
+        assertEquals(1000, interner.misses());
+        assertTrue(interner.evictions() >= 1000 - 128);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ *     Copyright (C) 2015  higherfrequencytrading.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.openhft.chronicle.engine;
+
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.core.io.IORuntimeException;
+import net.openhft.chronicle.engine.api.map.KeyValueStore;
+import net.openhft.chronicle.engine.api.tree.LeafViewFactory;
+import net.openhft.chronicle.engine.map.AuthenticatedKeyValueStore;
+import net.openhft.chronicle.engine.map.FilePerKeyValueStore;
+import net.openhft.chronicle.engine.map.VanillaMapView;
+import net.openhft.chronicle.engine.tree.VanillaAsset;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.Map;
+
+import static net.openhft.chronicle.engine.Chassis.*;
+import static net.openhft.chronicle.engine.api.tree.RequestContext.requestContext;
+import static org.junit.Assert.*;
+
+public class SegmentedFilePerKeyValueStoreTest {
+    private static final String NAME = "segmentedfileperkvstoretests";
+    private static final int SEGMENTS = 4;
+    private Map<String, String> map;
+    private FilePerKeyValueStore store;
+
+    @Before
+    public void createMap() {
+        resetChassis();
+        ((VanillaAsset) assetTree().root()).enableTranslatingValuesToBytesStore();
+
+        LeafViewFactory<AuthenticatedKeyValueStore> factory = (context, asset) ->
+                store = new FilePerKeyValueStore(context.basePath(OS.TARGET), asset);
+        assetTree().root().addLeafRule(AuthenticatedKeyValueStore.class, "FilePer Key", factory);
+
+        map = acquireMap(NAME + "?segments=" + SEGMENTS, String.class, String.class);
+        map.clear();
+    }
+
+    @After
+    public void cleanUp() {
+        map.clear();
+    }
+
+    @Test
+    public void keysAreIndexedBySegment() {
+        for (int i = 0; i < 100; i++)
+            map.put("key" + i, "value" + i);
+
+        KeyValueStore<String, String> kvStore = ((VanillaMapView<String, String>) map).underlying();
+        assertEquals(SEGMENTS, kvStore.segments());
+        assertEquals(100, map.size());
+        assertTrue(map.containsKey("key50"));
+        assertEquals("value50", map.get("key50"));
+
+        String segmentDir = OS.TARGET + "/" + NAME + "/" + kvStore.segmentFor("key50");
+        assertTrue(new File(segmentDir, "key50").isFile());
+
+        map.remove("key50");
+        assertEquals(99, map.size());
+        assertFalse(map.containsKey("key50"));
+        assertEquals(99, map.keySet().parallelStream().count());
+    }
+
+    @Test
+    public void iteratesFromTheIndex() {
+        for (int i = 0; i < 100; i++)
+            map.put("key" + i, "value" + i);
+        map.remove("key50");
+
+        int keys = 0;
+        for (Iterator<String> it = store.keySetIterator(); it.hasNext(); keys++)
+            assertNotEquals("key50", it.next());
+        assertEquals(99, keys);
+
+        int entries = 0;
+        for (Iterator<Map.Entry<String, BytesStore>> it = store.entrySetIterator(); it.hasNext(); entries++) {
+            Map.Entry<String, BytesStore> entry = it.next();
+            assertEquals(entry.getKey().replace("key", "value"), entry.getValue().toString());
+        }
+        assertEquals(99, entries);
+    }
+
+    @Test(expected = IORuntimeException.class)
+    public void cantBeReopenedWithADifferentNumberOfSegments() {
+        new FilePerKeyValueStore(requestContext(NAME + "?segments=" + (SEGMENTS + 1))
+                .basePath(OS.TARGET), assetTree().root());
+    }
+
+    @Test(expected = IORuntimeException.class)
+    public void cantBeReopenedFlat() {
+        new FilePerKeyValueStore(requestContext(NAME).basePath(OS.TARGET), assetTree().root());
+    }
+
+    @Test
+    public void aFlatStoreCantBeReopenedSegmented() throws IOException {
+        final File dir = new File(OS.TARGET, NAME + "-flat");
+        deleteDir(dir);
+        assertTrue(dir.mkdirs());
+        // as written before the number of segments was recorded.
+        Files.write(new File(dir, "key").toPath(), "value".getBytes(StandardCharsets.UTF_8));
+        try {
+            new FilePerKeyValueStore(requestContext(NAME + "-flat?segments=" + SEGMENTS)
+                    .basePath(OS.TARGET), assetTree().root());
+            fail();
+        } catch (IORuntimeException expected) {
+            // the key wouldn't be found
+        } finally {
+            deleteDir(dir);
+        }
+    }
+
+    private static void deleteDir(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null)
+            for (File file : files)
+                deleteDir(file);
+        dir.delete();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.engine.api.map.MapEvent;
+import net.openhft.chronicle.engine.api.map.MapView;
+import net.openhft.chronicle.engine.api.pubsub.Subscriber;
+import net.openhft.chronicle.engine.api.tree.AssetTree;
+import net.openhft.chronicle.engine.server.ServerEndpoint;
+import net.openhft.chronicle.engine.tree.VanillaAssetTree;
+import net.openhft.chronicle.network.TCPRegistry;
+import net.openhft.chronicle.network.connection.TcpChannelHub;
+import net.openhft.chronicle.wire.WireType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A remote subscriber which stops reading has the events over its outbound quota dropped, and is
+ * told how many it missed.
+ */
+public class SubscriptionGapTest extends ThreadMonitoringTest {
+
+    private static final String NAME = "/test/gap";
+    private static final String CONNECTION = "host.port.SubscriptionGapTest";
+    private static final int EVENTS = 10_000;
+
+    private AssetTree clientTree;
+    private VanillaAssetTree serverAssetTree;
+    private ServerEndpoint serverEndpoint;
+
+    @Before
+    public void before() throws IOException {
+        serverAssetTree = new VanillaAssetTree().forTesting(x -> t.compareAndSet(null, x));
+
+        TCPRegistry.createServerSocketChannelFor(CONNECTION);
+        serverEndpoint = new ServerEndpoint(CONNECTION, serverAssetTree);
+        clientTree = new VanillaAssetTree().forRemoteAccess(CONNECTION, WireType.BINARY, x -> t.set(x));
+    }
+
+    @Override
+    public void preAfter() {
+        clientTree.close();
+        serverAssetTree.close();
+        serverEndpoint.close();
+
+        TcpChannelHub.closeAllHubs();
+        TCPRegistry.reset();
+    }
+
+    @Test(timeout = 60000)
+    public void droppedEventsAreReportedToTheSubscriber() throws InterruptedException {
+        final MapView<String, String> serverMap = serverAssetTree.acquireMap(NAME, String.class,
+                String.class);
+        clientTree.acquireMap(NAME, String.class, String.class).size();
+
+        final CountDownLatch reading = new CountDownLatch(1);
+        final AtomicLong received = new AtomicLong();
+        final AtomicLong missed = new AtomicLong();
+        final Subscriber<MapEvent> subscriber = new Subscriber<MapEvent>() {
+            @Override
+            public void onMessage(MapEvent e) {
+                // stops reading after the first event, so the server has to hold the rest
+                if (received.getAndIncrement() == 0) {
+                    try {
+                        reading.await(20, TimeUnit.SECONDS);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+
+            @Override
+            public void onGap(long count) {
+                missed.addAndGet(count);
+            }
+        };
+        clientTree.registerSubscriber(NAME + "?bootstrap=false&outboundQuota=65536&quotaPolicy=DROP",
+                MapEvent.class, subscriber);
+        Jvm.pause(500);
+
+        final StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 2048; i++)
+            value.append((char) ('a' + i % 26));
+        for (int i = 0; i < EVENTS; i++)
+            serverMap.put("key" + i, value.toString());
+        reading.countDown();
+
+        final long end = System.currentTimeMillis() + 30_000;
+        while (received.get() + missed.get() < EVENTS && System.currentTimeMillis() < end)
+            Jvm.pause(20);
+
+        assertTrue("nothing was dropped, received=" + received, missed.get() > 0);
+        assertEquals(EVENTS, received.get() + missed.get());
+    }
+}
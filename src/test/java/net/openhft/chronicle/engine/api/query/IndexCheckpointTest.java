@@ -0,0 +1,37 @@
+package net.openhft.chronicle.engine.api.query;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+public class IndexCheckpointTest {
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        File file = File.createTempFile("index", ".checkpoint");
+        file.deleteOnExit();
+        IndexCheckpoint checkpoint = new IndexCheckpoint(file);
+
+        Map<String, long[]> indexes = new HashMap<>();
+        indexes.put("price", new long[]{1, 5, 9});
+        indexes.put("trade", new long[]{});
+        checkpoint.save(42, indexes);
+
+        Map<String, long[]> loaded = new HashMap<>();
+        long lastIndexRead = checkpoint.load(loaded::put);
+
+        Assert.assertEquals(42, lastIndexRead);
+        Assert.assertEquals(2, loaded.size());
+        Assert.assertArrayEquals(new long[]{1, 5, 9}, loaded.get("price"));
+        Assert.assertArrayEquals(new long[]{}, loaded.get("trade"));
+    }
+
+    @Test
+    public void testNoCheckpoint() throws Exception {
+        File file = new File(System.getProperty("java.io.tmpdir"), "missing-" + System.nanoTime());
+        Assert.assertEquals(0, new IndexCheckpoint(file).load((e, i) -> Assert.fail()));
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.api.query;
+
+import net.openhft.chronicle.engine.api.tree.Asset;
+import net.openhft.chronicle.engine.api.tree.RequestContext;
+import net.openhft.chronicle.engine.tree.ChronicleQueueView;
+import net.openhft.chronicle.engine.tree.QueueView;
+import net.openhft.chronicle.engine.tree.VanillaAssetTree;
+import net.openhft.chronicle.wire.AbstractMarshallable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static net.openhft.chronicle.core.Jvm.pause;
+import static org.junit.Assert.assertEquals;
+
+public class IndexQueueViewRestoreTest {
+
+    private final AtomicReference<Throwable> t = new AtomicReference<>();
+    private VanillaAssetTree tree;
+    private Asset asset;
+    private ChronicleQueueView<String, Price> queue;
+    private long a1, b1, a2;
+
+    @Before
+    public void setUp() {
+        tree = new VanillaAssetTree().forTesting(x -> t.compareAndSet(null, x));
+        String uri = "/queue/restore" + System.nanoTime() + "?dontPersist=true";
+        queue = (ChronicleQueueView<String, Price>) (QueueView) tree.acquireQueue(uri, String.class, Price.class);
+        asset = tree.acquireAsset(uri);
+        asset.addView(ValueToKey.class, (ValueToKey<Symbol, Price>) p -> new Symbol(p.symbol));
+
+        a1 = queue.publishAndIndex("price", new Price("A", 1));
+        b1 = queue.publishAndIndex("price", new Price("B", 1));
+        a2 = queue.publishAndIndex("price", new Price("A", 2));
+    }
+
+    @After
+    public void tearDown() {
+        tree.close();
+        if (t.get() != null)
+            throw new AssertionError(t.get());
+    }
+
+    @Test(timeout = 20000)
+    public void restoresTheCheckpointAndReplaysTheTail() throws Exception {
+        // a checkpoint taken after the first two prices
+        new IndexCheckpoint(new File(queue.chronicleQueue().file(), "index.checkpoint"))
+                .save(b1, Collections.singletonMap("price", new long[]{a1, b1}));
+
+        VanillaIndexQueueView<Symbol, Price> view = newView();
+        assertEquals(a2, view.indexOf("price", new Symbol("A")));
+        assertEquals(b1, view.indexOf("price", new Symbol("B")));
+    }
+
+    @Test(timeout = 20000)
+    public void replaysTheWholeQueueWhenACheckpointIndexIsMissing() throws Exception {
+        new IndexCheckpoint(new File(queue.chronicleQueue().file(), "index.checkpoint"))
+                .save(b1, Collections.singletonMap("price", new long[]{a1, a2 + 1_000_000}));
+
+        VanillaIndexQueueView<Symbol, Price> view = newView();
+        assertEquals(a2, view.indexOf("price", new Symbol("A")));
+        assertEquals(b1, view.indexOf("price", new Symbol("B")));
+    }
+
+    private VanillaIndexQueueView<Symbol, Price> newView() {
+        VanillaIndexQueueView<Symbol, Price> view = new VanillaIndexQueueView<>(
+                RequestContext.requestContext(asset.fullName()), asset, (QueueView) queue);
+        while (view.lastIndexRead() != a2)
+            pause(10);
+        return view;
+    }
+
+    static class Symbol extends AbstractMarshallable {
+        String symbol;
+
+        Symbol(String symbol) {
+            this.symbol = symbol;
+        }
+    }
+
+    static class Price extends AbstractMarshallable {
+        String symbol;
+        double price;
+
+        Price(String symbol, double price) {
+            this.symbol = symbol;
+            this.price = price;
+        }
+    }
+}
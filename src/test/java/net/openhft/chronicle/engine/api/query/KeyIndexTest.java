@@ -0,0 +1,26 @@
+package net.openhft.chronicle.engine.api.query;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class KeyIndexTest {
+
+    @Test
+    public void testLatestIndexPerKey() throws Exception {
+        KeyIndex<String> keyIndex = new KeyIndex<>();
+        for (int i = 0; i < 1000; i++)
+            keyIndex.put("key" + (i % 100), i);
+
+        Assert.assertEquals(100, keyIndex.size());
+        Assert.assertEquals(999, keyIndex.get("key99"));
+        Assert.assertEquals(900, keyIndex.get("key0"));
+        Assert.assertEquals(KeyIndex.NOT_FOUND, keyIndex.get("unknown"));
+
+        long[] indexes = keyIndex.indexes(Long.MAX_VALUE);
+        Assert.assertEquals(100, indexes.length);
+        for (int i = 0; i < indexes.length; i++)
+            Assert.assertEquals(900 + i, indexes[i]);
+
+        Assert.assertEquals(50, keyIndex.indexes(949).length);
+    }
+}
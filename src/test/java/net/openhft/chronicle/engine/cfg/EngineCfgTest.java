@@ -0,0 +1,112 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package net.openhft.chronicle.engine.cfg;
+
+import net.openhft.chronicle.engine.ThreadMonitoringTest;
+import net.openhft.chronicle.engine.api.map.MapView;
+import net.openhft.chronicle.engine.api.tree.AssetTree;
+import net.openhft.chronicle.engine.api.tree.RequestContextInterner;
+import net.openhft.chronicle.engine.server.ServerEndpoint;
+import net.openhft.chronicle.engine.tree.VanillaAssetTree;
+import net.openhft.chronicle.network.TCPRegistry;
+import net.openhft.chronicle.network.connection.TcpChannelHub;
+import net.openhft.chronicle.wire.WireIn;
+import net.openhft.chronicle.wire.WireType;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static net.openhft.chronicle.engine.api.tree.RequestContext.requestContext;
+import static org.junit.Assert.*;
+
+public class EngineCfgTest extends ThreadMonitoringTest {
+
+    private static final String NAME = "/data/map";
+    private static final String CONNECTION = "host.port.EngineCfgTest";
+
+    private final AssetTree serverTree = new VanillaAssetTree().forServer(false, x -> t.set(x));
+    private AssetTree clientTree;
+    private ServerEndpoint serverEndpoint;
+
+    @Override
+    public void preAfter() {
+        if (clientTree != null)
+            clientTree.close();
+        serverTree.close();
+        if (serverEndpoint != null)
+            serverEndpoint.close();
+
+        TcpChannelHub.closeAllHubs();
+        TCPRegistry.reset();
+    }
+
+    @Test(timeout = 20000)
+    public void installInternsTheCspsOfTheConfiguredMaps() throws Exception {
+        installMap();
+
+        final RequestContextInterner interner = serverTree.root().getView(RequestContextInterner.class);
+        assertNotNull(interner);
+        assertEquals(1, interner.misses());
+        assertEquals(0, interner.hits());
+
+        connect();
+        final MapView<String, Long> clientMap = clientTree.acquireMap(NAME, String.class, Long.class);
+        clientMap.put("a", 1L);
+        assertEquals(Long.valueOf(1L), clientMap.get("a"));
+
+        // the only csp parsed before the client connected is the map's, so a hit is a request for it
+        assertTrue("the client's csp wasn't pre-parsed, " + interner, interner.hits() > 0);
+    }
+
+    @Test
+    public void theInternedCspMatchesTheClients() throws Exception {
+        installMap();
+        final RequestContextInterner interner = serverTree.root().getView(RequestContextInterner.class);
+
+        // built as AssetTree.acquireMap and RemoteKeyValueStore build the csp of a remote map
+        final String clientCsp = requestContext(NAME).view("map").type(String.class).type2(Long.class)
+                .viewType(MapView.class)
+                .toUri();
+        interner.intern(clientCsp);
+        assertEquals(1, interner.misses());
+        assertEquals(1, interner.hits());
+    }
+
+    private void installMap() throws Exception {
+        final EngineCfg engineCfg = new EngineCfg();
+        engineCfg.installableMap.put(NAME, new Installable() {
+            @Override
+            public Object install(String path, @NotNull AssetTree assetTree) {
+                assetTree.acquireMap(path, String.class, Long.class);
+                return null;
+            }
+
+            @Override
+            public void readMarshallable(@NotNull WireIn wire) {
+            }
+        });
+        engineCfg.install("/", serverTree);
+    }
+
+    private void connect() throws IOException {
+        TCPRegistry.createServerSocketChannelFor(CONNECTION);
+        serverEndpoint = new ServerEndpoint(CONNECTION, serverTree);
+        clientTree = new VanillaAssetTree().forRemoteAccess(CONNECTION, WireType.BINARY, x -> t.set(x));
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.map;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.engine.api.tree.AssetTree;
+import net.openhft.chronicle.engine.tree.VanillaAssetTree;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static net.openhft.chronicle.engine.api.tree.RequestContext.requestContext;
+import static org.junit.Assert.*;
+
+/**
+ * The write behind mode of {@link FilePerKeyValueStore}. A key is held back by a directory of the
+ * same name, which its file can't replace, so its writes stay queued until the directory goes.
+ */
+public class FilePerKeyWriteBehindTest {
+
+    private final AtomicReference<Throwable> t = new AtomicReference<>();
+    private final String dir = OS.TARGET + "/writeBehind" + System.nanoTime();
+    private AssetTree tree;
+    private FilePerKeyValueStore store;
+
+    @Before
+    public void before() {
+        tree = new VanillaAssetTree().forTesting(x -> t.compareAndSet(null, x));
+    }
+
+    @After
+    public void after() {
+        if (store != null)
+            store.close();
+        tree.close();
+        final Throwable th = t.getAndSet(null);
+        if (th != null) throw new AssertionError(th);
+    }
+
+    private void createStore(String... blocked) throws IOException {
+        for (String key : blocked) {
+            final Path path = Paths.get(dir, key);
+            Files.createDirectories(path);
+            Files.write(path.resolve("blocker"), new byte[1]);
+        }
+        store = new FilePerKeyValueStore(requestContext(dir), tree.acquireAsset("/writeBehind"), true);
+    }
+
+    private void unblock(String key) throws IOException {
+        final Path path = Paths.get(dir, key);
+        Files.deleteIfExists(path.resolve("blocker"));
+        Files.deleteIfExists(path);
+    }
+
+    @Nullable
+    private String fileContents(String key) throws IOException {
+        final Path path = Paths.get(dir, key);
+        return Files.isRegularFile(path)
+                ? new String(Files.readAllBytes(path), StandardCharsets.ISO_8859_1)
+                : null;
+    }
+
+    @Nullable
+    private String get(String key) {
+        final BytesStore bs = store.get(key);
+        return bs == null ? null : bs.toString();
+    }
+
+    @NotNull
+    private static BytesStore value(String value) {
+        return Bytes.from(value);
+    }
+
+    @Test(timeout = 10000)
+    public void putsOfAKeyAreCoalesced() throws IOException {
+        createStore("key");
+        for (int i = 0; i < 1000; i++)
+            store.put("key", value("value" + i));
+
+        assertEquals(1, store.pendingWrites());
+        assertEquals("value999", get("key"));
+
+        unblock("key");
+        store.close();
+        assertEquals("value999", fileContents("key"));
+    }
+
+    @Test(timeout = 10000)
+    public void queuedValuesAreRead() throws IOException {
+        createStore("key");
+        store.put("key", value("queued"));
+
+        assertTrue(store.containsKey("key"));
+        assertEquals("queued", get("key"));
+        assertNull(fileContents("key"));
+
+        // still queued once the write has failed.
+        Jvm.pause(200);
+        assertEquals(1, store.pendingWrites());
+        assertEquals("queued", get("key"));
+
+        unblock("key");
+        store.close();
+        assertEquals("queued", fileContents("key"));
+    }
+
+    @Test(timeout = 10000)
+    public void removeAfterPut() throws IOException {
+        createStore("key");
+        store.put("key", value("value"));
+        store.put("other", value("value"));
+        store.remove("key");
+        store.remove("other");
+
+        assertFalse(store.containsKey("key"));
+        assertNull(get("key"));
+        assertNull(get("other"));
+
+        unblock("key");
+        store.close();
+        assertNull(fileContents("key"));
+        assertNull(fileContents("other"));
+    }
+
+    @Test(timeout = 10000)
+    public void clearDiscardsQueuedPuts() throws IOException {
+        createStore();
+        for (int i = 0; i < 100; i++)
+            store.put("key" + i, value("value" + i));
+        store.clear();
+
+        for (int i = 0; i < 100; i++)
+            assertNull(get("key" + i));
+
+        store.close();
+        for (int i = 0; i < 100; i++)
+            assertNull(fileContents("key" + i));
+    }
+
+    @Test(timeout = 10000)
+    public void queuedWritesAreListed() throws IOException {
+        createStore("key");
+        final long size = store.longSize();
+        store.put("key", value("queued"));
+
+        assertEquals(size + 1, store.longSize());
+        assertTrue(keys().contains("key"));
+        assertEquals("queued", entries().get("key"));
+
+        store.remove("key");
+        assertEquals(size, store.longSize());
+        assertFalse(keys().contains("key"));
+        assertFalse(entries().containsKey("key"));
+        unblock("key");
+    }
+
+    @NotNull
+    private Set<String> keys() {
+        final Set<String> keys = new HashSet<>();
+        store.keySetIterator().forEachRemaining(keys::add);
+        return keys;
+    }
+
+    @NotNull
+    private Map<String, String> entries() {
+        final Map<String, String> entries = new HashMap<>();
+        store.entrySetIterator().forEachRemaining(e ->
+                entries.put(e.getKey(), e.getValue() == null ? null : e.getValue().toString()));
+        return entries;
+    }
+
+    @Test(timeout = 10000)
+    public void closeWritesTheQueue() throws IOException {
+        createStore();
+        for (int i = 0; i < 1000; i++)
+            store.put("key" + i, value("value" + i));
+        store.close();
+
+        assertEquals(0, store.pendingWrites());
+        for (int i = 0; i < 1000; i++)
+            assertEquals("value" + i, fileContents("key" + i));
+    }
+}
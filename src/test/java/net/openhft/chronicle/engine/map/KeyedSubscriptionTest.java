@@ -0,0 +1,77 @@
+/*
+ *     Copyright (C) 2015  higherfrequencytrading.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.openhft.chronicle.engine.map;
+
+import net.openhft.chronicle.engine.ThreadMonitoringTest;
+import net.openhft.chronicle.engine.api.map.MapEvent;
+import net.openhft.chronicle.engine.api.map.MapView;
+import net.openhft.chronicle.engine.api.pubsub.Subscriber;
+import net.openhft.chronicle.engine.api.tree.Asset;
+import net.openhft.chronicle.engine.query.Filter;
+import net.openhft.chronicle.engine.tree.VanillaAssetTree;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.EnumSet.of;
+import static net.openhft.chronicle.engine.api.tree.RequestContext.Operation.BOOTSTRAP;
+import static org.junit.Assert.assertEquals;
+
+public class KeyedSubscriptionTest extends ThreadMonitoringTest {
+
+    @Test
+    public void onlyMatchingKeysAreNotified() {
+        VanillaAssetTree tree = new VanillaAssetTree().forTesting(x -> t.compareAndSet(null, x));
+        try {
+            MapView<String, String> map = tree.acquireMap("/keyed/map", String.class, String.class);
+            map.put("a", "bootstrapped");
+
+            List<String> events = new ArrayList<>();
+            Subscriber<MapEvent<String, String>> subscriber = e -> events.add(e.getKey() + "=" + e.getValue());
+            map.registerSubscriber(subscriber, Filter.forKeys(Arrays.asList("a", "c")), of(BOOTSTRAP));
+
+            List<String> keys = new ArrayList<>();
+            Subscriber<String> keySubscriber = keys::add;
+            map.registerKeySubscriber(keySubscriber, Filter.forKeys(Arrays.asList("b")), of(BOOTSTRAP));
+
+            map.put("a", "1");
+            map.put("b", "2");
+            map.put("c", "3");
+            map.put("d", "4");
+
+            assertEquals(Arrays.asList("a=bootstrapped", "a=1", "c=3"), events);
+            assertEquals(Arrays.asList("b"), keys);
+
+            Asset asset = tree.getAsset("/keyed/map");
+            MapKVSSubscription subscription = (MapKVSSubscription) asset.subscription(false);
+            assertEquals(1, subscription.entrySubscriberCount());
+            assertEquals(1, subscription.keySubscriberCount());
+
+            subscription.unregisterSubscriber(subscriber);
+            subscription.unregisterSubscriber(keySubscriber);
+            assertEquals(0, subscription.entrySubscriberCount());
+            assertEquals(0, subscription.keySubscriberCount());
+
+            map.put("a", "5");
+            assertEquals(3, events.size());
+        } finally {
+            tree.close();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ *     Copyright (C) 2015  higherfrequencytrading.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package net.openhft.chronicle.engine.map;
+
+import net.openhft.chronicle.engine.ThreadMonitoringTest;
+import net.openhft.chronicle.engine.api.map.MapView;
+import net.openhft.chronicle.engine.api.tree.AssetTree;
+import net.openhft.chronicle.engine.api.tree.RequestContext;
+import net.openhft.chronicle.engine.tree.VanillaAssetTree;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PrimitiveKeyValueStoreTest extends ThreadMonitoringTest {
+
+    private final AssetTree tree = new VanillaAssetTree().forTesting(x -> t.compareAndSet(null, x));
+
+    @Override
+    protected void preAfter() {
+        tree.close();
+    }
+
+    @Test
+    public void chosenForPrimitiveTypes() {
+        MapView<Integer, Integer> intMap = tree.acquireMap("ints", Integer.class, Integer.class);
+        assertTrue(intMap.underlying().underlying() instanceof PrimitiveKeyValueStore);
+
+        MapView<String, Double> mixed = tree.acquireMap("mixed", String.class, Double.class);
+        assertTrue(mixed.underlying().underlying() instanceof VanillaKeyValueStore);
+    }
+
+    @Test
+    public void randomOperationsMatchHashMap() {
+        PrimitiveKeyValueStore<Long, Long> kvs = new PrimitiveKeyValueStore<>(
+                RequestContext.requestContext("/test").type(Long.class).type2(Long.class), null);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            // a small key range forces collisions, resizing and back shifting on remove.
+            long key = random.nextInt(2_000) - 1_000;
+            if (random.nextBoolean()) {
+                long value = random.nextLong();
+                assertEquals(expected.put(key, value), kvs.getAndPut(key, value));
+            } else {
+                assertEquals(expected.remove(key), kvs.getAndRemove(key));
+            }
+        }
+        assertEquals(expected.size(), kvs.longSize());
+        for (Map.Entry<Long, Long> entry : expected.entrySet())
+            assertEquals(entry.getValue(), kvs.get(entry.getKey()));
+        kvs.close();
+    }
+
+    @Test
+    public void doubleValuesAndZeroKey() {
+        PrimitiveKeyValueStore<Integer, Double> kvs = new PrimitiveKeyValueStore<>(
+                RequestContext.requestContext("/test").type(Integer.class).type2(Double.class), null);
+        assertNull(kvs.get(0));
+        assertFalse(kvs.put(0, 1.5));
+        assertFalse(kvs.put(-1, -0.0));
+        assertEquals(1.5, kvs.get(0), 0.0);
+        assertEquals(Double.doubleToRawLongBits(-0.0), kvs.getLong(-1, 0));
+        assertTrue(kvs.containsValue(1.5));
+        assertEquals(2, kvs.longSize());
+        assertTrue(kvs.removeIfEqual(0, 1.5));
+        assertNull(kvs.get(0));
+        kvs.clear();
+        assertEquals(0, kvs.longSize());
+        kvs.close();
+    }
+
+    @Test
+    public void nanKeysAreEqualWhateverTheirPayload() {
+        PrimitiveKeyValueStore<Double, Long> kvs = new PrimitiveKeyValueStore<>(
+                RequestContext.requestContext("/test").type(Double.class).type2(Long.class), null);
+        final double otherNaN = Double.longBitsToDouble(0x7ff8000000000001L);
+        assertTrue(Double.isNaN(otherNaN));
+        kvs.put(Double.NaN, 1L);
+        assertEquals(Long.valueOf(1L), kvs.get(otherNaN));
+        kvs.put(otherNaN, 2L);
+        assertEquals(1, kvs.longSize());
+        assertEquals(Long.valueOf(2L), kvs.get(Double.NaN));
+        kvs.close();
+    }
+
+    @Test
+    public void failsCleanlyOnceClosed() {
+        PrimitiveKeyValueStore<Long, Long> kvs = new PrimitiveKeyValueStore<>(
+                RequestContext.requestContext("/test").type(Long.class).type2(Long.class), null);
+        kvs.put(1L, 2L);
+        kvs.close();
+        kvs.close();
+
+        for (Runnable op : new Runnable[]{
+                () -> kvs.get(1L),
+                () -> kvs.put(3L, 4L),
+                () -> kvs.remove(1L),
+                () -> kvs.containsKey(0L),
+                () -> kvs.longSize(),
+                () -> kvs.clear(),
+                () -> kvs.entrySetIterator()}) {
+            try {
+                op.run();
+                fail("expected the closed store to throw");
+            } catch (IllegalStateException expected) {
+                // closed
+            }
+        }
+    }
+}
@@ -38,8 +38,11 @@ import org.junit.runners.Parameterized;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.averagingInt;
 import static net.openhft.chronicle.engine.Utils.methodName;
@@ -172,5 +175,27 @@ public class QueryableKeySetTest extends ThreadMonitoringTest {
         query.filter((obj) -> obj >= 1 && obj <= 2).forEach(System.out::println);
 
     }
-}
 
+    @Test(timeout = 20000)
+    public void testStreamLimitDoesNotHoldUpTheConnection() {
+
+        final MapView<String, String> map = assetTree.acquireMap("name", String.class, String
+                .class);
+
+        final Map<String, String> entries = new HashMap<>();
+        for (int i = 0; i < 2000; i++)
+            entries.put("key" + i, "value" + i);
+        map.putAll(entries);
+
+        // more results than are read, which the connection can't wait for.
+        try (Stream<String> stream = map.keySet().query().stream()) {
+            Assert.assertEquals(5, stream.limit(5).count());
+        }
+
+        final long start = System.currentTimeMillis();
+        Assert.assertEquals(2000, map.size());
+        Assert.assertEquals("value1", map.get("key1"));
+        final long time = System.currentTimeMillis() - start;
+        Assert.assertTrue("took " + time + " ms", time < 2000);
+    }
+}
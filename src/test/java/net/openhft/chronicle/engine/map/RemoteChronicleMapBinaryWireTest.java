@@ -352,6 +352,31 @@ public class RemoteChronicleMapBinaryWireTest extends JSR166TestCase {
         }
     }
 
+    /**
+     * the entrySet iterator fetches the entries a page at a time
+     */
+    @Test(timeout = 50000)
+    public void testEntrySetIteratorPages() throws IOException {
+        try (ClosableMapSupplier<Integer, String> supplier = newIntString("test")) {
+            final Map<Integer, String> map = supplier.get();
+            final int entries = 2500;
+            final Map<Integer, String> m = new HashMap<>();
+            for (int i = 0; i < entries; i++)
+                m.put(i, "value " + i);
+            map.putAll(m);
+
+            final Map<Integer, String> copy = new HashMap<>();
+            for (Entry<Integer, String> e : map.entrySet())
+                copy.put(e.getKey(), e.getValue());
+            assertEquals(m, copy);
+
+            final Set<Integer> keys = new HashSet<>();
+            for (Integer key : map.keySet())
+                assertTrue(keys.add(key));
+            assertEquals(entries, keys.size());
+        }
+    }
+
     /**
      * putAll adds all key-value pairs from the given map
      */
@@ -33,6 +33,8 @@ import org.junit.rules.TestName;
 import java.io.IOException;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static net.openhft.chronicle.engine.Utils.methodName;
 import static net.openhft.chronicle.engine.Utils.yamlLoggger;
@@ -176,6 +178,86 @@ public class RemoteChronicleMapTextWireTest extends JSR166TestCase {
         }
     }
 
+    /**
+     * getAll returns the present keys in a single request
+     */
+    @Test(timeout = 50000)
+    public void testGetAll() throws IOException {
+        try (ClosableMapSupplier<Integer, String> supplier = map5()) {
+            final MapView<Integer, String> map = supplier.get();
+            writeMessage("example of getAll(<keys>)");
+            yamlLoggger(() -> {
+                Map<Integer, String> result = map.getAll(Arrays.asList(1, 3, 6));
+                assertEquals(2, result.size());
+                assertEquals("A", result.get(1));
+                assertEquals("C", result.get(3));
+                assertFalse(result.containsKey(6));
+            });
+        }
+    }
+
+    /**
+     * putAll, getAndPutAll and removeAll are applied as a single request
+     */
+    @Test(timeout = 50000)
+    public void testBatchPutAndRemove() throws IOException {
+        try (ClosableMapSupplier<Integer, String> supplier = map5()) {
+            final MapView<Integer, String> map = supplier.get();
+
+            Map<Integer, String> entries = new LinkedHashMap<>();
+            entries.put(6, "F");
+            entries.put(7, "G");
+            map.putAll(entries);
+            assertEquals(7, map.size());
+            assertEquals("F", map.get(6));
+
+            entries.put(1, "a");
+            writeMessage("example of getAndPutAll(<entries>)");
+            yamlLoggger(() -> {
+                Map<Integer, String> old = map.getAndPutAll(entries);
+                assertEquals("{6=F, 7=G, 1=A}", old.toString());
+            });
+            assertEquals("a", map.get(1));
+
+            writeMessage("example of getAndRemoveAll(<keys>)");
+            yamlLoggger(() -> {
+                Map<Integer, String> removed = map.getAndRemoveAll(Arrays.asList(1, 2, 8));
+                assertEquals("{1=a, 2=B}", removed.toString());
+            });
+
+            map.removeAll(Arrays.asList(3, 4));
+            assertEquals(3, map.size());
+            assertFalse(map.containsKey(3));
+        }
+    }
+
+    /**
+     * async requests are pipelined on the one connection and completed by tid
+     */
+    @Test(timeout = 50000)
+    public void testAsyncPipelined() throws Exception {
+        try (ClosableMapSupplier<Integer, String> supplier = map5()) {
+            final MapView<Integer, String> map = supplier.get();
+
+            List<CompletableFuture<String>> puts = new ArrayList<>();
+            for (int i = 10; i < 110; i++)
+                puts.add(map.putAsync(i, "v" + i));
+            for (CompletableFuture<String> put : puts)
+                assertNull(put.get(10, TimeUnit.SECONDS));
+
+            List<CompletableFuture<String>> gets = new ArrayList<>();
+            for (int i = 10; i < 110; i++)
+                gets.add(map.getAsync(i));
+            for (int i = 10; i < 110; i++)
+                assertEquals("v" + i, gets.get(i - 10).get(10, TimeUnit.SECONDS));
+
+            assertEquals("A", map.removeAsync(1).get(10, TimeUnit.SECONDS));
+            assertNull(map.getAsync(1).get(10, TimeUnit.SECONDS));
+            assertEquals(104L, (long) map.applyToAsync((m, a) -> m.longSize(), null)
+                    .get(10, TimeUnit.SECONDS));
+        }
+    }
+
     /**
      * get returns the correct element at the given key, or null if not present
      */
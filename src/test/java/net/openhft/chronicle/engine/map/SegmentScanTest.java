@@ -0,0 +1,77 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.map;
+
+import net.openhft.chronicle.engine.api.pubsub.InvalidSubscriberException;
+import net.openhft.chronicle.engine.map.SegmentScan.Scanner;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SegmentScanTest {
+
+    private static final int SEGMENTS = 16;
+    private static final int PER_SEGMENT = 1000;
+
+    // each segment holds the numbers segment * PER_SEGMENT until (segment + 1) * PER_SEGMENT
+    private static final Scanner<Integer> SCANNER = (segment, consumer) -> {
+        for (int i = segment * PER_SEGMENT; i < (segment + 1) * PER_SEGMENT; i++)
+            consumer.accept(i);
+    };
+
+    private static final long TOTAL = (long) SEGMENTS * PER_SEGMENT * (SEGMENTS * PER_SEGMENT - 1) / 2;
+
+    @Test
+    public void forEachVisitsEverySegment() throws InvalidSubscriberException {
+        LongAdder sum = new LongAdder();
+        SegmentScan.forEach(SEGMENTS, SCANNER, sum::add);
+        assertEquals(TOTAL, sum.sum());
+    }
+
+    @Test
+    public void forEachStopsOnInvalidSubscriber() {
+        AtomicInteger count = new AtomicInteger();
+        try {
+            SegmentScan.forEach(SEGMENTS, SCANNER, i -> {
+                if (count.incrementAndGet() == 10)
+                    throw new InvalidSubscriberException();
+            });
+            fail();
+        } catch (InvalidSubscriberException expected) {
+            assertTrue(count.get() < SEGMENTS * PER_SEGMENT);
+        }
+    }
+
+    @Test
+    public void spliteratorSplitsOnSegments() {
+        long parallel = StreamSupport.stream(SegmentScan.spliterator(SEGMENTS, SEGMENTS * PER_SEGMENT, SCANNER), true)
+                .mapToLong(i -> i).sum();
+        assertEquals(TOTAL, parallel);
+
+        long serial = StreamSupport.stream(SegmentScan.spliterator(SEGMENTS, SEGMENTS * PER_SEGMENT, SCANNER), false)
+                .limit(PER_SEGMENT + 1).count();
+        assertEquals(PER_SEGMENT + 1, serial);
+    }
+}
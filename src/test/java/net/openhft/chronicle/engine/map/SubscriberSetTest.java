@@ -0,0 +1,81 @@
+/*
+ *     Copyright (C) 2015  higherfrequencytrading.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.openhft.chronicle.engine.map;
+
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class SubscriberSetTest {
+
+    @Test
+    public void addRemoveReusesSlots() {
+        SubscriberSet<String> set = new SubscriberSet<>();
+        for (int i = 0; i < 100; i++)
+            assertTrue(set.add("s" + i));
+        assertFalse(set.add("s10"));
+        assertEquals(100, set.size());
+
+        for (int i = 0; i < 100; i += 2)
+            assertTrue(set.remove("s" + i));
+        assertFalse(set.remove("s0"));
+        assertEquals(50, set.size());
+
+        Set<String> seen = new TreeSet<>();
+        set.forEach(seen::add);
+        assertEquals(50, seen.size());
+        assertFalse(seen.contains("s0"));
+        assertTrue(seen.contains("s1"));
+
+        assertTrue(set.add("new"));
+        assertTrue(set.contains("new"));
+        assertEquals(51, set.size());
+    }
+
+    @Test
+    public void emptyAfterRemovingAll() {
+        SubscriberSet<String> set = new SubscriberSet<>();
+        set.add("a");
+        set.add("b");
+        set.add("c");
+        set.remove("c");
+        set.remove("a");
+        assertFalse(set.isEmpty());
+        set.remove("b");
+        assertTrue(set.isEmpty());
+        assertFalse(set.iterator().hasNext());
+
+        set.add("d");
+        assertFalse(set.isEmpty());
+        set.clear();
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void removeWhileIterating() {
+        SubscriberSet<String> set = new SubscriberSet<>();
+        set.add("a");
+        set.add("b");
+        set.add("c");
+        set.forEach(set::remove);
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.size());
+    }
+}
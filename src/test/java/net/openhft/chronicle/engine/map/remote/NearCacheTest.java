@@ -0,0 +1,100 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.map.remote;
+
+import net.openhft.chronicle.engine.map.InsertedEvent;
+import net.openhft.chronicle.engine.map.RemovedEvent;
+import net.openhft.chronicle.engine.map.UpdatedEvent;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class NearCacheTest {
+
+    @Test
+    public void evictsTheLeastRecentlyUsed() {
+        NearCache<String, String> cache = new NearCache<>(2);
+        cache.put("a", "A", cache.modCount());
+        cache.put("b", "B", cache.modCount());
+        assertEquals("A", cache.get("a"));
+        cache.put("c", "C", cache.modCount());
+
+        assertNull(cache.get("b"));
+        assertEquals("A", cache.get("a"));
+        assertEquals("C", cache.get("c"));
+        assertEquals(3, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(1, cache.evictions());
+    }
+
+    @Test
+    public void eventsUpdateOnlyCachedKeys() {
+        NearCache<String, String> cache = new NearCache<>(10);
+        cache.put("a", "A", cache.modCount());
+
+        cache.onMessage(UpdatedEvent.of("/map", "a", "A", "A2", false, true));
+        cache.onMessage(InsertedEvent.of("/map", "b", "B", false));
+        assertEquals("A2", cache.get("a"));
+        assertNull(cache.get("b"));
+
+        cache.onMessage(RemovedEvent.of("/map", "a", "A2", false));
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.invalidations());
+    }
+
+    @Test
+    public void aValueReadBeforeAnEventIsNotCached() {
+        NearCache<String, String> cache = new NearCache<>(10);
+        long modCount = cache.modCount();
+        cache.onMessage(InsertedEvent.of("/map", "a", "A2", false));
+        cache.put("a", "A", modCount);
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void nothingIsCachedWhileDisconnected() {
+        NearCache<String, String> cache = new NearCache<>(10);
+        InetSocketAddress address = new InetSocketAddress("localhost", 0);
+        cache.put("a", "A", cache.modCount());
+        cache.onDisconnected("hub", address);
+        assertNull(cache.get("a"));
+
+        cache.put("a", "A", cache.modCount());
+        assertNull(cache.get("a"));
+
+        cache.onConnected("hub", address);
+        cache.put("a", "A", cache.modCount());
+        assertEquals("A", cache.get("a"));
+    }
+
+    @Test
+    public void nothingIsCachedOnceTheSubscriptionEnds() {
+        NearCache<String, String> cache = new NearCache<>(10);
+        cache.put("a", "A", cache.modCount());
+        cache.onEndOfSubscription();
+        assertNull(cache.get("a"));
+
+        cache.put("a", "A", cache.modCount());
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+}
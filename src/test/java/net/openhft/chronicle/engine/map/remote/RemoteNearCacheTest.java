@@ -0,0 +1,125 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.map.remote;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.engine.ThreadMonitoringTest;
+import net.openhft.chronicle.engine.api.map.MapView;
+import net.openhft.chronicle.engine.api.pubsub.SubscriptionCollection;
+import net.openhft.chronicle.engine.api.tree.AssetTree;
+import net.openhft.chronicle.engine.server.ServerEndpoint;
+import net.openhft.chronicle.engine.tree.VanillaAssetTree;
+import net.openhft.chronicle.network.TCPRegistry;
+import net.openhft.chronicle.network.connection.TcpChannelHub;
+import net.openhft.chronicle.wire.WireType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * A near cache kept coherent with changes made on the server by someone else.
+ */
+public class RemoteNearCacheTest extends ThreadMonitoringTest {
+
+    private static final String NAME = "/test/nearCache";
+    private static final String CONNECTION = "host.port.RemoteNearCacheTest";
+
+    private AssetTree clientTree;
+    private VanillaAssetTree serverAssetTree;
+    private ServerEndpoint serverEndpoint;
+
+    @Before
+    public void before() throws IOException {
+        serverAssetTree = new VanillaAssetTree().forTesting(x -> t.compareAndSet(null, x));
+
+        TCPRegistry.createServerSocketChannelFor(CONNECTION);
+        serverEndpoint = new ServerEndpoint(CONNECTION, serverAssetTree);
+        clientTree = new VanillaAssetTree().forRemoteAccess(CONNECTION, WireType.BINARY, x -> t.set(x));
+    }
+
+    @Override
+    public void preAfter() {
+        clientTree.close();
+        serverAssetTree.close();
+        serverEndpoint.close();
+
+        TcpChannelHub.closeAllHubs();
+        TCPRegistry.reset();
+    }
+
+    private static void waitFor(String message, BooleanSupplier condition) {
+        final long end = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > end)
+                fail(message);
+            Jvm.pause(10);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void serverChangesInvalidateTheCache() {
+        final MapView<String, String> serverMap = serverAssetTree.acquireMap(NAME, String.class,
+                String.class);
+        final MapView<String, String> clientMap = clientTree.acquireMap(NAME + "?nearCacheSize=100",
+                String.class, String.class);
+        final NearCache nearCache = clientTree.acquireAsset(NAME).getView(NearCache.class);
+        assertNotNull(nearCache);
+
+        // the cache only stays coherent once it is subscribed
+        final SubscriptionCollection subscription = serverMap.asset().subscription(false);
+        waitFor("the near cache didn't subscribe", () -> subscription.entrySubscriberCount() > 0);
+
+        serverMap.put("a", "1");
+        assertEquals("1", clientMap.get("a"));
+        assertEquals("1", clientMap.get("a"));
+        assertEquals(1, nearCache.hits());
+
+        serverMap.put("a", "2");
+        waitFor("the update didn't reach the cache", () -> "2".equals(clientMap.get("a")));
+
+        serverMap.remove("a");
+        waitFor("the remove didn't reach the cache", () -> clientMap.get("a") == null);
+        assertFalse(clientMap.containsKey("a"));
+
+        serverMap.put("a", "3");
+        waitFor("the insert wasn't seen", () -> Objects.equals("3", clientMap.get("a")));
+    }
+
+    @Test(timeout = 20000)
+    public void applyToAsyncInvalidatesTheCache() throws InterruptedException, ExecutionException, TimeoutException {
+        final MapView<String, String> serverMap = serverAssetTree.acquireMap(NAME, String.class,
+                String.class);
+        final MapView<String, String> clientMap = clientTree.acquireMap(NAME + "?nearCacheSize=100",
+                String.class, String.class);
+
+        serverMap.put("a", "1");
+        assertEquals("1", clientMap.get("a"));
+
+        clientMap.applyToAsync((m, v) -> m.put("a", v), "2").get(10, TimeUnit.SECONDS);
+        assertEquals("2", clientMap.get("a"));
+    }
+}
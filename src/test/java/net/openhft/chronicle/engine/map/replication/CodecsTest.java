@@ -0,0 +1,117 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.map.replication;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.wire.BinaryWire;
+import net.openhft.chronicle.wire.Wire;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CodecsTest {
+
+    @Test
+    public void negotiatePicksTheFirstRegistered() {
+        assertNull(Codecs.negotiate(null));
+        assertNull(Codecs.negotiate("unknown"));
+        assertEquals("deflate", Codecs.negotiate("unknown, deflate").name());
+
+        Codecs.register(new Codec() {
+            @NotNull
+            @Override
+            public String name() {
+                return "test";
+            }
+
+            @Override
+            public void compress(@NotNull Bytes from, @NotNull Bytes to) {
+                to.write(from);
+            }
+
+            @Override
+            public void uncompress(@NotNull Bytes from, @NotNull Bytes to) {
+                to.write(from);
+            }
+        });
+        assertEquals("test", Codecs.negotiate("test,deflate").name());
+    }
+
+    @Test
+    public void deflateRoundTrip() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++)
+            sb.append("value").append(i % 10).append(',');
+
+        final Codec codec = Codecs.find("deflate");
+        assertNotNull(codec);
+        final Bytes plain = Bytes.elasticByteBuffer();
+        final Bytes packed = Bytes.elasticByteBuffer();
+        final Bytes unpacked = Bytes.elasticByteBuffer();
+        plain.append(sb);
+        final long length = plain.readRemaining();
+
+        codec.compress(plain, packed);
+        assertTrue(packed.readRemaining() < length / 5);
+
+        codec.uncompress(packed, unpacked);
+        assertEquals(sb.toString(), unpacked.toString());
+    }
+
+    @NotNull
+    private static Bootstrap sendAndReceive(@NotNull Bootstrap bootstrap) {
+        final Wire wire = new BinaryWire(Bytes.elasticByteBuffer());
+        wire.write(() -> "bootstrap").typedMarshallable(bootstrap);
+        return wire.read(() -> "bootstrap").typedMarshallable();
+    }
+
+    @Test
+    public void bootstrapHandshake() {
+        // the initiator offers its codecs
+        final Bootstrap offer = new Bootstrap();
+        offer.identifier((byte) 1);
+        offer.compression("unknown,deflate");
+        final Bootstrap offerReceived = sendAndReceive(offer);
+
+        // the acceptor picks one and reflects it back
+        final Codec chosen = Codecs.negotiate(offerReceived.compression());
+        assertNotNull(chosen);
+        final Bootstrap reply = new Bootstrap();
+        reply.identifier((byte) 2);
+        reply.compression(chosen.name());
+        final Bootstrap replyReceived = sendAndReceive(reply);
+
+        assertEquals("deflate", replyReceived.compression());
+        assertSame(chosen, Codecs.find(replyReceived.compression()));
+    }
+
+    @Test
+    public void bootstrapWithoutCompression() {
+        // as sent by a host which doesn't compress, or predates compression
+        final Bootstrap offer = new Bootstrap();
+        offer.identifier((byte) 1);
+        offer.lastUpdatedTime(1234);
+        final Bootstrap received = sendAndReceive(offer);
+
+        assertNull(received.compression());
+        assertNull(Codecs.negotiate(received.compression()));
+        assertEquals(1234, received.lastUpdatedTime());
+    }
+}
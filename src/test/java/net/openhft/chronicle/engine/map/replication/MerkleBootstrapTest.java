@@ -0,0 +1,163 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.map.replication;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.core.values.IntValue;
+import net.openhft.chronicle.engine.api.EngineReplication.ModificationIterator;
+import net.openhft.chronicle.engine.api.map.KeyValueStore;
+import net.openhft.chronicle.engine.api.tree.AssetTree;
+import net.openhft.chronicle.engine.map.CMap2EngineReplicator.VanillaReplicatedEntry;
+import net.openhft.chronicle.engine.map.FilePerKeyBasedKeyMarshallableValueStore;
+import net.openhft.chronicle.engine.map.FilePerKeyValueStore;
+import net.openhft.chronicle.engine.map.ObjectKeyValueStore;
+import net.openhft.chronicle.engine.map.VanillaEngineReplication;
+import net.openhft.chronicle.engine.map.VanillaEngineReplication.RemoteNodeReplicationState;
+import net.openhft.chronicle.engine.map.VanillaEngineReplication.ReplicationData;
+import net.openhft.chronicle.engine.tree.VanillaAssetTree;
+import net.openhft.chronicle.wire.BinaryWire;
+import net.openhft.chronicle.wire.Wire;
+import net.openhft.lang.model.DataValueClasses;
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static net.openhft.chronicle.engine.api.tree.RequestContext.requestContext;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MerkleBootstrapTest {
+
+    private final AtomicReference<Throwable> t = new AtomicReference<>();
+    private final String dir = OS.TARGET + "/merkleBootstrap" + System.nanoTime();
+    private AssetTree tree;
+
+    @Before
+    public void before() {
+        tree = new VanillaAssetTree().forTesting(x -> t.compareAndSet(null, x));
+    }
+
+    @After
+    public void after() {
+        tree.close();
+        final Throwable th = t.getAndSet(null);
+        if (th != null) throw new AssertionError(th);
+    }
+
+    @NotNull
+    private static VanillaReplicatedEntry entry(String key, String value, long timestamp) {
+        final VanillaReplicatedEntry entry = new VanillaReplicatedEntry();
+        entry.key(Bytes.from(key));
+        entry.value(Bytes.from(value));
+        entry.timestamp(timestamp);
+        entry.identifier((byte) 3);
+        return entry;
+    }
+
+    @NotNull
+    private static Set<String> dirtyKeys(@NotNull ModificationIterator mi) {
+        final Set<String> keys = new HashSet<>();
+        while (mi.nextEntry(e -> keys.add(e.key().toString()))) ;
+        return keys;
+    }
+
+    @NotNull
+    private static MerkleTree sendAndReceive(@NotNull MerkleTree tree) {
+        final Wire wire = new BinaryWire(Bytes.elasticByteBuffer());
+        wire.write(() -> "merkleTree").marshallable(tree);
+        final MerkleTree received = new MerkleTree();
+        wire.read(() -> "merkleTree").marshallable(received);
+        return received;
+    }
+
+    @NotNull
+    private FilePerKeyValueStore filePerKey(String name) {
+        final String path = dir + "/" + name;
+        return new FilePerKeyValueStore(requestContext(path), tree.acquireAsset("/merkle/" + name));
+    }
+
+    @NotNull
+    private VanillaEngineReplication<String, String, String, ObjectKeyValueStore<String, String>>
+    replication(int hostId) {
+        final String name = "/merkle/map" + hostId;
+        tree.acquireMap(name, String.class, String.class);
+        final ObjectKeyValueStore<String, String> store =
+                tree.acquireAsset(name).getView(ObjectKeyValueStore.class);
+
+        return new VanillaEngineReplication<>(
+                segment -> new FilePerKeyBasedKeyMarshallableValueStore<>(
+                        filePerKey("host" + hostId + "/data" + segment),
+                        BytesStore::toString,
+                        Bytes::from,
+                        () -> DataValueClasses.newInstance(ReplicationData.class)),
+                new FilePerKeyBasedKeyMarshallableValueStore<>(
+                        filePerKey("host" + hostId + "/state"),
+                        id -> id.getValue() + "",
+                        id -> {
+                            IntValue v = DataValueClasses.newInstance(IntValue.class);
+                            v.setValue(Integer.valueOf(id));
+                            return v;
+                        },
+                        () -> DataValueClasses.newInstance(RemoteNodeReplicationState.class)),
+                (byte) hostId,
+                store,
+                // applied underneath the store, so the change isn't seen as a local put
+                (kvStore, e) -> ((KeyValueStore<String, String>) kvStore.underlying())
+                        .put(e.key().toString(), e.value().toString()),
+                (kvStore, key) -> Bytes.from(kvStore.get(key.toString())),
+                (kvStore, key) -> kvStore.segmentFor(key.toString()),
+                Bytes::from);
+    }
+
+    @Test
+    public void onlyTheDifferingKeysAreDirtied() {
+        final VanillaEngineReplication<?, ?, ?, ?> replication1 = replication(1);
+        final VanillaEngineReplication<?, ?, ?, ?> replication2 = replication(2);
+
+        for (int i = 0; i < 10; i++) {
+            replication1.applyReplication(entry("key" + i, "value" + i, 1000));
+            replication2.applyReplication(entry("key" + i, "value" + i, 1000));
+        }
+        // the nodes have diverged on key3, and only node 2 has key10
+        replication1.applyReplication(entry("key3", "changed", 2000));
+        replication2.applyReplication(entry("key10", "value10", 1000));
+
+        final ModificationIterator mi1 = replication1.acquireModificationIterator((byte) 2);
+        final ModificationIterator mi2 = replication2.acquireModificationIterator((byte) 1);
+        dirtyKeys(mi1);
+        dirtyKeys(mi2);
+
+        final MerkleTree tree1 = replication1.merkleTree();
+        final MerkleTree tree2 = replication2.merkleTree();
+
+        assertTrue(mi1.dirtyEntries(tree1, sendAndReceive(tree2)));
+        assertTrue(mi2.dirtyEntries(tree2, sendAndReceive(tree1)));
+
+        assertEquals(new HashSet<>(Arrays.asList("key3")), dirtyKeys(mi1));
+        assertEquals(new HashSet<>(Arrays.asList("key3", "key10")), dirtyKeys(mi2));
+    }
+}
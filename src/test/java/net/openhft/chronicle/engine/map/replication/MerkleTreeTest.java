@@ -0,0 +1,82 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.map.replication;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.wire.BinaryWire;
+import net.openhft.chronicle.wire.Wire;
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+public class MerkleTreeTest {
+
+    private static long keyHash(int key) {
+        return MerkleTree.hashKey(Bytes.from("key" + key));
+    }
+
+    private static MerkleTree tree(int changedKey) {
+        MerkleTree tree = new MerkleTree(4, 16);
+        // added in a different order each time, which mustn't change the hashes
+        for (int k = changedKey < 0 ? 0 : 999; k >= 0 && k < 1000; k += changedKey < 0 ? 1 : -1)
+            tree.add(k % 4, keyHash(k), k == changedKey ? 2000 : 1000, (byte) 1, false);
+        tree.complete();
+        return tree;
+    }
+
+    @Test
+    public void onlyTheChangedLeafDiffers() {
+        final BitSet[] diff = tree(-1).diff(tree(42));
+        assertNotNull(diff);
+
+        final MerkleTree tree = tree(-1);
+        for (int s = 0; s < diff.length; s++) {
+            if (s == 42 % 4) {
+                assertNotNull(diff[s]);
+                assertEquals(1, diff[s].cardinality());
+                assertTrue(diff[s].get(tree.leafFor(keyHash(42))));
+            } else {
+                assertNull(diff[s]);
+            }
+        }
+    }
+
+    @Test
+    public void differentShapesCantBeCompared() {
+        assertNull(new MerkleTree(4, 16).diff(new MerkleTree(4, 32)));
+        assertNull(new MerkleTree(4, 16).diff(new MerkleTree(8, 16)));
+    }
+
+    @Test
+    public void marshallable() {
+        final MerkleTree tree = tree(42);
+        final Wire wire = new BinaryWire(Bytes.elasticByteBuffer());
+        wire.write(() -> "tree").marshallable(tree);
+
+        final MerkleTree tree2 = new MerkleTree();
+        wire.read(() -> "tree").marshallable(tree2);
+
+        final BitSet[] diff = tree.diff(tree2);
+        assertNotNull(diff);
+        for (BitSet leaves : diff)
+            assertNull(leaves);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.map.replication;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.engine.api.EngineReplication.ModificationIterator;
+import net.openhft.chronicle.engine.api.EngineReplication.ModificationNotifier;
+import net.openhft.chronicle.engine.api.EngineReplication.ReplicationEntry;
+import net.openhft.chronicle.engine.map.CMap2EngineReplicator.VanillaReplicatedEntry;
+import net.openhft.chronicle.wire.BinaryWire;
+import net.openhft.chronicle.wire.Wire;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelBootstrapTest {
+
+    private static final int SEGMENTS = 4;
+    private static final int ENTRIES = 1000;
+
+    @Test(timeout = 20000)
+    public void everyEntryIsSentExactlyOnce() {
+        // never drained, so it fills its queue; it mustn't hold up the shared workers
+        final ParallelBootstrap stalled = new ParallelBootstrap(new SegmentedIterator(), () -> {
+        });
+        final ParallelBootstrap bootstrap = new ParallelBootstrap(new SegmentedIterator(), () -> {
+        });
+        try {
+            final ConcurrentHashMap<Long, Integer> sent = new ConcurrentHashMap<>();
+            final Wire wire = new BinaryWire(Bytes.elasticByteBuffer());
+            final long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(15);
+            while (!bootstrap.isDone()) {
+                if (System.currentTimeMillis() > end)
+                    fail("bootstrap did not complete, sent " + sent.size());
+                if (!bootstrap.hasChunk()) {
+                    Thread.yield();
+                    continue;
+                }
+                wire.bytes().clear();
+                bootstrap.writeChunk(wire.write(() -> "replicationBatch"), e -> {
+                    sent.merge(e.key().readLong(0), 1, Integer::sum);
+                    return true;
+                });
+            }
+
+            assertEquals(SEGMENTS * ENTRIES, sent.size());
+            for (Integer count : sent.values())
+                assertEquals(1, (int) count);
+            assertTrue(stalled.hasChunk());
+
+        } finally {
+            stalled.close();
+            bootstrap.close();
+        }
+    }
+
+    /**
+     * Every entry starts dirty, the key is the segment * ENTRIES + the index in the segment.
+     */
+    static class SegmentedIterator implements ModificationIterator {
+        private final boolean[][] dirty = new boolean[SEGMENTS][ENTRIES];
+
+        SegmentedIterator() {
+            for (boolean[] segment : dirty)
+                Arrays.fill(segment, true);
+        }
+
+        @NotNull
+        private static ReplicationEntry entry(long key) {
+            final VanillaReplicatedEntry entry = new VanillaReplicatedEntry();
+            final Bytes keyBytes = Bytes.elasticByteBuffer();
+            keyBytes.writeLong(key);
+            entry.key(keyBytes);
+            entry.value(Bytes.from("value" + key));
+            entry.timestamp(1000);
+            entry.identifier((byte) 1);
+            return entry;
+        }
+
+        @Override
+        public int segments() {
+            return SEGMENTS;
+        }
+
+        @Override
+        public void forEachEntry(int segment, @NotNull Predicate<ReplicationEntry> action) {
+            final boolean[] segmentDirty = dirty[segment];
+            for (int i = 0; i < ENTRIES; i++) {
+                if (!segmentDirty[i])
+                    continue;
+                final boolean more = action.test(entry(segment * ENTRIES + i));
+                segmentDirty[i] = false;
+                if (!more)
+                    return;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean nextEntry(Consumer<ReplicationEntry> consumer) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void dirtyEntries(long fromTimeStamp) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setModificationNotifier(@NotNull ModificationNotifier modificationNotifier) {
+        }
+    }
+}
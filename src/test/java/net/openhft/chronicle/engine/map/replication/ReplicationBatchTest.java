@@ -0,0 +1,205 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.map.replication;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.engine.api.EngineReplication.ModificationIterator;
+import net.openhft.chronicle.engine.api.EngineReplication.ReplicationEntry;
+import net.openhft.chronicle.engine.api.pubsub.Replication;
+import net.openhft.chronicle.engine.map.CMap2EngineReplicator;
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.map.ChronicleMapBuilder;
+import net.openhft.chronicle.wire.BinaryWire;
+import net.openhft.chronicle.wire.TextWire;
+import net.openhft.chronicle.wire.Wire;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import static net.openhft.chronicle.hash.replication.SingleChronicleHashReplication.builder;
+import static org.junit.Assert.*;
+
+public class ReplicationBatchTest {
+
+    private static String text(@Nullable BytesStore bytes) {
+        return bytes == null ? null : new TextWire(bytes.bytesForRead()).getValueIn().text();
+    }
+
+    @Test
+    public void batchIsAppliedInOneCall() {
+        final CMap2EngineReplicator replicator = new CMap2EngineReplicator(null);
+
+        ChronicleMap<String, String> map = ChronicleMapBuilder.of(String.class, String.class).
+                replication(builder().engineReplication(replicator).createWithId((byte) 2)).create();
+        try {
+            final ModificationIterator mi = replicator.acquireModificationIterator((byte) 1);
+            for (int i = 0; i < 5; i++)
+                map.put("key" + i, "value" + i);
+
+            final Wire wire = new BinaryWire(Bytes.elasticByteBuffer());
+            ReplicationBatch.write(wire.write(() -> "batch"), wire.bytes(), mi, e -> true);
+            assertFalse(mi.hasNext());
+
+            final Received received = new Received();
+            new ReplicationBatch().readAndApply(wire.read(() -> "batch"), received);
+
+            assertEquals("[5]", received.batchSizes.toString());
+            assertEquals("{key0=value0, key1=value1, key2=value2, key3=value3, key4=value4}",
+                    received.entries.toString());
+        } finally {
+            map.close();
+        }
+    }
+
+    @Test
+    public void compressedBatchRoundTrip() {
+        final CMap2EngineReplicator replicator = new CMap2EngineReplicator(null);
+
+        ChronicleMap<String, String> map = ChronicleMapBuilder.of(String.class, String.class).
+                replication(builder().engineReplication(replicator).createWithId((byte) 2)).create();
+        try {
+            final ModificationIterator mi = replicator.acquireModificationIterator((byte) 1);
+            for (int i = 0; i < 50; i++)
+                map.put("key" + i, "a value which repeats, a value which repeats " + i);
+
+            final Codec codec = Codecs.find("deflate");
+            assertNotNull(codec);
+            final Wire wire = new BinaryWire(Bytes.elasticByteBuffer());
+            new ReplicationBatch().writeCompressed(wire.write(() -> "batch"), mi, e -> true, codec);
+            assertFalse(mi.hasNext());
+            // the keys and values alone are over 2.5 KB uncompressed
+            assertTrue(wire.bytes().readRemaining() < 2048);
+
+            final Received received = new Received();
+            new ReplicationBatch().readAndApplyCompressed(wire.read(() -> "batch"), received, codec);
+
+            assertEquals("[50]", received.batchSizes.toString());
+            assertEquals(50, received.entries.size());
+            for (int i = 0; i < 50; i++)
+                assertEquals("a value which repeats, a value which repeats " + i,
+                        received.entries.get("key" + i));
+        } finally {
+            map.close();
+        }
+    }
+
+    @Test
+    public void aBatchWithNoEntriesIsDiscarded() {
+        final CMap2EngineReplicator replicator = new CMap2EngineReplicator(null);
+
+        ChronicleMap<String, String> map = ChronicleMapBuilder.of(String.class, String.class).
+                replication(builder().engineReplication(replicator).createWithId((byte) 2)).create();
+        try {
+            final ModificationIterator mi = replicator.acquireModificationIterator((byte) 1);
+            for (int i = 0; i < 5; i++)
+                map.put("key" + i, "value" + i);
+
+            // e.g. every entry came from the host the batch is for
+            final ReplicationBatch batch = new ReplicationBatch();
+            final Wire wire = new BinaryWire(Bytes.elasticByteBuffer());
+            final long start = wire.bytes().writePosition();
+            wire.writeDocument(false, d -> batch.writeBatch(d.write(() -> "batch"), d.bytes(), mi,
+                    e -> false));
+            assertTrue(wire.bytes().writePosition() > start);
+            batch.discardIfEmpty(wire.bytes(), start);
+            assertEquals(start, wire.bytes().writePosition());
+
+            map.put("key5", "value5");
+            wire.writeDocument(false, d -> batch.writeBatch(d.write(() -> "batch"), d.bytes(), mi,
+                    e -> true));
+            batch.discardIfEmpty(wire.bytes(), start);
+            assertTrue(wire.bytes().writePosition() > start);
+        } finally {
+            map.close();
+        }
+    }
+
+    private static Bootstrap sendAndReceive(@NotNull Bootstrap bootstrap) {
+        final Wire wire = new BinaryWire(Bytes.elasticByteBuffer());
+        wire.write(() -> "bootstrap").typedMarshallable(bootstrap);
+        return wire.read(() -> "bootstrap").typedMarshallable();
+    }
+
+    @Test
+    public void batchesAreOfferedAndAcceptedInTheBootstrap() {
+        final Bootstrap offer = new Bootstrap();
+        offer.identifier((byte) 1);
+        offer.batching(true);
+        assertTrue(sendAndReceive(offer).batching());
+
+        final Bootstrap reply = new Bootstrap();
+        reply.identifier((byte) 2);
+        reply.batching(true);
+        assertTrue(sendAndReceive(reply).batching());
+    }
+
+    @Test
+    public void aHostWhichDoesntOfferBatchesGetsSingleEvents() {
+        // as sent by a host with batchEntries=1, or from before batches
+        final Bootstrap offer = new Bootstrap();
+        offer.identifier((byte) 1);
+        offer.lastUpdatedTime(1234);
+        final Bootstrap received = sendAndReceive(offer);
+
+        assertFalse(received.batching());
+        assertEquals(1234, received.lastUpdatedTime());
+    }
+
+    /**
+     * Records the entries applied, and the size of each batch they were applied in.
+     */
+    static class Received implements Replication {
+        final List<Integer> batchSizes = new ArrayList<>();
+        final TreeMap<String, String> entries = new TreeMap<>();
+
+        @Override
+        public void applyReplication(@NotNull ReplicationEntry replicatedEntry) {
+            entries.put(text(replicatedEntry.key()), text(replicatedEntry.value()));
+        }
+
+        @Override
+        public void applyReplication(@NotNull Iterable<? extends ReplicationEntry> replicatedEntries) {
+            int count = 0;
+            for (ReplicationEntry replicatedEntry : replicatedEntries) {
+                applyReplication(replicatedEntry);
+                count++;
+            }
+            batchSizes.add(count);
+        }
+
+        @Override
+        public ModificationIterator acquireModificationIterator(byte id) {
+            return null;
+        }
+
+        @Override
+        public long lastModificationTime(byte id) {
+            return 0;
+        }
+
+        @Override
+        public void setLastModificationTime(byte identifier, long timestamp) {
+        }
+    }
+}
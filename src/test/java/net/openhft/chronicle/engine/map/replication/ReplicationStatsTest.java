@@ -0,0 +1,88 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.map.replication;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.engine.map.CMap2EngineReplicator.VanillaReplicatedEntry;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReplicationStatsTest {
+
+    private static VanillaReplicatedEntry entry(String key, String value, long timestamp) {
+        VanillaReplicatedEntry entry = new VanillaReplicatedEntry();
+        entry.key(Bytes.from(key));
+        entry.value(Bytes.from(value));
+        entry.timestamp(timestamp);
+        entry.identifier((byte) 2);
+        return entry;
+    }
+
+    @Test
+    public void countsEntriesAndBytes() {
+        final ReplicationStats stats = new ReplicationStats((byte) 2);
+        final long now = System.currentTimeMillis();
+        stats.onSent(entry("key", "value", now));
+        stats.onSent(entry("k", "v", now));
+        stats.onReceived(entry("key", "value", now));
+
+        assertEquals(2, stats.getEntriesSent());
+        assertEquals(8 + 2, stats.getBytesSent());
+        assertEquals(1, stats.getEntriesReceived());
+        assertEquals(8, stats.getBytesReceived());
+    }
+
+    @Test
+    public void latencyPercentiles() {
+        final ReplicationStats stats = new ReplicationStats((byte) 2);
+        final long now = System.currentTimeMillis();
+        for (int i = 0; i < 99; i++)
+            stats.onReceived(entry("key", "value", now));
+        stats.onReceived(entry("key", "value", now - 10_000));
+
+        assertTrue(stats.getLatency50thMillis() <= 16);
+        assertTrue(stats.getLatency99thMillis() <= 16);
+        assertTrue(stats.getLatencyMaxMillis() >= 10_000);
+        assertTrue(stats.latencyPercentile(1.0) >= 10_000);
+    }
+
+    @Test
+    public void queueFullCountsTransitions() {
+        final ReplicationStats stats = new ReplicationStats((byte) 2);
+        stats.queueFull(true);
+        stats.queueFull(true);
+        stats.queueFull(false);
+        stats.queueFull(false);
+        stats.queueFull(true);
+
+        assertEquals(2, stats.getQueueFullStalls());
+    }
+
+    @Test
+    public void pendingAgeResetsWhenDrained() {
+        final ReplicationStats stats = new ReplicationStats((byte) 2);
+        assertEquals(0, stats.getOldestPendingAgeMillis());
+        stats.pending(true);
+        assertTrue(stats.getOldestPendingAgeMillis() >= 0);
+        stats.pending(false);
+        assertEquals(0, stats.getOldestPendingAgeMillis());
+    }
+}
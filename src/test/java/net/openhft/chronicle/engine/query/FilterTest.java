@@ -21,6 +21,7 @@ package net.openhft.chronicle.engine.query;
 import net.openhft.chronicle.bytes.Bytes;
 import net.openhft.chronicle.core.pool.ClassAliasPool;
 import net.openhft.chronicle.engine.ThreadMonitoringTest;
+import net.openhft.chronicle.engine.api.pubsub.InvalidSubscriberException;
 import net.openhft.chronicle.engine.api.tree.RequestContext;
 import net.openhft.chronicle.wire.BinaryWire;
 import net.openhft.chronicle.wire.TextWire;
@@ -34,8 +35,10 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * @author Rob Austin.
@@ -95,4 +98,18 @@ public class FilterTest extends ThreadMonitoringTest {
         Assert.assertEquals(Operation.OperationType.FILTER, actual.getPipeline(0).op());
     }
 
+    @Test
+    public void testFlatMapAppliesTheRestOfThePipeline() throws InvalidSubscriberException {
+        Filter<Object> filter = new Filter<>();
+        filter.<String>addFlatMap(o -> new VanillaQuery<>(Stream.of(o.toString().split(","))));
+        filter.addFilter(o -> !"b".equals(o));
+        filter.addMap(o -> o + "!");
+
+        List<Object> results = new ArrayList<>();
+        Filter.FilteredSubscriber<Object> subscriber = new Filter.FilteredSubscriber<>(filter, results::add);
+        subscriber.onMessage("a,b,c");
+
+        Assert.assertEquals(Arrays.asList("a!", "c!"), results);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,278 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.server.internal;
+
+import net.openhft.chronicle.core.threads.EventLoop;
+import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
+import net.openhft.chronicle.engine.api.tree.RequestContext.QuotaPolicy;
+import net.openhft.chronicle.engine.map.InsertedEvent;
+import net.openhft.chronicle.engine.map.UpdatedEvent;
+import net.openhft.chronicle.network.connection.WireOutPublisher;
+import net.openhft.chronicle.wire.WireOut;
+import net.openhft.chronicle.wire.WriteMarshallable;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class SubscriptionBacklogTest {
+
+    private final List<String> sent = new ArrayList<>();
+    private final AtomicBoolean canTakeMoreData = new AtomicBoolean();
+    private final AtomicBoolean disconnected = new AtomicBoolean();
+    private WireOutPublisher publisher;
+    private OutboundQuota connectionQuota;
+
+    @Before
+    public void setUp() {
+        publisher = mock(WireOutPublisher.class);
+        when(publisher.canTakeMoreData()).thenAnswer(i -> canTakeMoreData.get());
+        doAnswer(i -> sent.add(i.getArguments()[1].toString()))
+                .when(publisher).put(any(), any(WriteMarshallable.class));
+        connectionQuota = new OutboundQuota(0, mock(EventLoop.class), () -> disconnected.set(true));
+    }
+
+    @NotNull
+    private SubscriptionBacklog backlog(long quota, QuotaPolicy policy) {
+        return new SubscriptionBacklog(connectionQuota, publisher, quota, policy, false,
+                Event::new, dropped -> new Event("gap", dropped), (earlier, later) -> later);
+    }
+
+    /**
+     * as for conflate=true, where a later event of 0 cancels out the one held.
+     */
+    @NotNull
+    private SubscriptionBacklog conflatingBacklog(long quota, QuotaPolicy policy) {
+        return new SubscriptionBacklog(connectionQuota, publisher, quota, policy, true,
+                Event::new, dropped -> new Event("gap", dropped),
+                (earlier, later) -> Integer.valueOf(0).equals(later) ? null : later);
+    }
+
+    @Test
+    public void sendsStraightAwayWhenTheConnectionIsntFull() {
+        canTakeMoreData.set(true);
+        backlog(1, QuotaPolicy.DROP).offer("a", 1);
+        assertEquals("[a=1]", sent.toString());
+    }
+
+    @Test
+    public void holdsEventsUpToTheQuota() {
+        final SubscriptionBacklog backlog = backlog(1 << 20, QuotaPolicy.DROP);
+        backlog.offer("a", 1);
+        backlog.offer("a", 2);
+        assertEquals("[]", sent.toString());
+        assertTrue(connectionQuota.used() > 0);
+
+        canTakeMoreData.set(true);
+        assertTrue(backlog.drain(false));
+        assertEquals("[a=1, a=2]", sent.toString());
+        assertEquals(0, connectionQuota.used());
+    }
+
+    @Test
+    public void conflatesOverTheQuota() {
+        final SubscriptionBacklog backlog = backlog(1, QuotaPolicy.CONFLATE);
+        backlog.offer("a", 1);
+        backlog.offer("b", 1);
+        backlog.offer("a", 2);
+
+        canTakeMoreData.set(true);
+        backlog.drain(false);
+        assertEquals("[a=2, b=1]", sent.toString());
+    }
+
+    @Test
+    public void dropsOverTheQuotaWithAGap() {
+        final SubscriptionBacklog backlog = backlog(1, QuotaPolicy.DROP);
+        backlog.offer("a", 1);
+        backlog.offer("b", 1);
+        backlog.offer("a", 2);
+
+        canTakeMoreData.set(true);
+        backlog.drain(false);
+        assertEquals("[gap=3]", sent.toString());
+
+        backlog.offer("c", 1);
+        assertEquals("[gap=3, c=1]", sent.toString());
+    }
+
+    @Test
+    public void disconnectsOverTheQuota() throws InvalidEventHandlerException {
+        final SubscriptionBacklog backlog = backlog(1, QuotaPolicy.DISCONNECT);
+        backlog.offer("a", 1);
+        assertFalse(disconnected.get());
+        try {
+            backlog.action();
+            fail();
+        } catch (InvalidEventHandlerException expected) {
+            assertTrue(disconnected.get());
+        }
+        assertEquals("[]", sent.toString());
+    }
+
+    @Test
+    public void sharesTheConnectionQuota() {
+        connectionQuota = new OutboundQuota(1, mock(EventLoop.class), () -> disconnected.set(true));
+        final SubscriptionBacklog backlog = backlog(0, QuotaPolicy.DROP);
+        backlog.offer("a", 1);
+
+        canTakeMoreData.set(true);
+        backlog.drain(false);
+        assertEquals("[gap=1]", sent.toString());
+    }
+
+    @Test
+    public void conflatesWhileTheConnectionIsFull() {
+        final SubscriptionBacklog backlog = conflatingBacklog(0, QuotaPolicy.CONFLATE);
+        backlog.offer("a", 1);
+        backlog.offer("b", 1);
+        backlog.offer("a", 2);
+        backlog.offer("a", 3);
+        assertFalse(backlog.drain(false));
+        assertEquals("[]", sent.toString());
+        assertTrue(connectionQuota.used() > 0);
+
+        canTakeMoreData.set(true);
+        assertTrue(backlog.drain(false));
+        // the key keeps its place
+        assertEquals("[a=3, b=1]", sent.toString());
+        assertEquals(0, connectionQuota.used());
+        assertFalse(backlog.drain(false));
+    }
+
+    @Test
+    public void conflatingKeepsLaterKeysBehindTheEventsHeld() {
+        final SubscriptionBacklog backlog = conflatingBacklog(0, QuotaPolicy.CONFLATE);
+        backlog.offer("a", 1);
+
+        // the connection has room again, but "a" is still held so "b" must not overtake it
+        canTakeMoreData.set(true);
+        backlog.offer("b", 1);
+        assertEquals("[]", sent.toString());
+
+        backlog.drain(false);
+        assertEquals("[a=1, b=1]", sent.toString());
+    }
+
+    @Test
+    public void conflatingDropsEventsWhichCancelOut() {
+        final SubscriptionBacklog backlog = conflatingBacklog(0, QuotaPolicy.CONFLATE);
+        backlog.offer("a", 1);
+        backlog.offer("a", 0);
+        assertEquals(0, connectionQuota.used());
+
+        canTakeMoreData.set(true);
+        assertFalse(backlog.drain(false));
+        assertEquals("[]", sent.toString());
+    }
+
+    @Test
+    public void conflatingSendsEverythingHeldWhenDrainingAll() {
+        final SubscriptionBacklog backlog = conflatingBacklog(0, QuotaPolicy.CONFLATE);
+        backlog.offer("a", 1);
+        backlog.offer("b", 1);
+        backlog.offer("a", 2);
+
+        // as at the end of the subscription, even though the connection is still full
+        assertTrue(backlog.drain(true));
+        assertEquals("[a=2, b=1]", sent.toString());
+        assertEquals(0, connectionQuota.used());
+    }
+
+    @Test
+    public void conflatingStillDisconnectsOverTheQuota() throws InvalidEventHandlerException {
+        final SubscriptionBacklog backlog = conflatingBacklog(1, QuotaPolicy.DISCONNECT);
+        backlog.offer("a", 1);
+        try {
+            backlog.action();
+            fail();
+        } catch (InvalidEventHandlerException expected) {
+            assertTrue(disconnected.get());
+        }
+        assertEquals("[]", sent.toString());
+    }
+
+    @Test
+    public void conflatingStillDropsOverTheQuota() {
+        final SubscriptionBacklog backlog = conflatingBacklog(
+                2 * SubscriptionBacklog.sizeOf(1), QuotaPolicy.DROP);
+        backlog.offer("a", 1);
+        backlog.offer("a", 2);
+        backlog.offer("b", 1);
+        backlog.offer("c", 1);
+
+        canTakeMoreData.set(true);
+        backlog.drain(false);
+        assertEquals("[gap=3]", sent.toString());
+    }
+
+    @Test
+    public void conflatedEventsCountAgainstTheConnectionQuota() {
+        connectionQuota = new OutboundQuota(SubscriptionBacklog.sizeOf(1), mock(EventLoop.class),
+                () -> disconnected.set(true));
+        final SubscriptionBacklog backlog = conflatingBacklog(0, QuotaPolicy.DROP);
+        backlog.offer("a", 1);
+        backlog.offer("a", 2);
+        assertEquals(SubscriptionBacklog.sizeOf(2), connectionQuota.used());
+        backlog.offer("b", 1);
+        assertEquals(0, connectionQuota.used());
+
+        canTakeMoreData.set(true);
+        backlog.drain(false);
+        assertEquals("[gap=2]", sent.toString());
+    }
+
+    @Test
+    public void estimatesTheSizeFromTheKeyAndValues() {
+        final long small = SubscriptionBacklog.sizeOf(
+                InsertedEvent.of("/map", "k", "v", false));
+        final long large = SubscriptionBacklog.sizeOf(
+                UpdatedEvent.of("/map", "k", "v", "a much longer value than v", false, true));
+        assertTrue(small > 0);
+        assertEquals(small + "a much longer value than v".length() + 4 - 1, large);
+    }
+
+    static class Event implements WriteMarshallable {
+        private final Object key;
+        private final Object value;
+
+        Event(Object key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public void writeMarshallable(@NotNull WireOut wire) {
+            wire.write(() -> "key").object(key);
+            wire.write(() -> "value").object(value);
+        }
+
+        @NotNull
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+}
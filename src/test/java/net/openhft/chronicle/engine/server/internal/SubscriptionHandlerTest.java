@@ -0,0 +1,61 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package net.openhft.chronicle.engine.server.internal;
+
+import net.openhft.chronicle.engine.map.InsertedEvent;
+import net.openhft.chronicle.engine.map.RemovedEvent;
+import net.openhft.chronicle.engine.map.UpdatedEvent;
+import org.junit.Test;
+
+import static net.openhft.chronicle.engine.server.internal.SubscriptionHandler.conflate;
+import static org.junit.Assert.*;
+
+public class SubscriptionHandlerTest {
+
+    @Test
+    public void conflateUpdates() {
+        Object merged = conflate(UpdatedEvent.of("/map", "k", "1", "2", false, true),
+                UpdatedEvent.of("/map", "k", "2", "3", false, true));
+        assertEquals(UpdatedEvent.of("/map", "k", "1", "3", false, true), merged);
+    }
+
+    @Test
+    public void conflateInsertThenUpdate() {
+        Object merged = conflate(InsertedEvent.of("/map", "k", "1", false),
+                UpdatedEvent.of("/map", "k", "1", "2", false, true));
+        assertEquals(InsertedEvent.of("/map", "k", "2", false), merged);
+    }
+
+    @Test
+    public void conflateInsertThenRemove() {
+        assertNull(conflate(InsertedEvent.of("/map", "k", "1", false),
+                RemovedEvent.of("/map", "k", "1", false)));
+    }
+
+    @Test
+    public void conflateRemoveThenInsert() {
+        Object merged = conflate(RemovedEvent.of("/map", "k", "1", false),
+                InsertedEvent.of("/map", "k", "2", false));
+        assertEquals(UpdatedEvent.of("/map", "k", "1", "2", false, true), merged);
+    }
+
+    @Test
+    public void conflateKeys() {
+        assertEquals("k", conflate("k", "k"));
+    }
+}
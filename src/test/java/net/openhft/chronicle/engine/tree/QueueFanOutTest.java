@@ -0,0 +1,178 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.tree;
+
+import net.openhft.chronicle.engine.tree.QueueView.Excerpt;
+import net.openhft.chronicle.engine.tree.QueueView.Tailer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class QueueFanOutTest {
+
+    private final List<String> queue = new ArrayList<>();
+    private final AtomicInteger tailersCreated = new AtomicInteger();
+    private final QueueFanOut<String, String> fanOut = new QueueFanOut<>(this::tailer);
+
+    @NotNull
+    private Tailer<String, String> tailer() {
+        tailersCreated.incrementAndGet();
+        return new ListTailer();
+    }
+
+    @NotNull
+    private static List<Long> upTo(int count) {
+        final List<Long> indexes = new ArrayList<>();
+        for (long i = 0; i < count; i++)
+            indexes.add(i);
+        return indexes;
+    }
+
+    private void drain() {
+        while (fanOut.action()) ;
+    }
+
+    @Test
+    public void subscribersShareOneTailer() {
+        List<String> a = new ArrayList<>(), b = new ArrayList<>();
+        fanOut.add(e -> a.add(e.message()), new AtomicBoolean());
+        fanOut.add(e -> b.add(e.message()), new AtomicBoolean());
+        queue.addAll(Arrays.asList("1", "2", "3"));
+        drain();
+
+        assertEquals(Arrays.asList("1", "2", "3"), a);
+        assertEquals(a, b);
+        assertEquals(1, tailersCreated.get());
+        assertEquals(2, fanOut.sharedCount());
+    }
+
+    @Test
+    public void lateJoinerCatchesUpThenMerges() {
+        List<String> early = new ArrayList<>(), late = new ArrayList<>();
+        fanOut.add(e -> early.add(e.message()), new AtomicBoolean());
+        queue.addAll(Arrays.asList("1", "2"));
+        drain();
+
+        fanOut.add(e -> late.add(e.message()), new AtomicBoolean());
+        queue.add("3");
+        drain();
+        queue.add("4");
+        drain();
+
+        assertEquals(Arrays.asList("1", "2", "3", "4"), early);
+        assertEquals(early, late);
+        assertEquals(2, fanOut.sharedCount());
+    }
+
+    @Test
+    public void aFailingSubscriberIsDropped() {
+        List<String> kept = new ArrayList<>();
+        AtomicBoolean terminate = new AtomicBoolean();
+        fanOut.add(e -> kept.add(e.message()), new AtomicBoolean());
+        fanOut.add(e -> {
+            throw new IllegalStateException("bad subscriber");
+        }, terminate);
+        queue.addAll(Arrays.asList("1", "2"));
+        drain();
+
+        assertEquals(Arrays.asList("1", "2"), kept);
+        assertTrue(terminate.get());
+        assertEquals(1, fanOut.sharedCount());
+    }
+
+    @Test
+    public void lateJoinerCatchesUpWhileTheQueueIsWritten() {
+        final List<Long> first = new ArrayList<>();
+        fanOut.add(e -> first.add(e.index()), new AtomicBoolean());
+        for (int i = 0; i < 5 * QueueFanOut.CATCH_UP_BATCH; i++) {
+            queue.add("message" + i);
+            fanOut.action();
+        }
+        assertEquals(1, fanOut.sharedCount());
+
+        // written to on every action, so it only catches up by reading more than one at a time
+        final List<Long> late = new ArrayList<>();
+        fanOut.add(e -> late.add(e.index()), new AtomicBoolean());
+        int actions = 0;
+        while (fanOut.sharedCount() < 2) {
+            assertTrue("still catching up after " + actions + " actions", ++actions < 100);
+            queue.add("message" + queue.size());
+            fanOut.action();
+        }
+
+        for (int i = 0; i < 100; i++) {
+            queue.add("message" + queue.size());
+            fanOut.action();
+        }
+        drain();
+
+        assertEquals(upTo(queue.size()), first);
+        assertEquals(upTo(queue.size()), late);
+    }
+
+    static final class ListExcerpt implements Excerpt<String, String> {
+        private String message;
+        private long index = -1;
+
+        @Override
+        public String topic() {
+            return "topic";
+        }
+
+        @Override
+        public String message() {
+            return message;
+        }
+
+        @Override
+        public long index() {
+            return index;
+        }
+
+        @Override
+        public void clear() {
+            message = null;
+            index = -1;
+        }
+    }
+
+    final class ListTailer implements Tailer<String, String> {
+        private final ListExcerpt excerpt = new ListExcerpt();
+        private int next = 0;
+
+        @Nullable
+        @Override
+        public Excerpt<String, String> read() {
+            if (next >= queue.size())
+                return null;
+            excerpt.index = next;
+            excerpt.message = queue.get(next++);
+            return excerpt;
+        }
+    }
+}
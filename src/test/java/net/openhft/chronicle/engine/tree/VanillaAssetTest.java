@@ -0,0 +1,145 @@
+/*
+ *
+ *  *     Copyright (C) 2016  higherfrequencytrading.com
+ *  *
+ *  *     This program is free software: you can redistribute it and/or modify
+ *  *     it under the terms of the GNU Lesser General Public License as published by
+ *  *     the Free Software Foundation, either version 3 of the License.
+ *  *
+ *  *     This program is distributed in the hope that it will be useful,
+ *  *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  *     GNU Lesser General Public License for more details.
+ *  *
+ *  *     You should have received a copy of the GNU Lesser General Public License
+ *  *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package net.openhft.chronicle.engine.tree;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class VanillaAssetTest {
+
+    private final AtomicReference<Throwable> t = new AtomicReference<>();
+    private final VanillaAssetTree tree = new VanillaAssetTree().forTesting(x -> t.compareAndSet(null, x));
+    private final ExecutorService service = Executors.newFixedThreadPool(2);
+
+    @After
+    public void tearDown() {
+        service.shutdownNow();
+        tree.close();
+        if (t.get() != null)
+            throw new AssertionError(t.get());
+    }
+
+    @Test(timeout = 10000)
+    public void slowViewDoesNotBlockOtherViews() throws Exception {
+        VanillaAsset root = tree.root();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger created = new AtomicInteger();
+        root.addLeafRule(SlowView.class, "slow", (rc, asset) -> {
+            created.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+            return new SlowView() {
+            };
+        });
+        root.addLeafRule(FastView.class, "fast", (rc, asset) -> new FastView() {
+        });
+
+        Future<SlowView> first = service.submit(() -> root.acquireView(SlowView.class));
+        started.await();
+        Future<SlowView> second = service.submit(() -> root.acquireView(SlowView.class));
+
+        assertNotNull(root.acquireView(FastView.class));
+        assertFalse(first.isDone());
+
+        release.countDown();
+        assertSame(first.get(), second.get());
+        assertEquals(1, created.get());
+    }
+
+    @Test(timeout = 10000)
+    public void viewsAcquiringEachOtherFailFast() throws Exception {
+        VanillaAsset root = tree.root();
+        CountDownLatch inA = new CountDownLatch(1);
+        CountDownLatch inB = new CountDownLatch(1);
+        root.addLeafRule(SlowView.class, "needs fast", (rc, asset) -> {
+            inA.countDown();
+            await(inB);
+            asset.acquireView(FastView.class);
+            return new SlowView() {
+            };
+        });
+        root.addLeafRule(FastView.class, "needs slow", (rc, asset) -> {
+            inB.countDown();
+            await(inA);
+            asset.acquireView(SlowView.class);
+            return new FastView() {
+            };
+        });
+
+        Future<SlowView> slow = service.submit(() -> root.acquireView(SlowView.class));
+        Future<FastView> fast = service.submit(() -> root.acquireView(FastView.class));
+
+        assertCycle(slow);
+        assertCycle(fast);
+        assertNull(root.getView(SlowView.class));
+        assertNull(root.getView(FastView.class));
+    }
+
+    @Test
+    public void addViewReturnsTheRegisteredView() {
+        VanillaAsset root = tree.root();
+        FastView first = new FastView() {
+        };
+        assertSame(first, root.addView(FastView.class, first));
+        assertSame(first, root.addView(FastView.class, new FastView() {
+        }));
+        assertSame(first, root.acquireView(FastView.class));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void assertCycle(Future<?> future) throws InterruptedException {
+        try {
+            future.get();
+            fail("expected a cycle to be detected");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            while (cause != null && !(cause instanceof IllegalStateException))
+                cause = cause.getCause();
+            assertNotNull(e.getCause().toString(), cause);
+        }
+    }
+
+    interface SlowView {
+    }
+
+    interface FastView {
+    }
+}